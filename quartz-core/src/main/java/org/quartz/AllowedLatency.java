@@ -0,0 +1,59 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that gives how late, in milliseconds after its scheduled fire
+ * time, a {@link Job} class may still start, when the scheduler is configured
+ * with a deadline dispatch queue
+ * (<code>org.quartz.scheduler.deadlineDispatchQueueSize</code>).
+ *
+ * <p>
+ * The queue runs the fired jobs it holds earliest deadline first, the
+ * deadline being the scheduled fire time plus the allowed latency, so jobs
+ * with a short allowed latency overtake those with a long one when the
+ * thread pool cannot keep up. A job can also give its allowed latency with
+ * the {@link #JOB_DATA_KEY} entry of its trigger's or its
+ * <code>JobDetail</code>'s {@link JobDataMap}, which wins over the annotation;
+ * a job that gives none has no deadline, and runs after those that do.
+ * </p>
+ *
+ * @see ExecuteInThreadPool
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface AllowedLatency {
+
+    /**
+     * The {@link JobDataMap} key whose value is the allowed latency of a job,
+     * in milliseconds.
+     */
+    String JOB_DATA_KEY = "org.quartz.allowedLatency";
+
+    /**
+     * The allowed latency, in milliseconds.
+     */
+    long value();
+}
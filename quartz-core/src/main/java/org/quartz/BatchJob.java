@@ -0,0 +1,75 @@
+
+/* 
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz;
+
+import java.util.List;
+
+/**
+ * The interface to be implemented by <code>{@link Job}s</code> that can
+ * execute the fires of several of their triggers at once, such as the many
+ * triggers of one job that each carry a different customer in their
+ * <code>{@link JobDataMap}</code>.
+ *
+ * <p>
+ * When triggers of a <code>BatchJob</code> are acquired and fired together,
+ * the scheduler runs them as one execution, in one thread and with one job
+ * instance, passing the contexts of all of them to
+ * <code>{@link #executeBatch(List)}</code>; a trigger that fires alone is
+ * executed with <code>{@link Job#execute(JobExecutionContext)}</code> as
+ * usual. Listeners are still told of each fire, and each trigger completes
+ * as though its job had run alone, but the completions are handed to the
+ * <code>JobStore</code> together. Only triggers fired in the same acquisition
+ * form a batch, so how large batches get is bounded by
+ * <code>org.quartz.scheduler.batchTriggerAcquisitionMaxCount</code> and by
+ * the free threads of the thread pool.
+ * </p>
+ *
+ * <p>
+ * A <code>JobExecutionException</code> thrown by <code>executeBatch</code>
+ * applies to every context of the batch; a job that fails some fires only
+ * may set a result on each context instead. Fires the exception asks to be
+ * re-executed are executed again as a smaller batch.
+ * </p>
+ *
+ * @see Job
+ * @see DisallowConcurrentExecution
+ */
+public interface BatchJob extends Job {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Interface.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Called by the <code>{@link Scheduler}</code> when several
+     * <code>{@link Trigger}s</code> of the <code>Job</code> fire together,
+     * with the context of each fire, in fire time order.
+     * </p>
+     *
+     * @throws JobExecutionException
+     *           if there is an exception while executing the job.
+     */
+    void executeBatch(List<JobExecutionContext> contexts)
+        throws JobExecutionException;
+}
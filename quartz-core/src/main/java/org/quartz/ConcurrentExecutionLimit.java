@@ -0,0 +1,50 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that limits how many instances of a {@link Job} class may be
+ * executed concurrently for one {@link JobDetail} definition (in other words,
+ * for one {@link JobKey}). It generalizes {@link DisallowConcurrentExecution},
+ * which amounts to a limit of one.
+ * 
+ * <p>The limit is enforced by the {@link org.quartz.spi.JobStore} when it
+ * acquires triggers: a trigger whose job is already executing as many times
+ * as allowed is left waiting, rather than being acquired and holding a worker
+ * thread until the job may run.  The JDBC stores count the executions of all
+ * the nodes of a cluster.</p>
+ *
+ * @see DisallowConcurrentExecution
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConcurrentExecutionLimit {
+
+    /**
+     * The maximum number of concurrent executions of each job of the
+     * annotated class.
+     */
+    int value();
+}
@@ -63,6 +63,7 @@ public class CronScheduleBuilder extends ScheduleBuilder<CronTrigger> {
 
     private CronExpression cronExpression;
     private int misfireInstruction = CronTrigger.MISFIRE_INSTRUCTION_SMART_POLICY;
+    private long spreadWindow = 0;
 
     protected CronScheduleBuilder(CronExpression cronExpression) {
         if (cronExpression == null) {
@@ -86,6 +87,7 @@ public class CronScheduleBuilder extends ScheduleBuilder<CronTrigger> {
         ct.setCronExpression(cronExpression);
         ct.setTimeZone(cronExpression.getTimeZone());
         ct.setMisfireInstruction(misfireInstruction);
+        ct.setSpreadWindow(spreadWindow);
 
         return ct;
     }
@@ -325,4 +327,53 @@ public class CronScheduleBuilder extends ScheduleBuilder<CronTrigger> {
         misfireInstruction = CronTrigger.MISFIRE_INSTRUCTION_FIRE_ONCE_NOW;
         return this;
     }
+
+    /**
+     * Spread the Trigger's fire times over the given window, so that the many
+     * triggers sharing a schedule such as "0 0 * * * ?" do not all fire at
+     * once. Every fire time of the Trigger follows the time the cron
+     * expression gives by the same offset, which is derived from the
+     * Trigger's key and so does not change across restarts.
+     * 
+     * @param windowInMilliseconds
+     *            the window to spread fire times over, or 0 to not spread
+     *            them.
+     * @return the updated CronScheduleBuilder
+     * @throws IllegalArgumentException if the window is negative.
+     * @see CronTrigger#getSpreadOffset()
+     * @see CronTrigger#getSpreadWindow()
+     */
+    public CronScheduleBuilder withSpreadInMilliseconds(long windowInMilliseconds) {
+        if (windowInMilliseconds < 0) {
+            throw new IllegalArgumentException("Spread window must not be negative.");
+        }
+        spreadWindow = windowInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Spread the Trigger's fire times over the given window.
+     * 
+     * @param windowInSeconds
+     *            the window to spread fire times over, or 0 to not spread
+     *            them.
+     * @return the updated CronScheduleBuilder
+     * @see #withSpreadInMilliseconds(long)
+     */
+    public CronScheduleBuilder withSpreadInSeconds(int windowInSeconds) {
+        return withSpreadInMilliseconds(windowInSeconds * 1000L);
+    }
+
+    /**
+     * Spread the Trigger's fire times over the given window.
+     * 
+     * @param windowInMinutes
+     *            the window to spread fire times over, or 0 to not spread
+     *            them.
+     * @return the updated CronScheduleBuilder
+     * @see #withSpreadInMilliseconds(long)
+     */
+    public CronScheduleBuilder withSpreadInMinutes(int windowInMinutes) {
+        return withSpreadInMilliseconds(windowInMinutes * DateBuilder.MILLISECONDS_IN_MINUTE);
+    }
 }
@@ -203,5 +203,30 @@ public interface CronTrigger extends Trigger {
 
     public String getExpressionSummary();
 
+    /**
+     * <p>
+     * Returns the window, in milliseconds, over which the fire times of this
+     * <code>CronTrigger</code> are spread, which is 0 if they are not.
+     * </p>
+     * 
+     * @see CronScheduleBuilder#withSpreadInMilliseconds(long)
+     */
+    public default long getSpreadWindow() {
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Returns the offset, in milliseconds, by which every fire time of this
+     * <code>CronTrigger</code> follows the time its cron expression gives,
+     * which is a whole number of seconds within its spread window.
+     * </p>
+     * 
+     * @see TriggerUtils#getSpreadOffset(Trigger)
+     */
+    public default long getSpreadOffset() {
+        return 0;
+    }
+
     TriggerBuilder<CronTrigger> getTriggerBuilder();
 }
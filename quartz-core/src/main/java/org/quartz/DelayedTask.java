@@ -0,0 +1,155 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz;
+
+import java.util.Date;
+
+/**
+ * <p>
+ * A one-shot task that runs a stored <code>{@link Job}</code> once, at a
+ * given time, with a small payload.
+ * </p>
+ *
+ * <p>
+ * Delayed tasks are a lightweight alternative to a <code>{@link JobDetail}</code>
+ * and <code>{@link SimpleTrigger}</code> pair for high volumes of one-off
+ * delays, such as timeouts and retries. Many tasks share one durable job,
+ * and each task is stored as just its id, job, fire time and payload.
+ * Tasks are scheduled with
+ * <code>{@link Scheduler#scheduleDelayedTask(DelayedTask)}</code>.
+ * </p>
+ *
+ * <p>
+ * When a task runs, the <code>{@link JobExecutionContext}</code> given to
+ * its job has a <code>{@link Trigger}</code> named by the task id in the
+ * <code>{@link #DELAYED_TASK_GROUP}</code> group, and the merged
+ * <code>JobDataMap</code> holds the task id under
+ * <code>{@link #TASK_ID}</code> and the payload under
+ * <code>{@link #PAYLOAD}</code>. Listeners are not notified of delayed
+ * tasks, and a task is removed from the store before it runs, so a task
+ * runs at most once.
+ * </p>
+ */
+public class DelayedTask implements java.io.Serializable {
+
+    private static final long serialVersionUID = 4462306513487261087L;
+
+    /**
+     * The group of the triggers that delayed tasks are run with.
+     */
+    public static final String DELAYED_TASK_GROUP = "DELAYED_TASKS";
+
+    /**
+     * The key of the task id in the merged <code>JobDataMap</code> of a
+     * running delayed task.
+     */
+    public static final String TASK_ID = "delayedTaskId";
+
+    /**
+     * The key of the payload in the merged <code>JobDataMap</code> of a
+     * running delayed task.
+     */
+    public static final String PAYLOAD = "delayedTaskPayload";
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final String id;
+
+    private final JobKey jobKey;
+
+    private final long fireTime;
+
+    private final String payload;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a task that runs the identified job at the given time.
+     * </p>
+     *
+     * @param id the id of the task, unique within the scheduler
+     * @param jobKey the key of a stored, durable job
+     * @param fireTime when the task should run
+     * @param payload the data handed to the job, which may be <code>null</code>
+     */
+    public DelayedTask(String id, JobKey jobKey, Date fireTime, String payload) {
+        this(id, jobKey, fireTime == null ? 0L : fireTime.getTime(), payload);
+        if (fireTime == null) {
+            throw new IllegalArgumentException("Fire time cannot be null.");
+        }
+    }
+
+    public DelayedTask(String id, JobKey jobKey, long fireTime, String payload) {
+        if (id == null || id.trim().length() == 0) {
+            throw new IllegalArgumentException("Task id cannot be null or empty.");
+        }
+        if (jobKey == null) {
+            throw new IllegalArgumentException("Job key cannot be null.");
+        }
+        this.id = id;
+        this.jobKey = jobKey;
+        this.fireTime = fireTime;
+        this.payload = payload;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public String getId() {
+        return id;
+    }
+
+    public JobKey getJobKey() {
+        return jobKey;
+    }
+
+    public Date getFireTime() {
+        return new Date(fireTime);
+    }
+
+    public long getFireTimeMillis() {
+        return fireTime;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "DelayedTask[" + id + ", job " + jobKey + ", fire time " + getFireTime() + "]";
+    }
+}
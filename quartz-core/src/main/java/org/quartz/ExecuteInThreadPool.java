@@ -0,0 +1,54 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that names the thread pool a {@link Job} class runs in, when
+ * the scheduler is configured with named thread pools
+ * (<code>org.quartz.namedThreadPool.NAME.class</code>).
+ *
+ * <p>
+ * A job can also name its pool with the {@link #JOB_DATA_KEY} entry of its
+ * trigger's or its <code>JobDetail</code>'s {@link JobDataMap}, which wins over
+ * the annotation; a job that names no pool runs in the pool its group is
+ * assigned to, if any, or else in the scheduler's main thread pool.
+ * </p>
+ *
+ * @see DisallowConcurrentExecution
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ExecuteInThreadPool {
+
+    /**
+     * The {@link JobDataMap} key whose value names the thread pool of a job.
+     */
+    String JOB_DATA_KEY = "org.quartz.threadPoolName";
+
+    /**
+     * The name of the thread pool.
+     */
+    String value();
+}
@@ -112,7 +112,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, boolean value) {
-        String strValue = Boolean.valueOf(value).toString();
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -136,7 +136,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, char value) {
-        String strValue = Character.valueOf(value).toString();
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -160,7 +160,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, double value) {
-        String strValue = Double.toString(value);
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -184,7 +184,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, float value) {
-        String strValue = Float.toString(value);
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -208,7 +208,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, int value) {
-        String strValue = Integer.valueOf(value).toString();
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -232,7 +232,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
      * </p>
      */
     public void putAsString(String key, long value) {
-        String strValue = Long.valueOf(value).toString();
+        String strValue = String.valueOf(value);
 
         super.put(key, strValue);
     }
@@ -260,7 +260,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public int getIntFromString(String key) {
         Object obj = get(key);
 
-        return new Integer((String) obj);
+        return parseIntValue(key, (String) obj);
     }
 
     /**
@@ -275,7 +275,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
         Object obj = get(key);
 
         if(obj instanceof String) {
-            return getIntFromString(key);
+            return parseIntValue(key, (String) obj);
         } else {
             return getInt(key);
         }
@@ -292,7 +292,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public Integer getIntegerFromString(String key) {
         Object obj = get(key);
 
-        return new Integer((String) obj);
+        return Integer.valueOf(parseIntValue(key, (String) obj));
     }
 
     /**
@@ -306,7 +306,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public boolean getBooleanValueFromString(String key) {
         Object obj = get(key);
 
-        return Boolean.valueOf((String) obj);
+        return Boolean.parseBoolean((String) obj);
     }
 
     /**
@@ -322,7 +322,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
         Object obj = get(key);
 
         if(obj instanceof String) {
-            return getBooleanValueFromString(key);
+            return Boolean.parseBoolean((String) obj);
         } else {
             return getBoolean(key);
         }
@@ -381,7 +381,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public double getDoubleValueFromString(String key) {
         Object obj = get(key);
 
-        return Double.valueOf((String) obj);
+        return parseDoubleValue(key, (String) obj);
     }
 
     /**
@@ -396,7 +396,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
         Object obj = get(key);
 
         if(obj instanceof String) {
-            return getDoubleValueFromString(key);
+            return parseDoubleValue(key, (String) obj);
         } else {
             return getDouble(key);
         }
@@ -413,7 +413,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public Double getDoubleFromString(String key) {
         Object obj = get(key);
 
-        return new Double((String) obj);
+        return Double.valueOf(parseDoubleValue(key, (String) obj));
     }
 
     /**
@@ -427,7 +427,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public float getFloatValueFromString(String key) {
         Object obj = get(key);
 
-        return new Float((String) obj);
+        return parseFloatValue(key, (String) obj);
     }
 
     /**
@@ -442,7 +442,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
         Object obj = get(key);
 
         if(obj instanceof String) {
-            return getFloatValueFromString(key);
+            return parseFloatValue(key, (String) obj);
         } else {
             return getFloat(key);
         }
@@ -459,7 +459,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public Float getFloatFromString(String key) {
         Object obj = get(key);
 
-        return new Float((String) obj);
+        return Float.valueOf(parseFloatValue(key, (String) obj));
     }
 
     /**
@@ -473,7 +473,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public long getLongValueFromString(String key) {
         Object obj = get(key);
 
-        return new Long((String) obj);
+        return parseLongValue(key, (String) obj);
     }
 
     /**
@@ -488,7 +488,7 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
         Object obj = get(key);
 
         if(obj instanceof String) {
-            return getLongValueFromString(key);
+            return parseLongValue(key, (String) obj);
         } else {
             return getLong(key);
         }
@@ -505,6 +505,6 @@ public class JobDataMap extends StringKeyDirtyFlagMap implements Serializable {
     public Long getLongFromString(String key) {
         Object obj = get(key);
 
-        return new Long((String) obj);
+        return Long.valueOf(parseLongValue(key, (String) obj));
     }
 }
@@ -182,6 +182,43 @@ public interface JobExecutionContext {
 
     public Date getNextFireTime();
 
+    /**
+     * The number of scheduled fire times this execution stands for, when its
+     * trigger misfired with
+     * <code>{@link SimpleTrigger#MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES}</code>
+     * and all the fires it missed were collapsed into this one.
+     * 
+     * @return the number of missed fire times, or 0 if this execution is not
+     *         a coalesced one.
+     * @see #getFirstMissedFireTime()
+     * @see #getLastMissedFireTime()
+     */
+    public default int getMissedFireCount() {
+        return 0;
+    }
+
+    /**
+     * The first of the scheduled fire times this execution stands for.
+     * 
+     * @return the first missed fire time, or null if this execution is not a
+     *         coalesced one.
+     * @see #getMissedFireCount()
+     */
+    public default Date getFirstMissedFireTime() {
+        return null;
+    }
+
+    /**
+     * The last of the scheduled fire times this execution stands for.
+     * 
+     * @return the last missed fire time, or null if this execution is not a
+     *         coalesced one.
+     * @see #getMissedFireCount()
+     */
+    public default Date getLastMissedFireTime() {
+        return null;
+    }
+
     /**
      * Get the unique Id that identifies this particular firing instance of the
      * trigger that triggered this job execution.  It is unique to this 
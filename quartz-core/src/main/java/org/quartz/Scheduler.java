@@ -18,10 +18,16 @@
 
 package org.quartz;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.quartz.Trigger.TriggerState;
 import org.quartz.impl.matchers.GroupMatcher;
@@ -583,6 +589,35 @@ public interface Scheduler {
     void triggerJob(JobKey jobKey, JobDataMap data)
         throws SchedulerException;
 
+    /**
+     * Schedule the given <code>{@link DelayedTask}</code> to run its job once,
+     * at the task's fire time.
+     *
+     * <p>
+     * Delayed tasks must be enabled with the
+     * <code>org.quartz.scheduler.delayedTasksEnabled</code> property, and
+     * the <code>JobStore</code> must support them.
+     * </p>
+     *
+     * @throws ObjectAlreadyExistsException
+     *           if a task with the same id is already scheduled.
+     * @throws SchedulerException
+     *           if the task's job does not exist, or delayed tasks are not
+     *           enabled.
+     * @see #cancelDelayedTask(String)
+     */
+    void scheduleDelayedTask(DelayedTask task)
+        throws SchedulerException;
+
+    /**
+     * Cancel the <code>{@link DelayedTask}</code> with the given id, if it
+     * has not yet run.
+     *
+     * @return true if the task was found and cancelled.
+     */
+    boolean cancelDelayedTask(String taskId)
+        throws SchedulerException;
+
     /**
      * Pause the <code>{@link org.quartz.JobDetail}</code> with the given
      * key - by pausing all of its current <code>Trigger</code>s.
@@ -788,6 +823,77 @@ public interface Scheduler {
      */
     Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) throws SchedulerException;
 
+    /**
+     * Get one page of the keys of the <code>{@link org.quartz.JobDetail}s</code>
+     * in the matching groups, ordered by group and then by name, without
+     * building the set of every matching key.
+     *
+     * <p>
+     * To visit all matching jobs, pass <code>null</code> as
+     * <code>afterKey</code> for the first page and the last key of each page
+     * for the next, until a page holds fewer than <code>limit</code> keys.
+     * </p>
+     *
+     * <p>
+     * The order is the job store's: <code>String</code> order for the
+     * in-memory stores, and the collation of the group and name columns for
+     * JDBC stores, so the same keys may be paged in a different order by
+     * different stores. Names that the collation treats as equal, such as
+     * "A" and "a" under a case-insensitive one, are one key to such a store.
+     * </p>
+     *
+     * <p>
+     * Schedulers that cannot page by themselves cut the page from
+     * <code>{@link #getJobKeys(GroupMatcher)}</code>, in <code>String</code>
+     * order.
+     * </p>
+     *
+     * @param matcher Matcher to evaluate against known groups
+     * @param afterKey the last key of the previous page, or <code>null</code>
+     *        for the first page
+     * @param limit the maximum number of keys to return, at least 1
+     * @return the matching keys that sort after <code>afterKey</code>
+     * @throws IllegalArgumentException if <code>limit</code> is less than 1
+     * @throws SchedulerException On error
+     */
+    default List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SchedulerException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+        TreeSet<JobKey> keys = new TreeSet<JobKey>(getJobKeys(matcher));
+        List<JobKey> page = new ArrayList<JobKey>();
+        for (JobKey key : afterKey == null ? keys : keys.tailSet(afterKey, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
+    /**
+     * Get one page of the keys of the <code>{@link Trigger}s</code> in the
+     * matching groups, ordered by group and then by name.
+     *
+     * @see #getJobKeys(GroupMatcher, JobKey, int)
+     */
+    default List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws SchedulerException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+        TreeSet<TriggerKey> keys = new TreeSet<TriggerKey>(getTriggerKeys(matcher));
+        List<TriggerKey> page = new ArrayList<TriggerKey>();
+        for (TriggerKey key : afterKey == null ? keys : keys.tailSet(afterKey, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
     /**
      * Get the names of all <code>{@link Trigger}</code> groups that are paused.
      */
@@ -825,6 +931,33 @@ public interface Scheduler {
     TriggerState getTriggerState(TriggerKey triggerKey)
         throws SchedulerException;
 
+    /**
+     * Get the state, next fire time and job of each of the identified
+     * <code>{@link Trigger}s</code> with one request to the
+     * <code>JobStore</code>, rather than one per trigger.
+     *
+     * <p>
+     * Schedulers that cannot ask the <code>JobStore</code> for all of them
+     * at once look each trigger and its state up in turn.
+     * </p>
+     *
+     * @return a summary for each of the given keys that identifies a stored
+     *         trigger, keyed by trigger key; other keys are left out.
+     * @see #getTriggerState(TriggerKey)
+     */
+    default Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws SchedulerException {
+        Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>(triggerKeys.size() * 2);
+        for (TriggerKey triggerKey : triggerKeys) {
+            Trigger trigger = getTrigger(triggerKey);
+            if (trigger != null) {
+                summaries.put(trigger.getKey(), new TriggerSummary(trigger.getKey(), trigger.getJobKey(),
+                    getTriggerState(triggerKey), trigger.getNextFireTime()));
+            }
+        }
+        return summaries;
+    }
+
     /**
      * Reset the current state of the identified <code>{@link Trigger}</code>
      * from {@link TriggerState#ERROR} to {@link TriggerState#NORMAL} or
@@ -966,5 +1099,46 @@ public interface Scheduler {
      */
     void clear() throws SchedulerException;
 
+    /**
+     * Write all {@link Job}s, {@link Trigger}s (with their current fire
+     * times, and whether they are paused), {@link Calendar}s and paused
+     * trigger groups to the given stream, in a compact binary form that
+     * {@link #importSnapshot(InputStream, boolean)} can load into any
+     * scheduler and <code>JobStore</code>.
+     * 
+     * <p>The stream is flushed but not closed.  The snapshot is not taken
+     * atomically, so the scheduler should be in standby (or otherwise not
+     * changing) while it is exported.</p>
+     * 
+     * @throws SchedulerException
+     *           if the data cannot be written to the stream, or the
+     *           scheduler does not support snapshots, as by default.
+     */
+    default void exportSnapshot(OutputStream out) throws SchedulerException {
+        throw new SchedulerException("Snapshots are not supported by this scheduler.");
+    }
+
+    /**
+     * Load a snapshot written by {@link #exportSnapshot(OutputStream)}.
+     * 
+     * <p>Jobs and triggers are stored in batches, and the triggers keep the
+     * fire times they had when they were exported rather than having them
+     * computed again.  No {@link SchedulerListener}s are notified of the
+     * individual jobs and triggers.  If loading fails part way, the batches
+     * already stored remain in the scheduler.</p>
+     * 
+     * <p>If any of the jobs, triggers or calendars already exist and the
+     * replace parameter is not set to true then an exception will be
+     * thrown.</p>
+     * 
+     * @throws ObjectAlreadyExistsException if a job, trigger or calendar
+     * already exists and the replace flag is not set to true.
+     * @throws SchedulerException if the stream is not a valid snapshot, or
+     * the scheduler does not support snapshots, as by default.
+     */
+    default void importSnapshot(InputStream in, boolean replace) throws SchedulerException {
+        throw new SchedulerException("Snapshots are not supported by this scheduler.");
+    }
+
 
 }
@@ -60,6 +60,7 @@ public class SimpleScheduleBuilder extends ScheduleBuilder<SimpleTrigger> {
     private long interval = 0;
     private int repeatCount = 0;
     private int misfireInstruction = SimpleTrigger.MISFIRE_INSTRUCTION_SMART_POLICY;
+    private long spreadWindow = 0;
     
     protected SimpleScheduleBuilder() {
     }
@@ -264,6 +265,7 @@ public class SimpleScheduleBuilder extends ScheduleBuilder<SimpleTrigger> {
         st.setRepeatInterval(interval);
         st.setRepeatCount(repeatCount);
         st.setMisfireInstruction(misfireInstruction);
+        st.setSpreadWindow(spreadWindow);
         
         return st;
     }
@@ -426,4 +428,62 @@ public class SimpleScheduleBuilder extends ScheduleBuilder<SimpleTrigger> {
         return this;
     }
 
+    /**
+     * If the Trigger misfires, use the 
+     * {@link SimpleTrigger#MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES} instruction.
+     * 
+     * @return the updated SimpleScheduleBuilder
+     * @see SimpleTrigger#MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES
+     */
+    public SimpleScheduleBuilder withMisfireHandlingInstructionCoalesceMissedFires() {
+        misfireInstruction = SimpleTrigger.MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES;
+        return this;
+    }
+
+    /**
+     * Spread the Trigger's fire times over the given window, so that the many
+     * triggers started at the same time with the same interval do not all
+     * fire at once. Every fire time of the Trigger follows the time its start
+     * time and interval give by the same offset, which is derived from the
+     * Trigger's key and so does not change across restarts.
+     * 
+     * @param windowInMilliseconds the window to spread fire times over, or 0
+     *        to not spread them.
+     * @return the updated SimpleScheduleBuilder
+     * @throws IllegalArgumentException if the window is negative.
+     * @see SimpleTrigger#getSpreadOffset()
+     * @see SimpleTrigger#getSpreadWindow()
+     */
+    public SimpleScheduleBuilder withSpreadInMilliseconds(long windowInMilliseconds) {
+        if (windowInMilliseconds < 0) {
+            throw new IllegalArgumentException("Spread window must not be negative.");
+        }
+        this.spreadWindow = windowInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Spread the Trigger's fire times over the given window.
+     * 
+     * @param windowInSeconds the window to spread fire times over, or 0 to
+     *        not spread them.
+     * @return the updated SimpleScheduleBuilder
+     * @see #withSpreadInMilliseconds(long)
+     */
+    public SimpleScheduleBuilder withSpreadInSeconds(int windowInSeconds) {
+        return withSpreadInMilliseconds(windowInSeconds * 1000L);
+    }
+
+    /**
+     * Spread the Trigger's fire times over the given window.
+     * 
+     * @param windowInMinutes the window to spread fire times over, or 0 to
+     *        not spread them.
+     * @return the updated SimpleScheduleBuilder
+     * @see #withSpreadInMilliseconds(long)
+     */
+    public SimpleScheduleBuilder withSpreadInMinutes(int windowInMinutes) {
+        return withSpreadInMilliseconds(windowInMinutes * DateBuilder.MILLISECONDS_IN_MINUTE);
+    }
+
 }
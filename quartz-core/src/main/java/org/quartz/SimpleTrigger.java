@@ -58,6 +58,13 @@ public interface SimpleTrigger extends Trigger {
      * </p>
      * 
      * <p>
+     * If the trigger has a spread window, 'now' becomes the new start-time,
+     * and the trigger fires its spread offset after it, as it would from any
+     * start-time; so triggers that misfired together are not all fired at
+     * the same moment.  The end-time is checked against that fire time.
+     * </p>
+     * 
+     * <p>
      * <i>NOTE:</i> Use of this instruction causes the trigger to 'forget'
      * the start-time and repeat-count that it was originally setup with (this
      * is only an issue if you for some reason wanted to be able to tell what
@@ -78,6 +85,13 @@ public interface SimpleTrigger extends Trigger {
      * </p>
      * 
      * <p>
+     * If the trigger has a spread window, 'now' becomes the new start-time,
+     * and the trigger fires its spread offset after it, as it would from any
+     * start-time; so triggers that misfired together are not all fired at
+     * the same moment.  The end-time is checked against that fire time.
+     * </p>
+     * 
+     * <p>
      * <i>NOTE:</i> Use of this instruction causes the trigger to 'forget'
      * the start-time and repeat-count that it was originally setup with.
      * Instead, the repeat count on the trigger will be changed to whatever
@@ -126,6 +140,27 @@ public interface SimpleTrigger extends Trigger {
      * </p>
      */
     public static final int MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT = 5;
+
+    /**
+     * <p>
+     * Instructs the <code>{@link Scheduler}</code> that upon a mis-fire
+     * situation, the <code>{@link SimpleTrigger}</code> wants to be fired
+     * now, once, for all the fire-times it missed, and then to carry on at the
+     * next scheduled time after 'now', with the repeat count what it would be
+     * had it fired at each of them.
+     * </p>
+     * 
+     * <p>
+     * The execution tells the <code>Job</code> how many fire-times it stands
+     * for, and when the first and last of them were, through
+     * <code>{@link JobExecutionContext#getMissedFireCount()}</code>,
+     * <code>{@link JobExecutionContext#getFirstMissedFireTime()}</code> and
+     * <code>{@link JobExecutionContext#getLastMissedFireTime()}</code>.
+     * Missed fire-times are counted from the repeat interval alone, without
+     * regard to any associated <code>{@link Calendar}</code>.
+     * </p>
+     */
+    public static final int MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES = 6;
     
     /**
      * <p>
@@ -160,5 +195,30 @@ public interface SimpleTrigger extends Trigger {
      */
     public int getTimesTriggered();
 
+    /**
+     * <p>
+     * Get the window, in milliseconds, over which the fire times of the
+     * <code>SimpleTrigger</code> are spread, which is 0 if they are not.
+     * </p>
+     * 
+     * @see SimpleScheduleBuilder#withSpreadInMilliseconds(long)
+     */
+    public default long getSpreadWindow() {
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Get the offset, in milliseconds, by which every fire time of the
+     * <code>SimpleTrigger</code> follows the time its start time and repeat
+     * interval give.
+     * </p>
+     * 
+     * @see TriggerUtils#getSpreadOffset(Trigger)
+     */
+    public default long getSpreadOffset() {
+        return 0;
+    }
+
     TriggerBuilder<SimpleTrigger> getTriggerBuilder();
 }
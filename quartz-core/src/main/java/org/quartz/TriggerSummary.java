@@ -0,0 +1,111 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz;
+
+import java.util.Date;
+
+import org.quartz.Trigger.TriggerState;
+
+/**
+ * The state, next fire time and job of a stored <code>{@link Trigger}</code>,
+ * as returned for many triggers at once by
+ * <code>{@link Scheduler#getTriggerSummaries(java.util.Collection)}</code>.
+ *
+ * @see Scheduler#getTriggerState(TriggerKey)
+ */
+public class TriggerSummary implements java.io.Serializable {
+
+    private static final long serialVersionUID = -2581927263702716134L;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final TriggerKey key;
+
+    private final JobKey jobKey;
+
+    private final TriggerState state;
+
+    private final Date nextFireTime;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public TriggerSummary(TriggerKey key, JobKey jobKey, TriggerState state, Date nextFireTime) {
+        this.key = key;
+        this.jobKey = jobKey;
+        this.state = state;
+        this.nextFireTime = nextFireTime;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public TriggerKey getKey() {
+        return key;
+    }
+
+    /**
+     * <p>
+     * Returns the key of the job that the trigger fires.
+     * </p>
+     */
+    public JobKey getJobKey() {
+        return jobKey;
+    }
+
+    /**
+     * <p>
+     * Returns the state of the trigger, as
+     * <code>{@link Scheduler#getTriggerState(TriggerKey)}</code> would.
+     * </p>
+     */
+    public TriggerState getState() {
+        return state;
+    }
+
+    /**
+     * <p>
+     * Returns the next time the trigger is scheduled to fire, or
+     * <code>null</code> if it will not fire again.
+     * </p>
+     */
+    public Date getNextFireTime() {
+        return nextFireTime == null ? null : (Date) nextFireTime.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "TriggerSummary[" + key + ", job " + jobKey + ", " + state + ", next fire time " + nextFireTime + "]";
+    }
+}
@@ -58,6 +58,54 @@ public class TriggerUtils {
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      */
 
+    /**
+     * Returns the window, in milliseconds, over which the fire times of the
+     * given <code>Trigger</code> are spread, which is 0 if they are not, or
+     * if it is not a trigger whose fire times can be spread.
+     * 
+     * @see CronTrigger#getSpreadWindow()
+     * @see SimpleTrigger#getSpreadWindow()
+     */
+    public static long getSpreadWindow(Trigger trigger) {
+        if (trigger instanceof CronTrigger) {
+            return ((CronTrigger) trigger).getSpreadWindow();
+        }
+        if (trigger instanceof SimpleTrigger) {
+            return ((SimpleTrigger) trigger).getSpreadWindow();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the offset, in milliseconds, by which the fire times of the
+     * given <code>Trigger</code> are spread. 
+     * 
+     * <p>
+     * The offset lies within the trigger's spread window and is derived from
+     * the trigger's key alone, so that it stays the same across restarts of
+     * the scheduler, reloads from the job store, and recomputations of the
+     * fire times, while the triggers that share a schedule fire at offsets
+     * evenly spread over the window.
+     * </p>
+     * 
+     * @see #getSpreadWindow(Trigger)
+     */
+    public static long getSpreadOffset(Trigger trigger) {
+        long window = getSpreadWindow(trigger);
+        TriggerKey key = trigger.getKey();
+        if (window <= 0 || key == null) {
+            return 0;
+        }
+
+        // String.hashCode() is fixed by its specification, so the hash does
+        // not vary between JVMs; mix it so that similar keys spread apart
+        long hash = 31L * key.getGroup().hashCode() + key.getName().hashCode();
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        hash = hash ^ (hash >>> 33);
+        return (hash & Long.MAX_VALUE) % window;
+    }
+
     /**
      * Returns a list of Dates that are the next fire times of a 
      * <code>Trigger</code>.
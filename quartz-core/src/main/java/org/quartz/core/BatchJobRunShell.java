@@ -0,0 +1,259 @@
+
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.quartz.BatchJob;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+/**
+ * <p>
+ * A <code>{@link JobRunShell}</code> that runs the fires of several triggers
+ * of one <code>{@link BatchJob}</code> as one execution: one job instance,
+ * one call to <code>{@link BatchJob#executeBatch(List)}</code>, and one
+ * hand-off of all the completions to the <code>JobStore</code>.
+ * </p>
+ *
+ * <p>
+ * Listeners are notified of each fire as the plain shell would, so a fire a
+ * listener vetoes is completed on its own and left out of the batch. Fires
+ * whose trigger asks for the job to be re-executed are executed again, as a
+ * batch of their own, before the completions are handed off.
+ * </p>
+ *
+ * @see BatchJobRunShellFactory
+ */
+public class BatchJobRunShell extends JobRunShell {
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    protected List<TriggerFiredBundle> firedTriggerBundles;
+
+    protected List<JobExecutionContextImpl> jecs = null;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a BatchJobRunShell for the given fired triggers, which must all
+     * be of the same job.
+     * </p>
+     *
+     * @param scheduler
+     *          The <code>Scheduler</code> instance that should be made
+     *          available within the <code>JobExecutionContext</code>s.
+     */
+    public BatchJobRunShell(Scheduler scheduler, List<TriggerFiredBundle> bndles) {
+        super(scheduler, bndles.get(0));
+        this.firedTriggerBundles = bndles;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    @Override
+    public void initialize(QuartzScheduler sched)
+        throws SchedulerException {
+        super.initialize(sched);
+
+        jecs = new ArrayList<JobExecutionContextImpl>(firedTriggerBundles.size());
+        jecs.add(jec);
+        for (int i = 1; i < firedTriggerBundles.size(); i++) {
+            jecs.add(new JobExecutionContextImpl(scheduler, firedTriggerBundles.get(i), jec.getJobInstance()));
+        }
+    }
+
+    @Override
+    public void run() {
+        qs.addInternalSchedulerListener(this);
+
+        try {
+            JobDetail jobDetail = jec.getJobDetail();
+            Job job = jec.getJobInstance();
+
+            List<OperableTrigger> completedTriggers = new ArrayList<OperableTrigger>(jecs.size());
+            List<CompletedExecutionInstruction> instCodes = new ArrayList<CompletedExecutionInstruction>(jecs.size());
+            List<JobExecutionContextImpl> pending = jecs;
+
+            while (!pending.isEmpty()) {
+
+                JobExecutionException jobExEx = null;
+
+                try {
+                    begin();
+                } catch (SchedulerException se) {
+                    qs.notifySchedulerListenersError("Error executing Job ("
+                            + jobDetail.getKey()
+                            + ": couldn't begin execution.", se);
+                    break;
+                }
+
+                // notify job & trigger listeners...
+                List<JobExecutionContextImpl> executing = new ArrayList<JobExecutionContextImpl>(pending.size());
+                for (JobExecutionContextImpl ctx : pending) {
+                    try {
+                        if (notifyListenersBeginning(ctx)) {
+                            executing.add(ctx);
+                        }
+                    } catch (VetoedException ve) {
+                        OperableTrigger trigger = (OperableTrigger) ctx.getTrigger();
+                        CompletedExecutionInstruction instCode = trigger.executionComplete(ctx, null);
+                        qs.notifyJobStoreJobVetoed(trigger, jobDetail, instCode);
+
+                        // QTZ-205
+                        if (trigger.getNextFireTime() == null) {
+                            qs.notifySchedulerListenersFinalized(trigger);
+                        }
+                    }
+                }
+
+                if (executing.isEmpty()) {
+                    try {
+                        complete(true);
+                    } catch (SchedulerException se) {
+                        qs.notifySchedulerListenersError("Error executing Job ("
+                                + jobDetail.getKey()
+                                + ": couldn't finalize execution.", se);
+                    }
+                    break;
+                }
+
+                long startTime = System.currentTimeMillis();
+                long endTime = startTime;
+
+                // execute the job
+                try {
+                    if (executing.size() == 1) {
+                        getLog().debug("Calling execute on job " + jobDetail.getKey());
+                        job.execute(executing.get(0));
+                    } else {
+                        getLog().debug("Calling executeBatch on job " + jobDetail.getKey()
+                                + " with " + executing.size() + " fires");
+                        ((BatchJob) job).executeBatch(new ArrayList<JobExecutionContext>(executing));
+                    }
+                    endTime = System.currentTimeMillis();
+                } catch (JobExecutionException jee) {
+                    endTime = System.currentTimeMillis();
+                    jobExEx = jee;
+                    getLog().info("Job " + jobDetail.getKey() +
+                            " threw a JobExecutionException: ", jobExEx);
+                } catch (Throwable e) {
+                    endTime = System.currentTimeMillis();
+                    getLog().error("Job " + jobDetail.getKey() +
+                            " threw an unhandled Exception: ", e);
+                    SchedulerException se = new SchedulerException(
+                            "Job threw an unhandled exception.", e);
+                    qs.notifySchedulerListenersError("Job ("
+                            + jobDetail.getKey()
+                            + " threw an exception.", se);
+                    jobExEx = new JobExecutionException(se, false);
+                }
+
+                List<JobExecutionContextImpl> refire = new ArrayList<JobExecutionContextImpl>();
+                for (JobExecutionContextImpl ctx : executing) {
+                    OperableTrigger trigger = (OperableTrigger) ctx.getTrigger();
+                    ctx.setJobRunTime(endTime - startTime);
+
+                    // notify all job listeners
+                    if (!notifyJobListenersComplete(ctx, jobExEx)) {
+                        continue;
+                    }
+
+                    CompletedExecutionInstruction instCode = CompletedExecutionInstruction.NOOP;
+
+                    // update the trigger
+                    try {
+                        instCode = trigger.executionComplete(ctx, jobExEx);
+                    } catch (Exception e) {
+                        // If this happens, there's a bug in the trigger...
+                        SchedulerException se = new SchedulerException(
+                                "Trigger threw an unhandled exception.", e);
+                        qs.notifySchedulerListenersError(
+                                "Please report this error to the Quartz developers.",
+                                se);
+                    }
+
+                    // notify all trigger listeners
+                    if (!notifyTriggerListenersComplete(ctx, instCode)) {
+                        continue;
+                    }
+
+                    if (instCode == CompletedExecutionInstruction.RE_EXECUTE_JOB) {
+                        ctx.incrementRefireCount();
+                        refire.add(ctx);
+                        continue;
+                    }
+
+                    completedTriggers.add(trigger);
+                    instCodes.add(instCode);
+                }
+
+                try {
+                    complete(refire.isEmpty());
+                } catch (SchedulerException se) {
+                    qs.notifySchedulerListenersError("Error executing Job ("
+                            + jobDetail.getKey()
+                            + ": couldn't finalize execution.", se);
+                }
+
+                pending = refire;
+            }
+
+            if (!completedTriggers.isEmpty()) {
+                qs.notifyJobStoreJobsComplete(completedTriggers, jobDetail, instCodes);
+            }
+
+        } finally {
+            qs.removeInternalSchedulerListener(this);
+        }
+    }
+
+    @Override
+    public void passivate() {
+        super.passivate();
+        jecs = null;
+    }
+}
@@ -0,0 +1,56 @@
+
+/* 
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz.core;
+
+import java.util.List;
+
+import org.quartz.SchedulerException;
+import org.quartz.spi.TriggerFiredBundle;
+
+/**
+ * <p>
+ * A <code>{@link JobRunShellFactory}</code> that can also create the shells
+ * that run several fires of one <code>{@link org.quartz.BatchJob}</code>
+ * together. The <code>{@link QuartzSchedulerThread}</code> only batches fires
+ * when its factory is one.
+ * </p>
+ *
+ * @see BatchJobRunShell
+ */
+public interface BatchJobRunShellFactory extends JobRunShellFactory {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Interface.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Called by the <code>{@link org.quartz.core.QuartzSchedulerThread}</code>
+     * to obtain a <code>{@link JobRunShell}</code> for fires of one
+     * <code>BatchJob</code> made in the same acquisition.
+     * </p>
+     *
+     * @return the shell, or null if the job's fires must run one by one.
+     */
+    JobRunShell createBatchJobRunShell(List<TriggerFiredBundle> bundles) throws SchedulerException;
+}
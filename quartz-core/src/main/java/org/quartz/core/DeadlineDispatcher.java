@@ -0,0 +1,519 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.core;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.quartz.AllowedLatency;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.ThreadPool;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.utils.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * The thread that hands the fired jobs of a <code>{@link QuartzScheduler}</code>
+ * to its <code>ThreadPool</code> earliest deadline first, when it is
+ * configured with a deadline dispatch queue.
+ * </p>
+ *
+ * <p>
+ * The <code>{@link QuartzSchedulerThread}</code> then acquires triggers for
+ * the free threads of the pool plus the free places of the queue, and
+ * dispatches every job it fires to the queue. Whenever a thread is free the
+ * dispatcher runs the queued job with the earliest deadline, which is its
+ * scheduled fire time plus its <code>{@link AllowedLatency}</code>; ties, and
+ * jobs without a deadline, go by trigger priority and then by scheduled fire
+ * time. A job whose deadline has passed by the time it would run is counted,
+ * and either run late or, if the scheduler sheds such jobs, completed without
+ * running, telling the <code>TriggerListener</code>s that its trigger
+ * misfired.
+ * </p>
+ *
+ * <p>
+ * Busy threads are counted from the jobs handed to the pool, as
+ * <code>{@link ThreadPoolBulkheads}</code> does; other work run in the pool,
+ * such as delayed tasks, is handed to it through
+ * <code>{@link #runInThread(Runnable)}</code> to be counted.
+ * </p>
+ */
+class DeadlineDispatcher extends Thread {
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    // cached for job classes without the annotation
+    private static final Long NO_ANNOTATION = -1L;
+
+    private final QuartzScheduler qs;
+
+    private final QuartzSchedulerResources qsRsrcs;
+
+    private final ThreadPool threadPool;
+
+    private final int queueSize;
+
+    private final boolean shedJobsPastDeadline;
+
+    private final PriorityQueue<QueuedJob> queue;
+
+    private final Map<Class<?>, Long> latenciesByJobClass = new ConcurrentHashMap<Class<?>, Long>();
+
+    private final Object sigLock = new Object();
+
+    // guarded by sigLock
+    private int busyThreads;
+
+    private long sequence;
+
+    private long missedDeadlineCount;
+
+    private long shedJobCount;
+
+    private boolean halted;
+
+    private boolean runQueuedJobs;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Construct a <code>DeadlineDispatcher</code> for the given
+     * <code>QuartzScheduler</code>, whose queue holds up to the configured
+     * number of jobs beyond those its thread pool is running.
+     * </p>
+     */
+    DeadlineDispatcher(QuartzScheduler qs, QuartzSchedulerResources qsRsrcs) {
+        super(qs.getSchedulerThreadGroup(), qsRsrcs.getThreadName() + "_DeadlineDispatcher");
+        this.qs = qs;
+        this.qsRsrcs = qsRsrcs;
+        this.threadPool = qsRsrcs.getThreadPool();
+        this.queueSize = qsRsrcs.getDeadlineDispatchQueueSize();
+        this.shedJobsPastDeadline = qsRsrcs.isShedJobsPastDeadline();
+        this.queue = new PriorityQueue<QueuedJob>(Math.max(queueSize, 1), new Comparator<QueuedJob>() {
+            public int compare(QueuedJob j1, QueuedJob j2) {
+                if (j1.deadline != j2.deadline) {
+                    return j1.deadline < j2.deadline ? -1 : 1;
+                }
+                if (j1.priority != j2.priority) {
+                    return j1.priority > j2.priority ? -1 : 1;
+                }
+                if (j1.scheduledFireTime != j2.scheduledFireTime) {
+                    return j1.scheduledFireTime < j2.scheduledFireTime ? -1 : 1;
+                }
+                return j1.sequence < j2.sequence ? -1 : (j1.sequence == j2.sequence ? 0 : 1);
+            }
+        });
+        this.setDaemon(qsRsrcs.getMakeSchedulerThreadDaemon());
+        if (qsRsrcs.isThreadsInheritInitializersClassLoadContext()) {
+            this.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Stop dispatching. If <code>wait</code> is true, the jobs still queued
+     * are run first and this blocks until they have all been handed to the
+     * thread pool; otherwise they are dropped without completing their
+     * triggers, which the <code>JobStore</code> then treats as fired jobs
+     * that never finished, as it would after a crash.
+     * </p>
+     */
+    void halt(boolean wait) {
+        synchronized (sigLock) {
+            halted = true;
+            runQueuedJobs = wait;
+            sigLock.notifyAll();
+        }
+
+        if (wait) {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of jobs that can be dispatched without waiting, which is
+     * the free threads of the pool plus the free places of the queue,
+     * waiting up to the given time for some if there are none.
+     * </p>
+     *
+     * @return the number of jobs, which is 0 if the wait timed out or was
+     *         interrupted.
+     */
+    int blockForCapacity(long timeout) {
+        synchronized (sigLock) {
+            int capacity = getCapacity();
+            if (capacity <= 0) {
+                try {
+                    sigLock.wait(timeout);
+                } catch (InterruptedException ignore) {
+                }
+                capacity = getCapacity();
+            }
+            return Math.max(capacity, 0);
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of free threads of the pool, waiting up to the given
+     * time for one to become free if there are none.
+     * </p>
+     *
+     * @return the number of free threads, which is 0 if the wait timed out
+     *         or was interrupted.
+     */
+    int blockForAvailableThreads(long timeout) {
+        synchronized (sigLock) {
+            int available = threadPool.getPoolSize() - busyThreads;
+            if (available <= 0) {
+                try {
+                    sigLock.wait(timeout);
+                } catch (InterruptedException ignore) {
+                }
+                available = threadPool.getPoolSize() - busyThreads;
+            }
+            return Math.max(available, 0);
+        }
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code>, which is not a fired job, in the
+     * pool straight away, counting the thread it takes as busy.
+     * </p>
+     */
+    boolean runInThread(final Runnable runnable) {
+        synchronized (sigLock) {
+            busyThreads++;
+        }
+        boolean handedOff = threadPool.runInThread(new Runnable() {
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    threadFreed();
+                }
+            }
+        });
+        if (!handedOff) {
+            threadFreed();
+        }
+        return handedOff;
+    }
+
+    /**
+     * <p>
+     * Queue the job of the given fired trigger, to be run when a thread is
+     * free and no queued job has an earlier deadline.
+     * </p>
+     */
+    void dispatch(TriggerFiredBundle bndle) {
+        QueuedJob job = new QueuedJob(bndle);
+        synchronized (sigLock) {
+            if (!halted || runQueuedJobs) {
+                job.sequence = sequence++;
+                queue.add(job);
+                sigLock.notifyAll();
+                return;
+            }
+        }
+        // halted without waiting for jobs; the trigger has fired, but its job
+        // will not run
+        dropped(1);
+    }
+
+    /**
+     * <p>
+     * Get the number of jobs waiting in the queue for a thread.
+     * </p>
+     */
+    int getQueuedJobCount() {
+        synchronized (sigLock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of jobs that were still queued when their deadline
+     * passed, whether they were then run late or shed.
+     * </p>
+     */
+    long getMissedDeadlineCount() {
+        synchronized (sigLock) {
+            return missedDeadlineCount;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of jobs completed without running because their
+     * deadline had passed.
+     * </p>
+     */
+    long getShedJobCount() {
+        synchronized (sigLock) {
+            return shedJobCount;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            QueuedJob job;
+            boolean shed = false;
+            synchronized (sigLock) {
+                while (!halted && (queue.isEmpty() || busyThreads >= threadPool.getPoolSize())) {
+                    try {
+                        sigLock.wait(1000L);
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+                if (halted && (!runQueuedJobs || queue.isEmpty())) {
+                    break;
+                }
+                if (queue.isEmpty() || busyThreads >= threadPool.getPoolSize()) {
+                    // halted, waiting for a thread to run the rest
+                    try {
+                        sigLock.wait(1000L);
+                    } catch (InterruptedException ignore) {
+                    }
+                    continue;
+                }
+                job = queue.poll();
+                if (job.deadline < System.currentTimeMillis()) {
+                    missedDeadlineCount++;
+                    shed = shedJobsPastDeadline;
+                    if (shed) {
+                        shedJobCount++;
+                    }
+                }
+                if (!shed) {
+                    busyThreads++;
+                }
+                // the place the job held in the queue is free
+                sigLock.notifyAll();
+            }
+
+            try {
+                if (shed) {
+                    getLog().warn("Job " + job.bndle.getJobDetail().getKey() + " fired by trigger "
+                        + job.bndle.getTrigger().getKey() + " missed its deadline of "
+                        + new Date(job.deadline) + " and was not run.");
+                    shed(job);
+                } else {
+                    runInThread(job);
+                }
+            } catch (RuntimeException re) {
+                getLog().error("Runtime error occurred in deadline dispatch loop.", re);
+            }
+        }
+
+        // halted without waiting for jobs
+        int dropped;
+        synchronized (sigLock) {
+            dropped = queue.size();
+            queue.clear();
+        }
+        if (dropped > 0) {
+            dropped(dropped);
+        }
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    private int getCapacity() {
+        return threadPool.getPoolSize() - busyThreads + queueSize - queue.size();
+    }
+
+    private void runInThread(QueuedJob job) {
+        OperableTrigger trigger = job.bndle.getTrigger();
+        JobDetail jobDetail = job.bndle.getJobDetail();
+        if (job.deadline < System.currentTimeMillis() && getLog().isDebugEnabled()) {
+            getLog().debug("Running job " + jobDetail.getKey() + " after its deadline of " + new Date(job.deadline));
+        }
+
+        final JobRunShell shell;
+        try {
+            shell = qsRsrcs.getJobRunShellFactory().createJobRunShell(job.bndle);
+            shell.initialize(qs);
+        } catch (SchedulerException se) {
+            threadFreed();
+            qsRsrcs.getJobStore().triggeredJobComplete(trigger, jobDetail, CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
+            return;
+        }
+
+        boolean handedOff = threadPool.runInThread(new Runnable() {
+            public void run() {
+                try {
+                    shell.run();
+                } finally {
+                    threadFreed();
+                }
+            }
+        });
+        if (!handedOff) {
+            threadFreed();
+            getLog().error("ThreadPool.runInThread() return false!");
+            qsRsrcs.getJobStore().triggeredJobComplete(trigger, jobDetail, CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
+        }
+    }
+
+    private void shed(QueuedJob job) {
+        OperableTrigger trigger = job.bndle.getTrigger();
+        try {
+            qs.notifyTriggerListenersMisfired(trigger);
+        } catch (SchedulerException se) {
+            getLog().error("Unable to notify TriggerListeners that trigger " + trigger.getKey()
+                + " was shed.", se);
+        }
+        qsRsrcs.getJobStore().triggeredJobComplete(trigger, job.bndle.getJobDetail(), trigger.executionComplete(null, null));
+    }
+
+    private void dropped(int count) {
+        // their triggers are left fired, for the JobStore to recover, rather
+        // than completed as if the jobs had run
+        getLog().info(count + " queued job(s) were not run, as the scheduler was shut down without waiting for them.");
+    }
+
+    private void threadFreed() {
+        synchronized (sigLock) {
+            busyThreads--;
+            sigLock.notifyAll();
+        }
+    }
+
+    private long getDeadline(TriggerFiredBundle bndle) {
+        Long latency = getLatency(bndle.getTrigger().getJobDataMap());
+        if (latency == null) {
+            latency = getLatency(bndle.getJobDetail().getJobDataMap());
+        }
+        if (latency == null) {
+            latency = getAnnotatedLatency(bndle.getJobDetail().getJobClass());
+        }
+        if (latency == null || latency < 0) {
+            return Long.MAX_VALUE;
+        }
+        long scheduledFireTime = getScheduledFireTime(bndle);
+        return scheduledFireTime > Long.MAX_VALUE - latency ? Long.MAX_VALUE : scheduledFireTime + latency;
+    }
+
+    private static long getScheduledFireTime(TriggerFiredBundle bndle) {
+        Date scheduledFireTime = bndle.getScheduledFireTime() != null ? bndle.getScheduledFireTime() : bndle.getFireTime();
+        return scheduledFireTime != null ? scheduledFireTime.getTime() : System.currentTimeMillis();
+    }
+
+    private Long getLatency(JobDataMap jobDataMap) {
+        Object latency = jobDataMap == null ? null : jobDataMap.get(AllowedLatency.JOB_DATA_KEY);
+        if (latency == null) {
+            return null;
+        }
+        if (latency instanceof Number) {
+            return ((Number) latency).longValue();
+        }
+        try {
+            return Long.valueOf(latency.toString().trim());
+        } catch (NumberFormatException e) {
+            getLog().warn("Ignoring allowed latency '" + latency + "', which is not a number of milliseconds.");
+            return null;
+        }
+    }
+
+    private Long getAnnotatedLatency(Class<?> jobClass) {
+        Long latency = latenciesByJobClass.get(jobClass);
+        if (latency == null) {
+            AllowedLatency annotation = ClassUtils.getAnnotation(jobClass, AllowedLatency.class);
+            latency = annotation == null ? NO_ANNOTATION : Long.valueOf(annotation.value());
+            latenciesByJobClass.put(jobClass, latency);
+        }
+        return latency == NO_ANNOTATION ? null : latency;
+    }
+
+    /**
+     * <p>
+     * A fired job waiting in the queue, with what it is ordered by.
+     * </p>
+     */
+    private class QueuedJob {
+
+        private final TriggerFiredBundle bndle;
+
+        private final long deadline;
+
+        private final int priority;
+
+        private final long scheduledFireTime;
+
+        private long sequence;
+
+        QueuedJob(TriggerFiredBundle bndle) {
+            this.bndle = bndle;
+            this.deadline = getDeadline(bndle);
+            this.priority = bndle.getTrigger().getPriority();
+            this.scheduledFireTime = getScheduledFireTime(bndle);
+        }
+    }
+}
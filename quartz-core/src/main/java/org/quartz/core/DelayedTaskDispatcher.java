@@ -0,0 +1,355 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.core;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.quartz.DelayedTask;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.impl.StdScheduler;
+import org.quartz.spi.DelayedTaskStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * The thread that runs the <code>{@link DelayedTask}s</code> of a
+ * <code>{@link QuartzScheduler}</code> as they come due.
+ * </p>
+ *
+ * <p>
+ * The dispatcher takes due tasks from the <code>{@link DelayedTaskStore}</code>
+ * in batches no larger than the number of free worker threads, loads the job
+ * of each batch's tasks once, and runs each task on the scheduler's main
+ * <code>ThreadPool</code> through the <code>{@link QuartzSchedulerThread}</code>,
+ * which counts the threads the tasks take as busy when it acquires triggers.
+ * Between batches it sleeps until the next task is due, or the idle wait time
+ * has passed, whichever is sooner; scheduling an earlier task wakes it.
+ * </p>
+ *
+ * @see QuartzScheduler#scheduleDelayedTask(DelayedTask)
+ */
+class DelayedTaskDispatcher extends Thread {
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final long DEFAULT_IDLE_WAIT_TIME = 30L * 1000L;
+
+    private final QuartzScheduler qs;
+
+    private final QuartzSchedulerResources qsRsrcs;
+
+    private final QuartzSchedulerThread schedThread;
+
+    private final DelayedTaskStore store;
+
+    private final Object sigLock = new Object();
+
+    private boolean signaled;
+
+    private boolean paused;
+
+    private final AtomicBoolean halted;
+
+    // when the dispatcher will next wake by itself, or Long.MAX_VALUE while
+    // it is not waiting
+    private long waitingUntil = Long.MAX_VALUE;
+
+    private long idleWaitTime = DEFAULT_IDLE_WAIT_TIME;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Construct a paused <code>DelayedTaskDispatcher</code> for the given
+     * <code>QuartzScheduler</code>, whose job store must be a
+     * <code>DelayedTaskStore</code>, that runs tasks through the scheduler's
+     * <code>QuartzSchedulerThread</code>.
+     * </p>
+     */
+    DelayedTaskDispatcher(QuartzScheduler qs, QuartzSchedulerResources qsRsrcs, QuartzSchedulerThread schedThread) {
+        super(qs.getSchedulerThreadGroup(), qsRsrcs.getThreadName() + "_DelayedTasks");
+        this.qs = qs;
+        this.qsRsrcs = qsRsrcs;
+        this.schedThread = schedThread;
+        this.store = (DelayedTaskStore) qsRsrcs.getJobStore();
+        this.setDaemon(qsRsrcs.getMakeSchedulerThreadDaemon());
+        if (qsRsrcs.isThreadsInheritInitializersClassLoadContext()) {
+            this.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        }
+
+        paused = true;
+        halted = new AtomicBoolean(false);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    void setIdleWaitTime(long waitTime) {
+        idleWaitTime = waitTime;
+    }
+
+    void togglePause(boolean pause) {
+        synchronized (sigLock) {
+            paused = pause;
+            signaled = true;
+            sigLock.notifyAll();
+        }
+    }
+
+    void halt(boolean wait) {
+        synchronized (sigLock) {
+            halted.set(true);
+            sigLock.notifyAll();
+        }
+        this.interrupt();
+
+        if (wait) {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Signals the dispatcher that a task due at the given time has been
+     * stored, waking it if it is waiting beyond that time.
+     * </p>
+     */
+    void signalNewTask(long fireTime) {
+        synchronized (sigLock) {
+            if (fireTime < waitingUntil) {
+                signaled = true;
+                sigLock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        int acquiresFailed = 0;
+
+        while (!halted.get()) {
+            try {
+                synchronized (sigLock) {
+                    while (paused && !halted.get()) {
+                        try {
+                            sigLock.wait(1000L);
+                        } catch (InterruptedException ignore) {
+                        }
+                        acquiresFailed = 0;
+                    }
+                    if (halted.get()) {
+                        break;
+                    }
+                    signaled = false;
+                }
+
+                if (acquiresFailed > 1) {
+                    try {
+                        Thread.sleep(qsRsrcs.getJobStore().getAcquireRetryDelay(acquiresFailed));
+                    } catch (Exception ignore) {
+                    }
+                }
+
+                // returns 0 after a while, to check for pause or halt again
+                int availThreadCount = schedThread.blockForMainPoolThreads(1000L);
+                synchronized (sigLock) {
+                    // paused or halted while waiting for a thread
+                    if (paused || halted.get()) {
+                        continue;
+                    }
+                }
+                if (availThreadCount <= 0) {
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                List<DelayedTask> tasks;
+                long nextFireTime;
+                try {
+                    tasks = store.acquireDelayedTasks(now, availThreadCount);
+                    nextFireTime = tasks.isEmpty() ? store.getNextDelayedTaskFireTime() : now;
+                    acquiresFailed = 0;
+                } catch (Exception e) {
+                    if (acquiresFailed == 0) {
+                        getLog().error("DelayedTaskDispatcher: error acquiring delayed tasks.", e);
+                    }
+                    if (acquiresFailed < Integer.MAX_VALUE) {
+                        acquiresFailed++;
+                    }
+                    continue;
+                }
+
+                if (!tasks.isEmpty()) {
+                    runTasks(tasks);
+                    continue;
+                }
+
+                long timeUntilNext = nextFireTime < 0 ? idleWaitTime : Math.min(nextFireTime - now, idleWaitTime);
+                synchronized (sigLock) {
+                    if (!signaled && !paused && !halted.get() && timeUntilNext > 0) {
+                        waitingUntil = now + timeUntilNext;
+                        try {
+                            sigLock.wait(timeUntilNext);
+                        } catch (InterruptedException ignore) {
+                        }
+                        waitingUntil = Long.MAX_VALUE;
+                    }
+                }
+            } catch (RuntimeException re) {
+                getLog().error("Runtime error occurred in delayed task dispatch loop.", re);
+            }
+        }
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    private Scheduler getScheduler() {
+        Scheduler scheduler = SchedulerRepository.getInstance().lookup(qsRsrcs.getName());
+        return scheduler != null ? scheduler : new StdScheduler(qs);
+    }
+
+    /**
+     * <p>
+     * Run the given acquired tasks, loading the job of each only once.
+     * </p>
+     */
+    private void runTasks(List<DelayedTask> tasks) {
+        Scheduler scheduler = getScheduler();
+        Map<JobKey, JobDetail> jobs = new HashMap<JobKey, JobDetail>();
+        for (DelayedTask task : tasks) {
+            JobDetail jobDetail;
+            if (jobs.containsKey(task.getJobKey())) {
+                jobDetail = jobs.get(task.getJobKey());
+            } else {
+                try {
+                    jobDetail = qsRsrcs.getJobStore().retrieveJob(task.getJobKey());
+                } catch (JobPersistenceException e) {
+                    getLog().error("Couldn't retrieve job " + task.getJobKey() + " of delayed task " + task.getId()
+                        + "; the task was discarded.", e);
+                    continue;
+                }
+                jobs.put(task.getJobKey(), jobDetail);
+            }
+            if (jobDetail == null) {
+                getLog().warn("Job " + task.getJobKey() + " of delayed task " + task.getId()
+                    + " no longer exists; the task was discarded.");
+                continue;
+            }
+            runTask(scheduler, task, jobDetail);
+        }
+    }
+
+    private void runTask(Scheduler scheduler, DelayedTask task, JobDetail jobDetail) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity(task.getId(), DelayedTask.DELAYED_TASK_GROUP)
+            .forJob(jobDetail)
+            .usingJobData(DelayedTask.TASK_ID, task.getId())
+            .usingJobData(DelayedTask.PAYLOAD, task.getPayload())
+            .startAt(task.getFireTime())
+            .build();
+
+        // each run gets its own copy of the job, as when a trigger fires
+        TriggerFiredBundle bundle = new TriggerFiredBundle((JobDetail) jobDetail.clone(), trigger, null, false,
+            new Date(), task.getFireTime(), null, null);
+        DelayedTaskRunShell shell = new DelayedTaskRunShell(scheduler, bundle, task);
+        try {
+            shell.initialize(qs);
+        } catch (SchedulerException se) {
+            getLog().error("Job " + task.getJobKey() + " of delayed task " + task.getId()
+                + " couldn't be instantiated; the task was discarded.", se);
+            return;
+        }
+
+        if (!schedThread.runInMainPool(shell)) {
+            getLog().error("ThreadPool.runInThread() return false! Delayed task " + task.getId() + " was not run.");
+        }
+    }
+
+    /**
+     * <p>
+     * Runs the job of one acquired task with a transient trigger carrying the
+     * task's id and payload, without listeners, and without completing the
+     * trigger in the <code>JobStore</code>, which does not hold it.
+     * </p>
+     */
+    private class DelayedTaskRunShell extends JobRunShell {
+
+        private final DelayedTask task;
+
+        DelayedTaskRunShell(Scheduler scheduler, TriggerFiredBundle bndle, DelayedTask task) {
+            super(scheduler, bndle);
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                jec.getJobInstance().execute(jec);
+            } catch (Throwable t) {
+                DelayedTaskDispatcher.this.getLog().error("Delayed task " + task.getId() + " of job "
+                    + task.getJobKey() + " threw an exception.", t);
+            }
+        }
+    }
+}
@@ -287,7 +287,7 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
         qs = null;
     }
 
-    private boolean notifyListenersBeginning(JobExecutionContext jobExCtxt) throws VetoedException {
+    boolean notifyListenersBeginning(JobExecutionContext jobExCtxt) throws VetoedException {
 
         boolean vetoed = false;
 
@@ -335,7 +335,7 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
         return true;
     }
 
-    private boolean notifyJobListenersComplete(JobExecutionContext jobExCtxt, JobExecutionException jobExEx) {
+    boolean notifyJobListenersComplete(JobExecutionContext jobExCtxt, JobExecutionException jobExEx) {
         try {
             qs.notifyJobListenersWasExecuted(jobExCtxt, jobExEx);
         } catch (SchedulerException se) {
@@ -351,7 +351,7 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
         return true;
     }
 
-    private boolean notifyTriggerListenersComplete(JobExecutionContext jobExCtxt, CompletedExecutionInstruction instCode) {
+    boolean notifyTriggerListenersComplete(JobExecutionContext jobExCtxt, CompletedExecutionInstruction instCode) {
         try {
             qs.notifyTriggerListenersComplete(jobExCtxt, instCode);
 
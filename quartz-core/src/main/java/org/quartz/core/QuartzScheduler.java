@@ -19,6 +19,7 @@
 package org.quartz.core;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
@@ -26,6 +27,7 @@ import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -40,7 +42,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
+import org.quartz.BatchJob;
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.InterruptableJob;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
@@ -49,10 +53,12 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
 import org.quartz.JobListener;
+import org.quartz.JobPersistenceException;
 import org.quartz.ListenerManager;
 import org.quartz.Matcher;
 import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
 import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerListener;
@@ -60,6 +66,7 @@ import org.quartz.SchedulerMetaData;
 import org.quartz.Trigger;
 import static org.quartz.TriggerBuilder.*;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.TriggerListener;
 import org.quartz.UnableToInterruptJobException;
 import org.quartz.Trigger.CompletedExecutionInstruction;
@@ -69,11 +76,18 @@ import org.quartz.impl.SchedulerRepository;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.listeners.SchedulerListenerSupport;
 import org.quartz.simpl.PropertySettingJobFactory;
+import org.quartz.spi.BatchCompletionJobStore;
+import org.quartz.spi.DelayedTaskStore;
+import org.quartz.spi.FairShareJobStore;
 import org.quartz.spi.JobFactory;
+import org.quartz.spi.JobStore;
 import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.RateLimitedJobStore;
+import org.quartz.spi.ResizableThreadPool;
 import org.quartz.spi.SchedulerPlugin;
 import org.quartz.spi.SchedulerSignaler;
 import org.quartz.spi.ThreadExecutor;
+import org.quartz.spi.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -149,6 +163,10 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     private QuartzSchedulerThread schedThread;
 
+    private DelayedTaskDispatcher delayedTaskDispatcher;
+
+    private DeadlineDispatcher deadlineDispatcher;
+
     private ThreadGroup threadGroup;
 
     private SchedulerContext context = new SchedulerContext();
@@ -214,11 +232,32 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
         this.schedThread = new QuartzSchedulerThread(this, resources);
         ThreadExecutor schedThreadExecutor = resources.getThreadExecutor();
+        if (resources.getDeadlineDispatchQueueSize() > 0) {
+            if (!resources.getNamedThreadPools().isEmpty()) {
+                throw new SchedulerConfigException(
+                    "A deadline dispatch queue cannot be used with named thread pools.");
+            }
+            this.deadlineDispatcher = new DeadlineDispatcher(this, resources);
+            this.schedThread.setDeadlineDispatcher(this.deadlineDispatcher);
+            schedThreadExecutor.execute(this.deadlineDispatcher);
+        }
         schedThreadExecutor.execute(this.schedThread);
         if (idleWaitTime > 0) {
             this.schedThread.setIdleWaitTime(idleWaitTime);
         }
 
+        if (resources.isDelayedTasksEnabled()) {
+            if (!(resources.getJobStore() instanceof DelayedTaskStore)) {
+                throw new SchedulerConfigException("Delayed tasks are enabled, but the JobStore "
+                    + resources.getJobStore().getClass().getName() + " does not support them.");
+            }
+            this.delayedTaskDispatcher = new DelayedTaskDispatcher(this, resources, this.schedThread);
+            schedThreadExecutor.execute(this.delayedTaskDispatcher);
+            if (idleWaitTime > 0) {
+                this.delayedTaskDispatcher.setIdleWaitTime(idleWaitTime);
+            }
+        }
+
         jobMgr = new ExecutingJobsManager();
         addInternalJobListener(jobMgr);
         errLogger = new ErrorLogger();
@@ -538,11 +577,15 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
             initialStart = new Date();
             this.resources.getJobStore().schedulerStarted();            
             startPlugins();
+            warnIfBatchJobsCannotBatch();
         } else {
             resources.getJobStore().schedulerResumed();
         }
 
         schedThread.togglePause(false);
+        if (delayedTaskDispatcher != null) {
+            delayedTaskDispatcher.togglePause(false);
+        }
 
         getLog().info(
                 "Scheduler " + resources.getUniqueIdentifier() + " started.");
@@ -582,6 +625,9 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void standby() {
         resources.getJobStore().schedulerPaused();
         schedThread.togglePause(true);
+        if (delayedTaskDispatcher != null) {
+            delayedTaskDispatcher.togglePause(true);
+        }
         getLog().info(
                 "Scheduler " + resources.getUniqueIdentifier() + " paused.");
         notifySchedulerListenersInStandbyMode();        
@@ -626,6 +672,128 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         return resources.getThreadPool().getPoolSize();
     }
 
+    /**
+     * <p>
+     * Get the number of threads the <code>ThreadPool</code> holds now, which
+     * is only less than <code>getThreadPoolSize()</code> for a
+     * <code>{@link ResizableThreadPool}</code>.
+     * </p>
+     */
+    public int getThreadPoolCurrentSize() {
+        ThreadPool tp = resources.getThreadPool();
+        if (tp instanceof ResizableThreadPool) {
+            return ((ResizableThreadPool) tp).getCurrentPoolSize();
+        }
+        return tp.getPoolSize();
+    }
+
+    /**
+     * <p>
+     * Get the number of the <code>ThreadPool</code>'s threads that are busy,
+     * as counted by a <code>{@link ResizableThreadPool}</code>, or else as
+     * the number of jobs currently executing.
+     * </p>
+     */
+    public int getThreadPoolBusyThreadCount() {
+        ThreadPool tp = resources.getThreadPool();
+        if (tp instanceof ResizableThreadPool) {
+            return ((ResizableThreadPool) tp).getBusyThreadCount();
+        }
+        return jobMgr.getNumJobsCurrentlyExecuting();
+    }
+
+    /**
+     * <p>
+     * Get the number of fires the <code>JobStore</code> deferred to keep
+     * within its rate limits, which is 0 unless it is a
+     * <code>{@link RateLimitedJobStore}</code>.
+     * </p>
+     */
+    public long getThrottledFireCount() {
+        JobStore js = resources.getJobStore();
+        if (js instanceof RateLimitedJobStore) {
+            return ((RateLimitedJobStore) js).getThrottledFireCount();
+        }
+        return 0L;
+    }
+
+    /**
+     * <p>
+     * Get the number of fires the <code>JobStore</code> deferred for each of
+     * its rate limits.
+     * </p>
+     */
+    public Map<String, Long> getThrottledFireCounts() {
+        JobStore js = resources.getJobStore();
+        if (js instanceof RateLimitedJobStore) {
+            return ((RateLimitedJobStore) js).getThrottledFireCounts();
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * <p>
+     * Get the weights the <code>JobStore</code> gives trigger groups when it
+     * acquires triggers fairly.
+     * </p>
+     */
+    public Map<String, Integer> getTriggerGroupWeights() {
+        JobStore js = resources.getJobStore();
+        if (js instanceof FairShareJobStore) {
+            return ((FairShareJobStore) js).getTriggerGroupWeights();
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * <p>
+     * Set the weight the <code>JobStore</code> gives the given trigger group
+     * when it acquires triggers fairly, from its next acquisition on.
+     * </p>
+     */
+    public void setTriggerGroupWeight(String groupName, int weight) throws SchedulerException {
+        JobStore js = resources.getJobStore();
+        if (!(js instanceof FairShareJobStore)) {
+            throw new SchedulerException("The JobStore " + js.getClass().getName()
+                + " does not support trigger group weights.");
+        }
+        try {
+            ((FairShareJobStore) js).setTriggerGroupWeight(groupName, weight);
+        } catch (IllegalArgumentException e) {
+            throw new SchedulerException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of fired jobs waiting in the deadline dispatch queue for
+     * a thread, which is 0 unless the scheduler has one.
+     * </p>
+     */
+    public int getDispatchQueueLength() {
+        return deadlineDispatcher != null ? deadlineDispatcher.getQueuedJobCount() : 0;
+    }
+
+    /**
+     * <p>
+     * Get the number of fired jobs whose deadline passed while they waited in
+     * the deadline dispatch queue.
+     * </p>
+     */
+    public long getMissedDeadlineCount() {
+        return deadlineDispatcher != null ? deadlineDispatcher.getMissedDeadlineCount() : 0L;
+    }
+
+    /**
+     * <p>
+     * Get the number of fired jobs the deadline dispatch queue completed
+     * without running, because their deadline had passed.
+     * </p>
+     */
+    public long getShedJobCount() {
+        return deadlineDispatcher != null ? deadlineDispatcher.getShedJobCount() : 0L;
+    }
+
     /**
      * <p>
      * Halts the <code>QuartzScheduler</code>'s firing of <code>{@link org.quartz.Trigger}s</code>,
@@ -692,6 +860,12 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         standby();
 
         schedThread.halt(waitForJobsToComplete);
+        if (deadlineDispatcher != null) {
+            deadlineDispatcher.halt(waitForJobsToComplete);
+        }
+        if (delayedTaskDispatcher != null) {
+            delayedTaskDispatcher.halt(waitForJobsToComplete);
+        }
         
         notifySchedulerListenersShuttingdown();
         
@@ -710,6 +884,9 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         }
         
         resources.getThreadPool().shutdown(waitForJobsToComplete);
+        for (ThreadPool namedThreadPool : resources.getNamedThreadPools().values()) {
+            namedThreadPool.shutdown(waitForJobsToComplete);
+        }
         
         closed = true;
 
@@ -1193,6 +1370,43 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         notifySchedulerThread(trig.getNextFireTime().getTime());
         notifySchedulerListenersSchduled(trig);
     }
+
+    /**
+     * <p>
+     * Store the given <code>{@link DelayedTask}</code>, to be run once at its
+     * fire time.
+     * </p>
+     */
+    public void scheduleDelayedTask(DelayedTask task) throws SchedulerException {
+        validateState();
+
+        if (task == null) {
+            throw new SchedulerException("Task cannot be null");
+        }
+
+        getDelayedTaskStore().storeDelayedTask(task);
+        delayedTaskDispatcher.signalNewTask(task.getFireTimeMillis());
+    }
+
+    /**
+     * <p>
+     * Remove the <code>{@link DelayedTask}</code> with the given id, if it
+     * has not yet run.
+     * </p>
+     */
+    public boolean cancelDelayedTask(String taskId) throws SchedulerException {
+        validateState();
+
+        return getDelayedTaskStore().removeDelayedTask(taskId);
+    }
+
+    private DelayedTaskStore getDelayedTaskStore() throws SchedulerException {
+        if (delayedTaskDispatcher == null) {
+            throw new SchedulerException("Delayed tasks are not enabled for this scheduler; "
+                + "set org.quartz.scheduler.delayedTasksEnabled to true.");
+        }
+        return (DelayedTaskStore) resources.getJobStore();
+    }
     
     /**
      * <p>
@@ -1481,6 +1695,48 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         return resources.getJobStore().getTriggerKeys(matcher);
     }
 
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Job}s</code> in
+     * the matching groups, ordered by group and then by name.
+     * </p>
+     */
+    public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SchedulerException {
+        validateState();
+        validatePageLimit(limit);
+
+        if(matcher == null) {
+            matcher = GroupMatcher.groupEquals(Scheduler.DEFAULT_GROUP);
+        }
+
+        return resources.getJobStore().getJobKeys(matcher, afterKey, limit);
+    }
+
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Trigger}s</code>
+     * in the matching groups, ordered by group and then by name.
+     * </p>
+     */
+    public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws SchedulerException {
+        validateState();
+        validatePageLimit(limit);
+
+        if(matcher == null) {
+            matcher = GroupMatcher.groupEquals(Scheduler.DEFAULT_GROUP);
+        }
+
+        return resources.getJobStore().getTriggerKeys(matcher, afterKey, limit);
+    }
+
+    private void validatePageLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+    }
+
     /**
      * <p>
      * Get the <code>{@link JobDetail}</code> for the <code>Job</code>
@@ -1547,6 +1803,38 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         resources.getJobStore().clearAllSchedulingData();
         notifySchedulerListenersUnscheduled(null);
     }
+
+    /**
+     * <p>
+     * Write all jobs, triggers (with their current fire times and paused
+     * state), calendars and paused trigger groups to the given stream.
+     * </p>
+     * 
+     * @see SchedulerSnapshot
+     */
+    public void exportSnapshot(OutputStream out) throws SchedulerException {
+        validateState();
+
+        SchedulerSnapshot.write(resources.getJobStore(), out);
+    }
+
+    /**
+     * <p>
+     * Load a stream written by <code>{@link #exportSnapshot(OutputStream)}</code>,
+     * storing its jobs and triggers in batches and without recomputing the
+     * triggers' fire times.  No <code>SchedulerListener</code>s are notified
+     * of the individual jobs and triggers.
+     * </p>
+     * 
+     * @see SchedulerSnapshot
+     */
+    public void importSnapshot(InputStream in, boolean replace) throws SchedulerException {
+        validateState();
+
+        int jobs = SchedulerSnapshot.read(resources.getJobStore(), in, replace);
+        getLog().info("Imported " + jobs + " jobs from scheduler snapshot.");
+        notifySchedulerThread(0L);
+    }
     
     
     /**
@@ -1562,6 +1850,22 @@ J     *
         return resources.getJobStore().getTriggerState(triggerKey);
     }
 
+    /**
+     * <p>
+     * Get the state, next fire time and job of each of the identified
+     * <code>{@link Trigger}s</code>.
+     * </p>
+     */
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws SchedulerException {
+        validateState();
+
+        if (triggerKeys.isEmpty()) {
+            return new HashMap<TriggerKey, TriggerSummary>();
+        }
+        return resources.getJobStore().getTriggerSummaries(triggerKeys);
+    }
+
 
     public void resetTriggerFromErrorState(TriggerKey triggerKey) throws SchedulerException  {
         validateState();
@@ -1786,6 +2090,17 @@ J     *
         resources.getJobStore().triggeredJobComplete(trigger, detail, instCode);
     }
 
+    protected void notifyJobStoreJobsComplete(List<OperableTrigger> triggers, JobDetail detail, List<CompletedExecutionInstruction> instCodes) {
+        JobStore js = resources.getJobStore();
+        if (js instanceof BatchCompletionJobStore) {
+            ((BatchCompletionJobStore) js).triggeredJobsComplete(triggers, detail, instCodes);
+            return;
+        }
+        for (int i = 0; i < triggers.size(); i++) {
+            js.triggeredJobComplete(triggers.get(i), detail, instCodes.get(i));
+        }
+    }
+
     protected void notifyJobStoreJobVetoed(OperableTrigger trigger, JobDetail detail, CompletedExecutionInstruction instCode) {
         resources.getJobStore().triggeredJobComplete(trigger, detail, instCode);
     }
@@ -2390,6 +2705,42 @@ J     *
         }
     }
 
+    /**
+     * Log a warning if stored jobs implement <code>BatchJob</code> but
+     * their fires can never be run together: that takes acquiring more than
+     * one trigger at a time, no deadline dispatch queue, and a job run shell
+     * factory that can create batch run shells.
+     */
+    private void warnIfBatchJobsCannotBatch() {
+        String reason = null;
+        if (resources.getMaxBatchSize() <= 1) {
+            reason = "batchTriggerAcquisitionMaxCount is " + resources.getMaxBatchSize();
+        } else if (deadlineDispatcher != null) {
+            reason = "a deadline dispatch queue is configured";
+        } else if (!(resources.getJobRunShellFactory() instanceof BatchJobRunShellFactory)) {
+            reason = "the job run shell factory cannot create batch run shells";
+        }
+        if (reason == null) {
+            return;
+        }
+
+        JobStore jobStore = resources.getJobStore();
+        try {
+            for (String group : jobStore.getJobGroupNames()) {
+                for (JobKey jobKey : jobStore.getJobKeys(GroupMatcher.jobGroupEquals(group))) {
+                    JobDetail jobDetail = jobStore.retrieveJob(jobKey);
+                    if (jobDetail != null && BatchJob.class.isAssignableFrom(jobDetail.getJobClass())) {
+                        getLog().warn("Job " + jobKey + " implements BatchJob, but its fires will each run "
+                            + "on their own, as " + reason + ".");
+                        return;
+                    }
+                }
+            }
+        } catch (JobPersistenceException e) {
+            getLog().debug("Could not look for BatchJob jobs at startup.", e);
+        }
+    }
+
 }
 
 /////////////////////////////////////////////////////////////////////////////
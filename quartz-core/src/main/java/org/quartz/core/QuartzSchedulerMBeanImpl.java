@@ -393,6 +393,19 @@ public class QuartzSchedulerMBeanImpl extends StandardMBean implements
         }
     }
 
+    public List<String> getJobNames(String groupName, String afterJobName, int limit) throws Exception {
+        try {
+            JobKey afterKey = afterJobName == null ? null : jobKey(afterJobName, groupName);
+            List<String> jobNames = new ArrayList<String>();
+            for(JobKey key: scheduler.getJobKeys(GroupMatcher.jobGroupEquals(groupName), afterKey, limit)) {
+                jobNames.add(key.getName());
+            }
+            return jobNames;
+        } catch (Exception e) {
+            throw newPlainException(e);
+        }
+    }
+
     public String getJobStoreClassName() {
         return scheduler.getJobStoreClass().getName();
     }
@@ -434,6 +447,19 @@ public class QuartzSchedulerMBeanImpl extends StandardMBean implements
         }
     }
 
+    public List<String> getTriggerNames(String groupName, String afterTriggerName, int limit) throws Exception {
+        try {
+            TriggerKey afterKey = afterTriggerName == null ? null : triggerKey(afterTriggerName, groupName);
+            List<String> triggerNames = new ArrayList<String>();
+            for(TriggerKey key: scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(groupName), afterKey, limit)) {
+                triggerNames.add(key.getName());
+            }
+            return triggerNames;
+        } catch (Exception e) {
+            throw newPlainException(e);
+        }
+    }
+
     public String getTriggerState(String triggerName, String triggerGroupName) throws Exception {
         try {
             TriggerKey triggerKey = triggerKey(triggerName, triggerGroupName);
@@ -552,6 +578,54 @@ public class QuartzSchedulerMBeanImpl extends StandardMBean implements
         return scheduler.getThreadPoolSize();
     }
 
+    public int getThreadPoolCurrentSize() {
+        return scheduler.getThreadPoolCurrentSize();
+    }
+
+    public int getThreadPoolBusyThreadCount() {
+        return scheduler.getThreadPoolBusyThreadCount();
+    }
+
+    public double getThreadPoolUtilization() {
+        int size = scheduler.getThreadPoolSize();
+        if (size <= 0) {
+            return 0d;
+        }
+        return Math.min((double) scheduler.getThreadPoolBusyThreadCount() / size, 1d);
+    }
+
+    public long getThrottledFireCount() {
+        return scheduler.getThrottledFireCount();
+    }
+
+    public Map<String, Long> getThrottledFireCounts() {
+        return scheduler.getThrottledFireCounts();
+    }
+
+    public Map<String, Integer> getTriggerGroupWeights() {
+        return scheduler.getTriggerGroupWeights();
+    }
+
+    public void setTriggerGroupWeight(String triggerGroup, int weight) throws Exception {
+        try {
+            scheduler.setTriggerGroupWeight(triggerGroup, weight);
+        } catch (Exception e) {
+            throw newPlainException(e);
+        }
+    }
+
+    public int getDispatchQueueLength() {
+        return scheduler.getDispatchQueueLength();
+    }
+
+    public long getMissedDeadlineCount() {
+        return scheduler.getMissedDeadlineCount();
+    }
+
+    public long getShedJobCount() {
+        return scheduler.getShedJobCount();
+    }
+
     public void pauseJob(String jobName, String jobGroup) throws Exception {
         try {
             scheduler.pauseJob(jobKey(jobName, jobGroup));
@@ -19,7 +19,11 @@
 package org.quartz.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.quartz.management.ManagementRESTServiceConfiguration;
 import org.quartz.spi.JobStore;
@@ -69,6 +73,10 @@ public class QuartzSchedulerResources {
 
     private ThreadPool threadPool;
 
+    private Map<String, ThreadPool> namedThreadPools = new LinkedHashMap<String, ThreadPool>();
+
+    private Map<String, String> threadPoolNamesByJobGroup = new HashMap<String, String>();
+
     private JobStore jobStore;
 
     private JobRunShellFactory jobRunShellFactory;
@@ -93,6 +101,12 @@ public class QuartzSchedulerResources {
 
     private int maxBatchSize = 1;
 
+    private boolean delayedTasksEnabled = false;
+
+    private int deadlineDispatchQueueSize = 0;
+
+    private boolean shedJobsPastDeadline = false;
+
     private boolean interruptJobsOnShutdown = false;
     private boolean interruptJobsOnShutdownWithWait = false;
     
@@ -341,6 +355,53 @@ public class QuartzSchedulerResources {
         this.threadPool = threadPool;
     }
 
+    /**
+     * <p>
+     * Add a named <code>{@link ThreadPool}</code>, which runs the jobs routed
+     * to it instead of the main <code>ThreadPool</code>.
+     * </p>
+     * 
+     * @exception IllegalArgumentException
+     *              if name or threadPool is null.
+     * @see org.quartz.ExecuteInThreadPool
+     */
+    public void addNamedThreadPool(String name, ThreadPool threadPool) {
+        if (name == null || threadPool == null) {
+            throw new IllegalArgumentException("Named ThreadPool name and pool cannot be null.");
+        }
+
+        namedThreadPools.put(name, threadPool);
+    }
+
+    /**
+     * <p>
+     * Get the named <code>{@link ThreadPool}</code>s, by name.
+     * </p>
+     */
+    public Map<String, ThreadPool> getNamedThreadPools() {
+        return Collections.unmodifiableMap(namedThreadPools);
+    }
+
+    /**
+     * <p>
+     * Run the jobs of the given group in the named <code>{@link ThreadPool}</code>
+     * with the given name, unless they name another pool themselves.
+     * </p>
+     */
+    public void setJobGroupThreadPoolName(String jobGroup, String threadPoolName) {
+        threadPoolNamesByJobGroup.put(jobGroup, threadPoolName);
+    }
+
+    /**
+     * <p>
+     * Get the names of the named <code>{@link ThreadPool}</code>s that run
+     * the jobs of each job group that was assigned one.
+     * </p>
+     */
+    public Map<String, String> getThreadPoolNamesByJobGroup() {
+        return Collections.unmodifiableMap(threadPoolNamesByJobGroup);
+    }
+
     /**
      * <p>
      * Get the <code>{@link JobStore}</code> for the <code>{@link QuartzScheduler}</code>
@@ -555,6 +616,30 @@ public class QuartzSchedulerResources {
     public void setMaxBatchSize(int maxBatchSize) {
       this.maxBatchSize = maxBatchSize;
     }
+
+    public boolean isDelayedTasksEnabled() {
+        return delayedTasksEnabled;
+    }
+
+    public void setDelayedTasksEnabled(boolean delayedTasksEnabled) {
+        this.delayedTasksEnabled = delayedTasksEnabled;
+    }
+
+    public int getDeadlineDispatchQueueSize() {
+        return deadlineDispatchQueueSize;
+    }
+
+    public void setDeadlineDispatchQueueSize(int deadlineDispatchQueueSize) {
+        this.deadlineDispatchQueueSize = deadlineDispatchQueueSize;
+    }
+
+    public boolean isShedJobsPastDeadline() {
+        return shedJobsPastDeadline;
+    }
+
+    public void setShedJobsPastDeadline(boolean shedJobsPastDeadline) {
+        this.shedJobsPastDeadline = shedJobsPastDeadline;
+    }
     
     public boolean isInterruptJobsOnShutdown() {
         return interruptJobsOnShutdown;
@@ -19,10 +19,15 @@
 package org.quartz.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.quartz.BatchJob;
+import org.quartz.JobKey;
 import org.quartz.JobPersistenceException;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
@@ -77,6 +82,12 @@ public class QuartzSchedulerThread extends Thread {
 
     private int idleWaitVariablness = 7 * 1000;
 
+    // routes jobs to named thread pools, when there are any
+    private ThreadPoolBulkheads bulkheads;
+
+    // orders fired jobs by deadline, when there is a dispatch queue
+    private volatile DeadlineDispatcher deadlineDispatcher;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /*
@@ -117,6 +128,10 @@ public class QuartzSchedulerThread extends Thread {
 
         this.setPriority(threadPrio);
 
+        if (!qsRsrcs.getNamedThreadPools().isEmpty()) {
+            bulkheads = new ThreadPoolBulkheads(qsRsrcs, this);
+        }
+
         // start the underlying thread, but put this object into the 'paused'
         // state
         // so processing doesn't start yet...
@@ -137,6 +152,51 @@ public class QuartzSchedulerThread extends Thread {
         idleWaitVariablness = (int) (waitTime * 0.2);
     }
 
+    /**
+     * <p>
+     * Dispatch fired jobs through the given <code>DeadlineDispatcher</code>
+     * rather than straight to the thread pool.
+     * </p>
+     */
+    void setDeadlineDispatcher(DeadlineDispatcher deadlineDispatcher) {
+        this.deadlineDispatcher = deadlineDispatcher;
+    }
+
+    /**
+     * <p>
+     * Get the number of free threads of the main thread pool, as counted by
+     * the bulkheads or the deadline dispatcher if there are any, waiting up
+     * to the given time for one to become free if there are none.
+     * </p>
+     *
+     * @return the number of free threads, which is 0 if the wait timed out
+     *         or was interrupted.
+     */
+    int blockForMainPoolThreads(long timeout) {
+        if (bulkheads != null) {
+            return bulkheads.blockForMainPoolThreads(timeout);
+        } else if (deadlineDispatcher != null) {
+            return deadlineDispatcher.blockForAvailableThreads(timeout);
+        }
+        return qsRsrcs.getThreadPool().blockForAvailableThreads();
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code>, which is not a fired job, in the
+     * main thread pool, counting the thread it takes as busy when acquiring
+     * triggers.
+     * </p>
+     */
+    boolean runInMainPool(Runnable runnable) {
+        if (bulkheads != null) {
+            return bulkheads.runInMainPool(runnable);
+        } else if (deadlineDispatcher != null) {
+            return deadlineDispatcher.runInThread(runnable);
+        }
+        return qsRsrcs.getThreadPool().runInThread(runnable);
+    }
+
     private long getRandomizedIdleWaitTime() {
         return idleWaitTime - random.nextInt(idleWaitVariablness);
     }
@@ -276,7 +336,16 @@ public class QuartzSchedulerThread extends Thread {
                     }
                 }
 
-                int availThreadCount = qsRsrcs.getThreadPool().blockForAvailableThreads();
+                int availThreadCount;
+                if (bulkheads != null) {
+                    // returns 0 after a while, to check for halt again
+                    availThreadCount = bulkheads.blockForAvailableThreads(1000L);
+                } else if (deadlineDispatcher != null) {
+                    // free threads plus free places in the dispatch queue
+                    availThreadCount = deadlineDispatcher.blockForCapacity(1000L);
+                } else {
+                    availThreadCount = qsRsrcs.getThreadPool().blockForAvailableThreads();
+                }
                 synchronized (sigLock) {
                     if (halted.get()) {
                         break;
@@ -290,8 +359,15 @@ public class QuartzSchedulerThread extends Thread {
 
                     clearSignaledSchedulingChange();
                     try {
-                        triggers = qsRsrcs.getJobStore().acquireNextTriggers(
-                                now + idleWaitTime, Math.min(availThreadCount, qsRsrcs.getMaxBatchSize()), qsRsrcs.getBatchTimeWindow());
+                        int maxCount = Math.min(availThreadCount, qsRsrcs.getMaxBatchSize());
+                        if (bulkheads != null) {
+                            // only triggers whose own thread pool has a free thread
+                            triggers = qsRsrcs.getJobStore().acquireNextTriggers(
+                                    now + idleWaitTime, maxCount, qsRsrcs.getBatchTimeWindow(), bulkheads.newAcquisitionFilter());
+                        } else {
+                            triggers = qsRsrcs.getJobStore().acquireNextTriggers(
+                                    now + idleWaitTime, maxCount, qsRsrcs.getBatchTimeWindow());
+                        }
                         acquiresFailed = 0;
                         if (log.isDebugEnabled())
                             log.debug("batch acquisition of " + (triggers == null ? 0 : triggers.size()) + " triggers");
@@ -378,6 +454,13 @@ public class QuartzSchedulerThread extends Thread {
 
                         }
 
+                        // fires of the same BatchJob, to run together
+                        Map<JobKey, List<TriggerFiredBundle>> batches = null;
+                        if (bndles.size() > 1 && deadlineDispatcher == null
+                                && qsRsrcs.getJobRunShellFactory() instanceof BatchJobRunShellFactory) {
+                            batches = new LinkedHashMap<JobKey, List<TriggerFiredBundle>>();
+                        }
+
                         for (int i = 0; i < bndles.size(); i++) {
                             TriggerFiredResult result =  bndles.get(i);
                             TriggerFiredBundle bndle =  result.getTriggerFiredBundle();
@@ -397,6 +480,21 @@ public class QuartzSchedulerThread extends Thread {
                                 continue;
                             }
 
+                            if (deadlineDispatcher != null) {
+                                deadlineDispatcher.dispatch(bndle);
+                                continue;
+                            }
+
+                            if (batches != null && BatchJob.class.isAssignableFrom(bndle.getJobDetail().getJobClass())) {
+                                List<TriggerFiredBundle> batch = batches.get(bndle.getJobDetail().getKey());
+                                if (batch == null) {
+                                    batch = new ArrayList<TriggerFiredBundle>();
+                                    batches.put(bndle.getJobDetail().getKey(), batch);
+                                }
+                                batch.add(bndle);
+                                continue;
+                            }
+
                             JobRunShell shell = null;
                             try {
                                 shell = qsRsrcs.getJobRunShellFactory().createJobRunShell(bndle);
@@ -406,7 +504,13 @@ public class QuartzSchedulerThread extends Thread {
                                 continue;
                             }
 
-                            if (qsRsrcs.getThreadPool().runInThread(shell) == false) {
+                            boolean handedOff;
+                            if (bulkheads != null) {
+                                handedOff = bulkheads.runInThread(bndle.getJobDetail(), bndle.getTrigger(), shell);
+                            } else {
+                                handedOff = qsRsrcs.getThreadPool().runInThread(shell);
+                            }
+                            if (handedOff == false) {
                                 // this case should never happen, as it is indicative of the
                                 // scheduler being shutdown or a bug in the thread pool or
                                 // a thread pool being used concurrently - which the docs
@@ -417,10 +521,17 @@ public class QuartzSchedulerThread extends Thread {
 
                         }
 
+                        if (batches != null) {
+                            for (List<TriggerFiredBundle> batch : batches.values()) {
+                                runBatch(batch);
+                            }
+                        }
+
                         continue; // while (!halted)
                     }
                 } else { // if(availThreadCount > 0)
-                    // should never happen, if threadPool.blockForAvailableThreads() follows contract
+                    // should never happen, if threadPool.blockForAvailableThreads() follows contract,
+                    // but does when every named thread pool, or the dispatch queue, stays busy for a while
                     continue; // while (!halted)
                 }
 
@@ -475,6 +586,49 @@ public class QuartzSchedulerThread extends Thread {
         return delay;
     }
 
+    /**
+     * <p>
+     * Run the fires of one <code>BatchJob</code> fired together in one
+     * thread, as one execution if there are several.
+     * </p>
+     */
+    private void runBatch(List<TriggerFiredBundle> batch) {
+        TriggerFiredBundle first = batch.get(0);
+        JobRunShell shell;
+        try {
+            if (batch.size() == 1) {
+                shell = qsRsrcs.getJobRunShellFactory().createJobRunShell(first);
+            } else {
+                shell = ((BatchJobRunShellFactory) qsRsrcs.getJobRunShellFactory()).createBatchJobRunShell(batch);
+                if (shell == null) {
+                    for (TriggerFiredBundle bndle : batch) {
+                        runBatch(Collections.singletonList(bndle));
+                    }
+                    return;
+                }
+            }
+            shell.initialize(qs);
+        } catch (SchedulerException se) {
+            for (TriggerFiredBundle bndle : batch) {
+                qsRsrcs.getJobStore().triggeredJobComplete(bndle.getTrigger(), bndle.getJobDetail(), CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
+            }
+            return;
+        }
+
+        boolean handedOff;
+        if (bulkheads != null) {
+            handedOff = bulkheads.runInThread(first.getJobDetail(), first.getTrigger(), shell);
+        } else {
+            handedOff = qsRsrcs.getThreadPool().runInThread(shell);
+        }
+        if (handedOff == false) {
+            getLog().error("ThreadPool.runInThread() return false!");
+            for (TriggerFiredBundle bndle : batch) {
+                qsRsrcs.getJobStore().triggeredJobComplete(bndle.getTrigger(), bndle.getJobDetail(), CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
+            }
+        }
+    }
+
     private boolean releaseIfScheduleChangedSignificantly(
             List<OperableTrigger> triggers, long triggerTime) {
         if (isCandidateNewTimeEarlierWithinReason(triggerTime, true)) {
@@ -20,12 +20,14 @@ package org.quartz.core;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
@@ -34,6 +36,7 @@ import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.UnableToInterruptJobException;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.impl.matchers.GroupMatcher;
@@ -108,6 +111,10 @@ public interface RemotableQuartzScheduler extends Remote {
         
     void triggerJob(JobKey jobKey, JobDataMap data) throws SchedulerException, RemoteException;
 
+    void scheduleDelayedTask(DelayedTask task) throws SchedulerException, RemoteException;
+
+    boolean cancelDelayedTask(String taskId) throws SchedulerException, RemoteException;
+
     void triggerJob(OperableTrigger trig) throws SchedulerException, RemoteException;
     
     void pauseTrigger(TriggerKey triggerKey) throws SchedulerException, RemoteException;
@@ -142,12 +149,18 @@ public interface RemotableQuartzScheduler extends Remote {
 
     Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) throws SchedulerException, RemoteException;
 
+    List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit) throws SchedulerException, RemoteException;
+
+    List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit) throws SchedulerException, RemoteException;
+
     JobDetail getJobDetail(JobKey jobKey) throws SchedulerException, RemoteException;
 
     Trigger getTrigger(TriggerKey triggerKey) throws SchedulerException, RemoteException;
 
     TriggerState getTriggerState(TriggerKey triggerKey) throws SchedulerException, RemoteException;
 
+    Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys) throws SchedulerException, RemoteException;
+
     void resetTriggerFromErrorState(TriggerKey triggerKey) throws SchedulerException, RemoteException;
 
     void addCalendar(String calName, Calendar calendar, boolean replace, boolean updateTriggers) throws SchedulerException, RemoteException;
@@ -0,0 +1,306 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SnapshotJobStore;
+
+/**
+ * <p>
+ * Writes the contents of a <code>{@link JobStore}</code> to a stream, and
+ * loads such a stream into another <code>JobStore</code>, for
+ * <code>{@link QuartzScheduler#exportSnapshot(OutputStream)}</code> and
+ * <code>{@link QuartzScheduler#importSnapshot(InputStream, boolean)}</code>.
+ * </p>
+ *
+ * <p>
+ * The stream is a single <code>ObjectOutputStream</code>, so that class
+ * descriptors are written once rather than once per job or trigger, made
+ * of tagged records: calendars, paused trigger and job groups, then each
+ * job followed by its triggers.  Jobs are read <code>BATCH_SIZE</code> at
+ * a time, and the stream is reset after each batch so that neither side
+ * holds on to what it has already written or read.  Triggers are written
+ * with their current fire times and states, and loaded with
+ * <code>{@link JobStore#storeJobsAndTriggers(Map, boolean)}</code> one batch
+ * at a time, without recomputing their schedules.
+ * </p>
+ *
+ * <p>
+ * Stores that implement <code>{@link SnapshotJobStore}</code> are read a
+ * batch at a time and have every trigger state restored; with other stores
+ * the jobs are read one at a time, and only paused triggers are restored.
+ * </p>
+ */
+class SchedulerSnapshot {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final int MAGIC = 0x51534E50; // "QSNP"
+
+    private static final int VERSION = 2;
+
+    private static final byte END = 0;
+    private static final byte CALENDAR = 1;
+    private static final byte PAUSED_TRIGGER_GROUP = 2;
+    private static final byte JOB = 3;
+    private static final byte PAUSED_JOB_GROUP = 4;
+
+    private SchedulerSnapshot() {
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Write everything in the given store to the given stream, which is
+     * flushed but not closed.
+     */
+    static void write(JobStore jobStore, OutputStream os) throws SchedulerException {
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(os));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            for (String name : jobStore.getCalendarNames()) {
+                Calendar calendar = jobStore.retrieveCalendar(name);
+                if (calendar != null) {
+                    out.writeByte(CALENDAR);
+                    out.writeUTF(name);
+                    out.writeObject(calendar);
+                }
+            }
+
+            for (String group : jobStore.getPausedTriggerGroups()) {
+                out.writeByte(PAUSED_TRIGGER_GROUP);
+                out.writeUTF(group);
+            }
+
+            if (jobStore instanceof SnapshotJobStore) {
+                for (String group : ((SnapshotJobStore) jobStore).getPausedJobGroups()) {
+                    out.writeByte(PAUSED_JOB_GROUP);
+                    out.writeUTF(group);
+                }
+            }
+
+            List<JobKey> jobKeys = new ArrayList<JobKey>();
+            for (String group : jobStore.getJobGroupNames()) {
+                jobKeys.addAll(jobStore.getJobKeys(GroupMatcher.jobGroupEquals(group)));
+            }
+
+            int jobs = 0;
+            int triggers = 0;
+            for (int from = 0; from < jobKeys.size(); from += BATCH_SIZE) {
+                Map<JobDetail, List<OperableTrigger>> batch = retrieveBatch(jobStore,
+                    jobKeys.subList(from, Math.min(from + BATCH_SIZE, jobKeys.size())));
+
+                List<TriggerKey> triggerKeys = new ArrayList<TriggerKey>();
+                for (List<OperableTrigger> jobTriggers : batch.values()) {
+                    for (OperableTrigger trigger : jobTriggers) {
+                        triggerKeys.add(trigger.getKey());
+                    }
+                }
+                Map<TriggerKey, TriggerSummary> summaries = jobStore.getTriggerSummaries(triggerKeys);
+
+                for (Map.Entry<JobDetail, List<OperableTrigger>> entry : batch.entrySet()) {
+                    // leave out any trigger removed since the job was read
+                    List<OperableTrigger> jobTriggers = new ArrayList<OperableTrigger>(entry.getValue().size());
+                    for (OperableTrigger trigger : entry.getValue()) {
+                        if (summaries.containsKey(trigger.getKey())) {
+                            jobTriggers.add(trigger);
+                        }
+                    }
+
+                    out.writeByte(JOB);
+                    out.writeObject(entry.getKey());
+                    out.writeInt(jobTriggers.size());
+                    for (OperableTrigger trigger : jobTriggers) {
+                        out.writeObject(trigger);
+                        out.writeObject(summaries.get(trigger.getKey()).getState());
+                    }
+
+                    triggers += jobTriggers.size();
+                    jobs++;
+                }
+                out.reset();
+            }
+
+            out.writeByte(END);
+            out.writeInt(jobs);
+            out.writeInt(triggers);
+            out.flush();
+        } catch (IOException e) {
+            throw new SchedulerException("Couldn't write scheduler snapshot.", e);
+        }
+    }
+
+    /**
+     * Load a stream written by <code>{@link #write(JobStore, OutputStream)}</code>
+     * into the given store.  The stream is not closed.
+     *
+     * @return the number of jobs loaded.
+     */
+    static int read(JobStore jobStore, InputStream is, boolean replace) throws SchedulerException {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(is));
+            if (in.readInt() != MAGIC) {
+                throw new SchedulerException("Stream is not a scheduler snapshot.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new SchedulerException("Unsupported scheduler snapshot version: " + version);
+            }
+
+            Map<JobDetail, Set<? extends Trigger>> batch = new LinkedHashMap<JobDetail, Set<? extends Trigger>>();
+            Map<TriggerKey, TriggerState> triggerStates = new HashMap<TriggerKey, TriggerState>();
+            Set<String> pausedTriggerGroups = new HashSet<String>();
+            Set<String> pausedJobGroups = new HashSet<String>();
+            int jobs = 0;
+            int triggers = 0;
+
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                switch (tag) {
+                    case CALENDAR:
+                        String name = in.readUTF();
+                        jobStore.storeCalendar(name, (Calendar) in.readObject(), replace, false);
+                        break;
+                    case PAUSED_TRIGGER_GROUP:
+                        String triggerGroup = in.readUTF();
+                        pausedTriggerGroups.add(triggerGroup);
+                        jobStore.pauseTriggers(GroupMatcher.triggerGroupEquals(triggerGroup));
+                        break;
+                    case PAUSED_JOB_GROUP:
+                        String jobGroup = in.readUTF();
+                        pausedJobGroups.add(jobGroup);
+                        jobStore.pauseJobs(GroupMatcher.jobGroupEquals(jobGroup));
+                        break;
+                    case JOB:
+                        JobDetail job = (JobDetail) in.readObject();
+                        int count = in.readInt();
+                        Set<Trigger> jobTriggers = new HashSet<Trigger>(count * 2);
+                        for (int i = 0; i < count; i++) {
+                            Trigger trigger = (Trigger) in.readObject();
+                            TriggerState state = (TriggerState) in.readObject();
+                            jobTriggers.add(trigger);
+                            // triggers stored in a paused group are stored paused,
+                            // even those that were resumed on their own
+                            if (state != TriggerState.NORMAL
+                                    || pausedTriggerGroups.contains(trigger.getKey().getGroup())
+                                    || pausedJobGroups.contains(job.getKey().getGroup())) {
+                                triggerStates.put(trigger.getKey(), state);
+                            }
+                        }
+                        batch.put(job, jobTriggers);
+                        triggers += count;
+                        if (++jobs % BATCH_SIZE == 0) {
+                            storeBatch(jobStore, batch, triggerStates, replace);
+                        }
+                        break;
+                    default:
+                        throw new SchedulerException("Corrupt scheduler snapshot: unknown record type " + tag);
+                }
+            }
+            storeBatch(jobStore, batch, triggerStates, replace);
+
+            int writtenJobs = in.readInt();
+            int writtenTriggers = in.readInt();
+            if (writtenJobs != jobs || writtenTriggers != triggers) {
+                throw new SchedulerException("Corrupt scheduler snapshot: read " + jobs + " jobs and "
+                    + triggers + " triggers, but " + writtenJobs + " and " + writtenTriggers + " were written.");
+            }
+            return jobs;
+        } catch (IOException e) {
+            throw new SchedulerException("Couldn't read scheduler snapshot.", e);
+        } catch (ClassNotFoundException e) {
+            throw new SchedulerException("Couldn't read scheduler snapshot.", e);
+        }
+    }
+
+    private static Map<JobDetail, List<OperableTrigger>> retrieveBatch(JobStore jobStore, List<JobKey> jobKeys)
+            throws SchedulerException {
+        if (jobStore instanceof SnapshotJobStore) {
+            return ((SnapshotJobStore) jobStore).retrieveJobsAndTriggers(jobKeys);
+        }
+        Map<JobDetail, List<OperableTrigger>> batch = new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+        for (JobKey jobKey : jobKeys) {
+            JobDetail job = jobStore.retrieveJob(jobKey);
+            if (job != null) {
+                batch.put(job, jobStore.getTriggersForJob(jobKey));
+            }
+        }
+        return batch;
+    }
+
+    private static void storeBatch(JobStore jobStore, Map<JobDetail, Set<? extends Trigger>> batch,
+            Map<TriggerKey, TriggerState> triggerStates, boolean replace) throws SchedulerException {
+        if (!batch.isEmpty()) {
+            jobStore.storeJobsAndTriggers(batch, replace);
+            batch.clear();
+        }
+        if (jobStore instanceof SnapshotJobStore) {
+            if (!triggerStates.isEmpty()) {
+                ((SnapshotJobStore) jobStore).restoreTriggerStates(triggerStates);
+            }
+        } else {
+            for (Map.Entry<TriggerKey, TriggerState> entry : triggerStates.entrySet()) {
+                if (entry.getValue() == TriggerState.PAUSED) {
+                    jobStore.pauseTrigger(entry.getKey());
+                } else if (entry.getValue() == TriggerState.NORMAL) {
+                    jobStore.resumeTrigger(entry.getKey());
+                }
+            }
+        }
+        triggerStates.clear();
+    }
+}
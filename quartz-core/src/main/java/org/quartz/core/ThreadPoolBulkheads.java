@@ -0,0 +1,312 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.core;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.ExecuteInThreadPool;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.ThreadPool;
+import org.quartz.spi.TriggerAcquisitionFilter;
+import org.quartz.utils.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Routes the jobs of a <code>{@link QuartzScheduler}</code> that has named
+ * thread pools to their pools, and tracks how many threads of each pool the
+ * scheduler is using, so that the <code>{@link QuartzSchedulerThread}</code>
+ * only acquires triggers whose pool has a free thread.
+ * </p>
+ *
+ * <p>
+ * A job's pool is named, in order of precedence, by the
+ * <code>{@link ExecuteInThreadPool#JOB_DATA_KEY}</code> entry of its
+ * trigger's or its own <code>JobDataMap</code>, by an
+ * <code>{@link ExecuteInThreadPool}</code> annotation on its class, or by the
+ * pool its job group is assigned to. Jobs that name no pool, or an unknown
+ * one, run in the scheduler's main thread pool.
+ * </p>
+ *
+ * <p>
+ * Free threads are counted from the runnables handed to each pool, not asked
+ * of the pool, since <code>ThreadPool</code> can only block until a thread is
+ * free; other work run in the main pool, such as delayed tasks, is handed to
+ * it through <code>{@link #runInMainPool(Runnable)}</code> to be counted.
+ * </p>
+ */
+class ThreadPoolBulkheads {
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    // cached for job classes without the annotation
+    private static final Object NO_ANNOTATION = new Object();
+
+    private final Bulkhead mainPool;
+
+    private final Map<String, Bulkhead> namedPools = new LinkedHashMap<String, Bulkhead>();
+
+    private final Map<String, String> poolNamesByJobGroup;
+
+    private final Map<Class<?>, Object> poolNamesByJobClass = new ConcurrentHashMap<Class<?>, Object>();
+
+    private final Object capacityLock = new Object();
+
+    private final QuartzSchedulerThread schedThread;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    ThreadPoolBulkheads(QuartzSchedulerResources qsRsrcs, QuartzSchedulerThread schedThread) {
+        this.schedThread = schedThread;
+        mainPool = new Bulkhead(qsRsrcs.getThreadPool());
+        for (Map.Entry<String, ThreadPool> pool : qsRsrcs.getNamedThreadPools().entrySet()) {
+            namedPools.put(pool.getKey(), new Bulkhead(pool.getValue()));
+        }
+        poolNamesByJobGroup = new HashMap<String, String>(qsRsrcs.getThreadPoolNamesByJobGroup());
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Get the number of free threads over all pools, waiting up to the given
+     * time for one to become free if there are none.
+     * </p>
+     *
+     * @return the number of free threads, which is 0 if the wait timed out
+     *         or was interrupted.
+     */
+    int blockForAvailableThreads(long timeout) {
+        synchronized (capacityLock) {
+            int available = getAvailableThreadCount();
+            if (available == 0) {
+                try {
+                    capacityLock.wait(timeout);
+                } catch (InterruptedException ignore) {
+                }
+                available = getAvailableThreadCount();
+            }
+            return available;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of free threads of the main pool, waiting up to the
+     * given time for one to become free if there are none.
+     * </p>
+     *
+     * @return the number of free threads, which is 0 if the wait timed out
+     *         or was interrupted.
+     */
+    int blockForMainPoolThreads(long timeout) {
+        synchronized (capacityLock) {
+            int available = mainPool.getAvailableThreadCount();
+            if (available == 0) {
+                try {
+                    capacityLock.wait(timeout);
+                } catch (InterruptedException ignore) {
+                }
+                available = mainPool.getAvailableThreadCount();
+            }
+            return available;
+        }
+    }
+
+    /**
+     * <p>
+     * Create a filter for one trigger acquisition that accepts triggers until
+     * their pool's free threads are used up. A pool that turns triggers away
+     * signals the scheduler thread when one of its threads is next freed.
+     * </p>
+     */
+    TriggerAcquisitionFilter newAcquisitionFilter() {
+        final Map<Bulkhead, Integer> available = new HashMap<Bulkhead, Integer>();
+        available.put(mainPool, mainPool.getAvailableThreadCount());
+        for (Bulkhead pool : namedPools.values()) {
+            available.put(pool, pool.getAvailableThreadCount());
+        }
+
+        return new TriggerAcquisitionFilter() {
+            public boolean accept(OperableTrigger trigger, JobDetail jobDetail) {
+                Bulkhead pool = route(jobDetail, trigger);
+                int free = available.get(pool);
+                if (free <= 0) {
+                    pool.turnedAway(trigger.getNextFireTime().getTime());
+                    return false;
+                }
+                available.put(pool, free - 1);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code>, which executes the given job, in
+     * the job's pool.
+     * </p>
+     */
+    boolean runInThread(JobDetail jobDetail, Trigger trigger, Runnable runnable) {
+        return runInThread(route(jobDetail, trigger), runnable);
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code>, which is not a fired job, in the
+     * main pool.
+     * </p>
+     */
+    boolean runInMainPool(Runnable runnable) {
+        return runInThread(mainPool, runnable);
+    }
+
+    private boolean runInThread(final Bulkhead pool, final Runnable runnable) {
+        pool.busyThreads.incrementAndGet();
+        boolean handedOff = pool.threadPool.runInThread(new Runnable() {
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    threadFreed(pool);
+                }
+            }
+        });
+        if (!handedOff) {
+            threadFreed(pool);
+        }
+        return handedOff;
+    }
+
+    private int getAvailableThreadCount() {
+        int available = mainPool.getAvailableThreadCount();
+        for (Bulkhead pool : namedPools.values()) {
+            available += pool.getAvailableThreadCount();
+        }
+        return available;
+    }
+
+    private void threadFreed(Bulkhead pool) {
+        pool.busyThreads.decrementAndGet();
+        synchronized (capacityLock) {
+            capacityLock.notifyAll();
+        }
+        long turnedAwayFireTime = pool.turnedAwayFireTime.getAndSet(Long.MAX_VALUE);
+        if (turnedAwayFireTime != Long.MAX_VALUE) {
+            schedThread.signalSchedulingChange(turnedAwayFireTime);
+        }
+    }
+
+    private Bulkhead route(JobDetail jobDetail, Trigger trigger) {
+        String name = getPoolName(trigger.getJobDataMap());
+        if (name == null) {
+            name = getPoolName(jobDetail.getJobDataMap());
+        }
+        if (name == null) {
+            name = getAnnotatedPoolName(jobDetail.getJobClass());
+        }
+        if (name == null) {
+            name = poolNamesByJobGroup.get(jobDetail.getKey().getGroup());
+        }
+        if (name == null) {
+            return mainPool;
+        }
+
+        Bulkhead pool = namedPools.get(name);
+        if (pool == null) {
+            log.warn("Job " + jobDetail.getKey() + " names thread pool '" + name
+                + "', which does not exist; running it in the main thread pool.");
+            return mainPool;
+        }
+        return pool;
+    }
+
+    private static String getPoolName(JobDataMap jobDataMap) {
+        Object name = jobDataMap == null ? null : jobDataMap.get(ExecuteInThreadPool.JOB_DATA_KEY);
+        return name == null ? null : name.toString();
+    }
+
+    private String getAnnotatedPoolName(Class<?> jobClass) {
+        Object name = poolNamesByJobClass.get(jobClass);
+        if (name == null) {
+            ExecuteInThreadPool annotation = ClassUtils.getAnnotation(jobClass, ExecuteInThreadPool.class);
+            name = annotation == null ? NO_ANNOTATION : annotation.value();
+            poolNamesByJobClass.put(jobClass, name);
+        }
+        return name == NO_ANNOTATION ? null : (String) name;
+    }
+
+    /**
+     * <p>
+     * One pool, with the number of its threads the scheduler has in use.
+     * </p>
+     */
+    private static class Bulkhead {
+
+        private final ThreadPool threadPool;
+
+        private final AtomicInteger busyThreads = new AtomicInteger();
+
+        // earliest fire time of the triggers turned away since a thread was
+        // last freed, or Long.MAX_VALUE
+        private final AtomicLong turnedAwayFireTime = new AtomicLong(Long.MAX_VALUE);
+
+        Bulkhead(ThreadPool threadPool) {
+            this.threadPool = threadPool;
+        }
+
+        int getAvailableThreadCount() {
+            return Math.max(threadPool.getPoolSize() - busyThreads.get(), 0);
+        }
+
+        void turnedAway(long fireTime) {
+            long earliest = turnedAwayFireTime.get();
+            while (fireTime < earliest && !turnedAwayFireTime.compareAndSet(earliest, fireTime)) {
+                earliest = turnedAwayFireTime.get();
+            }
+        }
+    }
+}
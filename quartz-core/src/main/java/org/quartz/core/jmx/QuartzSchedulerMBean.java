@@ -52,6 +52,56 @@ public interface QuartzSchedulerMBean {
 
     int getThreadPoolSize();
 
+    int getThreadPoolCurrentSize();
+
+    int getThreadPoolBusyThreadCount();
+
+    /**
+     * @return the busy threads as a fraction of the thread pool's (greatest)
+     *         size, between 0 and 1
+     */
+    double getThreadPoolUtilization();
+
+    /**
+     * @return the number of fires the job store deferred to keep trigger and
+     *         job groups within their rate limits
+     */
+    long getThrottledFireCount();
+
+    /**
+     * @return the number of fires deferred by each rate limit, keyed by the
+     *         kind of group and its name, such as "JOB_GROUP:partnerApi"
+     */
+    Map<String, Long> getThrottledFireCounts();
+
+    /**
+     * @return the weights set for fair trigger acquisition, by trigger group;
+     *         other groups have a weight of 1
+     */
+    Map<String, Integer> getTriggerGroupWeights();
+
+    /**
+     * Set the weight of a trigger group for fair trigger acquisition.
+     */
+    void setTriggerGroupWeight(String triggerGroup, int weight) throws Exception;
+
+    /**
+     * @return the number of fired jobs waiting in the deadline dispatch queue
+     */
+    int getDispatchQueueLength();
+
+    /**
+     * @return the number of fired jobs whose deadline passed while they were
+     *         queued for dispatch
+     */
+    long getMissedDeadlineCount();
+
+    /**
+     * @return the number of fired jobs not run because their deadline had
+     *         passed
+     */
+    long getShedJobCount();
+
     long getJobsScheduledMostRecentSample();
 
     long getJobsExecutedMostRecentSample();
@@ -85,6 +135,15 @@ public interface QuartzSchedulerMBean {
     List<String> getJobNames(String groupName)
             throws Exception;
 
+    /**
+     * @return up to <code>limit</code> names of the jobs in the given group
+     *         that sort after <code>afterJobName</code>, in order, or the
+     *         first ones if it is <code>null</code>
+     * @throws Exception
+     */
+    List<String> getJobNames(String groupName, String afterJobName, int limit)
+            throws Exception;
+
     /**
      * @return CompositeData:JobDetail
      * @throws Exception
@@ -245,6 +304,14 @@ public interface QuartzSchedulerMBean {
 
     List<String> getTriggerNames(String triggerGroupName) throws Exception;
 
+    /**
+     * @return up to <code>limit</code> names of the triggers in the given
+     *         group that sort after <code>afterTriggerName</code>, in order, or
+     *         the first ones if it is <code>null</code>
+     * @throws Exception
+     */
+    List<String> getTriggerNames(String triggerGroupName, String afterTriggerName, int limit) throws Exception;
+
     CompositeData getTrigger(String triggerName, String triggerGroupName) throws Exception;
 
     String getTriggerState(String triggerName, String triggerGroupName) throws Exception;
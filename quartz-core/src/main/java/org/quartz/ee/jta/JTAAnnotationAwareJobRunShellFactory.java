@@ -18,12 +18,15 @@
 
 package org.quartz.ee.jta;
 
+import java.util.List;
+
 import org.quartz.ExecuteInJTATransaction;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerConfigException;
 import org.quartz.SchedulerException;
+import org.quartz.core.BatchJobRunShell;
+import org.quartz.core.BatchJobRunShellFactory;
 import org.quartz.core.JobRunShell;
-import org.quartz.core.JobRunShellFactory;
 import org.quartz.spi.TriggerFiredBundle;
 import org.quartz.utils.ClassUtils;
 
@@ -43,7 +46,7 @@ import org.quartz.utils.ClassUtils;
  * 
  * @author James House
  */
-public class JTAAnnotationAwareJobRunShellFactory implements JobRunShellFactory {
+public class JTAAnnotationAwareJobRunShellFactory implements BatchJobRunShellFactory {
 
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -111,4 +114,21 @@ public class JTAAnnotationAwareJobRunShellFactory implements JobRunShellFactory
     }
 
 
-}
\ No newline at end of file
+
+    /**
+     * <p>
+     * Called by the <class>{@link org.quartz.core.QuartzSchedulerThread}
+     * </code> to obtain a <code>{@link org.quartz.core.BatchJobRunShell}</code>
+     * for triggers of one <code>{@link org.quartz.BatchJob}</code> fired
+     * together, unless the job executes in a JTA transaction, whose fires run
+     * one by one.
+     * </p>
+     */
+    public JobRunShell createBatchJobRunShell(List<TriggerFiredBundle> bundles)
+            throws SchedulerException {
+        if (ClassUtils.getAnnotation(bundles.get(0).getJobDetail().getJobClass(), ExecuteInJTATransaction.class) != null) {
+            return null;
+        }
+        return new BatchJobRunShell(scheduler, bundles);
+    }
+}
@@ -29,6 +29,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.Scheduler;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.TriggerFiredBundle;
 
@@ -68,6 +69,12 @@ public class JobExecutionContextImpl implements java.io.Serializable, JobExecuti
     private Date prevFireTime;
 
     private Date nextFireTime;
+
+    private int missedFireCount = 0;
+
+    private Date firstMissedFireTime;
+
+    private Date lastMissedFireTime;
     
     private long jobRunTime = -1;
     
@@ -100,6 +107,12 @@ public class JobExecutionContextImpl implements java.io.Serializable, JobExecuti
         this.scheduledFireTime = firedBundle.getScheduledFireTime();
         this.prevFireTime = firedBundle.getPrevFireTime();
         this.nextFireTime = firedBundle.getNextFireTime();
+        if (trigger instanceof SimpleTriggerImpl) {
+            SimpleTriggerImpl simpleTrigger = (SimpleTriggerImpl) trigger;
+            this.missedFireCount = simpleTrigger.getMissedFireCount();
+            this.firstMissedFireTime = simpleTrigger.getFirstMissedFireTime();
+            this.lastMissedFireTime = simpleTrigger.getLastMissedFireTime();
+        }
         
         this.jobDataMap = new JobDataMap();
         this.jobDataMap.putAll(jobDetail.getJobDataMap());
@@ -211,6 +224,27 @@ public class JobExecutionContextImpl implements java.io.Serializable, JobExecuti
         return nextFireTime;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public int getMissedFireCount() {
+        return missedFireCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Date getFirstMissedFireTime() {
+        return firstMissedFireTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Date getLastMissedFireTime() {
+        return lastMissedFireTime;
+    }
+
     @Override
     public String toString() {
         return "JobExecutionContext:" + " trigger: '"
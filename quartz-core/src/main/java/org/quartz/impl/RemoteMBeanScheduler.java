@@ -16,8 +16,12 @@
  */
 package org.quartz.impl;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -31,6 +35,7 @@ import javax.management.ObjectName;
 import javax.management.openmbean.CompositeData;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
@@ -42,6 +47,7 @@ import org.quartz.SchedulerException;
 import org.quartz.SchedulerMetaData;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.UnableToInterruptJobException;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.core.jmx.JobDetailSupport;
@@ -475,6 +481,24 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
         throw new SchedulerException("Operation not supported for remote schedulers.");
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public void scheduleDelayedTask(DelayedTask task) throws SchedulerException {
+        throw new SchedulerException("Operation not supported for remote schedulers.");
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public boolean cancelDelayedTask(String taskId) throws SchedulerException {
+        throw new SchedulerException("Operation not supported for remote schedulers.");
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>,
@@ -762,6 +786,67 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
         throw new SchedulerException("Operation not supported for remote schedulers.");
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>,
+     * for equals matchers only.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit) throws SchedulerException {
+        validatePageLimit(limit);
+        if (!matcher.getCompareWithOperator().equals(StringMatcher.StringOperatorName.EQUALS)) {
+            throw new SchedulerException("Only equals matcher are supported for looking up JobKeys");
+        }
+        String group = matcher.getCompareToValue();
+        List<JobKey> keys = new ArrayList<JobKey>();
+        if (afterKey == null || afterKey.getGroup().compareTo(group) <= 0) {
+            String afterName = afterKey != null && afterKey.getGroup().equals(group) ? afterKey.getName() : null;
+            List<String> names = (List<String>)invoke(
+                    "getJobNames",
+                    new Object[] { group, afterName, limit },
+                    new String[] { String.class.getName(), String.class.getName(), int.class.getName() });
+            for (String name : names) {
+                keys.add(new JobKey(name, group));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>,
+     * for equals matchers only.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws SchedulerException {
+        validatePageLimit(limit);
+        if (!matcher.getCompareWithOperator().equals(StringMatcher.StringOperatorName.EQUALS)) {
+            throw new SchedulerException("Only equals matcher are supported for looking up TriggerKeys");
+        }
+        String group = matcher.getCompareToValue();
+        List<TriggerKey> keys = new ArrayList<TriggerKey>();
+        if (afterKey == null || afterKey.getGroup().compareTo(group) <= 0) {
+            String afterName = afterKey != null && afterKey.getGroup().equals(group) ? afterKey.getName() : null;
+            List<String> names = (List<String>)invoke(
+                    "getTriggerNames",
+                    new Object[] { group, afterName, limit },
+                    new String[] { String.class.getName(), String.class.getName(), int.class.getName() });
+            for (String name : names) {
+                keys.add(new TriggerKey(name, group));
+            }
+        }
+        return keys;
+    }
+
+    private void validatePageLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>,
@@ -817,6 +902,20 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
                 new String[] {  });
     }
 
+    /**
+     * @see org.quartz.Scheduler#exportSnapshot(java.io.OutputStream)
+     */
+    public void exportSnapshot(OutputStream out) throws SchedulerException {
+        throw new SchedulerException("Operation not supported for remote schedulers.");
+    }
+
+    /**
+     * @see org.quartz.Scheduler#importSnapshot(java.io.InputStream, boolean)
+     */
+    public void importSnapshot(InputStream in, boolean replace) throws SchedulerException {
+        throw new SchedulerException("Operation not supported for remote schedulers.");
+    }
+
 
     /**
      * <p>
@@ -833,6 +932,16 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
                 new String[] { String.class.getName(), String.class.getName() }));
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws SchedulerException {
+        throw new SchedulerException("Operation not supported for remote schedulers.");
+    }
+
 
     /**
      * <p>
@@ -17,15 +17,19 @@
 
 package org.quartz.impl;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
@@ -37,6 +41,7 @@ import org.quartz.SchedulerException;
 import org.quartz.SchedulerMetaData;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.UnableToInterruptJobException;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.core.RemotableQuartzScheduler;
@@ -510,6 +515,36 @@ public class RemoteScheduler implements Scheduler {
         }
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public void scheduleDelayedTask(DelayedTask task)
+        throws SchedulerException {
+        try {
+            getRemoteScheduler().scheduleDelayedTask(task);
+        } catch (RemoteException re) {
+            throw invalidateHandleCreateException(
+                    "Error communicating with remote scheduler.", re);
+        }
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public boolean cancelDelayedTask(String taskId)
+        throws SchedulerException {
+        try {
+            return getRemoteScheduler().cancelDelayedTask(taskId);
+        } catch (RemoteException re) {
+            throw invalidateHandleCreateException(
+                    "Error communicating with remote scheduler.", re);
+        }
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
@@ -726,6 +761,44 @@ public class RemoteScheduler implements Scheduler {
         }
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SchedulerException {
+        validatePageLimit(limit);
+        try {
+            return getRemoteScheduler().getJobKeys(matcher, afterKey, limit);
+        } catch (RemoteException re) {
+            throw invalidateHandleCreateException(
+                    "Error communicating with remote scheduler.", re);
+        }
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws SchedulerException {
+        validatePageLimit(limit);
+        try {
+            return getRemoteScheduler().getTriggerKeys(matcher, afterKey, limit);
+        } catch (RemoteException re) {
+            throw invalidateHandleCreateException(
+                    "Error communicating with remote scheduler.", re);
+        }
+    }
+
+    private void validatePageLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
@@ -813,6 +886,21 @@ public class RemoteScheduler implements Scheduler {
         }
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws SchedulerException {
+        try {
+            return getRemoteScheduler().getTriggerSummaries(triggerKeys);
+        } catch (RemoteException re) {
+            throw invalidateHandleCreateException(
+                    "Error communicating with remote scheduler.", re);
+        }
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
@@ -914,6 +1002,22 @@ public class RemoteScheduler implements Scheduler {
             "Operation not supported for remote schedulers.");
     }
 
+    /**
+     * @see org.quartz.Scheduler#exportSnapshot(java.io.OutputStream)
+     */
+    public void exportSnapshot(OutputStream out) throws SchedulerException {
+        throw new SchedulerException(
+            "Operation not supported for remote schedulers.");
+    }
+
+    /**
+     * @see org.quartz.Scheduler#importSnapshot(java.io.InputStream, boolean)
+     */
+    public void importSnapshot(InputStream in, boolean replace) throws SchedulerException {
+        throw new SchedulerException(
+            "Operation not supported for remote schedulers.");
+    }
+
     /**
      * @see org.quartz.Scheduler#interrupt(JobKey)
      */
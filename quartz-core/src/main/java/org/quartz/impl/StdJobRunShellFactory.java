@@ -17,10 +17,13 @@
 
 package org.quartz.impl;
 
+import java.util.List;
+
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.core.BatchJobRunShell;
+import org.quartz.core.BatchJobRunShellFactory;
 import org.quartz.core.JobRunShell;
-import org.quartz.core.JobRunShellFactory;
 import org.quartz.spi.TriggerFiredBundle;
 
 /**
@@ -32,7 +35,7 @@ import org.quartz.spi.TriggerFiredBundle;
  * 
  * @author James House
  */
-public class StdJobRunShellFactory implements JobRunShellFactory {
+public class StdJobRunShellFactory implements BatchJobRunShellFactory {
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -72,4 +75,16 @@ public class StdJobRunShellFactory implements JobRunShellFactory {
     public JobRunShell createJobRunShell(TriggerFiredBundle bndle) throws SchedulerException {
         return new JobRunShell(scheduler, bndle);
     }
+
+    /**
+     * <p>
+     * Called by the <class>{@link org.quartz.core.QuartzSchedulerThread}
+     * </code> to obtain a <code>{@link org.quartz.core.BatchJobRunShell}</code>
+     * for triggers of one <code>{@link org.quartz.BatchJob}</code> fired
+     * together.
+     * </p>
+     */
+    public JobRunShell createBatchJobRunShell(List<TriggerFiredBundle> bundles) throws SchedulerException {
+        return new BatchJobRunShell(scheduler, bundles);
+    }
 }
@@ -17,12 +17,16 @@
 
 package org.quartz.impl;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
@@ -34,6 +38,7 @@ import org.quartz.SchedulerException;
 import org.quartz.SchedulerMetaData;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.UnableToInterruptJobException;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.core.QuartzScheduler;
@@ -238,6 +243,24 @@ public class StdScheduler implements Scheduler {
     public void clear() throws SchedulerException {
         sched.clear();
     }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public void exportSnapshot(OutputStream out) throws SchedulerException {
+        sched.exportSnapshot(out);
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public void importSnapshot(InputStream in, boolean replace) throws SchedulerException {
+        sched.importSnapshot(in, replace);
+    }
     
     /**
      * <p>
@@ -341,6 +364,26 @@ public class StdScheduler implements Scheduler {
         sched.triggerJob(jobKey, data);
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public void scheduleDelayedTask(DelayedTask task)
+        throws SchedulerException {
+        sched.scheduleDelayedTask(task);
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public boolean cancelDelayedTask(String taskId)
+        throws SchedulerException {
+        return sched.cancelDelayedTask(taskId);
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
@@ -488,6 +531,26 @@ public class StdScheduler implements Scheduler {
         return sched.getTriggerKeys(matcher);
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SchedulerException {
+        return sched.getJobKeys(matcher, afterKey, limit);
+    }
+
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws SchedulerException {
+        return sched.getTriggerKeys(matcher, afterKey, limit);
+    }
+
     /**
      * <p>
      * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
@@ -518,6 +581,16 @@ public class StdScheduler implements Scheduler {
         return sched.getTriggerState(triggerKey);
     }
 
+    /**
+     * <p>
+     * Calls the equivalent method on the 'proxied' <code>QuartzScheduler</code>.
+     * </p>
+     */
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws SchedulerException {
+        return sched.getTriggerSummaries(triggerKeys);
+    }
+
     /**
      * Reset the current state of the identified <code>{@link Trigger}</code>
      * from {@link TriggerState#ERROR} to {@link TriggerState#NORMAL} or
@@ -66,7 +66,10 @@ import java.lang.reflect.Method;
 import java.security.AccessControlException;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -146,6 +149,12 @@ public class StdSchedulerFactory implements SchedulerFactory {
 
     public static final String PROP_SCHED_MAX_BATCH_SIZE = "org.quartz.scheduler.batchTriggerAcquisitionMaxCount";
 
+    public static final String PROP_SCHED_DELAYED_TASKS_ENABLED = "org.quartz.scheduler.delayedTasksEnabled";
+
+    public static final String PROP_SCHED_DEADLINE_DISPATCH_QUEUE_SIZE = "org.quartz.scheduler.deadlineDispatchQueueSize";
+
+    public static final String PROP_SCHED_SHED_JOBS_PAST_DEADLINE = "org.quartz.scheduler.shedJobsPastDeadline";
+
     public static final String PROP_SCHED_JMX_EXPORT = "org.quartz.scheduler.jmx.export";
 
     public static final String PROP_SCHED_JMX_OBJECT_NAME = "org.quartz.scheduler.jmx.objectName";
@@ -196,6 +205,12 @@ public class StdSchedulerFactory implements SchedulerFactory {
 
     public static final String PROP_THREAD_POOL_CLASS = "org.quartz.threadPool.class";
 
+    public static final String PROP_NAMED_THREAD_POOL_PREFIX = "org.quartz.namedThreadPool";
+
+    public static final String PROP_NAMED_THREAD_POOL_CLASS = "class";
+
+    public static final String PROP_NAMED_THREAD_POOL_JOB_GROUPS = "jobGroups";
+
     public static final String PROP_JOB_STORE_PREFIX = "org.quartz.jobStore";
 
     public static final String PROP_JOB_STORE_LOCK_HANDLER_PREFIX = PROP_JOB_STORE_PREFIX + ".lockHandler";
@@ -691,6 +706,9 @@ public class StdSchedulerFactory implements SchedulerFactory {
 
         long batchTimeWindow = cfg.getLongProperty(PROP_SCHED_BATCH_TIME_WINDOW, 0L);
         int maxBatchSize = cfg.getIntProperty(PROP_SCHED_MAX_BATCH_SIZE, 1);
+        boolean delayedTasksEnabled = cfg.getBooleanProperty(PROP_SCHED_DELAYED_TASKS_ENABLED, false);
+        int deadlineDispatchQueueSize = cfg.getIntProperty(PROP_SCHED_DEADLINE_DISPATCH_QUEUE_SIZE, 0);
+        boolean shedJobsPastDeadline = cfg.getBooleanProperty(PROP_SCHED_SHED_JOBS_PAST_DEADLINE, false);
 
         boolean interruptJobsOnShutdown = cfg.getBooleanProperty(PROP_SCHED_INTERRUPT_JOBS_ON_SHUTDOWN, false);
         boolean interruptJobsOnShutdownWithWait = cfg.getBooleanProperty(PROP_SCHED_INTERRUPT_JOBS_ON_SHUTDOWN_WITH_WAIT, false);
@@ -863,6 +881,45 @@ public class StdSchedulerFactory implements SchedulerFactory {
             throw initException;
         }
 
+        // Get named ThreadPool Properties
+        // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+        String[] namedThreadPoolNames = cfg.getPropertyGroups(PROP_NAMED_THREAD_POOL_PREFIX);
+        Map<String, ThreadPool> namedThreadPools = new LinkedHashMap<String, ThreadPool>();
+        Map<String, String> threadPoolNamesByJobGroup = new HashMap<String, String>();
+        for (String poolName : namedThreadPoolNames) {
+            Properties pp = cfg.getPropertyGroup(PROP_NAMED_THREAD_POOL_PREFIX + "." + poolName, true);
+
+            String poolClass = pp.getProperty(PROP_NAMED_THREAD_POOL_CLASS, SimpleThreadPool.class.getName());
+            ThreadPool namedThreadPool;
+            try {
+                namedThreadPool = (ThreadPool) loadHelper.loadClass(poolClass).newInstance();
+            } catch (Exception e) {
+                initException = new SchedulerException("ThreadPool class '"
+                        + poolClass + "' of named thread pool '" + poolName
+                        + "' could not be instantiated.", e);
+                throw initException;
+            }
+
+            String jobGroups = (String) pp.remove(PROP_NAMED_THREAD_POOL_JOB_GROUPS);
+            if (jobGroups != null) {
+                for (String jobGroup : jobGroups.split(",")) {
+                    if (jobGroup.trim().length() > 0) {
+                        threadPoolNamesByJobGroup.put(jobGroup.trim(), poolName);
+                    }
+                }
+            }
+            try {
+                setBeanProps(namedThreadPool, pp);
+            } catch (Exception e) {
+                initException = new SchedulerException("ThreadPool class '"
+                        + poolClass + "' of named thread pool '" + poolName
+                        + "' props could not be configured.", e);
+                throw initException;
+            }
+            namedThreadPools.put(poolName, namedThreadPool);
+        }
+
         // Get JobStore Properties
         // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
@@ -1290,6 +1347,9 @@ public class StdSchedulerFactory implements SchedulerFactory {
             rsrcs.setThreadsInheritInitializersClassLoadContext(threadsInheritInitalizersClassLoader);
             rsrcs.setBatchTimeWindow(batchTimeWindow);
             rsrcs.setMaxBatchSize(maxBatchSize);
+            rsrcs.setDelayedTasksEnabled(delayedTasksEnabled);
+            rsrcs.setDeadlineDispatchQueueSize(deadlineDispatchQueueSize);
+            rsrcs.setShedJobsPastDeadline(shedJobsPastDeadline);
             rsrcs.setInterruptJobsOnShutdown(interruptJobsOnShutdown);
             rsrcs.setInterruptJobsOnShutdownWithWait(interruptJobsOnShutdownWithWait);
             rsrcs.setJMXExport(jmxExport);
@@ -1322,6 +1382,22 @@ public class StdSchedulerFactory implements SchedulerFactory {
             }
             tp.initialize();
             tpInited = true;
+
+            int threadPoolSize = tp.getPoolSize();
+            for (Map.Entry<String, ThreadPool> namedThreadPool : namedThreadPools.entrySet()) {
+                SchedulerDetailsSetter.setDetails(namedThreadPool.getValue(),
+                    schedName + "_" + namedThreadPool.getKey(), schedInstId);
+                namedThreadPool.getValue().initialize();
+                rsrcs.addNamedThreadPool(namedThreadPool.getKey(), namedThreadPool.getValue());
+                threadPoolSize += namedThreadPool.getValue().getPoolSize();
+            }
+            for (Map.Entry<String, String> jobGroupPool : threadPoolNamesByJobGroup.entrySet()) {
+                if (!namedThreadPools.containsKey(jobGroupPool.getValue())) {
+                    throw new SchedulerConfigException("Job group '" + jobGroupPool.getKey()
+                        + "' is assigned to unknown named thread pool '" + jobGroupPool.getValue() + "'");
+                }
+                rsrcs.setJobGroupThreadPoolName(jobGroupPool.getKey(), jobGroupPool.getValue());
+            }
     
             rsrcs.setJobStore(js);
     
@@ -1364,7 +1440,7 @@ public class StdSchedulerFactory implements SchedulerFactory {
     
             js.setInstanceId(schedInstId);
             js.setInstanceName(schedName);
-            js.setThreadPoolSize(tp.getPoolSize());
+            js.setThreadPoolSize(threadPoolSize);
             js.initialize(loadHelper, qs.getSchedulerSignaler());
 
             jrsf.initialize(scheduler);
@@ -1388,15 +1464,15 @@ public class StdSchedulerFactory implements SchedulerFactory {
             return scheduler;
         }
         catch(SchedulerException e) {
-            shutdownFromInstantiateException(tp, qs, tpInited, qsInited);
+            shutdownFromInstantiateException(tp, namedThreadPools.values(), qs, tpInited, qsInited);
             throw e;
         }
         catch(RuntimeException re) {
-            shutdownFromInstantiateException(tp, qs, tpInited, qsInited);
+            shutdownFromInstantiateException(tp, namedThreadPools.values(), qs, tpInited, qsInited);
             throw re;
         }
         catch(Error re) {
-            shutdownFromInstantiateException(tp, qs, tpInited, qsInited);
+            shutdownFromInstantiateException(tp, namedThreadPools.values(), qs, tpInited, qsInited);
             throw re;
         }
     }
@@ -1425,12 +1501,17 @@ public class StdSchedulerFactory implements SchedulerFactory {
         setBeanProps(cp.getDataSource(), copyProps);
     }
 
-    private void shutdownFromInstantiateException(ThreadPool tp, QuartzScheduler qs, boolean tpInited, boolean qsInited) {
+    private void shutdownFromInstantiateException(ThreadPool tp, Collection<ThreadPool> namedThreadPools,
+            QuartzScheduler qs, boolean tpInited, boolean qsInited) {
         try {
             if(qsInited)
                 qs.shutdown(false);
-            else if(tpInited)
+            else if(tpInited) {
                 tp.shutdown(false);
+                for (ThreadPool namedThreadPool : namedThreadPools) {
+                    namedThreadPool.shutdown(false);
+                }
+            }
         } catch (Exception e) {
             getLog().error("Got another exception while shutting down after instantiation exception", e);
         }
@@ -0,0 +1,418 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ * A compact, versioned binary <code>{@link JobDataMapCodec}</code>.
+ * </p>
+ *
+ * <p>
+ * <code>String</code>s, the primitive wrapper types, <code>Date</code>,
+ * <code>byte[]</code>, and nested <code>HashMap</code>, <code>LinkedHashMap</code>
+ * and <code>ArrayList</code> values are written with a one byte type tag and
+ * variable length integers. Any other value is written with Java serialization,
+ * so every map that can be stored today can be stored with this codec.
+ * </p>
+ *
+ * <p>
+ * If the encoded map is larger than <code>compressionThreshold</code> bytes
+ * it is deflated. Supported settings (given in the delegate init string as
+ * <code>jobDataMapCodec.settingName=value</code>):
+ * </p>
+ * <ul>
+ * <li><code>compression</code> - <code>none</code> or <code>deflate</code> (default)</li>
+ * <li><code>compressionThreshold</code> - in bytes, default 1024</li>
+ * </ul>
+ *
+ * <p>
+ * The layout is: the four byte signature <code>"QJDM"</code>, a format version
+ * byte, a flags byte (the compression method), and then the map body, which
+ * is preceded by its uncompressed length when compressed.
+ * </p>
+ */
+public class BinaryJobDataMapCodec implements JobDataMapCodec {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constants.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final byte[] SIGNATURE = {'Q', 'J', 'D', 'M'};
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int COMPRESSION_NONE = 0;
+
+    private static final int COMPRESSION_DEFLATE = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_INTEGER = 2;
+    private static final int T_LONG = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_FLOAT = 5;
+    private static final int T_TRUE = 6;
+    private static final int T_FALSE = 7;
+    private static final int T_SHORT = 8;
+    private static final int T_BYTE = 9;
+    private static final int T_CHARACTER = 10;
+    private static final int T_DATE = 11;
+    private static final int T_BYTES = 12;
+    private static final int T_HASH_MAP = 13;
+    private static final int T_LINKED_HASH_MAP = 14;
+    private static final int T_ARRAY_LIST = 15;
+    private static final int T_SERIALIZED = 16;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private int compression = COMPRESSION_DEFLATE;
+
+    private int compressionThreshold = 1024;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public void initialize(Properties settings) throws IOException {
+        String method = settings.getProperty("compression");
+        if (method != null) {
+            if (method.equalsIgnoreCase("none")) {
+                compression = COMPRESSION_NONE;
+            } else if (method.equalsIgnoreCase("deflate")) {
+                compression = COMPRESSION_DEFLATE;
+            } else {
+                throw new IOException("Unsupported JobDataMap compression: '" + method + "'");
+            }
+        }
+
+        String threshold = settings.getProperty("compressionThreshold");
+        if (threshold != null) {
+            try {
+                compressionThreshold = Integer.parseInt(threshold.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid JobDataMap compressionThreshold: '" + threshold + "'");
+            }
+        }
+    }
+
+    public void encode(Map<?, ?> data, OutputStream out) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeMap(new DataOutputStream(body), data);
+
+        out.write(SIGNATURE);
+        out.write(FORMAT_VERSION);
+
+        if (compression != COMPRESSION_NONE && body.size() > compressionThreshold) {
+            out.write(compression);
+            DataOutputStream dos = new DataOutputStream(out);
+            writeVarInt(dos, body.size());
+            dos.flush();
+            DeflaterOutputStream dout = new DeflaterOutputStream(out);
+            body.writeTo(dout);
+            dout.finish();
+        } else {
+            out.write(COMPRESSION_NONE);
+            body.writeTo(out);
+        }
+        out.flush();
+    }
+
+    public boolean canDecode(byte[] header, int length) {
+        if (length < SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (header[i] != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Map<?, ?> decode(InputStream in) throws IOException, ClassNotFoundException {
+        DataInputStream din = new DataInputStream(in);
+        byte[] sig = new byte[SIGNATURE.length];
+        din.readFully(sig);
+        if (!canDecode(sig, sig.length)) {
+            throw new StreamCorruptedException("Not a binary JobDataMap");
+        }
+
+        int version = din.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported binary JobDataMap format version: " + version);
+        }
+
+        int method = din.readUnsignedByte();
+        switch (method) {
+            case COMPRESSION_NONE:
+                return readMap(din, new HashMap<Object, Object>());
+            case COMPRESSION_DEFLATE:
+                readVarInt(din);
+                return readMap(new DataInputStream(new InflaterInputStream(din)), new HashMap<Object, Object>());
+            default:
+                throw new StreamCorruptedException("Unsupported binary JobDataMap compression: " + method);
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Encoding.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.write(T_NULL);
+            return;
+        }
+
+        // exact class checks, so that subclasses (and other collection types)
+        // round-trip as themselves via Java serialization
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.write(T_STRING);
+            writeString(out, (String) value);
+        } else if (type == Integer.class) {
+            out.write(T_INTEGER);
+            writeVarLong(out, zigZag((Integer) value));
+        } else if (type == Long.class) {
+            out.write(T_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (type == Boolean.class) {
+            out.write((Boolean) value ? T_TRUE : T_FALSE);
+        } else if (type == Double.class) {
+            out.write(T_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.write(T_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.write(T_SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.write(T_BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.write(T_CHARACTER);
+            out.writeChar((Character) value);
+        } else if (type == Date.class) {
+            out.write(T_DATE);
+            writeVarLong(out, zigZag(((Date) value).getTime()));
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            out.write(T_BYTES);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        } else if (type == HashMap.class) {
+            out.write(T_HASH_MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (type == LinkedHashMap.class) {
+            out.write(T_LINKED_HASH_MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (type == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            out.write(T_ARRAY_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(baos);
+            oos.writeObject(value);
+            oos.flush();
+            out.write(T_SERIALIZED);
+            writeVarInt(out, baos.size());
+            baos.writeTo(out);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int v) throws IOException {
+        writeVarLong(out, v & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Decoding.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private Map<Object, Object> readMap(DataInputStream in, Map<Object, Object> map)
+        throws IOException, ClassNotFoundException {
+        int size = readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            Object key = readValue(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        int tag = in.read();
+        switch (tag) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return new String(readBytes(in), UTF8);
+            case T_INTEGER:
+                return Integer.valueOf((int) unZigZag(readVarLong(in)));
+            case T_LONG:
+                return Long.valueOf(unZigZag(readVarLong(in)));
+            case T_DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case T_FLOAT:
+                return Float.valueOf(in.readFloat());
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_SHORT:
+                return Short.valueOf(in.readShort());
+            case T_BYTE:
+                return Byte.valueOf(in.readByte());
+            case T_CHARACTER:
+                return Character.valueOf(in.readChar());
+            case T_DATE:
+                return new Date(unZigZag(readVarLong(in)));
+            case T_BYTES:
+                return readBytes(in);
+            case T_HASH_MAP:
+                return readMap(in, new HashMap<Object, Object>());
+            case T_LINKED_HASH_MAP:
+                return readMap(in, new LinkedHashMap<Object, Object>());
+            case T_ARRAY_LIST: {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case T_SERIALIZED: {
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)));
+                try {
+                    return ois.readObject();
+                } finally {
+                    ois.close();
+                }
+            }
+            case -1:
+                throw new EOFException();
+            default:
+                throw new StreamCorruptedException("Unknown binary JobDataMap type tag: " + tag);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long v = readVarLong(in);
+        if (v > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid length in binary JobDataMap: " + v);
+        }
+        return (int) v;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer in binary JobDataMap");
+    }
+}
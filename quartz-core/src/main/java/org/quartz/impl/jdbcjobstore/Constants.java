@@ -58,6 +58,10 @@ public interface Constants {
 
     String TABLE_SCHEDULER_STATE = "SCHEDULER_STATE";
 
+    String TABLE_DELAYED_TASKS = "DELAYED_TASKS";
+
+    String TABLE_RATE_LIMITS = "RATE_LIMITS";
+
     // TABLE_JOB_DETAILS columns names
     
     String COL_SCHEDULER_NAME = "SCHED_NAME";
@@ -112,6 +116,15 @@ public interface Constants {
 
     String COL_TIMES_TRIGGERED = "TIMES_TRIGGERED";
 
+    String COL_PENDING_MISSED_FIRES = "PENDING_MISSED_FIRES";
+
+    String COL_FIRST_MISSED_FIRE_TIME = "FIRST_MISSED_FIRE_TIME";
+
+    String COL_LAST_MISSED_FIRE_TIME = "LAST_MISSED_FIRE_TIME";
+
+    // TABLE_SIMPLE_TRIGGERS and TABLE_CRON_TRIGGERS columns names
+    String COL_SPREAD_WINDOW = "SPREAD_WINDOW";
+
     // TABLE_CRON_TRIGGERS columns names
     String COL_CRON_EXPRESSION = "CRON_EXPRESSION";
 
@@ -144,6 +157,20 @@ public interface Constants {
 
     String COL_CHECKIN_INTERVAL = "CHECKIN_INTERVAL";
 
+    // TABLE_DELAYED_TASKS columns names
+    String COL_TASK_ID = "TASK_ID";
+
+    String COL_FIRE_TIME = "FIRE_TIME";
+
+    String COL_PAYLOAD = "PAYLOAD";
+
+    // TABLE_RATE_LIMITS columns names
+    String COL_LIMIT_TYPE = "LIMIT_TYPE";
+
+    String COL_LIMIT_GROUP = "LIMIT_GROUP";
+
+    String COL_NEXT_PERMIT_TIME = "NEXT_PERMIT_TIME";
+
     // MISC CONSTANTS
     String DEFAULT_TABLE_PREFIX = "QRTZ_";
 
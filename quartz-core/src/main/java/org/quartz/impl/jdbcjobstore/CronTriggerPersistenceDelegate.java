@@ -16,6 +16,7 @@
 package org.quartz.impl.jdbcjobstore;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -74,6 +75,7 @@ public class CronTriggerPersistenceDelegate implements TriggerPersistenceDelegat
             ps.setString(2, trigger.getKey().getGroup());
             ps.setString(3, cronTrigger.getCronExpression());
             ps.setString(4, cronTrigger.getTimeZone().getID());
+            ps.setBigDecimal(5, new BigDecimal(String.valueOf(cronTrigger.getSpreadWindow())));
 
             return ps.executeUpdate();
         } finally {
@@ -100,6 +102,8 @@ public class CronTriggerPersistenceDelegate implements TriggerPersistenceDelegat
               
                 if (timeZoneId != null) 
                     cb.inTimeZone(TimeZone.getTimeZone(timeZoneId));
+
+                cb.withSpreadInMilliseconds(rs.getLong(COL_SPREAD_WINDOW));
                 
                 return new TriggerPropertyBundle(cb, null, null);
             }
@@ -121,8 +125,9 @@ public class CronTriggerPersistenceDelegate implements TriggerPersistenceDelegat
             ps = conn.prepareStatement(Util.rtp(UPDATE_CRON_TRIGGER, tablePrefix, schedNameLiteral));
             ps.setString(1, cronTrigger.getCronExpression());
             ps.setString(2, cronTrigger.getTimeZone().getID());
-            ps.setString(3, trigger.getKey().getName());
-            ps.setString(4, trigger.getKey().getGroup());
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(cronTrigger.getSpreadWindow())));
+            ps.setString(4, trigger.getKey().getName());
+            ps.setString(5, trigger.getKey().getGroup());
             
             return ps.executeUpdate();
         } finally {
@@ -20,10 +20,13 @@ package org.quartz.impl.jdbcjobstore;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
@@ -140,9 +143,50 @@ public interface DriverDelegate {
      * @return Whether there are more misfired triggers left to find beyond
      *         the given count.
      */
-    boolean hasMisfiredTriggersInState(Connection conn, String state1, 
+    boolean hasMisfiredTriggersInState(Connection conn, String state1,
         long ts, int count, List<TriggerKey> resultList) throws SQLException;
-    
+
+    /**
+     * <p>
+     * Select the misfired triggers in the given state whose new fire time
+     * can be computed without loading them in full: <code>SimpleTrigger</code>s
+     * that do not repeat and fire now (or use the smart policy), and
+     * <code>CronTrigger</code>s that fire once now, do nothing (or use the
+     * smart policy).  No more than count will be returned.
+     * </p>
+     *
+     * <p>
+     * The triggers are read with a single query per trigger type.  The
+     * <code>SimpleTrigger</code>s are returned without their
+     * <code>JobDataMap</code>, and the <code>CronTrigger</code>s with it, as
+     * it holds their spread window.
+     * </p>
+     *
+     * @param conn the DB Connection
+     * @param count the most misfired triggers to return, negative for all
+     * @param resultList Output parameter.  A List of
+     *      <code>{@link OperableTrigger}</code> objects.  Must not be null.
+     *
+     * @return Whether there are more such misfired triggers left to find
+     *         beyond the given count.
+     */
+    boolean selectMisfiredTriggersForBulkUpdate(Connection conn, String state,
+        long ts, int count, List<OperableTrigger> resultList) throws SQLException,
+        ClassNotFoundException, IOException, JobPersistenceException;
+
+    /**
+     * <p>
+     * Update the next fire time of the given triggers, as a single batch,
+     * provided they are still in the given old state.  Triggers without a
+     * next fire time are set to the <code>STATE_COMPLETE</code> state.
+     * </p>
+     *
+     * @param conn the DB Connection
+     * @return the indexes, in the given list, of the triggers updated
+     */
+    List<Integer> updateTriggerNextFireTimesFromState(Connection conn, List<OperableTrigger> triggers,
+        String newStateIfNotComplete, String oldState) throws SQLException;
+
     /**
      * <p>
      * Get the number of triggers in the given state that have
@@ -374,6 +418,25 @@ public interface DriverDelegate {
     Set<JobKey> selectJobsInGroup(Connection conn, GroupMatcher<JobKey> matcher)
         throws SQLException;
 
+    /**
+     * <p>
+     * Select one page of the jobs contained in the matching groups, ordered
+     * by group and name.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param matcher
+     *          the group matcher to evaluate against the known jobs
+     * @param afterKey
+     *          the last key of the previous page, or <code>null</code>
+     * @param limit
+     *          the maximum number of keys to return
+     * @return the keys that sort after <code>afterKey</code>, in order
+     */
+    List<JobKey> selectJobsInGroup(Connection conn, GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SQLException;
+
     //---------------------------------------------------------------------------
     // triggers
     //---------------------------------------------------------------------------
@@ -456,6 +519,19 @@ public interface DriverDelegate {
     int updateTriggerStateFromOtherState(Connection conn,
         TriggerKey triggerKey, String newState, String oldState) throws SQLException;
 
+    /**
+     * <p>
+     * Update each of the given triggers to the given new state, if it is in
+     * the given old state, using a single batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @return int the number of rows updated
+     */
+    int updateTriggerStateFromOtherState(Connection conn,
+        List<TriggerKey> triggerKeys, String newState, String oldState) throws SQLException;
+
     /**
      * <p>
      * Update the given trigger to the given new state, if it is one of the
@@ -561,6 +637,20 @@ public interface DriverDelegate {
         JobKey jobKey, String state, String oldState)
         throws SQLException;
 
+    /**
+     * <p>
+     * Update the states of any triggers associated with the given jobs, that
+     * are the given current state, using a single batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows updated
+     */
+    int updateTriggerStatesForJobFromOtherState(Connection conn,
+        List<JobKey> jobKeys, String state, String oldState)
+        throws SQLException;
+
     /**
      * <p>
      * Delete the base trigger data for a trigger.
@@ -697,6 +787,21 @@ public interface DriverDelegate {
     TriggerStatus selectTriggerStatus(Connection conn,
         TriggerKey triggerKey) throws SQLException;
 
+    /**
+     * <p>
+     * Select the status (state & next fire time) of each of the given
+     * triggers, with as few statements as possible.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * 
+     * @return a <code>TriggerStatus</code> for each trigger that exists, in
+     *         no particular order
+     */
+    List<TriggerStatus> selectTriggerStatuses(Connection conn,
+        Collection<TriggerKey> triggerKeys) throws SQLException;
+
     /**
      * <p>
      * Select the total number of triggers stored.
@@ -735,6 +840,25 @@ public interface DriverDelegate {
     Set<TriggerKey> selectTriggersInGroup(Connection conn, GroupMatcher<TriggerKey> matcher)
         throws SQLException;
 
+    /**
+     * <p>
+     * Select one page of the triggers contained in the matching groups,
+     * ordered by group and name.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param matcher
+     *          to evaluate against known triggers
+     * @param afterKey
+     *          the last key of the previous page, or <code>null</code>
+     * @param limit
+     *          the maximum number of keys to return
+     * @return the keys that sort after <code>afterKey</code>, in order
+     */
+    List<TriggerKey> selectTriggersInGroup(Connection conn, GroupMatcher<TriggerKey> matcher,
+        TriggerKey afterKey, int limit) throws SQLException;
+
     /**
      * <p>
      * Select all of the triggers in a given state.
@@ -966,6 +1090,23 @@ public interface DriverDelegate {
     public List<TriggerKey> selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan, int maxCount)
         throws SQLException;
 
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given
+     * timestamps, at most the given number of each group's earliest, by
+     * group in the order of their earliest such trigger, and within each
+     * group in the order of
+     * <code>{@link #selectTriggerToAcquire(Connection, long, long, int)}</code>.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return A (never null, possibly empty) map of trigger group names to
+     *         the identifiers of their next triggers to be fired.
+     */
+    Map<String, List<TriggerKey>> selectTriggersToAcquireByGroup(Connection conn, long noLaterThan,
+        long noEarlierThan, int maxCountPerGroup) throws SQLException;
+
     /**
      * <p>
      * Insert a fired trigger.
@@ -1060,6 +1201,18 @@ public interface DriverDelegate {
     int deleteFiredTrigger(Connection conn, String entryId)
         throws SQLException;
 
+    /**
+     * <p>
+     * Delete the given fired trigger entries, using a single batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows deleted
+     */
+    int deleteFiredTrigger(Connection conn, List<String> entryIds)
+        throws SQLException;
+
     /**
      * <p>
      * Get the number instances of the identified job currently executing.
@@ -1072,6 +1225,19 @@ public interface DriverDelegate {
      */
     int selectJobExecutionCount(Connection conn, JobKey jobKey) throws SQLException;
 
+    /**
+     * <p>
+     * Get the number of instances of the jobs of the given group currently
+     * executing, or acquired to be.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * 
+     * @return the number of instances of the group's jobs executing.
+     */
+    int selectJobGroupExecutionCount(Connection conn, String groupName) throws SQLException;
+
     /**
      * <p>
      * Insert a scheduler-instance state record.
@@ -1109,6 +1275,35 @@ public interface DriverDelegate {
      */
     int updateSchedulerState(Connection conn, String instanceId, long checkInTime)
         throws SQLException;
+
+    /**
+     * <p>
+     * Renew the lease of a scheduler-instance state record: update its
+     * check-in time and interval, provided its check-in time is still the
+     * given expected one.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of updated rows, 0 if the record no longer exists
+     *         or was changed by another instance.
+     */
+    int updateSchedulerStateLease(Connection conn, String instanceId, long checkInTime,
+        long checkInInterval, long expectedCheckInTime) throws SQLException;
+
+    /**
+     * <p>
+     * Count the scheduler-instance state records, other than that of the
+     * given instance, whose lease (check-in time plus check-in interval) 
+     * ended before <code>leaseEndedBefore</code> and whose check-in time is 
+     * before <code>checkInBefore</code>.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     */
+    int countExpiredSchedulerStates(Connection conn, String instanceId,
+        long leaseEndedBefore, long checkInBefore) throws SQLException;
     
     /**
      * <p>
@@ -1126,6 +1321,128 @@ public interface DriverDelegate {
     List<SchedulerStateRecord> selectSchedulerStateRecords(Connection conn, String instanceId)
         throws SQLException;
 
+    //---------------------------------------------------------------------------
+    // delayed tasks
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Insert the given delayed task.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows inserted
+     */
+    int insertDelayedTask(Connection conn, DelayedTask task) throws SQLException;
+
+    /**
+     * <p>
+     * Delete the delayed task with the given id.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows deleted
+     */
+    int deleteDelayedTask(Connection conn, String taskId) throws SQLException;
+
+    /**
+     * <p>
+     * Delete the delayed tasks with the given ids, in one batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     */
+    void deleteDelayedTasks(Connection conn, List<String> taskIds) throws SQLException;
+
+    /**
+     * <p>
+     * Check whether a delayed task with the given id exists.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     */
+    boolean delayedTaskExists(Connection conn, String taskId) throws SQLException;
+
+    /**
+     * <p>
+     * Select the delayed tasks due no later than the given time, earliest
+     * first.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param maxCount
+     *          the most tasks to select
+     */
+    List<DelayedTask> selectDueDelayedTasks(Connection conn, long noLaterThan, int maxCount)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Select the fire time of the earliest delayed task.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the fire time in milliseconds, or -1 if there are no tasks
+     */
+    long selectNextDelayedTaskFireTime(Connection conn) throws SQLException;
+
+    /**
+     * <p>
+     * Select the number of delayed tasks stored.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     */
+    int selectNumDelayedTasks(Connection conn) throws SQLException;
+
+    //---------------------------------------------------------------------------
+    // rate limits
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Select the next permit time of the given rate limit's bucket.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the next permit time in milliseconds, or null if the bucket has
+     *         not been stored
+     */
+    Long selectRateLimit(Connection conn, String limitType, String limitGroup)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Update the next permit time of the given rate limit's bucket.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows updated
+     */
+    int updateRateLimit(Connection conn, String limitType, String limitGroup, long nextPermitTime)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Insert the given rate limit's bucket.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return the number of rows inserted
+     */
+    int insertRateLimit(Connection conn, String limitType, String limitGroup, long nextPermitTime)
+        throws SQLException;
+
     /**
      * Clear (delete!) all scheduling data - all {@link Job}s, {@link Trigger}s
      * {@link Calendar}s.
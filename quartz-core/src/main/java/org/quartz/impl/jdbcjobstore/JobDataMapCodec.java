@@ -0,0 +1,75 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * <p>
+ * An interface which provides an encoding for the <code>{@link org.quartz.JobDataMap}</code>
+ * BLOBs written by <code>{@link StdJDBCDelegate}</code>, as an alternative to
+ * plain Java serialization.
+ * </p>
+ *
+ * <p>
+ * Encoded data must begin with a signature that can never be the start of a
+ * Java serialization stream (which always begins with <code>0xACED</code>),
+ * so that the delegate can tell on read which rows were written by the codec
+ * and which were written with Java serialization before the codec was
+ * configured.
+ * </p>
+ *
+ * @see BinaryJobDataMapCodec
+ */
+public interface JobDataMapCodec {
+
+    /**
+     * The number of leading bytes the delegate will hand to
+     * <code>{@link #canDecode(byte[], int)}</code>.
+     */
+    int MAX_SIGNATURE_LENGTH = 8;
+
+    /**
+     * Called once by the delegate, with the <code>jobDataMapCodec.*</code>
+     * settings of the delegate init string (prefix removed).
+     */
+    void initialize(Properties settings) throws IOException;
+
+    /**
+     * Write the given map, including the codec's signature, to the stream.
+     */
+    void encode(Map<?, ?> data, OutputStream out) throws IOException;
+
+    /**
+     * @param header the first bytes of a stored BLOB
+     * @param length the number of valid bytes in <code>header</code>, at most
+     *          <code>{@link #MAX_SIGNATURE_LENGTH}</code>
+     * @return whether the BLOB was written by this codec
+     */
+    boolean canDecode(byte[] header, int length);
+
+    /**
+     * Read a map previously written by <code>{@link #encode(Map, OutputStream)}</code>,
+     * starting at its signature.
+     */
+    Map<?, ?> decode(InputStream in) throws IOException, ClassNotFoundException;
+}
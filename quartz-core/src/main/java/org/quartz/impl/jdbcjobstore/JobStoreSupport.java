@@ -23,15 +23,30 @@ import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
@@ -46,18 +61,28 @@ import org.quartz.Trigger;
 import org.quartz.Trigger.CompletedExecutionInstruction;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.impl.DefaultThreadExecutor;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.matchers.StringMatcher;
 import org.quartz.impl.matchers.StringMatcher.StringOperatorName;
 import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.spi.BatchCompletionJobStore;
 import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.DelayedTaskStore;
+import org.quartz.spi.FairShareJobStore;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.RateLimitedJobStore;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.SnapshotJobStore;
 import org.quartz.spi.ThreadExecutor;
+import org.quartz.spi.TriggerAcquisitionFilter;
 import org.quartz.spi.TriggerFiredBundle;
 import org.quartz.spi.TriggerFiredResult;
+import org.quartz.utils.ConcurrencyLimits;
+import org.quartz.utils.FairShares;
+import org.quartz.utils.RateLimits;
 import org.quartz.utils.DBConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,7 +96,8 @@ import org.slf4j.LoggerFactory;
  * @author <a href="mailto:jeff@binaryfeed.org">Jeffrey Wescott</a>
  * @author James House
  */
-public abstract class JobStoreSupport implements JobStore, Constants {
+public abstract class JobStoreSupport implements JobStore, DelayedTaskStore, RateLimitedJobStore,
+        FairShareJobStore, BatchCompletionJobStore, SnapshotJobStore, Constants {
 
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -129,6 +155,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
     private long clusterCheckinInterval = 7500L;
 
+    private boolean leaseBasedClusterCheckin = false;
+
+    private double clusterCheckinJitter = 0.1;
+
     private ClusterManager clusterManagementThread = null;
 
     private MisfireHandler misfireHandler = null;
@@ -142,6 +172,12 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     private boolean setTxIsolationLevelSequential = false;
     
     private boolean acquireTriggersWithinLock = false;
+
+    private final ConcurrencyLimits concurrencyLimits = new ConcurrencyLimits();
+
+    private final RateLimits rateLimits = new RateLimits();
+
+    private final FairShares fairShares = new FairShares();
     
     private long dbRetryInterval = 15000L; // 15 secs
     
@@ -151,6 +187,30 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     private ClassLoader initializersLoader = null;
     
     private boolean doubleCheckLockMisfireHandler = true;
+
+    private int misfireRecoveryThreads = 0;
+
+    private int misfireRecoveryScanSize = 5000;
+
+    private boolean bulkMisfireUpdates = false;
+
+    private int clusterRecoveryChunkSize = 0;
+
+    private volatile long lastClusterRecoveryDuration = 0L;
+
+    private volatile int lastClusterRecoverySize = 0;
+
+    private final AtomicLong clusterRecoveryCount = new AtomicLong();
+
+    private ExecutorService misfireRecoveryExecutor = null;
+
+    private final AtomicLong misfireRecoveryCount = new AtomicLong();
+
+    private volatile double misfireRecoveryRate = 0.0;
+
+    // acquireNextTriggers() / triggersFired() calls in progress in this JVM,
+    // that parallel misfire recovery steps aside for
+    private final AtomicInteger pendingTriggerAcquisitions = new AtomicInteger();
     
     private final Logger log = LoggerFactory.getLogger(getClass());
     
@@ -325,6 +385,47 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         clusterCheckinInterval = l;
     }
 
+    public boolean isLeaseBasedClusterCheckin() {
+        return leaseBasedClusterCheckin;
+    }
+
+    /**
+     * <p>
+     * Set whether this instance checks-in with the cluster by renewing a 
+     * lease.  Each check-in is then a single conditional update of this 
+     * instance's own state record, plus a count of the records whose lease
+     * has expired; the state records are only read, and failed instances
+     * only looked for, when that count is not zero.  Check-ins are spread
+     * out by <code>clusterCheckinJitter</code>, and the lease written with 
+     * each check-in covers the longest jittered interval plus the time the
+     * previous check-in took.
+     * </p>
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setLeaseBasedClusterCheckin(boolean leaseBasedClusterCheckin) {
+        this.leaseBasedClusterCheckin = leaseBasedClusterCheckin;
+    }
+
+    public double getClusterCheckinJitter() {
+        return clusterCheckinJitter;
+    }
+
+    /**
+     * <p>
+     * Set the fraction of the <code>clusterCheckinInterval</code> by which 
+     * each check-in is randomly brought forward or delayed, when 
+     * <code>leaseBasedClusterCheckin</code> is set, so that the instances of
+     * a cluster do not check-in in step.  The default is 0.1.
+     * </p>
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setClusterCheckinJitter(double clusterCheckinJitter) {
+        if (clusterCheckinJitter < 0.0 || clusterCheckinJitter >= 1.0) {
+            throw new IllegalArgumentException("clusterCheckinJitter must be at least 0 and less than 1.");
+        }
+        this.clusterCheckinJitter = clusterCheckinJitter;
+    }
+
     /**
      * <p>
      * Get the maximum number of misfired triggers that the misfire handling
@@ -482,6 +583,95 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         this.acquireTriggersWithinLock = acquireTriggersWithinLock;
     }
 
+    /**
+     * Set the limits on concurrent executions per job group, as a
+     * comma-separated list of <code>group=limit</code> pairs.  Executions are
+     * counted from the fired trigger records of all the nodes of a cluster,
+     * and triggers are acquired within the trigger access lock while any
+     * concurrency limit is in use, so the limits hold cluster-wide.
+     * 
+     * @see ConcurrencyLimits
+     * @see org.quartz.ConcurrentExecutionLimit
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setJobGroupConcurrencyLimits(String jobGroupConcurrencyLimits) {
+        concurrencyLimits.setJobGroupLimits(jobGroupConcurrencyLimits);
+    }
+
+    /**
+     * Set the rate limits per trigger group, as a comma-separated list of
+     * <code>group=rate</code> or <code>group=rate:burst</code> pairs, the rate
+     * being in fires per second.  The state of each limit is kept in the
+     * <code>RATE_LIMITS</code> table and triggers are acquired within the
+     * trigger access lock while any rate limit is in use, so the limits hold
+     * cluster-wide.
+     * 
+     * @see RateLimits
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setTriggerGroupRateLimits(String triggerGroupRateLimits) {
+        rateLimits.setTriggerGroupLimits(triggerGroupRateLimits);
+    }
+
+    /**
+     * Set the rate limits per job group, as a comma-separated list of
+     * <code>group=rate</code> or <code>group=rate:burst</code> pairs, the rate
+     * being in fires per second.
+     * 
+     * @see #setTriggerGroupRateLimits(String)
+     * @see RateLimits
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setJobGroupRateLimits(String jobGroupRateLimits) {
+        rateLimits.setJobGroupLimits(jobGroupRateLimits);
+    }
+
+    /**
+     * Get the number of fires this node deferred to keep within the rate
+     * limits.
+     */
+    public long getThrottledFireCount() {
+        return rateLimits.getThrottledFireCount();
+    }
+
+    public Map<String, Long> getThrottledFireCounts() {
+        return rateLimits.getThrottledFireCounts();
+    }
+
+    /**
+     * Set whether triggers are acquired fairly between trigger groups, in
+     * proportion to their weights, rather than strictly in fire time order.
+     * Each acquisition then selects the due triggers of every group
+     * separately.  The shares are kept per node, so in a cluster each node
+     * is fair on its own.
+     * 
+     * @see FairShares
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setFairTriggerAcquisition(boolean fairTriggerAcquisition) {
+        fairShares.setEnabled(fairTriggerAcquisition);
+    }
+
+    /**
+     * Set the weights of trigger groups for fair acquisition, as a
+     * comma-separated list of <code>group=weight</code> pairs.  Groups not
+     * listed have a weight of 1.
+     * 
+     * @see #setFairTriggerAcquisition(boolean)
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setTriggerGroupWeights(String triggerGroupWeights) {
+        fairShares.setWeights(triggerGroupWeights);
+    }
+
+    public void setTriggerGroupWeight(String groupName, int weight) {
+        fairShares.setWeight(groupName, weight);
+    }
+
+    public Map<String, Integer> getTriggerGroupWeights() {
+        return fairShares.getWeights();
+    }
+
     
     /**
      * <p>
@@ -617,6 +807,127 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         this.doubleCheckLockMisfireHandler = doubleCheckLockMisfireHandler;
     }
 
+    /**
+     * Get the number of threads used to recover misfired triggers.  Zero
+     * (the default) means misfires are handled by the misfire handler thread
+     * alone, at most <code>maxMisfiresToHandleAtATime</code> at a time, 
+     * while holding the TRIGGER_ACCESS lock.
+     */
+    public int getMisfireRecoveryThreads() {
+        return misfireRecoveryThreads;
+    }
+
+    /**
+     * Set the number of threads used to recover misfired triggers.  When
+     * greater than zero, misfired triggers are loaded and their new fire 
+     * times computed in parallel without holding any lock, and the results
+     * are then stored in batches of <code>maxMisfiresToHandleAtATime</code>,
+     * each within its own short locked transaction that gives way to
+     * trigger acquisition.  Trigger listeners are notified of the misfire 
+     * after the new fire time has been committed.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setMisfireRecoveryThreads(int misfireRecoveryThreads) {
+        this.misfireRecoveryThreads = misfireRecoveryThreads;
+    }
+
+    /**
+     * Get the maximum number of misfired triggers picked up by each pass
+     * of the misfire handler when <code>misfireRecoveryThreads</code> or
+     * <code>bulkMisfireUpdates</code> is set.  The default is 5000.
+     */
+    public int getMisfireRecoveryScanSize() {
+        return misfireRecoveryScanSize;
+    }
+
+    /**
+     * Set the maximum number of misfired triggers picked up by each pass
+     * of the misfire handler when <code>misfireRecoveryThreads</code> or
+     * <code>bulkMisfireUpdates</code> is set.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setMisfireRecoveryScanSize(int misfireRecoveryScanSize) {
+        this.misfireRecoveryScanSize = misfireRecoveryScanSize;
+    }
+
+    public boolean isBulkMisfireUpdates() {
+        return bulkMisfireUpdates;
+    }
+
+    /**
+     * Set whether misfired triggers whose new fire time can be computed from
+     * their schedule alone (non-repeating <code>SimpleTrigger</code>s that fire
+     * now, and <code>CronTrigger</code>s that fire once now or do nothing) are
+     * updated in bulk, with one query and one batched update per pass, rather
+     * than being loaded and stored one by one.  Trigger listeners are notified
+     * of these misfires with triggers that do not carry their 
+     * <code>JobDataMap</code>.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setBulkMisfireUpdates(boolean bulkMisfireUpdates) {
+        this.bulkMisfireUpdates = bulkMisfireUpdates;
+    }
+
+    /**
+     * Get the number of misfired triggers the misfire handler has updated
+     * since this <code>JobStore</code> was created.
+     */
+    public long getMisfireRecoveryCount() {
+        return misfireRecoveryCount.get();
+    }
+
+    /**
+     * Get the throughput, in triggers per second, of the most recent pass
+     * of the misfire handler that found misfired triggers.
+     */
+    public double getMisfireRecoveryRate() {
+        return misfireRecoveryRate;
+    }
+
+    /**
+     * Get the maximum number of fired trigger records of failed instances
+     * recovered within one transaction.  The default of 0 recovers all of 
+     * them within a single transaction.
+     */
+    public int getClusterRecoveryChunkSize() {
+        return clusterRecoveryChunkSize;
+    }
+
+    /**
+     * Set the maximum number of fired trigger records of failed instances
+     * recovered within one transaction.  When greater than zero, a large 
+     * recovery is split into several transactions, and the 
+     * <code>TRIGGER_ACCESS</code> lock is released in between, so that the 
+     * rest of the cluster can carry on acquiring triggers.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setClusterRecoveryChunkSize(int clusterRecoveryChunkSize) {
+        this.clusterRecoveryChunkSize = clusterRecoveryChunkSize;
+    }
+
+    /**
+     * Get the number of times this instance has recovered failed instances.
+     */
+    public long getClusterRecoveryCount() {
+        return clusterRecoveryCount.get();
+    }
+
+    /**
+     * Get the time, in milliseconds, taken by the most recent recovery of 
+     * failed instances, across all of its transactions.
+     */
+    public long getLastClusterRecoveryDuration() {
+        return lastClusterRecoveryDuration;
+    }
+
+    /**
+     * Get the number of fired trigger records recovered by the most recent
+     * recovery of failed instances.
+     */
+    public int getLastClusterRecoverySize() {
+        return lastClusterRecoverySize;
+    }
+
     @Override
     public long getAcquireRetryDelay(int failureCount) {
         return dbRetryInterval;
@@ -734,6 +1045,16 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             }
         }
 
+        synchronized (this) {
+            if (misfireRecoveryExecutor != null) {
+                misfireRecoveryExecutor.shutdownNow();
+                misfireRecoveryExecutor = null;
+            }
+        }
+        synchronized (pendingTriggerAcquisitions) {
+            pendingTriggerAcquisitions.notifyAll();
+        }
+
         if (clusterManagementThread != null) {
             clusterManagementThread.shutdown();
             try {
@@ -955,8 +1276,14 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         int maxMisfiresToHandleAtATime = 
             (recovering) ? -1 : getMaxMisfiresToHandleAtATime();
         
+        RecoverMisfiredJobsResult bulkResult = RecoverMisfiredJobsResult.NO_OP;
+        if (isBulkMisfireUpdates()) {
+            bulkResult = recoverMisfiredTriggersInBulk(conn,
+                (recovering) ? -1 : getMisfireRecoveryScanSize());
+        }
+
         List<TriggerKey> misfiredTriggers = new LinkedList<TriggerKey>();
-        long earliestNewTime = Long.MAX_VALUE;
+        long earliestNewTime = bulkResult.getEarliestNewTime();
         // We must still look for the MISFIRED state in case triggers were left 
         // in this state when upgrading to this version that does not support it. 
         boolean hasMoreMisfiredTriggers =
@@ -976,7 +1303,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         } else {
             getLog().debug(
                 "Found 0 triggers that missed their scheduled fire-time.");
-            return RecoverMisfiredJobsResult.NO_OP; 
+            return bulkResult; 
         }
 
         for (TriggerKey triggerKey: misfiredTriggers) {
@@ -995,7 +1322,82 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         }
 
         return new RecoverMisfiredJobsResult(
-                hasMoreMisfiredTriggers, misfiredTriggers.size(), earliestNewTime);
+                hasMoreMisfiredTriggers || bulkResult.hasMoreMisfiredTriggers(),
+                misfiredTriggers.size() + bulkResult.getProcessedMisfiredTriggerCount(),
+                earliestNewTime);
+    }
+
+    /**
+     * <p>
+     * Update the misfired triggers whose new fire time can be computed from 
+     * their schedule alone, see <code>{@link #setBulkMisfireUpdates(boolean)}</code>.
+     * The triggers are read without their <code>JobDataMap</code>, and their
+     * new fire times are written with a single batched update.
+     * </p>
+     * 
+     * <p>
+     * Must be called with the <code>TRIGGER_ACCESS</code> lock held.
+     * </p>
+     * 
+     * @param count the most misfired triggers to update, negative for all
+     */
+    protected RecoverMisfiredJobsResult recoverMisfiredTriggersInBulk(
+        Connection conn, int count) throws JobPersistenceException, SQLException {
+
+        List<OperableTrigger> misfiredTriggers = new ArrayList<OperableTrigger>();
+        boolean hasMoreMisfiredTriggers;
+        try {
+            hasMoreMisfiredTriggers = getDelegate().selectMisfiredTriggersForBulkUpdate(
+                conn, STATE_WAITING, getMisfireTime(), count, misfiredTriggers);
+        } catch (ClassNotFoundException e) {
+            throw new JobPersistenceException("Couldn't load misfired triggers: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new JobPersistenceException("Couldn't load misfired triggers: " + e.getMessage(), e);
+        }
+
+        if (misfiredTriggers.isEmpty()) {
+            return RecoverMisfiredJobsResult.NO_OP;
+        }
+
+        List<OperableTrigger> updatedTriggers = new ArrayList<OperableTrigger>(misfiredTriggers.size());
+        Map<String, Calendar> calendars = new HashMap<String, Calendar>();
+        for (OperableTrigger trig : misfiredTriggers) {
+            Calendar cal = null;
+            if (trig.getCalendarName() != null) {
+                cal = calendars.get(trig.getCalendarName());
+                if (cal == null) {
+                    cal = retrieveCalendar(conn, trig.getCalendarName());
+                    calendars.put(trig.getCalendarName(), cal);
+                }
+            }
+
+            OperableTrigger updated = (OperableTrigger) trig.clone();
+            updated.updateAfterMisfire(cal);
+            updatedTriggers.add(updated);
+        }
+
+        List<Integer> updated = getDelegate().updateTriggerNextFireTimesFromState(
+            conn, updatedTriggers, STATE_WAITING, STATE_WAITING);
+
+        // the listeners hear only of the triggers the update changed, as the
+        // others left the waiting state since they were read
+        long earliestNewTime = Long.MAX_VALUE;
+        for (int i : updated) {
+            schedSignaler.notifyTriggerListenersMisfired(misfiredTriggers.get(i));
+            OperableTrigger trig = updatedTriggers.get(i);
+            if (trig.getNextFireTime() == null) {
+                schedSignaler.notifySchedulerListenersFinalized(trig);
+            } else if (trig.getNextFireTime().getTime() < earliestNewTime) {
+                earliestNewTime = trig.getNextFireTime().getTime();
+            }
+        }
+
+        getLog().info(
+            "Updated " + updated.size() + " trigger(s) that missed their scheduled fire-time in bulk." +
+            (hasMoreMisfiredTriggers ? "  More misfired triggers remain to be processed." : ""));
+
+        return new RecoverMisfiredJobsResult(
+            hasMoreMisfiredTriggers, updated.size(), earliestNewTime);
     }
 
     protected boolean updateMisfiredTrigger(Connection conn,
@@ -1563,41 +1965,84 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     public TriggerState getTriggerState(Connection conn, TriggerKey key)
         throws JobPersistenceException {
         try {
-            String ts = getDelegate().selectTriggerState(conn, key);
+            return toTriggerState(getDelegate().selectTriggerState(conn, key));
+        } catch (SQLException e) {
+            throw new JobPersistenceException(
+                    "Couldn't determine state of trigger (" + key + "): " + e.getMessage(), e);
+        }
+    }
 
-            if (ts == null) {
-                return TriggerState.NONE;
-            }
+    /**
+     * <p>
+     * Map a <code>TRIGGER_STATE</code> column value to the
+     * <code>{@link TriggerState}</code> reported to clients.
+     * </p>
+     */
+    protected TriggerState toTriggerState(String ts) {
+        if (ts == null) {
+            return TriggerState.NONE;
+        }
 
-            if (ts.equals(STATE_DELETED)) {
-                return TriggerState.NONE;
-            }
+        if (ts.equals(STATE_DELETED)) {
+            return TriggerState.NONE;
+        }
 
-            if (ts.equals(STATE_COMPLETE)) {
-                return TriggerState.COMPLETE;
-            }
+        if (ts.equals(STATE_COMPLETE)) {
+            return TriggerState.COMPLETE;
+        }
 
-            if (ts.equals(STATE_PAUSED)) {
-                return TriggerState.PAUSED;
-            }
+        if (ts.equals(STATE_PAUSED)) {
+            return TriggerState.PAUSED;
+        }
 
-            if (ts.equals(STATE_PAUSED_BLOCKED)) {
-                return TriggerState.PAUSED;
-            }
+        if (ts.equals(STATE_PAUSED_BLOCKED)) {
+            return TriggerState.PAUSED;
+        }
 
-            if (ts.equals(STATE_ERROR)) {
-                return TriggerState.ERROR;
-            }
+        if (ts.equals(STATE_ERROR)) {
+            return TriggerState.ERROR;
+        }
 
-            if (ts.equals(STATE_BLOCKED)) {
-                return TriggerState.BLOCKED;
-            }
+        if (ts.equals(STATE_BLOCKED)) {
+            return TriggerState.BLOCKED;
+        }
+
+        return TriggerState.NORMAL;
+    }
 
-            return TriggerState.NORMAL;
+    /**
+     * <p>
+     * Get the state, next fire time and job of each of the identified
+     * <code>{@link Trigger}s</code>, reading them with one statement per
+     * trigger group rather than one per trigger.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(final Collection<TriggerKey> triggerKeys)
+        throws JobPersistenceException {
+        return (Map<TriggerKey, TriggerSummary>)executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        return getTriggerSummaries(conn, triggerKeys);
+                    }
+                });
+    }
 
+    protected Map<TriggerKey, TriggerSummary> getTriggerSummaries(Connection conn, Collection<TriggerKey> triggerKeys)
+        throws JobPersistenceException {
+        try {
+            Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>();
+            for (TriggerStatus status : getDelegate().selectTriggerStatuses(conn, triggerKeys)) {
+                TriggerState state = toTriggerState(status.getStatus());
+                if (state != TriggerState.NONE) {
+                    summaries.put(status.getKey(), new TriggerSummary(
+                        status.getKey(), status.getJobKey(), state, status.getNextFireTime()));
+                }
+            }
+            return summaries;
         } catch (SQLException e) {
             throw new JobPersistenceException(
-                    "Couldn't determine state of trigger (" + key + "): " + e.getMessage(), e);
+                    "Couldn't determine state of triggers: " + e.getMessage(), e);
         }
     }
 
@@ -1642,6 +2087,83 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         }
     }
 
+    /**
+     * <p>
+     * Get each of the identified jobs with its triggers, in a single
+     * transaction.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public Map<JobDetail, List<OperableTrigger>> retrieveJobsAndTriggers(final Collection<JobKey> jobKeys)
+        throws JobPersistenceException {
+        return (Map<JobDetail, List<OperableTrigger>>)executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        Map<JobDetail, List<OperableTrigger>> jobs =
+                            new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+                        for (JobKey jobKey : jobKeys) {
+                            JobDetail job = retrieveJob(conn, jobKey);
+                            if (job != null) {
+                                jobs.put(job, getTriggersForJob(conn, jobKey));
+                            }
+                        }
+                        return jobs;
+                    }
+                });
+    }
+
+    /**
+     * <p>
+     * Pausing a job group only pauses the triggers it has at the time, so
+     * there are never any job groups paused as a whole.
+     * </p>
+     */
+    public Set<String> getPausedJobGroups() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * <p>
+     * Put each of the identified triggers in the given state, in a single
+     * transaction.
+     * </p>
+     *
+     * @see SnapshotJobStore#restoreTriggerStates(Map)
+     */
+    public void restoreTriggerStates(final Map<TriggerKey, TriggerState> triggerStates)
+        throws JobPersistenceException {
+        executeInLock(
+            LOCK_TRIGGER_ACCESS,
+            new VoidTransactionCallback() {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
+                    try {
+                        for (Map.Entry<TriggerKey, TriggerState> entry : triggerStates.entrySet()) {
+                            switch (entry.getValue()) {
+                                case PAUSED:
+                                    getDelegate().updateTriggerState(conn, entry.getKey(), STATE_PAUSED);
+                                    break;
+                                case ERROR:
+                                    getDelegate().updateTriggerState(conn, entry.getKey(), STATE_ERROR);
+                                    break;
+                                case COMPLETE:
+                                    getDelegate().updateTriggerState(conn, entry.getKey(), STATE_COMPLETE);
+                                    break;
+                                case NORMAL:
+                                case BLOCKED:
+                                    getDelegate().updateTriggerState(conn, entry.getKey(), STATE_WAITING);
+                                    break;
+                                default:
+                                    break;
+                            }
+                        }
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException(
+                                "Couldn't restore trigger states: " + e.getMessage(), e);
+                    }
+                }
+            });
+    }
+
     /**
      * <p>
      * Store the given <code>{@link org.quartz.Calendar}</code>.
@@ -1880,17 +2402,123 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
     /**
      * <p>
-     * Get the number of <code>{@link org.quartz.Calendar}</code> s that are
-     * stored in the <code>JobsStore</code>.
+     * Store the given <code>{@link DelayedTask}</code> in the
+     * <code>DELAYED_TASKS</code> table.
      * </p>
      */
-    public int getNumberOfCalendars()
-        throws JobPersistenceException {
-        return (Integer) executeWithoutLock( // no locks necessary for read...
-                new TransactionCallback() {
-                    public Object execute(Connection conn) throws JobPersistenceException {
-                        return getNumberOfCalendars(conn);
-                    }
+    public void storeDelayedTask(final DelayedTask task) throws JobPersistenceException {
+        executeWithoutLock( // no locks necessary, tasks are independent of triggers
+                new VoidTransactionCallback() {
+                    public void executeVoid(Connection conn) throws JobPersistenceException {
+                        storeDelayedTask(conn, task);
+                    }
+                });
+    }
+
+    protected void storeDelayedTask(Connection conn, DelayedTask task) throws JobPersistenceException {
+        try {
+            if (getDelegate().delayedTaskExists(conn, task.getId())) {
+                throw new ObjectAlreadyExistsException("Unable to store delayed task: '" + task.getId()
+                    + "', because one already exists with this identification.");
+            }
+            if (!getDelegate().jobExists(conn, task.getJobKey())) {
+                throw new JobPersistenceException("The job (" + task.getJobKey()
+                    + ") referenced by the delayed task does not exist.");
+            }
+            getDelegate().insertDelayedTask(conn, task);
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't store delayed task: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean removeDelayedTask(final String taskId) throws JobPersistenceException {
+        return (Boolean) executeWithoutLock( // no locks necessary, tasks are independent of triggers
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        try {
+                            return getDelegate().deleteDelayedTask(conn, taskId) > 0;
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException("Couldn't remove delayed task: " + e.getMessage(), e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * <p>
+     * Select and delete the due delayed tasks under the
+     * <code>TRIGGER_ACCESS</code> lock, so that each task is acquired by
+     * one scheduler instance only.
+     * </p>
+     */
+    public List<DelayedTask> acquireDelayedTasks(final long noLaterThan, final int maxCount)
+        throws JobPersistenceException {
+        return executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<List<DelayedTask>>() {
+                    public List<DelayedTask> execute(Connection conn) throws JobPersistenceException {
+                        return acquireDelayedTasks(conn, noLaterThan, maxCount);
+                    }
+                }, null);
+    }
+
+    protected List<DelayedTask> acquireDelayedTasks(Connection conn, long noLaterThan, int maxCount)
+        throws JobPersistenceException {
+        try {
+            List<DelayedTask> tasks = getDelegate().selectDueDelayedTasks(conn, noLaterThan, maxCount);
+            if (!tasks.isEmpty()) {
+                List<String> taskIds = new ArrayList<String>(tasks.size());
+                for (DelayedTask task : tasks) {
+                    taskIds.add(task.getId());
+                }
+                getDelegate().deleteDelayedTasks(conn, taskIds);
+            }
+            return tasks;
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't acquire delayed tasks: " + e.getMessage(), e);
+        }
+    }
+
+    public long getNextDelayedTaskFireTime() throws JobPersistenceException {
+        return (Long) executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        try {
+                            return getDelegate().selectNextDelayedTaskFireTime(conn);
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException(
+                                    "Couldn't obtain next delayed task fire time: " + e.getMessage(), e);
+                        }
+                    }
+                });
+    }
+
+    public int getNumberOfDelayedTasks() throws JobPersistenceException {
+        return (Integer) executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        try {
+                            return getDelegate().selectNumDelayedTasks(conn);
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException(
+                                    "Couldn't obtain number of delayed tasks: " + e.getMessage(), e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>{@link org.quartz.Calendar}</code> s that are
+     * stored in the <code>JobsStore</code>.
+     * </p>
+     */
+    public int getNumberOfCalendars()
+        throws JobPersistenceException {
+        return (Integer) executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        return getNumberOfCalendars(conn);
+                    }
                 });
     }
     
@@ -1938,6 +2566,29 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
         return jobNames;
     }
+
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Job}</code> s
+     * in the matching groups, ordered by group and then by name, with a
+     * keyset-paginated query.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public List<JobKey> getJobKeys(final GroupMatcher<JobKey> matcher, final JobKey afterKey, final int limit)
+        throws JobPersistenceException {
+        return (List<JobKey>)executeWithoutLock( // no locks necessary for read...
+            new TransactionCallback() {
+                public Object execute(Connection conn) throws JobPersistenceException {
+                    try {
+                        return getDelegate().selectJobsInGroup(conn, matcher, afterKey, limit);
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException("Couldn't obtain job names: "
+                                + e.getMessage(), e);
+                    }
+                }
+            });
+    }
     
     
     /**
@@ -2053,6 +2704,29 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return trigNames;
     }
 
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Trigger}</code> s
+     * in the matching groups, ordered by group and then by name, with a
+     * keyset-paginated query.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public List<TriggerKey> getTriggerKeys(final GroupMatcher<TriggerKey> matcher, final TriggerKey afterKey,
+            final int limit) throws JobPersistenceException {
+        return (List<TriggerKey>)executeWithoutLock( // no locks necessary for read...
+            new TransactionCallback() {
+                public Object execute(Connection conn) throws JobPersistenceException {
+                    try {
+                        return getDelegate().selectTriggersInGroup(conn, matcher, afterKey, limit);
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException("Couldn't obtain trigger names: "
+                                + e.getMessage(), e);
+                    }
+                }
+            });
+    }
+
 
     /**
      * <p>
@@ -2789,67 +3463,113 @@ public abstract class JobStoreSupport implements JobStore, Constants {
      * 
      * @see #releaseAcquiredTrigger(OperableTrigger)
      */
-    @SuppressWarnings("unchecked")
     public List<OperableTrigger> acquireNextTriggers(final long noLaterThan, final int maxCount, final long timeWindow)
         throws JobPersistenceException {
+        return acquireNextTriggers(noLaterThan, maxCount, timeWindow, null);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next N triggers to be fired that the given filter
+     * accepts, and mark them as 'reserved' by the calling scheduler.
+     * </p>
+     * 
+     * @see #releaseAcquiredTrigger(OperableTrigger)
+     */
+    @SuppressWarnings("unchecked")
+    public List<OperableTrigger> acquireNextTriggers(final long noLaterThan, final int maxCount, final long timeWindow,
+            final TriggerAcquisitionFilter filter) throws JobPersistenceException {
         
         String lockName;
-        if(isAcquireTriggersWithinLock() || maxCount > 1) { 
+        if(isAcquireTriggersWithinLock() || maxCount > 1 || concurrencyLimits.isInUse() || rateLimits.isInUse()) { 
             lockName = LOCK_TRIGGER_ACCESS;
         } else {
             lockName = null;
         }
-        return executeInNonManagedTXLock(lockName, 
-                new TransactionCallback<List<OperableTrigger>>() {
-                    public List<OperableTrigger> execute(Connection conn) throws JobPersistenceException {
-                        return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
-                    }
-                },
-                new TransactionValidator<List<OperableTrigger>>() {
-                    public Boolean validate(Connection conn, List<OperableTrigger> result) throws JobPersistenceException {
-                        try {
-                            List<FiredTriggerRecord> acquired = getDelegate().selectInstancesFiredTriggerRecords(conn, getInstanceId());
-                            Set<String> fireInstanceIds = new HashSet<String>();
-                            for (FiredTriggerRecord ft : acquired) {
-                                fireInstanceIds.add(ft.getFireInstanceId());
-                            }
-                            for (OperableTrigger tr : result) {
-                                if (fireInstanceIds.contains(tr.getFireInstanceId())) {
-                                    return true;
+        pendingTriggerAcquisitions.incrementAndGet();
+        try {
+            return executeInNonManagedTXLock(lockName, 
+                    new TransactionCallback<List<OperableTrigger>>() {
+                        public List<OperableTrigger> execute(Connection conn) throws JobPersistenceException {
+                            return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow, filter);
+                        }
+                    },
+                    new TransactionValidator<List<OperableTrigger>>() {
+                        public Boolean validate(Connection conn, List<OperableTrigger> result) throws JobPersistenceException {
+                            try {
+                                List<FiredTriggerRecord> acquired = getDelegate().selectInstancesFiredTriggerRecords(conn, getInstanceId());
+                                Set<String> fireInstanceIds = new HashSet<String>();
+                                for (FiredTriggerRecord ft : acquired) {
+                                    fireInstanceIds.add(ft.getFireInstanceId());
                                 }
+                                for (OperableTrigger tr : result) {
+                                    if (fireInstanceIds.contains(tr.getFireInstanceId())) {
+                                        return true;
+                                    }
+                                }
+                                return false;
+                            } catch (SQLException e) {
+                                throw new JobPersistenceException("error validating trigger acquisition", e);
                             }
-                            return false;
-                        } catch (SQLException e) {
-                            throw new JobPersistenceException("error validating trigger acquisition", e);
                         }
-                    }
-                });
+                    });
+        } finally {
+            if (pendingTriggerAcquisitions.decrementAndGet() == 0) {
+                synchronized (pendingTriggerAcquisitions) {
+                    pendingTriggerAcquisitions.notifyAll();
+                }
+            }
+        }
     }
     
     // FUTURE_TODO: this really ought to return something like a FiredTriggerBundle,
     // so that the fireInstanceId doesn't have to be on the trigger...
     protected List<OperableTrigger> acquireNextTrigger(Connection conn, long noLaterThan, int maxCount, long timeWindow)
         throws JobPersistenceException {
+        return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow, null);
+    }
+
+    protected List<OperableTrigger> acquireNextTrigger(Connection conn, long noLaterThan, int maxCount, long timeWindow,
+            TriggerAcquisitionFilter filter) throws JobPersistenceException {
         if (timeWindow < 0) {
           throw new IllegalArgumentException();
         }
         
         List<OperableTrigger> acquiredTriggers = new ArrayList<OperableTrigger>();
         Set<JobKey> acquiredJobKeysForNoConcurrentExec = new HashSet<JobKey>();
+        // triggers already offered to the filter, when it widens the select
+        Set<TriggerKey> offeredTriggerKeys = new HashSet<TriggerKey>();
+        // buckets of the rate limits, read as they are first needed
+        Map<RateLimits.RateLimit, Long> nextPermitTimes = new HashMap<RateLimits.RateLimit, Long>();
+        int selectCount = maxCount;
         final int MAX_DO_LOOP_RETRY = 3;
         int currentLoopCount = 0;
+        // end of the batch, kept across a widened select
+        long batchEnd = noLaterThan;
         do {
             currentLoopCount ++;
             try {
-                List<TriggerKey> keys = getDelegate().selectTriggerToAcquire(conn, noLaterThan + timeWindow, getMisfireTime(), maxCount);
+                List<TriggerKey> keys;
+                if (fairShares.isEnabled()) {
+                    keys = selectTriggersToAcquireFairly(conn, noLaterThan + timeWindow, selectCount);
+                } else {
+                    keys = getDelegate().selectTriggerToAcquire(conn, noLaterThan + timeWindow, getMisfireTime(), selectCount);
+                }
                 
                 // No trigger is ready to fire yet.
                 if (keys == null || keys.size() == 0)
                     return acquiredTriggers;
 
-                long batchEnd = noLaterThan;
+                int rejectedCount = 0;
 
                 for(TriggerKey triggerKey: keys) {
+                    if (acquiredTriggers.size() == maxCount) {
+                        break;
+                    }
+                    if ((filter != null || concurrencyLimits.isInUse() || rateLimits.isInUse() || fairShares.isEnabled())
+                            && !offeredTriggerKeys.add(triggerKey)) {
+                        continue; // offered in an earlier, narrower select
+                    }
                     // If our trigger is no longer available, try a new one.
                     OperableTrigger nextTrigger = retrieveTrigger(conn, triggerKey);
                     if(nextTrigger == null) {
@@ -2872,12 +3592,8 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                         continue;
                     }
                     
-                    if (job.isConcurrentExectionDisallowed()) {
-                        if (acquiredJobKeysForNoConcurrentExec.contains(jobKey)) {
-                            continue; // next trigger
-                        } else {
-                            acquiredJobKeysForNoConcurrentExec.add(jobKey);
-                        }
+                    if (job.isConcurrentExectionDisallowed() && acquiredJobKeysForNoConcurrentExec.contains(jobKey)) {
+                        continue; // next trigger
                     }
 
                     Date nextFireTime = nextTrigger.getNextFireTime();
@@ -2894,16 +3610,46 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     }
                     
                     if (nextFireTime.getTime() > batchEnd) {
+                      if (fairShares.isEnabled()) {
+                          continue; // later triggers of other groups may be in the batch
+                      }
                       break;
                     }
+                    if (concurrencyLimits.isLimited(job) && !admitsExecution(conn, job)) {
+                        rejectedCount++;
+                        continue; // next trigger
+                    }
+                    if (rateLimits.isInUse() && deferForRateLimits(conn, nextTrigger, job, nextPermitTimes)) {
+                        rejectedCount++;
+                        continue; // next trigger
+                    }
                     // We now have a acquired trigger, let's add to return list.
                     // If our trigger was no longer in the expected state, try a new one.
                     int rowsUpdated = getDelegate().updateTriggerStateFromOtherState(conn, triggerKey, STATE_ACQUIRED, STATE_WAITING);
                     if (rowsUpdated <= 0) {
                         continue; // next trigger
                     }
+                    // the filter is asked only once the trigger is ours, as it
+                    // counts what it accepts
+                    if (filter != null && !filter.accept(nextTrigger, job)) {
+                        getDelegate().updateTriggerStateFromOtherState(conn, triggerKey, STATE_WAITING, STATE_ACQUIRED);
+                        rejectedCount++;
+                        continue; // next trigger
+                    }
+                    if (job.isConcurrentExectionDisallowed()) {
+                        acquiredJobKeysForNoConcurrentExec.add(jobKey);
+                    }
                     nextTrigger.setFireInstanceId(getFiredTriggerRecordId());
-                    getDelegate().insertFiredTrigger(conn, nextTrigger, STATE_ACQUIRED, null);
+                    // the job of a concurrency limited trigger is recorded, so
+                    // that the acquisition counts towards its limits
+                    getDelegate().insertFiredTrigger(conn, nextTrigger, STATE_ACQUIRED,
+                            concurrencyLimits.isLimited(job) ? job : null);
+                    if (rateLimits.isInUse()) {
+                        takeRateLimitPermits(conn, nextTrigger, nextPermitTimes);
+                    }
+                    if (fairShares.isEnabled()) {
+                        fairShares.acquired(triggerKey.getGroup());
+                    }
 
                     if(acquiredTriggers.isEmpty()) {
                         batchEnd = Math.max(nextFireTime.getTime(), System.currentTimeMillis()) + timeWindow;
@@ -2911,6 +3657,15 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     acquiredTriggers.add(nextTrigger);
                 }
 
+                // if the concurrency or rate limits or the filter turned down triggers that
+                // filled the select, look further ahead for ones they accept. We allow
+                // with a max retry count.
+                if (rejectedCount > 0 && acquiredTriggers.size() < maxCount && keys.size() >= selectCount
+                        && currentLoopCount < MAX_DO_LOOP_RETRY) {
+                    selectCount = selectCount * 4;
+                    continue;
+                }
+
                 // if we didn't end up with any trigger to fire from that first
                 // batch, try again for another batch. We allow with a max retry count.
                 if(acquiredTriggers.size() == 0 && currentLoopCount < MAX_DO_LOOP_RETRY) {
@@ -2929,6 +3684,114 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return acquiredTriggers;
     }
     
+    /**
+     * <p>
+     * Select up to the given number of the next triggers to fire of each
+     * group with triggers due, interleaved in the groups' turns.
+     * </p>
+     */
+    protected List<TriggerKey> selectTriggersToAcquireFairly(Connection conn, long noLaterThan, int maxCountPerGroup)
+        throws SQLException, JobPersistenceException {
+        return fairShares.interleave(getDelegate().selectTriggersToAcquireByGroup(conn, noLaterThan,
+            getMisfireTime(), maxCountPerGroup));
+    }
+
+    /**
+     * <p>
+     * Whether the concurrency limits allow one more execution of the given
+     * job. The fired trigger records of every node count, including those
+     * inserted by the current acquisition.
+     * </p>
+     */
+    protected boolean admitsExecution(Connection conn, JobDetail job) throws JobPersistenceException {
+        JobKey jobKey = job.getKey();
+        try {
+            int jobExecutions = 0;
+            if (concurrencyLimits.getJobLimit(job) > 0) {
+                jobExecutions = getDelegate().selectJobExecutionCount(conn, jobKey);
+            }
+            int jobGroupExecutions = 0;
+            if (concurrencyLimits.getJobGroupLimit(jobKey.getGroup()) > 0) {
+                jobGroupExecutions = getDelegate().selectJobGroupExecutionCount(conn, jobKey.getGroup());
+            }
+            return concurrencyLimits.admits(job, jobExecutions, jobGroupExecutions);
+        } catch (SQLException e) {
+            throw new JobPersistenceException(
+                    "Couldn't count executions of job " + jobKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <p>
+     * Defer the given trigger, if its rate limits do not allow it to fire at
+     * its next fire time, by storing it with the time they do, or the first
+     * time after it that its calendar includes. The fires it skips by being
+     * deferred are not misfired, since it is not late for the new time. A
+     * trigger deferred past its end is stored as complete.
+     * </p>
+     * 
+     * @return whether the trigger was deferred.
+     */
+    protected boolean deferForRateLimits(Connection conn, OperableTrigger trigger, JobDetail job,
+            Map<RateLimits.RateLimit, Long> nextPermitTimes) throws JobPersistenceException {
+        readRateLimits(conn, trigger, nextPermitTimes);
+        long permitTime = rateLimits.getPermitTime(trigger, nextPermitTimes);
+        if (permitTime <= trigger.getNextFireTime().getTime()) {
+            return false;
+        }
+        Calendar cal = null;
+        if (trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(conn, trigger.getCalendarName());
+        }
+        rateLimits.throttled(trigger, nextPermitTimes);
+        trigger.setNextFireTime(RateLimits.getDeferredFireTime(trigger, cal, permitTime));
+        if (trigger.getNextFireTime() == null) {
+            storeTrigger(conn, trigger, job, true, STATE_COMPLETE, false, false);
+            schedSignaler.notifySchedulerListenersFinalized(trigger);
+        } else {
+            storeTrigger(conn, trigger, job, true, STATE_WAITING, false, false);
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Take the permits the given acquired trigger fires with from the buckets
+     * of its rate limits, and store the buckets.
+     * </p>
+     */
+    protected void takeRateLimitPermits(Connection conn, OperableTrigger trigger,
+            Map<RateLimits.RateLimit, Long> nextPermitTimes) throws JobPersistenceException {
+        readRateLimits(conn, trigger, nextPermitTimes);
+        rateLimits.takePermits(trigger, nextPermitTimes);
+        for (RateLimits.RateLimit limit : rateLimits.getLimits(trigger)) {
+            try {
+                long nextPermitTime = nextPermitTimes.get(limit);
+                if (getDelegate().updateRateLimit(conn, limit.getType(), limit.getGroup(), nextPermitTime) == 0) {
+                    getDelegate().insertRateLimit(conn, limit.getType(), limit.getGroup(), nextPermitTime);
+                }
+            } catch (SQLException e) {
+                throw new JobPersistenceException(
+                        "Couldn't store rate limit " + limit + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void readRateLimits(Connection conn, OperableTrigger trigger,
+            Map<RateLimits.RateLimit, Long> nextPermitTimes) throws JobPersistenceException {
+        for (RateLimits.RateLimit limit : rateLimits.getLimits(trigger)) {
+            if (nextPermitTimes.containsKey(limit)) {
+                continue;
+            }
+            try {
+                nextPermitTimes.put(limit, getDelegate().selectRateLimit(conn, limit.getType(), limit.getGroup()));
+            } catch (SQLException e) {
+                throw new JobPersistenceException(
+                        "Couldn't read rate limit " + limit + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
     /**
      * <p>
      * Inform the <code>JobStore</code> that the scheduler no longer plans to
@@ -3121,6 +3984,26 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 }
             });    
     }
+
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler has completed the
+     * firing of each of the given <code>Trigger</code>s, all of the given
+     * job, in one transaction.
+     * </p>
+     */
+    public void triggeredJobsComplete(final List<OperableTrigger> triggers,
+            final JobDetail jobDetail, final List<CompletedExecutionInstruction> triggerInstCodes) {
+        retryExecuteInNonManagedTXLock(
+            LOCK_TRIGGER_ACCESS,
+            new VoidTransactionCallback() {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
+                    for (int i = 0; i < triggers.size(); i++) {
+                        triggeredJobComplete(conn, triggers.get(i), jobDetail, triggerInstCodes.get(i));
+                    }
+                }
+            });
+    }
     
     protected void triggeredJobComplete(Connection conn,
             OperableTrigger trigger, JobDetail jobDetail,
@@ -3160,6 +4043,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 signalSchedulingChangeOnTxCompletion(0L);
             }
 
+            if (concurrencyLimits.isLimited(jobDetail)) {
+                // triggers left waiting on the limit may now be acquired
+                signalSchedulingChangeOnTxCompletion(0L);
+            }
             if (jobDetail.isConcurrentExectionDisallowed()) {
                 getDelegate().updateTriggerStatesForJobFromOtherState(conn,
                         jobDetail.getKey(), STATE_WAITING,
@@ -3242,6 +4129,11 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     //---------------------------------------------------------------------------
 
     protected RecoverMisfiredJobsResult doRecoverMisfires() throws JobPersistenceException {
+        if (getMisfireRecoveryThreads() > 0) {
+            return doParallelRecoverMisfires();
+        }
+
+        long startTime = System.currentTimeMillis();
         boolean transOwner = false;
         Connection conn = getNonManagedTXConnection();
         try {
@@ -3265,6 +4157,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             }
             
             commitConnection(conn);
+            recordMisfireRecovery(result.getProcessedMisfiredTriggerCount(), startTime);
             return result;
         } catch (JobPersistenceException e) {
             rollbackConnection(conn);
@@ -3285,6 +4178,304 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         }
     }
 
+    /**
+     * Recover misfired triggers using the <code>misfireRecoveryThreads</code>.
+     * The misfired triggers found are split into one partition per thread,
+     * and each partition is recovered by 
+     * <code>{@link #recoverMisfiredTriggers(List, long)}</code>.
+     */
+    protected RecoverMisfiredJobsResult doParallelRecoverMisfires() throws JobPersistenceException {
+        long startTime = System.currentTimeMillis();
+
+        RecoverMisfiredJobsResult bulkResult = RecoverMisfiredJobsResult.NO_OP;
+        if (isBulkMisfireUpdates()) {
+            bulkResult = executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<RecoverMisfiredJobsResult>() {
+                    public RecoverMisfiredJobsResult execute(Connection conn) throws JobPersistenceException {
+                        try {
+                            return recoverMisfiredTriggersInBulk(conn, getMisfireRecoveryScanSize());
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException("Couldn't update misfired triggers: "
+                                    + e.getMessage(), e);
+                        }
+                    }
+                }, null);
+        }
+
+        final long misfireTime = getMisfireTime();
+        final List<TriggerKey> misfiredTriggers = new ArrayList<TriggerKey>();
+
+        boolean hasMoreMisfiredTriggers = executeInNonManagedTXLock(null,
+            new TransactionCallback<Boolean>() {
+                public Boolean execute(Connection conn) throws JobPersistenceException {
+                    try {
+                        return getDelegate().hasMisfiredTriggersInState(conn, STATE_WAITING,
+                            misfireTime, getMisfireRecoveryScanSize(), misfiredTriggers);
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException("Couldn't select misfired triggers: "
+                                + e.getMessage(), e);
+                    }
+                }
+            }, null);
+
+        if (misfiredTriggers.isEmpty()) {
+            getLog().debug(
+                "Found 0 triggers that missed their scheduled fire-time.");
+            recordMisfireRecovery(bulkResult.getProcessedMisfiredTriggerCount(), startTime);
+            return bulkResult;
+        }
+        getLog().info(
+            "Handling " + misfiredTriggers.size() + 
+            " trigger(s) that missed their scheduled fire-time with " +
+            getMisfireRecoveryThreads() + " thread(s)." +
+            (hasMoreMisfiredTriggers ? "  More misfired triggers remain to be processed." : ""));
+
+        int partitions = Math.min(getMisfireRecoveryThreads(), misfiredTriggers.size());
+        List<Future<RecoverMisfiredJobsResult>> results = new ArrayList<Future<RecoverMisfiredJobsResult>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final List<TriggerKey> partition = misfiredTriggers.subList(
+                i * misfiredTriggers.size() / partitions, (i + 1) * misfiredTriggers.size() / partitions);
+            try {
+                results.add(getMisfireRecoveryExecutor().submit(new Callable<RecoverMisfiredJobsResult>() {
+                    public RecoverMisfiredJobsResult call() throws JobPersistenceException {
+                        return recoverMisfiredTriggers(partition, misfireTime);
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // shut down since the executor was handed out
+                throw new JobPersistenceException("The job store is shut down.", e);
+            }
+        }
+
+        int processed = bulkResult.getProcessedMisfiredTriggerCount();
+        long earliestNewTime = bulkResult.getEarliestNewTime();
+        JobPersistenceException failure = null;
+        for (Future<RecoverMisfiredJobsResult> result : results) {
+            try {
+                RecoverMisfiredJobsResult partitionResult = result.get();
+                processed += partitionResult.getProcessedMisfiredTriggerCount();
+                earliestNewTime = Math.min(earliestNewTime, partitionResult.getEarliestNewTime());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof JobPersistenceException) ? (JobPersistenceException) e.getCause()
+                        : new JobPersistenceException("Unexpected exception recovering from misfires: " + e.getCause(), e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new JobPersistenceException("Interrupted while recovering from misfires.", e);
+                }
+            }
+        }
+
+        recordMisfireRecovery(processed, startTime);
+
+        if (failure != null) {
+            if (processed == 0) {
+                throw failure;
+            }
+            getLog().error("Error recovering some misfired triggers: " + failure.getMessage(), failure);
+        }
+
+        return new RecoverMisfiredJobsResult(
+            hasMoreMisfiredTriggers || bulkResult.hasMoreMisfiredTriggers() || failure != null,
+            processed, earliestNewTime);
+    }
+
+    /**
+     * <p>
+     * Recover the given misfired triggers.  The triggers are loaded and their 
+     * new fire times are computed without holding any lock; the updated 
+     * triggers are then stored in batches of <code>maxMisfiresToHandleAtATime</code>,
+     * each in its own TRIGGER_ACCESS locked transaction.  A trigger that 
+     * was fired, paused, changed or removed after it was loaded is left for
+     * a later pass.
+     * </p>
+     * 
+     * @param misfireTime the misfire time the triggers were selected with 
+     */
+    protected RecoverMisfiredJobsResult recoverMisfiredTriggers(final List<TriggerKey> triggerKeys, final long misfireTime)
+        throws JobPersistenceException {
+
+        final List<MisfiredTriggerUpdate> updates = executeInNonManagedTXLock(null,
+            new TransactionCallback<List<MisfiredTriggerUpdate>>() {
+                public List<MisfiredTriggerUpdate> execute(Connection conn) throws JobPersistenceException {
+                    return computeMisfiredTriggerUpdates(conn, triggerKeys, misfireTime);
+                }
+            }, null);
+
+        int batchSize = (getMaxMisfiresToHandleAtATime() > 0) ? getMaxMisfiresToHandleAtATime() : updates.size();
+        int processed = 0;
+        long earliestNewTime = Long.MAX_VALUE;
+        for (int from = 0; from < updates.size() && !shutdown; from += batchSize) {
+            final List<MisfiredTriggerUpdate> batch = updates.subList(from, Math.min(from + batchSize, updates.size()));
+
+            yieldToTriggerAcquisition();
+
+            List<MisfiredTriggerUpdate> stored = executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<List<MisfiredTriggerUpdate>>() {
+                    public List<MisfiredTriggerUpdate> execute(Connection conn) throws JobPersistenceException {
+                        return storeMisfiredTriggerUpdates(conn, batch);
+                    }
+                }, null);
+
+            for (MisfiredTriggerUpdate update : stored) {
+                schedSignaler.notifyTriggerListenersMisfired(update.getMisfiredTrigger());
+                Date nextFireTime = update.getUpdatedTrigger().getNextFireTime();
+                if (nextFireTime == null) {
+                    schedSignaler.notifySchedulerListenersFinalized(update.getUpdatedTrigger());
+                } else if (nextFireTime.getTime() < earliestNewTime) {
+                    earliestNewTime = nextFireTime.getTime();
+                }
+            }
+            processed += stored.size();
+        }
+
+        return new RecoverMisfiredJobsResult(false, processed, earliestNewTime);
+    }
+
+    protected List<MisfiredTriggerUpdate> computeMisfiredTriggerUpdates(Connection conn, 
+            List<TriggerKey> triggerKeys, long misfireTime) throws JobPersistenceException {
+        List<MisfiredTriggerUpdate> updates = new ArrayList<MisfiredTriggerUpdate>(triggerKeys.size());
+        Map<String, Calendar> calendars = new HashMap<String, Calendar>();
+
+        for (TriggerKey triggerKey : triggerKeys) {
+            OperableTrigger trig = retrieveTrigger(conn, triggerKey);
+            if (trig == null || trig.getNextFireTime() == null 
+                    || trig.getNextFireTime().getTime() >= misfireTime) {
+                continue;
+            }
+
+            Calendar cal = null;
+            String calName = trig.getCalendarName();
+            if (calName != null) {
+                if (calendars.containsKey(calName)) {
+                    cal = calendars.get(calName);
+                } else {
+                    synchronized (calendarCache) {
+                        cal = retrieveCalendar(conn, calName);
+                    }
+                    calendars.put(calName, cal);
+                }
+            }
+
+            OperableTrigger updated = (OperableTrigger) trig.clone();
+            updated.updateAfterMisfire(cal);
+            updates.add(new MisfiredTriggerUpdate(trig, updated));
+        }
+
+        return updates;
+    }
+
+    protected List<MisfiredTriggerUpdate> storeMisfiredTriggerUpdates(Connection conn, 
+            List<MisfiredTriggerUpdate> updates) throws JobPersistenceException {
+        List<MisfiredTriggerUpdate> stored = new ArrayList<MisfiredTriggerUpdate>(updates.size());
+        Map<JobKey, JobDetail> jobs = new HashMap<JobKey, JobDetail>();
+
+        try {
+            for (MisfiredTriggerUpdate update : updates) {
+                OperableTrigger misfired = update.getMisfiredTrigger();
+                TriggerStatus status = getDelegate().selectTriggerStatus(conn, misfired.getKey());
+                if (status == null || !STATE_WAITING.equals(status.getStatus())
+                        || !misfired.getNextFireTime().equals(status.getNextFireTime())) {
+                    continue;
+                }
+
+                JobDetail job = jobs.get(misfired.getJobKey());
+                if (job == null) {
+                    job = retrieveJob(conn, misfired.getJobKey());
+                    if (job == null) {
+                        continue;
+                    }
+                    jobs.put(job.getKey(), job);
+                }
+
+                OperableTrigger updated = update.getUpdatedTrigger();
+                String state = (updated.getNextFireTime() == null) ? STATE_COMPLETE : STATE_WAITING;
+                storeTrigger(conn, updated, job, true, state, false, false);
+                stored.add(update);
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't update misfired triggers: " 
+                    + e.getMessage(), e);
+        }
+
+        return stored;
+    }
+
+    /**
+     * Wait for any trigger acquisition in progress in this scheduler to 
+     * complete, so that misfire recovery does not hold it off the 
+     * TRIGGER_ACCESS lock.  Only acquisitions in this JVM are seen: the 
+     * schedulers of other cluster nodes compete for the lock as usual.
+     */
+    private void yieldToTriggerAcquisition() {
+        synchronized (pendingTriggerAcquisitions) {
+            while (pendingTriggerAcquisitions.get() > 0 && !shutdown) {
+                try {
+                    pendingTriggerAcquisitions.wait(getDbRetryInterval());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void recordMisfireRecovery(int count, long startTime) {
+        if (count > 0) {
+            misfireRecoveryCount.addAndGet(count);
+            long elapsed = Math.max(System.currentTimeMillis() - startTime, 1L);
+            misfireRecoveryRate = count * 1000.0 / elapsed;
+            getLog().info("Recovered " + count + " misfired trigger(s) in " + elapsed + " ms (" 
+                    + Math.round(misfireRecoveryRate) + "/s).");
+        }
+    }
+
+    private synchronized ExecutorService getMisfireRecoveryExecutor() throws JobPersistenceException {
+        if (shutdown) {
+            throw new JobPersistenceException("The job store is shut down.");
+        }
+        if (misfireRecoveryExecutor == null) {
+            final String threadNamePrefix = "QuartzScheduler_" + instanceName + "-" + instanceId + "_MisfireRecovery-";
+            misfireRecoveryExecutor = Executors.newFixedThreadPool(getMisfireRecoveryThreads(), new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, threadNamePrefix + threadNumber.incrementAndGet());
+                    t.setDaemon(getMakeThreadsDaemons());
+                    if (initializersLoader != null) {
+                        t.setContextClassLoader(initializersLoader);
+                    }
+                    return t;
+                }
+            });
+        }
+        return misfireRecoveryExecutor;
+    }
+
+    /**
+     * A misfired trigger as loaded from the database, and a copy of it with
+     * its misfire instruction applied.
+     */
+    protected static class MisfiredTriggerUpdate {
+        private final OperableTrigger misfiredTrigger;
+        private final OperableTrigger updatedTrigger;
+
+        public MisfiredTriggerUpdate(OperableTrigger misfiredTrigger, OperableTrigger updatedTrigger) {
+            this.misfiredTrigger = misfiredTrigger;
+            this.updatedTrigger = updatedTrigger;
+        }
+
+        public OperableTrigger getMisfiredTrigger() {
+            return misfiredTrigger;
+        }
+
+        public OperableTrigger getUpdatedTrigger() {
+            return updatedTrigger;
+        }
+    }
+
     protected ThreadLocal<Long> sigChangeForTxCompletion = new ThreadLocal<Long>();
     protected void signalSchedulingChangeOnTxCompletion(long candidateNewNextFireTime) {
         Long sigTime = sigChangeForTxCompletion.get();
@@ -3313,11 +4504,18 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     protected boolean firstCheckIn = true;
 
     protected long lastCheckin = System.currentTimeMillis();
+
+    // the check-in time last written to this instance's state record
+    private long lastCheckinWritten = -1L;
+
+    private long lastCheckinDuration = 0L;
     
     protected boolean doCheckin() throws JobPersistenceException {
         boolean transOwner = false;
         boolean transStateOwner = false;
         boolean recovered = false;
+        long recoveryStart = 0L;
+        int recoverySize = 0;
 
         Connection conn = getNonManagedTXConnection();
         try {
@@ -3327,7 +4525,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             // transaction to prevent a deadlock under recovery conditions.
             List<SchedulerStateRecord> failedRecords = null;
             if (!firstCheckIn) {
-                failedRecords = clusterCheckIn(conn);
+                failedRecords = (isLeaseBasedClusterCheckin()) ? clusterLeaseCheckIn(conn) : clusterCheckIn(conn);
                 commitConnection(conn);
             }
             
@@ -3343,13 +4541,49 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     getLockHandler().obtainLock(conn, LOCK_TRIGGER_ACCESS);
                     //getLockHandler().obtainLock(conn, LOCK_JOB_ACCESS);
                     transOwner = true;
+
+                    logWarnIfNonZero(failedRecords.size(),
+                            "ClusterManager: detected " + failedRecords.size()
+                                    + " failed or restarted instances.");
     
-                    clusterRecover(conn, failedRecords);
+                    recoveryStart = System.currentTimeMillis();
+                    int chunkSize = getClusterRecoveryChunkSize();
+                    int recoveredCount = clusterRecover(conn, failedRecords, (chunkSize > 0) ? chunkSize : -1);
+                    recoverySize = recoveredCount;
                     recovered = true;
+
+                    // more fired trigger records may remain; commit this chunk
+                    // and let the rest of the cluster in before the next one
+                    while (chunkSize > 0 && recoveredCount == chunkSize) {
+                        commitConnection(conn);
+                        releaseLock(LOCK_TRIGGER_ACCESS, transOwner);
+                        transOwner = false;
+                        releaseLock(LOCK_STATE_ACCESS, transStateOwner);
+                        transStateOwner = false;
+
+                        getLockHandler().obtainLock(conn, LOCK_STATE_ACCESS);
+                        transStateOwner = true;
+                        getLockHandler().obtainLock(conn, LOCK_TRIGGER_ACCESS);
+                        transOwner = true;
+
+                        // between chunks the failed instances may have been
+                        // recovered by, or come back as, other members
+                        failedRecords = findFailedInstances(conn);
+                        if (failedRecords.isEmpty()) {
+                            break;
+                        }
+
+                        recoveredCount = clusterRecover(conn, failedRecords, chunkSize);
+                        recoverySize += recoveredCount;
+                    }
                 }
             }
             
             commitConnection(conn);
+
+            if (recovered) {
+                recordClusterRecovery(recoverySize, recoveryStart);
+            }
         } catch (JobPersistenceException e) {
             rollbackConnection(conn);
             throw e;
@@ -3478,6 +4712,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 getDelegate().insertSchedulerState(conn, getInstanceId(),
                         lastCheckin, getClusterCheckinInterval());
             }
+            lastCheckinWritten = lastCheckin;
             
         } catch (Exception e) {
             throw new JobPersistenceException("Failure updating scheduler state when checking-in: "
@@ -3487,17 +4722,107 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return failedInstances;
     }
 
+    /**
+     * <p>
+     * Check-in by renewing this instance's lease, see 
+     * <code>{@link #setLeaseBasedClusterCheckin(boolean)}</code>.
+     * </p>
+     * 
+     * @return the instances that may have failed, empty unless the lease
+     *         of another instance has expired
+     */
+    protected List<SchedulerStateRecord> clusterLeaseCheckIn(Connection conn)
+        throws JobPersistenceException {
+
+        long startTime = System.currentTimeMillis();
+
+        List<SchedulerStateRecord> failedInstances;
+        try {
+            // the same test as calcFailedIfAfter(), in the database
+            int expired = getDelegate().countExpiredSchedulerStates(conn, getInstanceId(),
+                    startTime - 7500L, lastCheckin - 7500L);
+            failedInstances = (expired > 0) ? findFailedInstances(conn) 
+                    : new LinkedList<SchedulerStateRecord>();
+        } catch (JobPersistenceException e) {
+            throw e;
+        } catch (Exception e) {
+            lastCheckin = System.currentTimeMillis();
+            throw new JobPersistenceException("Failure identifying failed instances when checking-in: "
+                    + e.getMessage(), e);
+        }
+
+        try {
+            long checkinTime = System.currentTimeMillis();
+            long lease = (long) Math.ceil(getClusterCheckinInterval() * (1.0 + getClusterCheckinJitter()))
+                    + lastCheckinDuration;
+
+            if (getDelegate().updateSchedulerStateLease(conn, getInstanceId(), 
+                    checkinTime, lease, lastCheckinWritten) == 0) {
+                // FUTURE_TODO: revisit when handle self-failed-out impl'ed (see FUTURE_TODO in clusterCheckIn())
+                getLog().warn(
+                    "This scheduler instance (" + getInstanceId() + ") is still " + 
+                    "active but its check-in was changed or removed by another instance in the cluster.  " +
+                    "This may cause inconsistent behavior.");
+                if (getDelegate().updateSchedulerState(conn, getInstanceId(), checkinTime) == 0) {
+                    getDelegate().insertSchedulerState(conn, getInstanceId(), checkinTime, lease);
+                }
+            }
+            lastCheckin = checkinTime;
+            lastCheckinWritten = checkinTime;
+            lastCheckinDuration = System.currentTimeMillis() - startTime;
+        } catch (Exception e) {
+            throw new JobPersistenceException("Failure updating scheduler state when checking-in: "
+                    + e.getMessage(), e);
+        }
+
+        return failedInstances;
+    }
+
+    /**
+     * Get the time until the next check-in, applying the
+     * <code>clusterCheckinJitter</code> if check-ins are lease based.
+     */
+    protected long getClusterCheckinDelay() {
+        long interval = getClusterCheckinInterval();
+        if (isLeaseBasedClusterCheckin() && getClusterCheckinJitter() > 0.0) {
+            double jitter = getClusterCheckinJitter() * (2.0 * ThreadLocalRandom.current().nextDouble() - 1.0);
+            interval = Math.round(interval * (1.0 + jitter));
+        }
+        return interval;
+    }
+
     @SuppressWarnings("ConstantConditions")
     protected void clusterRecover(Connection conn, List<SchedulerStateRecord> failedInstances)
         throws JobPersistenceException {
+        clusterRecover(conn, failedInstances, -1);
+    }
 
-        if (failedInstances.size() > 0) {
+    /**
+     * <p>
+     * Recover up to <code>maxRecords</code> of the fired trigger records of
+     * the given failed instances.  Recovered records are deleted, and the 
+     * state record of a failed instance is deleted once all of its fired
+     * trigger records have been recovered; until then it is left as it is,
+     * so that the instance is still found failed by the next chunk, or by
+     * whichever member of the cluster checks in next.
+     * </p>
+     * 
+     * <p>
+     * State changes are applied with one batched statement per kind of change,
+     * rather than once per fired trigger record.
+     * </p>
+     * 
+     * @param maxRecords the most fired trigger records to recover, negative
+     *          for all
+     * @return the number of fired trigger records recovered
+     */
+    protected int clusterRecover(Connection conn, List<SchedulerStateRecord> failedInstances, int maxRecords)
+        throws JobPersistenceException {
 
-            long recoverIds = System.currentTimeMillis();
+        int recoveredRecords = 0;
+
+        if (failedInstances.size() > 0) {
 
-            logWarnIfNonZero(failedInstances.size(),
-                    "ClusterManager: detected " + failedInstances.size()
-                            + " failed or restarted instances.");
             try {
                 for (SchedulerStateRecord rec : failedInstances) {
                     getLog().info(
@@ -3509,11 +4834,23 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                             .selectInstancesFiredTriggerRecords(conn,
                                     rec.getSchedulerInstanceId());
 
+                    boolean allRecovered = true;
+                    if (maxRecords >= 0 && firedTriggerRecs.size() > maxRecords - recoveredRecords) {
+                        firedTriggerRecs = firedTriggerRecs.subList(0, maxRecords - recoveredRecords);
+                        allRecovered = false;
+                    }
+                    recoveredRecords += firedTriggerRecs.size();
+
                     int acquiredCount = 0;
                     int recoveredCount = 0;
                     int otherCount = 0;
 
                     Set<TriggerKey> triggerKeys = new HashSet<TriggerKey>();
+                    List<String> entryIds = new ArrayList<String>();
+                    List<TriggerKey> acquiredTriggers = new ArrayList<TriggerKey>();
+                    Set<JobKey> blockedJobs = new LinkedHashSet<JobKey>();
+                    Set<JobKey> pausedBlockedJobs = new LinkedHashSet<JobKey>();
+                    Map<JobKey, JobDetail> jobs = new HashMap<JobKey, JobDetail>();
 
                     for (FiredTriggerRecord ftRec : firedTriggerRecs) {
 
@@ -3521,36 +4858,33 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                         JobKey jKey = ftRec.getJobKey();
 
                         triggerKeys.add(tKey);
+                        entryIds.add(ftRec.getFireInstanceId());
 
                         // release blocked triggers..
                         if (ftRec.getFireInstanceState().equals(STATE_BLOCKED)) {
-                            getDelegate()
-                                    .updateTriggerStatesForJobFromOtherState(
-                                            conn, jKey,
-                                            STATE_WAITING, STATE_BLOCKED);
+                            blockedJobs.add(jKey);
                         } else if (ftRec.getFireInstanceState().equals(STATE_PAUSED_BLOCKED)) {
-                            getDelegate()
-                                    .updateTriggerStatesForJobFromOtherState(
-                                            conn, jKey,
-                                            STATE_PAUSED, STATE_PAUSED_BLOCKED);
+                            pausedBlockedJobs.add(jKey);
                         }
 
                         // release acquired triggers..
                         if (ftRec.getFireInstanceState().equals(STATE_ACQUIRED)) {
-                            getDelegate().updateTriggerStateFromOtherState(
-                                    conn, tKey, STATE_WAITING,
-                                    STATE_ACQUIRED);
+                            acquiredTriggers.add(tKey);
                             acquiredCount++;
                         } else if (ftRec.isJobRequestsRecovery()) {
                             // handle jobs marked for recovery that were not fully
                             // executed..
-                            if (jobExists(conn, jKey)) {
+                            if (!jobs.containsKey(jKey)) {
+                                jobs.put(jKey, retrieveJob(conn, jKey));
+                            }
+                            JobDetail job = jobs.get(jKey);
+                            if (job != null) {
                                 @SuppressWarnings("deprecation")
                                 SimpleTriggerImpl rcvryTrig = new SimpleTriggerImpl(
                                         "recover_"
                                                 + rec.getSchedulerInstanceId()
                                                 + "_"
-                                                + String.valueOf(recoverIds++),
+                                                + ftRec.getFireInstanceId(),
                                         Scheduler.DEFAULT_RECOVERY_GROUP,
                                         new Date(ftRec.getScheduleTimestamp()));
                                 rcvryTrig.setJobName(jKey.getName());
@@ -3565,7 +4899,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                                 rcvryTrig.setJobDataMap(jd);
 
                                 rcvryTrig.computeFirstFireTime(null);
-                                storeTrigger(conn, rcvryTrig, null, false,
+                                storeTrigger(conn, rcvryTrig, job, false,
                                         STATE_WAITING, false, true);
                                 recoveredCount++;
                             } else {
@@ -3582,19 +4916,24 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
                         // free up stateful job's triggers
                         if (ftRec.isJobDisallowsConcurrentExecution()) {
-                            getDelegate()
-                                    .updateTriggerStatesForJobFromOtherState(
-                                            conn, jKey,
-                                            STATE_WAITING, STATE_BLOCKED);
-                            getDelegate()
-                                    .updateTriggerStatesForJobFromOtherState(
-                                            conn, jKey,
-                                            STATE_PAUSED, STATE_PAUSED_BLOCKED);
+                            blockedJobs.add(jKey);
+                            pausedBlockedJobs.add(jKey);
                         }
                     }
 
-                    getDelegate().deleteFiredTriggers(conn,
-                            rec.getSchedulerInstanceId());
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn,
+                            new ArrayList<JobKey>(blockedJobs), STATE_WAITING, STATE_BLOCKED);
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn,
+                            new ArrayList<JobKey>(pausedBlockedJobs), STATE_PAUSED, STATE_PAUSED_BLOCKED);
+                    getDelegate().updateTriggerStateFromOtherState(conn,
+                            acquiredTriggers, STATE_WAITING, STATE_ACQUIRED);
+
+                    if (allRecovered) {
+                        getDelegate().deleteFiredTriggers(conn,
+                                rec.getSchedulerInstanceId());
+                    } else {
+                        getDelegate().deleteFiredTrigger(conn, entryIds);
+                    }
 
                     // Check if any of the fired triggers we just deleted were the last fired trigger
                     // records of a COMPLETE trigger.
@@ -3627,7 +4966,12 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                             "ClusterManager: ......Cleaned-up " + otherCount
                                     + " other failed job(s).");
 
-                    if (!rec.getSchedulerInstanceId().equals(getInstanceId())) {
+                    if (!allRecovered) {
+                        getLog().info(
+                                "ClusterManager: ......More of instance \""
+                                        + rec.getSchedulerInstanceId()
+                                        + "\"'s failed in-progress jobs remain to be recovered.");
+                    } else if (!rec.getSchedulerInstanceId().equals(getInstanceId())) {
                         getDelegate().deleteSchedulerState(conn,
                                 rec.getSchedulerInstanceId());
                     }
@@ -3637,6 +4981,17 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                         + e.getMessage(), e);
             }
         }
+
+        return recoveredRecords;
+    }
+
+    private void recordClusterRecovery(int size, long startTime) {
+        clusterRecoveryCount.incrementAndGet();
+        lastClusterRecoverySize = size;
+        lastClusterRecoveryDuration = System.currentTimeMillis() - startTime;
+        logWarnIfNonZero(size, "ClusterManager: Recovered " + size
+                + " fired trigger record(s) of failed instances in "
+                + lastClusterRecoveryDuration + " ms.");
     }
 
     protected void logWarnIfNonZero(int val, String warning) {
@@ -3952,7 +5307,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             while (!shutdown) {
 
                 if (!shutdown) {
-                    long timeToSleep = getClusterCheckinInterval();
+                    long timeToSleep = getClusterCheckinDelay();
                     long transpiredTime = (System.currentTimeMillis() - lastCheckin);
                     timeToSleep = timeToSleep - transpiredTime;
                     if (timeToSleep <= 0) {
@@ -21,6 +21,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Date;
 
 import org.quartz.JobDetail;
 import org.quartz.SimpleScheduleBuilder;
@@ -74,6 +75,7 @@ public class SimpleTriggerPersistenceDelegate implements TriggerPersistenceDeleg
             ps.setInt(3, simpleTrigger.getRepeatCount());
             ps.setBigDecimal(4, new BigDecimal(String.valueOf(simpleTrigger.getRepeatInterval())));
             ps.setInt(5, simpleTrigger.getTimesTriggered());
+            setSpreadAndPendingMissedFires(ps, 6, simpleTrigger);
 
             return ps.executeUpdate();
         } finally {
@@ -96,13 +98,23 @@ public class SimpleTriggerPersistenceDelegate implements TriggerPersistenceDeleg
                 int repeatCount = rs.getInt(COL_REPEAT_COUNT);
                 long repeatInterval = rs.getLong(COL_REPEAT_INTERVAL);
                 int timesTriggered = rs.getInt(COL_TIMES_TRIGGERED);
+                long spreadWindow = rs.getLong(COL_SPREAD_WINDOW);
+                int pendingMissedFires = rs.getInt(COL_PENDING_MISSED_FIRES);
 
                 SimpleScheduleBuilder sb = SimpleScheduleBuilder.simpleSchedule()
                     .withRepeatCount(repeatCount)
-                    .withIntervalInMilliseconds(repeatInterval);
+                    .withIntervalInMilliseconds(repeatInterval)
+                    .withSpreadInMilliseconds(spreadWindow);
                 
                 String[] statePropertyNames = { "timesTriggered" };
                 Object[] statePropertyValues = { timesTriggered };
+                if (pendingMissedFires > 0) {
+                    statePropertyNames = new String[] { "timesTriggered", "pendingMissedFireCount",
+                        "pendingFirstMissedFireTime", "pendingLastMissedFireTime" };
+                    statePropertyValues = new Object[] { timesTriggered, pendingMissedFires,
+                        new Date(rs.getLong(COL_FIRST_MISSED_FIRE_TIME)),
+                        new Date(rs.getLong(COL_LAST_MISSED_FIRE_TIME)) };
+                }
                 
                 return new TriggerPropertyBundle(sb, statePropertyNames, statePropertyValues);
             }
@@ -126,8 +138,9 @@ public class SimpleTriggerPersistenceDelegate implements TriggerPersistenceDeleg
             ps.setInt(1, simpleTrigger.getRepeatCount());
             ps.setBigDecimal(2, new BigDecimal(String.valueOf(simpleTrigger.getRepeatInterval())));
             ps.setInt(3, simpleTrigger.getTimesTriggered());
-            ps.setString(4, simpleTrigger.getKey().getName());
-            ps.setString(5, simpleTrigger.getKey().getGroup());
+            setSpreadAndPendingMissedFires(ps, 4, simpleTrigger);
+            ps.setString(8, simpleTrigger.getKey().getName());
+            ps.setString(9, simpleTrigger.getKey().getGroup());
 
             return ps.executeUpdate();
         } finally {
@@ -135,4 +148,30 @@ public class SimpleTriggerPersistenceDelegate implements TriggerPersistenceDeleg
         }
     }
 
+    /**
+     * Set the spread window and the pending coalesced misfires of the given
+     * trigger as the four parameters starting at the given index.
+     */
+    private void setSpreadAndPendingMissedFires(PreparedStatement ps, int index, SimpleTrigger simpleTrigger) throws SQLException {
+        ps.setBigDecimal(index, new BigDecimal(String.valueOf(simpleTrigger.getSpreadWindow())));
+
+        int pendingMissedFires = 0;
+        Date firstMissedFireTime = null;
+        Date lastMissedFireTime = null;
+        if (simpleTrigger instanceof SimpleTriggerImpl) {
+            SimpleTriggerImpl simpleTriggerImpl = (SimpleTriggerImpl) simpleTrigger;
+            pendingMissedFires = simpleTriggerImpl.getPendingMissedFireCount();
+            firstMissedFireTime = simpleTriggerImpl.getPendingFirstMissedFireTime();
+            lastMissedFireTime = simpleTriggerImpl.getPendingLastMissedFireTime();
+        }
+        ps.setInt(index + 1, pendingMissedFires);
+        if (pendingMissedFires > 0) {
+            ps.setBigDecimal(index + 2, new BigDecimal(String.valueOf(firstMissedFireTime.getTime())));
+            ps.setBigDecimal(index + 3, new BigDecimal(String.valueOf(lastMissedFireTime.getTime())));
+        } else {
+            ps.setBigDecimal(index + 2, null);
+            ps.setBigDecimal(index + 3, null);
+        }
+    }
+
 }
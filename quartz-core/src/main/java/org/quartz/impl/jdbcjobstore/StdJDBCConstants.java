@@ -17,6 +17,8 @@
 
 package org.quartz.impl.jdbcjobstore;
 
+import org.quartz.CronTrigger;
+import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 
 /**
@@ -113,6 +115,48 @@ public interface StdJDBCConstants extends Constants {
         + " = ? AND " + COL_TRIGGER_STATE + " = ? "
         + "ORDER BY " + COL_NEXT_FIRE_TIME + " ASC, " + COL_PRIORITY + " DESC";
 
+    String SELECT_MISFIRED_SIMPLE_TRIGGERS_TO_FIRE_NOW = "SELECT T."
+        + COL_TRIGGER_NAME + ", T." + COL_TRIGGER_GROUP + ", T." + COL_JOB_NAME
+        + ", T." + COL_JOB_GROUP + ", T." + COL_DESCRIPTION + ", T." + COL_NEXT_FIRE_TIME
+        + ", T." + COL_PREV_FIRE_TIME + ", T." + COL_START_TIME + ", T." + COL_END_TIME
+        + ", T." + COL_CALENDAR_NAME + ", T." + COL_MISFIRE_INSTRUCTION + ", T." + COL_PRIORITY
+        + ", S." + COL_REPEAT_INTERVAL + ", S." + COL_TIMES_TRIGGERED + ", S." + COL_SPREAD_WINDOW + " FROM "
+        + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " T, " + TABLE_PREFIX_SUBST + TABLE_SIMPLE_TRIGGERS
+        + " S WHERE T." + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND S." + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND T." + COL_TRIGGER_NAME + " = S." + COL_TRIGGER_NAME
+        + " AND T." + COL_TRIGGER_GROUP + " = S." + COL_TRIGGER_GROUP
+        + " AND T." + COL_TRIGGER_TYPE + " = ?"
+        + " AND T." + COL_MISFIRE_INSTRUCTION + " IN (" + Trigger.MISFIRE_INSTRUCTION_SMART_POLICY
+        + ", " + SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW + ")"
+        + " AND S." + COL_REPEAT_COUNT + " = 0"
+        + " AND T." + COL_NEXT_FIRE_TIME + " < ? AND T." + COL_TRIGGER_STATE + " = ? "
+        + "ORDER BY T." + COL_NEXT_FIRE_TIME + " ASC, T." + COL_PRIORITY + " DESC";
+
+    String SELECT_MISFIRED_CRON_TRIGGERS = "SELECT T."
+        + COL_TRIGGER_NAME + ", T." + COL_TRIGGER_GROUP + ", T." + COL_JOB_NAME
+        + ", T." + COL_JOB_GROUP + ", T." + COL_DESCRIPTION + ", T." + COL_NEXT_FIRE_TIME
+        + ", T." + COL_PREV_FIRE_TIME + ", T." + COL_START_TIME + ", T." + COL_END_TIME
+        + ", T." + COL_CALENDAR_NAME + ", T." + COL_MISFIRE_INSTRUCTION + ", T." + COL_PRIORITY
+        + ", C." + COL_CRON_EXPRESSION + ", C." + COL_TIME_ZONE_ID + ", C." + COL_SPREAD_WINDOW + " FROM "
+        + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " T, " + TABLE_PREFIX_SUBST + TABLE_CRON_TRIGGERS
+        + " C WHERE T." + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND C." + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND T." + COL_TRIGGER_NAME + " = C." + COL_TRIGGER_NAME
+        + " AND T." + COL_TRIGGER_GROUP + " = C." + COL_TRIGGER_GROUP
+        + " AND T." + COL_TRIGGER_TYPE + " = ?"
+        + " AND T." + COL_MISFIRE_INSTRUCTION + " IN (" + Trigger.MISFIRE_INSTRUCTION_SMART_POLICY
+        + ", " + CronTrigger.MISFIRE_INSTRUCTION_FIRE_ONCE_NOW
+        + ", " + CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING + ")"
+        + " AND T." + COL_NEXT_FIRE_TIME + " < ? AND T." + COL_TRIGGER_STATE + " = ? "
+        + "ORDER BY T." + COL_NEXT_FIRE_TIME + " ASC, T." + COL_PRIORITY + " DESC";
+
+    String UPDATE_TRIGGER_NEXT_FIRE_TIME_FROM_STATE = "UPDATE "
+        + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " SET " + COL_TRIGGER_STATE + " = ?, "
+        + COL_NEXT_FIRE_TIME + " = ? WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND " + COL_TRIGGER_NAME + " = ? AND " + COL_TRIGGER_GROUP + " = ? AND "
+        + COL_TRIGGER_STATE + " = ?";
+
 
     String DELETE_FIRED_TRIGGERS = "DELETE FROM "
             + TABLE_PREFIX_SUBST + TABLE_FIRED_TRIGGERS
@@ -195,10 +239,21 @@ public interface StdJDBCConstants extends Constants {
             + TABLE_JOB_DETAILS + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
 
+    // escapes '%' and '_' in the value of a group matcher; not a backslash,
+    // which MySQL reads as an escape inside the string literal itself
+    String LIKE_ESCAPE = "!";
+
+    // quotes doubled, as queries go through MessageFormat
+    String LIKE_ESCAPE_CLAUSE = " ESCAPE ''" + LIKE_ESCAPE + "''";
+
     String SELECT_JOBS_IN_GROUP_LIKE = "SELECT " + COL_JOB_NAME + ", " + COL_JOB_GROUP
             + " FROM " + TABLE_PREFIX_SUBST + TABLE_JOB_DETAILS + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
-            + " AND " + COL_JOB_GROUP + " LIKE ?";
+            + " AND " + COL_JOB_GROUP + " LIKE ?" + LIKE_ESCAPE_CLAUSE;
+
+    String SELECT_JOB_KEYS = "SELECT " + COL_JOB_NAME + ", " + COL_JOB_GROUP
+            + " FROM " + TABLE_PREFIX_SUBST + TABLE_JOB_DETAILS + " WHERE "
+            + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
 
     String SELECT_JOBS_IN_GROUP = "SELECT " + COL_JOB_NAME + ", " + COL_JOB_GROUP
             + " FROM " + TABLE_PREFIX_SUBST + TABLE_JOB_DETAILS + " WHERE "
@@ -220,14 +275,17 @@ public interface StdJDBCConstants extends Constants {
             + COL_SCHEDULER_NAME + ", "
             + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", "
             + COL_REPEAT_COUNT + ", " + COL_REPEAT_INTERVAL + ", "
-            + COL_TIMES_TRIGGERED + ") " + " VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?, ?, ?)";
+            + COL_TIMES_TRIGGERED + ", " + COL_SPREAD_WINDOW + ", "
+            + COL_PENDING_MISSED_FIRES + ", " + COL_FIRST_MISSED_FIRE_TIME + ", "
+            + COL_LAST_MISSED_FIRE_TIME + ") " + " VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     String INSERT_CRON_TRIGGER = "INSERT INTO "
             + TABLE_PREFIX_SUBST + TABLE_CRON_TRIGGERS + " ("
             + COL_SCHEDULER_NAME + ", "
             + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", "
-            + COL_CRON_EXPRESSION + ", " + COL_TIME_ZONE_ID + ") "
-            + " VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?, ?)";
+            + COL_CRON_EXPRESSION + ", " + COL_TIME_ZONE_ID + ", "
+            + COL_SPREAD_WINDOW + ") "
+            + " VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?, ?, ?)";
 
     String INSERT_BLOB_TRIGGER = "INSERT INTO "
             + TABLE_PREFIX_SUBST + TABLE_BLOB_TRIGGERS + " ("
@@ -263,7 +321,9 @@ public interface StdJDBCConstants extends Constants {
     String UPDATE_SIMPLE_TRIGGER = "UPDATE "
             + TABLE_PREFIX_SUBST + TABLE_SIMPLE_TRIGGERS + " SET "
             + COL_REPEAT_COUNT + " = ?, " + COL_REPEAT_INTERVAL + " = ?, "
-            + COL_TIMES_TRIGGERED + " = ? WHERE " 
+            + COL_TIMES_TRIGGERED + " = ?, " + COL_SPREAD_WINDOW + " = ?, "
+            + COL_PENDING_MISSED_FIRES + " = ?, " + COL_FIRST_MISSED_FIRE_TIME + " = ?, "
+            + COL_LAST_MISSED_FIRE_TIME + " = ? WHERE " 
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
             + " AND " + COL_TRIGGER_NAME
             + " = ? AND " + COL_TRIGGER_GROUP + " = ?";
@@ -271,7 +331,7 @@ public interface StdJDBCConstants extends Constants {
     String UPDATE_CRON_TRIGGER = "UPDATE "
             + TABLE_PREFIX_SUBST + TABLE_CRON_TRIGGERS + " SET "
             + COL_CRON_EXPRESSION + " = ?, " + COL_TIME_ZONE_ID  
-            + " = ? WHERE " 
+            + " = ?, " + COL_SPREAD_WINDOW + " = ? WHERE " 
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
             + " AND " + COL_TRIGGER_NAME
             + " = ? AND " + COL_TRIGGER_GROUP + " = ?";
@@ -310,7 +370,7 @@ public interface StdJDBCConstants extends Constants {
             + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
             + " AND " + COL_TRIGGER_GROUP
-            + " LIKE ? AND "
+            + " LIKE ?" + LIKE_ESCAPE_CLAUSE + " AND "
             + COL_TRIGGER_STATE + " = ?";
 
     String UPDATE_TRIGGER_STATE_FROM_STATES = "UPDATE "
@@ -329,7 +389,7 @@ public interface StdJDBCConstants extends Constants {
             + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
             + " AND " + COL_TRIGGER_GROUP
-            + " LIKE ? AND ("
+            + " LIKE ?" + LIKE_ESCAPE_CLAUSE + " AND ("
             + COL_TRIGGER_STATE
             + " = ? OR "
             + COL_TRIGGER_STATE
@@ -415,6 +475,13 @@ public interface StdJDBCConstants extends Constants {
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
             + " AND " + COL_TRIGGER_NAME + " = ? AND " + COL_TRIGGER_GROUP + " = ?";
 
+    String SELECT_TRIGGER_STATUSES_IN_GROUP = "SELECT "
+            + COL_TRIGGER_NAME + ", " + COL_TRIGGER_STATE + ", " + COL_NEXT_FIRE_TIME + ", "
+            + COL_JOB_NAME + ", " + COL_JOB_GROUP + " FROM "
+            + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " WHERE "
+            + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_TRIGGER_GROUP + " = ? AND " + COL_TRIGGER_NAME + " IN ";
+
     String SELECT_SIMPLE_TRIGGER = "SELECT *" + " FROM "
             + TABLE_PREFIX_SUBST + TABLE_SIMPLE_TRIGGERS + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
@@ -445,12 +512,16 @@ public interface StdJDBCConstants extends Constants {
 
     String SELECT_TRIGGER_GROUPS_FILTERED = "SELECT DISTINCT("
             + COL_TRIGGER_GROUP + ") FROM " + TABLE_PREFIX_SUBST
-            + TABLE_TRIGGERS + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST + " AND " + COL_TRIGGER_GROUP + " LIKE ?";
+            + TABLE_TRIGGERS + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST + " AND " + COL_TRIGGER_GROUP + " LIKE ?" + LIKE_ESCAPE_CLAUSE;
 
     String SELECT_TRIGGERS_IN_GROUP_LIKE = "SELECT "
             + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS
             + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
-            + " AND " + COL_TRIGGER_GROUP + " LIKE ?";
+            + " AND " + COL_TRIGGER_GROUP + " LIKE ?" + LIKE_ESCAPE_CLAUSE;
+
+    String SELECT_TRIGGER_KEYS = "SELECT "
+            + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
 
     String SELECT_TRIGGERS_IN_GROUP = "SELECT "
             + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS
@@ -553,6 +624,11 @@ public interface StdJDBCConstants extends Constants {
             + " AND " + COL_JOB_NAME + " = ? AND "
             + COL_JOB_GROUP + " = ?";
 
+    String SELECT_JOB_GROUP_EXECUTION_COUNT = "SELECT COUNT("
+            + COL_TRIGGER_NAME + ") FROM " + TABLE_PREFIX_SUBST
+            + TABLE_FIRED_TRIGGERS + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_JOB_GROUP + " = ?";
+
     String SELECT_FIRED_TRIGGERS = "SELECT * FROM "
             + TABLE_PREFIX_SUBST + TABLE_FIRED_TRIGGERS
             + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
@@ -637,6 +713,20 @@ public interface StdJDBCConstants extends Constants {
         + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
         + " AND " + COL_INSTANCE_NAME + " = ?";
 
+    String UPDATE_SCHEDULER_STATE_LEASE = "UPDATE "
+        + TABLE_PREFIX_SUBST + TABLE_SCHEDULER_STATE + " SET " 
+        + COL_LAST_CHECKIN_TIME + " = ?, " + COL_CHECKIN_INTERVAL + " = ? WHERE "
+        + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND " + COL_INSTANCE_NAME + " = ? AND " + COL_LAST_CHECKIN_TIME + " = ?";
+
+    String COUNT_EXPIRED_SCHEDULER_STATES = "SELECT COUNT("
+        + COL_INSTANCE_NAME + ") FROM "
+        + TABLE_PREFIX_SUBST + TABLE_SCHEDULER_STATE + " WHERE "
+        + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+        + " AND " + COL_INSTANCE_NAME + " <> ? AND "
+        + COL_LAST_CHECKIN_TIME + " + " + COL_CHECKIN_INTERVAL + " < ? AND "
+        + COL_LAST_CHECKIN_TIME + " < ?";
+
     String INSERT_PAUSED_TRIGGER_GROUP = "INSERT INTO "
             + TABLE_PREFIX_SUBST + TABLE_PAUSED_TRIGGERS + " ("
             + COL_SCHEDULER_NAME + ", "
@@ -656,12 +746,59 @@ public interface StdJDBCConstants extends Constants {
     String DELETE_PAUSED_TRIGGER_GROUP = "DELETE FROM "
             + TABLE_PREFIX_SUBST + TABLE_PAUSED_TRIGGERS + " WHERE "
             + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
-            + " AND " + COL_TRIGGER_GROUP + " LIKE ?";
+            + " AND " + COL_TRIGGER_GROUP + " LIKE ?" + LIKE_ESCAPE_CLAUSE;
 
     String DELETE_PAUSED_TRIGGER_GROUPS = "DELETE FROM "
             + TABLE_PREFIX_SUBST + TABLE_PAUSED_TRIGGERS
             + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
 
+    String INSERT_DELAYED_TASK = "INSERT INTO "
+            + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS + " ("
+            + COL_SCHEDULER_NAME + ", " + COL_TASK_ID + ", " + COL_JOB_NAME + ", "
+            + COL_JOB_GROUP + ", " + COL_FIRE_TIME + ", " + COL_PAYLOAD
+            + ") VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?, ?, ?)";
+
+    String DELETE_DELAYED_TASK = "DELETE FROM "
+            + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS + " WHERE "
+            + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_TASK_ID + " = ?";
+
+    String SELECT_DELAYED_TASK_EXISTENCE = "SELECT "
+            + COL_TASK_ID + " FROM " + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_TASK_ID + " = ?";
+
+    String SELECT_DUE_DELAYED_TASKS = "SELECT "
+            + COL_TASK_ID + ", " + COL_JOB_NAME + ", " + COL_JOB_GROUP + ", "
+            + COL_FIRE_TIME + ", " + COL_PAYLOAD + " FROM "
+            + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS + " WHERE "
+            + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_FIRE_TIME + " <= ? ORDER BY " + COL_FIRE_TIME + " ASC";
+
+    String SELECT_NEXT_DELAYED_TASK_FIRE_TIME = "SELECT MIN("
+            + COL_FIRE_TIME + ") AS " + ALIAS_COL_NEXT_FIRE_TIME + " FROM "
+            + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS + " WHERE "
+            + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
+
+    String SELECT_NUM_DELAYED_TASKS = "SELECT COUNT(" + COL_TASK_ID + ") "
+            + " FROM " + TABLE_PREFIX_SUBST + TABLE_DELAYED_TASKS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST;
+
+    String SELECT_RATE_LIMIT = "SELECT "
+            + COL_NEXT_PERMIT_TIME + " FROM " + TABLE_PREFIX_SUBST + TABLE_RATE_LIMITS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_LIMIT_TYPE + " = ? AND " + COL_LIMIT_GROUP + " = ?";
+
+    String UPDATE_RATE_LIMIT = "UPDATE "
+            + TABLE_PREFIX_SUBST + TABLE_RATE_LIMITS + " SET "
+            + COL_NEXT_PERMIT_TIME + " = ? WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+            + " AND " + COL_LIMIT_TYPE + " = ? AND " + COL_LIMIT_GROUP + " = ?";
+
+    String INSERT_RATE_LIMIT = "INSERT INTO "
+            + TABLE_PREFIX_SUBST + TABLE_RATE_LIMITS + " ("
+            + COL_SCHEDULER_NAME + ", " + COL_LIMIT_TYPE + ", " + COL_LIMIT_GROUP + ", "
+            + COL_NEXT_PERMIT_TIME + ") VALUES(" + SCHED_NAME_SUBST + ", ?, ?, ?)";
+
     //  CREATE TABLE qrtz_scheduler_state(INSTANCE_NAME VARCHAR2(80) NOT NULL,
     // LAST_CHECKIN_TIME NUMBER(13) NOT NULL, CHECKIN_INTERVAL NUMBER(13) NOT
     // NULL, PRIMARY KEY (INSTANCE_NAME));
@@ -21,6 +21,7 @@ import static org.quartz.JobKey.jobKey;
 import static org.quartz.TriggerBuilder.newTrigger;
 import static org.quartz.TriggerKey.triggerKey;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -35,23 +36,31 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TimeZone;
 
 import org.quartz.Calendar;
+import org.quartz.DelayedTask;
+import org.quartz.CronScheduleBuilder;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.JobPersistenceException;
+import org.quartz.ScheduleBuilder;
 import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
@@ -63,6 +72,7 @@ import org.quartz.impl.matchers.StringMatcher;
 import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.OperableTrigger;
+import org.quartz.utils.Key;
 import org.slf4j.Logger;
 
 /**
@@ -86,6 +96,12 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      */
 
+    /**
+     * The most trigger names bound into a single <code>IN</code> list, kept
+     * well below the 1000 element limit some databases impose.
+     */
+    protected static final int MAX_IN_LIST_SIZE = 500;
+
     protected Logger logger = null;
 
     protected String tablePrefix = DEFAULT_TABLE_PREFIX;
@@ -100,6 +116,10 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     protected List<TriggerPersistenceDelegate> triggerPersistenceDelegates = new LinkedList<TriggerPersistenceDelegate>();
 
+    protected JobDataMapCodec jobDataMapCodec;
+
+    protected JobDataMapCodec jobDataMapDecoder = new BinaryJobDataMapCodec();
+
     
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -144,6 +164,9 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
         String[] settings = initString.split("\\|");
         
+        String codecClassName = null;
+        Properties codecSettings = new Properties();
+
         for(String setting: settings) {
             String[] parts = setting.split("=");
             String name = parts[0];
@@ -163,9 +186,26 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                     } 
                 }
             }
+            else if(name.equals("jobDataMapCodecClass")) {
+                codecClassName = parts[1];
+            }
+            else if(name.startsWith("jobDataMapCodec.")) {
+                codecSettings.setProperty(name.substring("jobDataMapCodec.".length()), parts[1]);
+            }
             else
                 throw new NoSuchDelegateException("Unknown setting: '" + name + "'");
         }
+
+        if(codecClassName != null) {
+            try {
+                Class<?> codecClass = classLoadHelper.loadClass(codecClassName);
+                JobDataMapCodec codec = (JobDataMapCodec) codecClass.newInstance();
+                codec.initialize(codecSettings);
+                setJobDataMapCodec(codec);
+            } catch (Exception e) {
+                throw new NoSuchDelegateException("Error instantiating JobDataMapCodec of type: " + codecClassName, e);
+            }
+        }
     }
 
     protected void addDefaultTriggerPersistenceDelegates() {
@@ -178,6 +218,23 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
     protected boolean canUseProperties() {
         return useProperties;
     }
+
+    /**
+     * Set the codec used to write <code>JobDataMap</code> BLOBs, or
+     * <code>null</code> to write them with Java serialization.  Rows written
+     * by the codec and rows written with Java serialization can both be read
+     * regardless of this setting.  Ignored when 'useProperties' is set.
+     */
+    public void setJobDataMapCodec(JobDataMapCodec codec) {
+        this.jobDataMapCodec = codec;
+        if(codec != null) {
+            this.jobDataMapDecoder = codec;
+        }
+    }
+
+    public JobDataMapCodec getJobDataMapCodec() {
+        return jobDataMapCodec;
+    }
     
     public void addTriggerPersistenceDelegate(TriggerPersistenceDelegate delegate) {
         logger.debug("Adding TriggerPersistenceDelegate of type: " + delegate.getClass().getCanonicalName());
@@ -372,6 +429,154 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
             closeStatement(ps);
         }
     }
+
+    /**
+     * <p>
+     * Select the misfired triggers in the given state whose new fire time
+     * can be computed without loading them in full.  No more than count will
+     * be returned.
+     * </p>
+     * 
+     * @param conn the DB Connection
+     * @param count the most misfired triggers to return, negative for all
+     * @param resultList Output parameter.  Must not be null.
+     * 
+     * @return Whether there are more such misfired triggers left to find
+     *         beyond the given count.
+     */
+    public boolean selectMisfiredTriggersForBulkUpdate(Connection conn, String state,
+        long ts, int count, List<OperableTrigger> resultList) throws SQLException,
+        ClassNotFoundException, IOException, JobPersistenceException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_MISFIRED_SIMPLE_TRIGGERS_TO_FIRE_NOW));
+            ps.setString(1, TTYPE_SIMPLE);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(ts)));
+            ps.setString(3, state);
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                if (resultList.size() == count) {
+                    return true;
+                }
+                SimpleScheduleBuilder sb = SimpleScheduleBuilder.simpleSchedule()
+                    .withRepeatCount(0)
+                    .withIntervalInMilliseconds(rs.getLong(COL_REPEAT_INTERVAL))
+                    .withSpreadInMilliseconds(rs.getLong(COL_SPREAD_WINDOW));
+                SimpleTriggerImpl trigger = (SimpleTriggerImpl) buildMisfiredTrigger(rs, sb);
+                trigger.setTimesTriggered(rs.getInt(COL_TIMES_TRIGGERED));
+                resultList.add(trigger);
+            }
+            closeResultSet(rs);
+            rs = null;
+            closeStatement(ps);
+            ps = null;
+
+            ps = conn.prepareStatement(rtp(SELECT_MISFIRED_CRON_TRIGGERS));
+            ps.setString(1, TTYPE_CRON);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(ts)));
+            ps.setString(3, state);
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                if (resultList.size() == count) {
+                    return true;
+                }
+                CronScheduleBuilder cb = CronScheduleBuilder.cronSchedule(rs.getString(COL_CRON_EXPRESSION));
+                String timeZoneId = rs.getString(COL_TIME_ZONE_ID);
+                if (timeZoneId != null) {
+                    cb.inTimeZone(TimeZone.getTimeZone(timeZoneId));
+                }
+                cb.withSpreadInMilliseconds(rs.getLong(COL_SPREAD_WINDOW));
+                resultList.add(buildMisfiredTrigger(rs, cb));
+            }
+
+            return false;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    private OperableTrigger buildMisfiredTrigger(ResultSet rs, ScheduleBuilder<?> scheduleBuilder) throws SQLException {
+        long prevFireTime = rs.getLong(COL_PREV_FIRE_TIME);
+        long endTime = rs.getLong(COL_END_TIME);
+
+        OperableTrigger trigger = (OperableTrigger) newTrigger()
+            .withIdentity(triggerKey(rs.getString(COL_TRIGGER_NAME), rs.getString(COL_TRIGGER_GROUP)))
+            .forJob(jobKey(rs.getString(COL_JOB_NAME), rs.getString(COL_JOB_GROUP)))
+            .withDescription(rs.getString(COL_DESCRIPTION))
+            .withPriority(rs.getInt(COL_PRIORITY))
+            .startAt(new Date(rs.getLong(COL_START_TIME)))
+            .endAt(endTime > 0 ? new Date(endTime) : null)
+            .modifiedByCalendar(rs.getString(COL_CALENDAR_NAME))
+            .withSchedule(scheduleBuilder)
+            .build();
+
+        trigger.setMisfireInstruction(rs.getInt(COL_MISFIRE_INSTRUCTION));
+        trigger.setNextFireTime(new Date(rs.getLong(COL_NEXT_FIRE_TIME)));
+        trigger.setPreviousFireTime(prevFireTime > 0 ? new Date(prevFireTime) : null);
+        return trigger;
+    }
+
+    /**
+     * <p>
+     * Update the next fire time of the given triggers, as a single batch,
+     * provided they are still in the given old state.  Triggers without a
+     * next fire time are set to the <code>STATE_COMPLETE</code> state.
+     * </p>
+     * 
+     * @param conn the DB Connection
+     * @return the indexes, in the given list, of the triggers updated
+     */
+    public List<Integer> updateTriggerNextFireTimesFromState(Connection conn, List<OperableTrigger> triggers,
+        String newStateIfNotComplete, String oldState) throws SQLException {
+        List<Integer> updated = new ArrayList<Integer>(triggers.size());
+        if (triggers.isEmpty()) {
+            return updated;
+        }
+
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_NEXT_FIRE_TIME_FROM_STATE));
+            for (OperableTrigger trigger : triggers) {
+                Date nextFireTime = trigger.getNextFireTime();
+                ps.setString(1, nextFireTime == null ? STATE_COMPLETE : newStateIfNotComplete);
+                ps.setBigDecimal(2, new BigDecimal(String.valueOf(nextFireTime == null ? -1 : nextFireTime.getTime())));
+                ps.setString(3, trigger.getKey().getName());
+                ps.setString(4, trigger.getKey().getGroup());
+                ps.setString(5, oldState);
+                ps.addBatch();
+            }
+
+            int[] rows = ps.executeBatch();
+            for (int i = 0; i < rows.length; i++) {
+                // drivers may report success without a row count
+                if (rows[i] > 0 || rows[i] == Statement.SUCCESS_NO_INFO) {
+                    updated.add(i);
+                }
+            }
+            return updated;
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * Execute the batch of the given statement, returning the total number
+     * of rows affected.
+     */
+    protected int executeBatch(PreparedStatement ps) throws SQLException {
+        int updated = 0;
+        for (int rows : ps.executeBatch()) {
+            // drivers may report success without a row count
+            updated += (rows == Statement.SUCCESS_NO_INFO) ? 1 : rows;
+        }
+        return updated;
+    }
     
     /**
      * <p>
@@ -991,6 +1196,72 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    public List<JobKey> selectJobsInGroup(Connection conn, GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = prepareKeyPage(conn, SELECT_JOB_KEYS, COL_JOB_GROUP, COL_JOB_NAME, matcher, afterKey, limit);
+            rs = ps.executeQuery();
+
+            List<JobKey> list = new ArrayList<JobKey>();
+            while (rs.next() && list.size() < limit) {
+                list.add(jobKey(rs.getString(1), rs.getString(2)));
+            }
+
+            return list;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Prepare a keyset-paginated select of job or trigger keys: the group
+     * condition of the matcher, then <code>(group, name) &gt; afterKey</code>,
+     * ordered by group and name and limited to <code>limit</code> rows.
+     * Both the order and the comparison with <code>afterKey</code> follow
+     * the collation of the columns, under which <code>(group, name)</code>
+     * is unique, so consecutive pages neither skip nor repeat keys.
+     * </p>
+     */
+    protected PreparedStatement prepareKeyPage(Connection conn, String selectKeys, String groupColumn,
+            String nameColumn, GroupMatcher<?> matcher, Key<?> afterKey, int limit) throws SQLException {
+        if (limit < 1) {
+            // setMaxRows(0) would return every row
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+        StringBuilder sql = new StringBuilder(selectKeys);
+        if (isMatcherEquals(matcher)) {
+            sql.append(" AND ").append(groupColumn).append(" = ?");
+        } else if (!matcher.getCompareWithOperator().equals(StringMatcher.StringOperatorName.ANYTHING)) {
+            sql.append(" AND ").append(groupColumn).append(" LIKE ?").append(LIKE_ESCAPE_CLAUSE);
+        }
+        if (afterKey != null) {
+            sql.append(" AND (").append(groupColumn).append(" > ? OR (")
+                .append(groupColumn).append(" = ? AND ").append(nameColumn).append(" > ?))");
+        }
+        sql.append(" ORDER BY ").append(groupColumn).append(", ").append(nameColumn);
+
+        PreparedStatement ps = conn.prepareStatement(rtp(sql.toString()));
+        int index = 1;
+        if (isMatcherEquals(matcher)) {
+            ps.setString(index++, toSqlEqualsClause(matcher));
+        } else if (!matcher.getCompareWithOperator().equals(StringMatcher.StringOperatorName.ANYTHING)) {
+            ps.setString(index++, toSqlLikeClause(matcher));
+        }
+        if (afterKey != null) {
+            ps.setString(index++, afterKey.getGroup());
+            ps.setString(index++, afterKey.getGroup());
+            ps.setString(index, afterKey.getName());
+        }
+        ps.setMaxRows(limit);
+        ps.setFetchSize(limit);
+        return ps;
+    }
+
     protected boolean isMatcherEquals(final GroupMatcher<?> matcher) {
         return matcher.getCompareWithOperator().equals(StringMatcher.StringOperatorName.EQUALS);
     }
@@ -999,20 +1270,32 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         return matcher.getCompareToValue();
     }
 
+    /**
+     * <p>
+     * Get the <code>LIKE</code> pattern of the given matcher, with the
+     * wildcards and the escape character in the value it matches against
+     * escaped by <code>{@link StdJDBCConstants#LIKE_ESCAPE}</code>, so that
+     * <code>_</code> or <code>%</code> in a group name are not wildcards.
+     * Every query the pattern is used in must say
+     * <code>{@link StdJDBCConstants#LIKE_ESCAPE_CLAUSE}</code>.  Databases
+     * turn a <code>STARTS_WITH</code> pattern, whose constant leads, into a
+     * range scan of the group index under whatever collation the column has.
+     * </p>
+     */
     protected String toSqlLikeClause(final GroupMatcher<?> matcher) {
         String groupName;
         switch(matcher.getCompareWithOperator()) {
             case EQUALS:
-                groupName = matcher.getCompareToValue();
+                groupName = escapeLikeWildcards(matcher.getCompareToValue());
                 break;
             case CONTAINS:
-                groupName = "%" + matcher.getCompareToValue() + "%";
+                groupName = "%" + escapeLikeWildcards(matcher.getCompareToValue()) + "%";
                 break;
             case ENDS_WITH:
-                groupName = "%" + matcher.getCompareToValue();
+                groupName = "%" + escapeLikeWildcards(matcher.getCompareToValue());
                 break;
             case STARTS_WITH:
-                groupName = matcher.getCompareToValue() + "%";
+                groupName = escapeLikeWildcards(matcher.getCompareToValue()) + "%";
                 break;
             case ANYTHING:
                 groupName = "%";
@@ -1023,6 +1306,24 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         return groupName;
     }
 
+    /**
+     * @return the given value with <code>_</code>, <code>%</code> and the
+     *         escape character escaped by
+     *         <code>{@link StdJDBCConstants#LIKE_ESCAPE}</code>.
+     */
+    protected String escapeLikeWildcards(String value) {
+        char escape = LIKE_ESCAPE.charAt(0);
+        StringBuilder pattern = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == escape) {
+                pattern.append(escape);
+            }
+            pattern.append(c);
+        }
+        return pattern.toString();
+    }
+
     //---------------------------------------------------------------------------
     // triggers
     //---------------------------------------------------------------------------
@@ -1442,6 +1743,30 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    public int updateTriggerStateFromOtherState(Connection conn,
+            List<TriggerKey> triggerKeys, String newState, String oldState) throws SQLException {
+        if (triggerKeys.isEmpty()) {
+            return 0;
+        }
+
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_STATE_FROM_STATE));
+            for (TriggerKey triggerKey : triggerKeys) {
+                ps.setString(1, newState);
+                ps.setString(2, triggerKey.getName());
+                ps.setString(3, triggerKey.getGroup());
+                ps.setString(4, oldState);
+                ps.addBatch();
+            }
+
+            return executeBatch(ps);
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Update all of the triggers of the given group to the given new state, if
@@ -1523,6 +1848,32 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    public int updateTriggerStatesForJobFromOtherState(Connection conn,
+            List<JobKey> jobKeys, String state, String oldState)
+        throws SQLException {
+        if (jobKeys.isEmpty()) {
+            return 0;
+        }
+
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn
+                    .prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES_FROM_OTHER_STATE));
+            for (JobKey jobKey : jobKeys) {
+                ps.setString(1, state);
+                ps.setString(2, jobKey.getName());
+                ps.setString(3, jobKey.getGroup());
+                ps.setString(4, oldState);
+                ps.addBatch();
+            }
+
+            return executeBatch(ps);
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Delete the cron trigger data for a trigger.
@@ -2008,6 +2359,70 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     }
 
+    /**
+     * <p>
+     * Select the status of each of the given triggers. The names are bound
+     * into an <code>IN</code> list per trigger group, at most
+     * <code>{@link #MAX_IN_LIST_SIZE}</code> names to a statement.
+     * </p>
+     */
+    public List<TriggerStatus> selectTriggerStatuses(Connection conn,
+            Collection<TriggerKey> triggerKeys) throws SQLException {
+        Map<String, List<String>> namesByGroup = new LinkedHashMap<String, List<String>>();
+        for (TriggerKey triggerKey : triggerKeys) {
+            List<String> names = namesByGroup.get(triggerKey.getGroup());
+            if (names == null) {
+                names = new ArrayList<String>();
+                namesByGroup.put(triggerKey.getGroup(), names);
+            }
+            names.add(triggerKey.getName());
+        }
+
+        List<TriggerStatus> statuses = new ArrayList<TriggerStatus>(triggerKeys.size());
+        for (Map.Entry<String, List<String>> entry : namesByGroup.entrySet()) {
+            List<String> names = entry.getValue();
+            for (int from = 0; from < names.size(); from += MAX_IN_LIST_SIZE) {
+                selectTriggerStatuses(conn, entry.getKey(),
+                    names.subList(from, Math.min(from + MAX_IN_LIST_SIZE, names.size())), statuses);
+            }
+        }
+        return statuses;
+    }
+
+    private void selectTriggerStatuses(Connection conn, String group,
+            List<String> names, List<TriggerStatus> statuses) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            StringBuilder sql = new StringBuilder(SELECT_TRIGGER_STATUSES_IN_GROUP).append('(');
+            for (int i = 0; i < names.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+
+            ps = conn.prepareStatement(rtp(sql.toString()));
+            ps.setString(1, group);
+            for (int i = 0; i < names.size(); i++) {
+                ps.setString(i + 2, names.get(i));
+            }
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                long nextFireTime = rs.getLong(COL_NEXT_FIRE_TIME);
+
+                TriggerStatus status = new TriggerStatus(rs.getString(COL_TRIGGER_STATE),
+                    nextFireTime > 0 ? new Date(nextFireTime) : null);
+                status.setKey(triggerKey(rs.getString(COL_TRIGGER_NAME), group));
+                status.setJobKey(jobKey(rs.getString(COL_JOB_NAME), rs.getString(COL_JOB_GROUP)));
+                statuses.add(status);
+            }
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Select the total number of triggers stored.
@@ -2147,7 +2562,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
         try {
             ps = conn.prepareStatement(rtp(DELETE_PAUSED_TRIGGER_GROUP));
-            ps.setString(1, groupName);
+            ps.setString(1, escapeLikeWildcards(groupName));
             int rows = ps.executeUpdate();
 
             return rows;
@@ -2156,6 +2571,27 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    public List<TriggerKey> selectTriggersInGroup(Connection conn, GroupMatcher<TriggerKey> matcher,
+        TriggerKey afterKey, int limit) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = prepareKeyPage(conn, SELECT_TRIGGER_KEYS, COL_TRIGGER_GROUP, COL_TRIGGER_NAME, matcher, afterKey, limit);
+            rs = ps.executeQuery();
+
+            List<TriggerKey> keys = new ArrayList<TriggerKey>();
+            while (rs.next() && keys.size() < limit) {
+                keys.add(triggerKey(rs.getString(1), rs.getString(2)));
+            }
+
+            return keys;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
     public int deletePausedTriggerGroup(Connection conn, GroupMatcher<TriggerKey> matcher)
         throws SQLException {
         PreparedStatement ps = null;
@@ -2625,6 +3061,50 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }      
     }
 
+    /**
+     * <p>
+     * Runs the query of <code>{@link #selectTriggerToAcquire(Connection, long, long, int)}</code>
+     * once, without a row limit, keeping at most the given number of each
+     * group's triggers.  Delegates for databases that can number rows
+     * within a group may instead limit each group in the query.
+     * </p>
+     */
+    public Map<String, List<TriggerKey>> selectTriggersToAcquireByGroup(Connection conn, long noLaterThan,
+        long noEarlierThan, int maxCountPerGroup) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        Map<String, List<TriggerKey>> dueByGroup = new LinkedHashMap<String, List<TriggerKey>>();
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_NEXT_TRIGGER_TO_ACQUIRE));
+
+            if (maxCountPerGroup < 1)
+                maxCountPerGroup = 1; // we want at least one trigger back.
+            ps.setFetchSize(maxCountPerGroup);
+
+            ps.setString(1, STATE_WAITING);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(noLaterThan)));
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(noEarlierThan)));
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                String group = rs.getString(COL_TRIGGER_GROUP);
+                List<TriggerKey> due = dueByGroup.get(group);
+                if (due == null) {
+                    due = new ArrayList<TriggerKey>();
+                    dueByGroup.put(group, due);
+                }
+                if (due.size() < maxCountPerGroup) {
+                    due.add(triggerKey(rs.getString(COL_TRIGGER_NAME), group));
+                }
+            }
+
+            return dueByGroup;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Insert a fired trigger.
@@ -2917,6 +3397,26 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    public int deleteFiredTrigger(Connection conn, List<String> entryIds)
+        throws SQLException {
+        if (entryIds.isEmpty()) {
+            return 0;
+        }
+
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(DELETE_FIRED_TRIGGER));
+            for (String entryId : entryIds) {
+                ps.setString(1, entryId);
+                ps.addBatch();
+            }
+
+            return executeBatch(ps);
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     public int selectJobExecutionCount(Connection conn, JobKey jobKey) throws SQLException {
         PreparedStatement ps = null;
         ResultSet rs = null;
@@ -2934,6 +3434,23 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
             closeStatement(ps);
         }
     }
+
+    public int selectJobGroupExecutionCount(Connection conn, String groupName) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_JOB_GROUP_EXECUTION_COUNT));
+            ps.setString(1, groupName);
+
+            rs = ps.executeQuery();
+
+            return (rs.next()) ? rs.getInt(1) : 0;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
     
     public int insertSchedulerState(Connection conn, String theInstanceId,
             long checkInTime, long interval)
@@ -2977,6 +3494,44 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
             closeStatement(ps);
         }
     }
+
+    public int updateSchedulerStateLease(Connection conn, String theInstanceId, long checkInTime,
+        long checkInInterval, long expectedCheckInTime) throws SQLException {
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_SCHEDULER_STATE_LEASE));
+            ps.setLong(1, checkInTime);
+            ps.setLong(2, checkInInterval);
+            ps.setString(3, theInstanceId);
+            ps.setLong(4, expectedCheckInTime);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public int countExpiredSchedulerStates(Connection conn, String theInstanceId,
+        long leaseEndedBefore, long checkInBefore) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(rtp(COUNT_EXPIRED_SCHEDULER_STATES));
+            ps.setString(1, theInstanceId);
+            ps.setLong(2, leaseEndedBefore);
+            ps.setLong(3, checkInBefore);
+            rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+            throw new SQLException("No expired scheduler state count returned.");
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
         
     public List<SchedulerStateRecord> selectSchedulerStateRecords(Connection conn, String theInstanceId)
         throws SQLException {
@@ -3011,6 +3566,186 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     }
 
+    //---------------------------------------------------------------------------
+    // delayed tasks
+    //---------------------------------------------------------------------------
+
+    public int insertDelayedTask(Connection conn, DelayedTask task) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_DELAYED_TASK));
+            ps.setString(1, task.getId());
+            ps.setString(2, task.getJobKey().getName());
+            ps.setString(3, task.getJobKey().getGroup());
+            ps.setBigDecimal(4, new BigDecimal(String.valueOf(task.getFireTimeMillis())));
+            ps.setString(5, task.getPayload());
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public int deleteDelayedTask(Connection conn, String taskId) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(DELETE_DELAYED_TASK));
+            ps.setString(1, taskId);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public void deleteDelayedTasks(Connection conn, List<String> taskIds) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(DELETE_DELAYED_TASK));
+            for (String taskId : taskIds) {
+                ps.setString(1, taskId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public boolean delayedTaskExists(Connection conn, String taskId) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_DELAYED_TASK_EXISTENCE));
+            ps.setString(1, taskId);
+            rs = ps.executeQuery();
+
+            return rs.next();
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    public List<DelayedTask> selectDueDelayedTasks(Connection conn, long noLaterThan, int maxCount)
+        throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_DUE_DELAYED_TASKS));
+            ps.setBigDecimal(1, new BigDecimal(String.valueOf(noLaterThan)));
+            ps.setMaxRows(maxCount);
+            ps.setFetchSize(maxCount);
+            rs = ps.executeQuery();
+
+            List<DelayedTask> tasks = new ArrayList<DelayedTask>();
+            while (rs.next()) {
+                tasks.add(new DelayedTask(rs.getString(COL_TASK_ID),
+                    jobKey(rs.getString(COL_JOB_NAME), rs.getString(COL_JOB_GROUP)),
+                    rs.getLong(COL_FIRE_TIME), rs.getString(COL_PAYLOAD)));
+            }
+            return tasks;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    public long selectNextDelayedTaskFireTime(Connection conn) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_NEXT_DELAYED_TASK_FIRE_TIME));
+            rs = ps.executeQuery();
+
+            if (rs.next()) {
+                long fireTime = rs.getLong(ALIAS_COL_NEXT_FIRE_TIME);
+                if (!rs.wasNull()) {
+                    return fireTime;
+                }
+            }
+            return -1L;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    public int selectNumDelayedTasks(Connection conn) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_NUM_DELAYED_TASKS));
+            rs = ps.executeQuery();
+
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // rate limits
+    //---------------------------------------------------------------------------
+
+    public Long selectRateLimit(Connection conn, String limitType, String limitGroup)
+        throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_RATE_LIMIT));
+            ps.setString(1, limitType);
+            ps.setString(2, limitGroup);
+            rs = ps.executeQuery();
+
+            return rs.next() ? rs.getLong(COL_NEXT_PERMIT_TIME) : null;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    public int updateRateLimit(Connection conn, String limitType, String limitGroup, long nextPermitTime)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_RATE_LIMIT));
+            ps.setBigDecimal(1, new BigDecimal(String.valueOf(nextPermitTime)));
+            ps.setString(2, limitType);
+            ps.setString(3, limitGroup);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public int insertRateLimit(Connection conn, String limitType, String limitGroup, long nextPermitTime)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_RATE_LIMIT));
+            ps.setString(1, limitType);
+            ps.setString(2, limitGroup);
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(nextPermitTime)));
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     //---------------------------------------------------------------------------
     // protected methods that can be overridden by subclasses
     //---------------------------------------------------------------------------
@@ -3077,6 +3812,20 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
             return serializeProperties(data);
         }
 
+        if (jobDataMapCodec != null && data != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try {
+                jobDataMapCodec.encode(data.getWrappedMap(), baos);
+            } catch (NotSerializableException e) {
+                throw new NotSerializableException(
+                    "Unable to serialize JobDataMap for insertion into " + 
+                    "database because the value of property '" + 
+                    getKeyOfNonSerializableValue(data) + 
+                    "' is not serializable: " + e.getMessage());
+            }
+            return baos;
+        }
+
         try {
             return serializeObject(data);
         } catch (NotSerializableException e) {
@@ -3196,12 +3945,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                     && ((ByteArrayInputStream) binaryInput).available() == 0 ) {
                     //do nothing
                 } else {
-                    ObjectInputStream in = new ObjectInputStream(binaryInput);
-                    try {
-                        obj = in.readObject();
-                    } finally {
-                        in.close();
-                    }
+                    obj = deserializeObject(binaryInput);
                 }
             }
 
@@ -3209,6 +3953,45 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         return obj;
     }
 
+    /**
+     * <p>
+     * Read a BLOB value, as written by <code>{@link #serializeObject(Object)}</code>
+     * or by the configured <code>{@link JobDataMapCodec}</code>, and close the
+     * stream.  BLOBs starting with the codec's signature are decoded by the
+     * codec, all others with Java serialization.
+     * </p>
+     * 
+     * @param binaryInput
+     *          the BLOB content
+     * @return the deserialized Object
+     * @throws ClassNotFoundException
+     *           if a class found during deserialization cannot be found
+     * @throws IOException
+     *           if deserialization causes an error
+     */
+    protected Object deserializeObject(InputStream binaryInput)
+        throws ClassNotFoundException, IOException {
+        InputStream in = binaryInput.markSupported() ? binaryInput : new BufferedInputStream(binaryInput);
+        try {
+            byte[] header = new byte[JobDataMapCodec.MAX_SIGNATURE_LENGTH];
+            in.mark(header.length);
+            int len = 0;
+            int n;
+            while (len < header.length && (n = in.read(header, len, header.length - len)) > 0) {
+                len += n;
+            }
+            in.reset();
+
+            if (jobDataMapDecoder != null && jobDataMapDecoder.canDecode(header, len)) {
+                return jobDataMapDecoder.decode(in);
+            }
+
+            return new ObjectInputStream(in).readObject();
+        } finally {
+            in.close();
+        }
+    }
+
     /**
      * <p>
      * This method should be overridden by any delegate subclasses that need
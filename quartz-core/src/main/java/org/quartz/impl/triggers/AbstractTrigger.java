@@ -98,6 +98,8 @@ public abstract class AbstractTrigger<T extends Trigger> implements OperableTrig
 
     private transient TriggerKey key = null;
 
+    private transient JobKey jobKey = null;
+
     /*
     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     *
@@ -279,6 +281,7 @@ public abstract class AbstractTrigger<T extends Trigger> implements OperableTrig
         }
 
         this.jobName = jobName;
+        this.jobKey = null;
     }
 
     /**
@@ -313,11 +316,13 @@ public abstract class AbstractTrigger<T extends Trigger> implements OperableTrig
         }
 
         this.jobGroup = jobGroup;
+        this.jobKey = null;
     }
 
     public void setJobKey(JobKey key) {
         setJobName(key.getName());
         setJobGroup(key.getGroup());
+        this.jobKey = key;
     }
 
 
@@ -342,10 +347,13 @@ public abstract class AbstractTrigger<T extends Trigger> implements OperableTrig
     }
 
     public JobKey getJobKey() {
-        if(getJobName() == null)
-            return null;
+        if(jobKey == null) {
+            if(getJobName() == null)
+                return null;
+            jobKey = new JobKey(getJobName(), getJobGroup());
+        }
 
-        return new JobKey(getJobName(), getJobGroup());
+        return jobKey;
     }
 
     /**
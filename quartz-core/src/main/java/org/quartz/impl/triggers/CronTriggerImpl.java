@@ -83,6 +83,7 @@ public class CronTriggerImpl extends AbstractTrigger<CronTrigger> implements Cro
     private Date nextFireTime = null;
     private Date previousFireTime = null;
     private transient TimeZone timeZone = null;
+    private long spreadWindow = 0;
 
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -540,7 +541,11 @@ public class CronTriggerImpl extends AbstractTrigger<CronTrigger> implements Cro
             return null;
         }
         
-        Date pot = getTimeAfter(afterTime);
+        long spreadOffset = getSpreadOffset();
+        Date pot = getTimeAfter(new Date(afterTime.getTime() - spreadOffset));
+        if (pot != null && spreadOffset != 0) {
+            pot = new Date(pot.getTime() + spreadOffset);
+        }
         if (getEndTime() != null && pot != null && pot.after(getEndTime())) {
             return null;
         }
@@ -562,11 +567,15 @@ public class CronTriggerImpl extends AbstractTrigger<CronTrigger> implements Cro
     @Override
     public Date getFinalFireTime() {
         Date resultTime;
+        long spreadOffset = getSpreadOffset();
         if (getEndTime() != null) {
-            resultTime = getTimeBefore(new Date(getEndTime().getTime() + 1000l));
+            resultTime = getTimeBefore(new Date(getEndTime().getTime() - spreadOffset + 1000l));
         } else {
             resultTime = (cronEx == null) ? null : cronEx.getFinalFireTime();
         }
+        if (resultTime != null && spreadOffset != 0) {
+            resultTime = new Date(resultTime.getTime() + spreadOffset);
+        }
         
         if ((resultTime != null) && (getStartTime() != null) && (resultTime.before(getStartTime()))) {
             return null;
@@ -798,6 +807,39 @@ public class CronTriggerImpl extends AbstractTrigger<CronTrigger> implements Cro
         return cronEx == null ? null : cronEx.getExpressionSummary();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long getSpreadWindow() {
+        return spreadWindow;
+    }
+
+    /**
+     * <p>
+     * Set the window, in milliseconds, over which the fire times of this
+     * trigger are spread, 0 for them not to be.
+     * </p>
+     * 
+     * @exception IllegalArgumentException
+     *              if the window is negative.
+     * @see CronScheduleBuilder#withSpreadInMilliseconds(long)
+     */
+    public void setSpreadWindow(long spreadWindow) {
+        if (spreadWindow < 0) {
+            throw new IllegalArgumentException("Spread window must not be negative.");
+        }
+        this.spreadWindow = spreadWindow;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getSpreadOffset() {
+        // cron fire times fall on whole seconds, and so stay there
+        long spreadOffset = TriggerUtils.getSpreadOffset(this);
+        return spreadOffset - spreadOffset % 1000L;
+    }
+
     /**
      * Used by extensions of CronTrigger to imply that there are additional 
      * properties, specifically so that extensions can choose whether to be 
@@ -817,6 +859,9 @@ public class CronTriggerImpl extends AbstractTrigger<CronTrigger> implements Cro
         
         CronScheduleBuilder cb = CronScheduleBuilder.cronSchedule(getCronExpression())
                 .inTimeZone(getTimeZone());
+        if (getSpreadWindow() > 0) {
+            cb.withSpreadInMilliseconds(getSpreadWindow());
+        }
 
         int misfireInstruction = getMisfireInstruction();
         switch(misfireInstruction) {
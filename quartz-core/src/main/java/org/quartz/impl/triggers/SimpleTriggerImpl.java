@@ -66,6 +66,7 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
     private static final long serialVersionUID = -3735980074222850397L;
 
     private static final int YEAR_TO_GIVEUP_SCHEDULING_AT = java.util.Calendar.getInstance().get(java.util.Calendar.YEAR) + 100;
+
     
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -91,6 +92,22 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
 
     private boolean complete = false;
 
+    private long spreadWindow = 0;
+
+    // the fires the last fire stood for, if it was a coalesced one
+    private int missedFireCount = 0;
+
+    private Date firstMissedFireTime = null;
+
+    private Date lastMissedFireTime = null;
+
+    // the fires a coalescing misfire collapsed into the next fire
+    private int pendingMissedFireCount = 0;
+
+    private Date pendingFirstMissedFireTime = null;
+
+    private Date pendingLastMissedFireTime = null;
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -415,6 +432,132 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
         return timesTriggered;
     }
 
+    /**
+     * <p>
+     * Get the number of scheduled fire times the last fire of the
+     * <code>SimpleTrigger</code> stood for, if it was coalesced by
+     * <code>MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES</code>, or else 0.
+     * </p>
+     */
+    public int getMissedFireCount() {
+        return missedFireCount;
+    }
+
+    /**
+     * <p>
+     * Get the first of the scheduled fire times the last fire stood for, if
+     * it was a coalesced one, or else null.
+     * </p>
+     */
+    public Date getFirstMissedFireTime() {
+        return firstMissedFireTime;
+    }
+
+    /**
+     * <p>
+     * Get the last of the scheduled fire times the last fire stood for, if it
+     * was a coalesced one, or else null.
+     * </p>
+     */
+    public Date getLastMissedFireTime() {
+        return lastMissedFireTime;
+    }
+
+    /**
+     * <p>
+     * Get the number of scheduled fire times that coalescing misfires have
+     * collapsed into the next fire of the <code>SimpleTrigger</code>, or 0
+     * if there are none.
+     * </p>
+     */
+    public int getPendingMissedFireCount() {
+        return pendingMissedFireCount;
+    }
+
+    /**
+     * <p>
+     * Set the number of scheduled fire times collapsed into the next fire.
+     * This is used by job stores that restore the trigger from its
+     * persisted properties.
+     * </p>
+     */
+    public void setPendingMissedFireCount(int pendingMissedFireCount) {
+        this.pendingMissedFireCount = pendingMissedFireCount;
+    }
+
+    /**
+     * <p>
+     * Get the first of the scheduled fire times collapsed into the next fire,
+     * or null if there are none.
+     * </p>
+     */
+    public Date getPendingFirstMissedFireTime() {
+        return pendingFirstMissedFireTime;
+    }
+
+    /**
+     * <p>
+     * Set the first of the scheduled fire times collapsed into the next fire.
+     * </p>
+     * 
+     * @see #setPendingMissedFireCount(int)
+     */
+    public void setPendingFirstMissedFireTime(Date pendingFirstMissedFireTime) {
+        this.pendingFirstMissedFireTime = pendingFirstMissedFireTime;
+    }
+
+    /**
+     * <p>
+     * Get the last of the scheduled fire times collapsed into the next fire,
+     * or null if there are none.
+     * </p>
+     */
+    public Date getPendingLastMissedFireTime() {
+        return pendingLastMissedFireTime;
+    }
+
+    /**
+     * <p>
+     * Set the last of the scheduled fire times collapsed into the next fire.
+     * </p>
+     * 
+     * @see #setPendingMissedFireCount(int)
+     */
+    public void setPendingLastMissedFireTime(Date pendingLastMissedFireTime) {
+        this.pendingLastMissedFireTime = pendingLastMissedFireTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getSpreadWindow() {
+        return spreadWindow;
+    }
+
+    /**
+     * <p>
+     * Set the window, in milliseconds, over which the fire times of the
+     * <code>SimpleTrigger</code> are spread, 0 for them not to be.
+     * </p>
+     * 
+     * @exception IllegalArgumentException
+     *              if the window is negative.
+     * @see SimpleScheduleBuilder#withSpreadInMilliseconds(long)
+     */
+    public void setSpreadWindow(long spreadWindow) {
+        if (spreadWindow < 0) {
+            throw new IllegalArgumentException("Spread window must not be negative.");
+        }
+        this.spreadWindow = spreadWindow;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getSpreadOffset() {
+        return TriggerUtils.getSpreadOffset(this);
+    }
+
     /**
      * <p>
      * Set the number of times the <code>SimpleTrigger</code> has already
@@ -431,7 +574,7 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
             return false;
         }
 
-        if (misfireInstruction > MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT) {
+        if (misfireInstruction > MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES) {
             return false;
         }
 
@@ -485,6 +628,42 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
 
         if (instr == MISFIRE_INSTRUCTION_FIRE_NOW) {
             setNextFireTime(new Date());
+        } else if (instr == MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES) {
+            Date now = new Date();
+            int missed;
+            long firstMissed;
+            long lastMissed;
+            Date from;
+            if (pendingMissedFireCount > 0) {
+                // misfired again before the coalesced fire
+                missed = pendingMissedFireCount;
+                firstMissed = pendingFirstMissedFireTime.getTime();
+                lastMissed = pendingLastMissedFireTime.getTime();
+                from = repeatInterval < 1 ? null : new Date(lastMissed + repeatInterval);
+            } else {
+                missed = 0;
+                firstMissed = getNextFireTime().getTime();
+                lastMissed = firstMissed;
+                from = getNextFireTime();
+            }
+
+            Date until = getEndTime() != null && getEndTime().before(now) ? getEndTime() : now;
+            if (from != null && !from.after(until)) {
+                long due = repeatInterval < 1 ? 1 : (until.getTime() - from.getTime()) / repeatInterval + 1;
+                if (repeatCount != REPEAT_INDEFINITELY) {
+                    due = Math.min(due, repeatCount - getTimesTriggered() + 1 - missed);
+                }
+                due = Math.min(due, Integer.MAX_VALUE - missed);
+                if (due > 0) {
+                    missed += (int) due;
+                    lastMissed = from.getTime() + (due - 1) * repeatInterval;
+                }
+            }
+
+            pendingMissedFireCount = missed;
+            pendingFirstMissedFireTime = new Date(firstMissed);
+            pendingLastMissedFireTime = new Date(lastMissed);
+            setNextFireTime(now);
         } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT) {
             Date newFireTime = getFireTimeAfter(new Date());
             while (newFireTime != null && cal != null
@@ -532,11 +711,13 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
                 setTimesTriggered(0);
             }
             
-            if (getEndTime() != null && getEndTime().before(newFireTime)) {
+            // 'now' is moved on by the spread offset, as the start time is
+            Date spreadFireTime = new Date(newFireTime.getTime() + getSpreadOffset());
+            if (getEndTime() != null && getEndTime().before(spreadFireTime)) {
                 setNextFireTime(null); // We are past the end time
             } else {
                 setStartTime(newFireTime);
-                setNextFireTime(newFireTime);
+                setNextFireTime(spreadFireTime);
             } 
         } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT) {
             Date newFireTime = new Date();
@@ -554,11 +735,13 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
                 setTimesTriggered(0);
             }
 
-            if (getEndTime() != null && getEndTime().before(newFireTime)) {
+            // 'now' is moved on by the spread offset, as the start time is
+            Date spreadFireTime = new Date(newFireTime.getTime() + getSpreadOffset());
+            if (getEndTime() != null && getEndTime().before(spreadFireTime)) {
                 setNextFireTime(null); // We are past the end time
             } else {
                 setStartTime(newFireTime);
-                setNextFireTime(newFireTime);
+                setNextFireTime(spreadFireTime);
             } 
         }
 
@@ -576,6 +759,15 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
      */
     @Override
     public void triggered(Calendar calendar) {
+        missedFireCount = pendingMissedFireCount;
+        firstMissedFireTime = pendingFirstMissedFireTime;
+        lastMissedFireTime = pendingLastMissedFireTime;
+        pendingMissedFireCount = 0;
+        pendingFirstMissedFireTime = null;
+        pendingLastMissedFireTime = null;
+        // a coalesced fire stands for all the missed ones
+        timesTriggered += Math.max(missedFireCount - 1, 0);
+
         timesTriggered++;
         previousFireTime = nextFireTime;
         nextFireTime = getFireTimeAfter(nextFireTime);
@@ -652,7 +844,7 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
      */
     @Override
     public Date computeFirstFireTime(Calendar calendar) {
-        nextFireTime = getStartTime();
+        nextFireTime = (getStartTime() == null) ? null : new Date(getSpreadStartMillis());
 
         while (nextFireTime != null && calendar != null
                 && !calendar.isTimeIncluded(nextFireTime.getTime())) {
@@ -752,11 +944,12 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
             afterTime = new Date();
         }
 
-        if (repeatCount == 0 && afterTime.compareTo(getStartTime()) >= 0) {
+        long startMillis = getSpreadStartMillis();
+
+        if (repeatCount == 0 && afterTime.getTime() >= startMillis) {
             return null;
         }
 
-        long startMillis = getStartTime().getTime();
         long afterMillis = afterTime.getTime();
         long endMillis = (getEndTime() == null) ? Long.MAX_VALUE : getEndTime()
                 .getTime();
@@ -793,13 +986,19 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
      * </p>
      */
     public Date getFireTimeBefore(Date end) {
-        if (end.getTime() < getStartTime().getTime()) {
+        Date spreadStart = new Date(getSpreadStartMillis());
+        if (end.before(spreadStart)) {
             return null;
         }
 
-        int numFires = computeNumTimesFiredBetween(getStartTime(), end);
+        int numFires = computeNumTimesFiredBetween(spreadStart, end);
+
+        return new Date(spreadStart.getTime() + (numFires * repeatInterval));
+    }
 
-        return new Date(getStartTime().getTime() + (numFires * repeatInterval));
+    // the first fire time, which the spread offset moves on from the start time
+    private long getSpreadStartMillis() {
+        return getStartTime().getTime() + getSpreadOffset();
     }
 
     public int computeNumTimesFiredBetween(Date start, Date end) {
@@ -826,14 +1025,14 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
     @Override
     public Date getFinalFireTime() {
         if (repeatCount == 0) {
-            return startTime;
+            return (startTime == null) ? null : new Date(getSpreadStartMillis());
         }
 
         if (repeatCount == REPEAT_INDEFINITELY) {
             return (getEndTime() == null) ? null : getFireTimeBefore(getEndTime()); 
         }
 
-        long lastTrigger = startTime.getTime() + (repeatCount * repeatInterval);
+        long lastTrigger = getSpreadStartMillis() + (repeatCount * repeatInterval);
 
         if ((getEndTime() == null) || (lastTrigger < getEndTime().getTime())) { 
             return new Date(lastTrigger);
@@ -892,6 +1091,9 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
         SimpleScheduleBuilder sb = SimpleScheduleBuilder.simpleSchedule()
         .withIntervalInMilliseconds(getRepeatInterval())
         .withRepeatCount(getRepeatCount());
+        if (getSpreadWindow() > 0) {
+            sb.withSpreadInMilliseconds(getSpreadWindow());
+        }
         
         switch(getMisfireInstruction()) {
             case MISFIRE_INSTRUCTION_FIRE_NOW : sb.withMisfireHandlingInstructionFireNow();
@@ -904,6 +1106,8 @@ public class SimpleTriggerImpl extends AbstractTrigger<SimpleTrigger> implements
             break;
             case MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT : sb.withMisfireHandlingInstructionNowWithRemainingCount();
             break;
+            case MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES : sb.withMisfireHandlingInstructionCoalesceMissedFires();
+            break;
         }
         
         return sb;
@@ -0,0 +1,116 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.quartz.DelayedTask;
+
+/**
+ * <p>
+ * The delayed tasks of a <code>RAMJobStore</code>: a map from task id to
+ * task, and a queue of the tasks by fire time.
+ * </p>
+ *
+ * <p>
+ * Removing a task only takes it out of the map; the queue entry is skipped
+ * when it reaches the head, or dropped when stale entries outnumber live
+ * ones and the queue is rebuilt. The queue is not thread-safe; callers hold
+ * their store's lock.
+ * </p>
+ */
+class DelayedTaskQueue {
+
+    private static final int MIN_STALE_TO_PURGE = 1024;
+
+    private static final Comparator<DelayedTask> FIRE_TIME_ORDER = new Comparator<DelayedTask>() {
+        public int compare(DelayedTask t1, DelayedTask t2) {
+            if (t1.getFireTimeMillis() != t2.getFireTimeMillis()) {
+                return t1.getFireTimeMillis() < t2.getFireTimeMillis() ? -1 : 1;
+            }
+            return t1.getId().compareTo(t2.getId());
+        }
+    };
+
+    private final HashMap<String, DelayedTask> tasksById = new HashMap<String, DelayedTask>();
+
+    private PriorityQueue<DelayedTask> queue = new PriorityQueue<DelayedTask>(64, FIRE_TIME_ORDER);
+
+    private int stale = 0;
+
+    boolean contains(String taskId) {
+        return tasksById.containsKey(taskId);
+    }
+
+    void add(DelayedTask task) {
+        if (tasksById.put(task.getId(), task) != null) {
+            stale++;
+        }
+        queue.add(task);
+    }
+
+    boolean remove(String taskId) {
+        if (tasksById.remove(taskId) == null) {
+            return false;
+        }
+        if (++stale >= MIN_STALE_TO_PURGE && stale > tasksById.size()) {
+            PriorityQueue<DelayedTask> live = new PriorityQueue<DelayedTask>(Math.max(64, tasksById.size()), FIRE_TIME_ORDER);
+            live.addAll(tasksById.values());
+            queue = live;
+            stale = 0;
+        }
+        return true;
+    }
+
+    List<DelayedTask> removeDue(long noLaterThan, int maxCount) {
+        List<DelayedTask> due = new ArrayList<DelayedTask>();
+        DelayedTask head;
+        while (due.size() < maxCount && (head = peekLive()) != null && head.getFireTimeMillis() <= noLaterThan) {
+            queue.poll();
+            tasksById.remove(head.getId());
+            due.add(head);
+        }
+        return due;
+    }
+
+    long nextFireTime() {
+        DelayedTask head = peekLive();
+        return head == null ? -1L : head.getFireTimeMillis();
+    }
+
+    int size() {
+        return tasksById.size();
+    }
+
+    void clear() {
+        tasksById.clear();
+        queue.clear();
+        stale = 0;
+    }
+
+    private DelayedTask peekLive() {
+        DelayedTask head;
+        while ((head = queue.peek()) != null && tasksById.get(head.getId()) != head) {
+            queue.poll();
+            stale--;
+        }
+        return head;
+    }
+}
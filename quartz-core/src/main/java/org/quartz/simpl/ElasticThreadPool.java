@@ -0,0 +1,287 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.simpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ResizableThreadPool;
+
+/**
+ * <p>
+ * An implementation of the <code>{@link org.quartz.spi.ThreadPool}</code>
+ * interface whose number of threads follows the load.
+ * </p>
+ *
+ * <p>
+ * The pool starts <code>coreThreadCount</code> threads when initialized, and
+ * starts another, up to <code>threadCount</code>, whenever a
+ * <code>Runnable</code> arrives while every thread is busy. A thread beyond
+ * the core count that has been idle for <code>keepAliveTime</code>
+ * milliseconds stops.
+ * </p>
+ *
+ * <p>
+ * Threads that have not been started yet count as available, so
+ * <code>{@link #blockForAvailableThreads()}</code> only blocks once
+ * <code>threadCount</code> threads are busy, and the
+ * <code>QuartzSchedulerThread</code> sizes its trigger batches to what the
+ * pool can run. Work is handed to idle threads the same way
+ * <code>{@link LockFreeThreadPool}</code> does it.
+ * </p>
+ *
+ * @see LockFreeThreadPool
+ * @see SimpleThreadPool
+ */
+public class ElasticThreadPool extends HandOffThreadPoolSupport implements ResizableThreadPool {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public static final int DEFAULT_CORE_THREAD_COUNT = 1;
+
+    public static final long DEFAULT_KEEP_ALIVE_TIME = 60L * 1000L;
+
+    private int coreCount = DEFAULT_CORE_THREAD_COUNT;
+
+    private long keepAliveTime = DEFAULT_KEEP_ALIVE_TIME;
+
+    private final AtomicInteger currentSize = new AtomicInteger();
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new (unconfigured) <code>ElasticThreadPool</code>.
+     * </p>
+     *
+     * @see #setThreadCount(int)
+     * @see #setCoreThreadCount(int)
+     * @see #setKeepAliveTime(long)
+     */
+    public ElasticThreadPool() {
+    }
+
+    /**
+     * <p>
+     * Create a new <code>ElasticThreadPool</code> that keeps between
+     * <code>coreThreadCount</code> and <code>threadCount</code>
+     * <code>Thread</code> s of the given priority.
+     * </p>
+     *
+     * @param coreThreadCount
+     *          the number of worker <code>Threads</code> that are never
+     *          stopped for being idle, must be >= 0.
+     * @param threadCount
+     *          the most worker <code>Threads</code> in the pool, must be > 0.
+     * @param threadPriority
+     *          the thread priority for the worker threads.
+     */
+    public ElasticThreadPool(int coreThreadCount, int threadCount, int threadPriority) {
+        setCoreThreadCount(coreThreadCount);
+        setThreadCount(threadCount);
+        setThreadPriority(threadPriority);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public int getCurrentPoolSize() {
+        return currentSize.get();
+    }
+
+    /**
+     * <p>
+     * Set the number of worker threads that are started by
+     * <code>initialize()</code> and never stopped for being idle - has no
+     * effect after <code>initialize()</code> has been called.
+     * </p>
+     */
+    public void setCoreThreadCount(int coreCount) {
+        this.coreCount = coreCount;
+    }
+
+    public int getCoreThreadCount() {
+        return coreCount;
+    }
+
+    /**
+     * <p>
+     * Set how many milliseconds a worker thread beyond the core count may
+     * stay idle before it stops - has no effect after
+     * <code>initialize()</code> has been called.
+     * </p>
+     */
+    public void setKeepAliveTime(long keepAliveTime) {
+        this.keepAliveTime = keepAliveTime;
+    }
+
+    public long getKeepAliveTime() {
+        return keepAliveTime;
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>Runnable</code>s the pool could start right
+     * now: its idle threads, plus the threads it may still start.
+     * </p>
+     */
+    @Override
+    public int getAvailableThreadCount() {
+        if (isShutdown) {
+            return 0;
+        }
+        return availableWorkers.availablePermits() + Math.max(getThreadCount() - currentSize.get(), 0);
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        if (isShutdown) {
+            return 0;
+        }
+        if (currentSize.get() >= getThreadCount()) {
+            availableWorkers.acquireUninterruptibly();
+            availableWorkers.release();
+        }
+        return getAvailableThreadCount();
+    }
+
+    @Override
+    void validate() throws SchedulerConfigException {
+        if (coreCount < 0 || coreCount > getThreadCount()) {
+            throw new SchedulerConfigException(
+                    "Core thread count must be >= 0 and <= thread count");
+        }
+        if (keepAliveTime <= 0) {
+            throw new SchedulerConfigException(
+                    "Keep alive time must be > 0");
+        }
+    }
+
+    @Override
+    void startWorkers() {
+        for (int i = 0; i < coreCount; ++i) {
+            addWorker();
+        }
+    }
+
+    /**
+     * <p>
+     * Take a permit for an idle worker, starting a new one if every thread
+     * is busy and the pool is not full.
+     * </p>
+     */
+    @Override
+    void acquireWorker() {
+        while (!availableWorkers.tryAcquire()) {
+            if (!addWorker()) {
+                availableWorkers.acquireUninterruptibly();
+                break;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Park the given idle worker for what is left of its keep-alive time,
+     * and once that has passed, offer to retire it.
+     * </p>
+     */
+    @Override
+    boolean awaitWork(WorkerThread wt) {
+        long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveTime);
+        long idleFor = System.nanoTime() - wt.idleSince;
+        if (idleFor >= keepAliveNanos) {
+            if (retire(wt)) {
+                return true;
+            }
+            wt.idleSince = System.nanoTime();
+            return false;
+        }
+        LockSupport.parkNanos(wt, keepAliveNanos - idleFor);
+        return false;
+    }
+
+    /**
+     * <p>
+     * Start a new worker and place it on the idle stack, unless the pool is
+     * full or shut down.
+     * </p>
+     */
+    private synchronized boolean addWorker() {
+        if (isShutdown) {
+            return false;
+        }
+        int size = currentSize.get();
+        if (size >= getThreadCount()) {
+            return false;
+        }
+        currentSize.set(size + 1);
+        startWorker();
+        return true;
+    }
+
+    /**
+     * <p>
+     * Take the given idle worker off the stack for good, if the pool holds
+     * more than its core threads and nobody is waiting for a worker.
+     * </p>
+     */
+    private boolean retire(WorkerThread wt) {
+        if (currentSize.get() <= coreCount || !availableWorkers.tryAcquire()) {
+            return false;
+        }
+        if (availableWorkers.hasQueuedThreads() || !idleWorkers.removeFirstOccurrence(wt)) {
+            // wanted, or handed work since it last looked
+            availableWorkers.release();
+            return false;
+        }
+
+        while (true) {
+            int size = currentSize.get();
+            if (size <= coreCount) {
+                // another worker retired first
+                makeAvailable(wt);
+                return false;
+            }
+            if (currentSize.compareAndSet(size, size - 1)) {
+                break;
+            }
+        }
+        workers.remove(wt);
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.quartz.impl.matchers.StringMatcher.StringOperatorName;
+
+/**
+ * <p>
+ * A sorted index of group names, used by the in-memory job stores to
+ * evaluate <code>{@link org.quartz.impl.matchers.GroupMatcher}</code>s
+ * without testing every group.
+ * </p>
+ *
+ * <p>
+ * <code>STARTS_WITH</code> is answered from a range of the sorted names,
+ * and <code>ENDS_WITH</code> from a range of the same names reversed.
+ * <code>CONTAINS</code> and <code>ANYTHING</code> still visit every name.
+ * The index is not thread-safe; callers hold their store's lock.
+ * </p>
+ */
+class GroupIndex {
+
+    private final TreeSet<String> names = new TreeSet<String>();
+
+    private final TreeSet<String> reversedNames = new TreeSet<String>();
+
+    void add(String group) {
+        if (names.add(group)) {
+            reversedNames.add(reverse(group));
+        }
+    }
+
+    void remove(String group) {
+        if (names.remove(group)) {
+            reversedNames.remove(reverse(group));
+        }
+    }
+
+    void clear() {
+        names.clear();
+        reversedNames.clear();
+    }
+
+    /**
+     * @return the indexed groups for which <code>operator</code> evaluates to
+     *         true against <code>compareTo</code>, in a new list.
+     */
+    List<String> matching(StringOperatorName operator, String compareTo) {
+        switch (operator) {
+            case EQUALS:
+                return names.contains(compareTo)
+                    ? Collections.singletonList(compareTo) : Collections.<String>emptyList();
+            case STARTS_WITH:
+                return new ArrayList<String>(startingWith(names, compareTo));
+            case ENDS_WITH:
+                List<String> reversed = startingWith(reversedNames, reverse(compareTo));
+                List<String> groups = new ArrayList<String>(reversed.size());
+                for (String name : reversed) {
+                    groups.add(reverse(name));
+                }
+                return groups;
+            case ANYTHING:
+                return new ArrayList<String>(names);
+            default:
+                List<String> matches = new ArrayList<String>();
+                for (String name : names) {
+                    if (operator.evaluate(name, compareTo)) {
+                        matches.add(name);
+                    }
+                }
+                return matches;
+        }
+    }
+
+    private static List<String> startingWith(TreeSet<String> set, String prefix) {
+        List<String> matches = new ArrayList<String>();
+        for (String name : set.tailSet(prefix, true)) {
+            if (!name.startsWith(prefix)) {
+                break;
+            }
+            matches.add(name);
+        }
+        return matches;
+    }
+
+    private static String reverse(String s) {
+        return new StringBuilder(s).reverse().toString();
+    }
+}
@@ -0,0 +1,528 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * The common base of the <code>{@link org.quartz.spi.ThreadPool}</code>s that
+ * hand work to their threads without a shared lock: idle workers are kept on
+ * a concurrent stack and counted with a semaphore, a <code>Runnable</code> is
+ * placed in a worker's own slot and the worker is unparked, and a worker that
+ * finishes returns to the stack and releases a permit. The most recently idle
+ * worker is reused first.
+ * </p>
+ *
+ * <p>
+ * Subclasses decide how many workers are started, and when, and what an idle
+ * worker does while it waits.
+ * </p>
+ *
+ * @see LockFreeThreadPool
+ * @see ElasticThreadPool
+ */
+public abstract class HandOffThreadPoolSupport implements ThreadPool {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    // placed in a worker's slot once the worker has stopped taking work
+    private static final Runnable STOPPED = new Runnable() {
+        public void run() {
+        }
+    };
+
+    // enough permits to let every blocked caller through on shutdown
+    private static final int SHUTDOWN_PERMITS = Integer.MAX_VALUE / 2;
+
+    private int count = -1;
+
+    private int prio = Thread.NORM_PRIORITY;
+
+    volatile boolean isShutdown = false;
+
+    private boolean initialized = false;
+
+    private boolean inheritLoader = false;
+
+    private boolean inheritGroup = true;
+
+    private boolean makeThreadsDaemons = false;
+
+    private ThreadGroup threadGroup;
+
+    private ClassLoader initializingLoader;
+
+    private String threadPrefix;
+
+    final Set<WorkerThread> workers = Collections.newSetFromMap(new ConcurrentHashMap<WorkerThread, Boolean>());
+
+    private final AtomicInteger busyCount = new AtomicInteger();
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    final ConcurrentLinkedDeque<WorkerThread> idleWorkers = new ConcurrentLinkedDeque<WorkerThread>();
+
+    // one permit per worker on the idle stack
+    final Semaphore availableWorkers = new Semaphore(0);
+
+    private final List<Thread> lastJobThreads = new CopyOnWriteArrayList<Thread>();
+
+    private String threadNamePrefix;
+
+    private String schedulerInstanceName;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public int getPoolSize() {
+        return getThreadCount();
+    }
+
+    /**
+     * <p>
+     * Get the number of worker threads that are running a
+     * <code>Runnable</code>.
+     * </p>
+     */
+    public int getBusyThreadCount() {
+        return busyCount.get();
+    }
+
+    /**
+     * <p>
+     * Set the number of worker threads in the pool - has no effect after
+     * <code>initialize()</code> has been called.
+     * </p>
+     */
+    public void setThreadCount(int count) {
+        this.count = count;
+    }
+
+    public int getThreadCount() {
+        return count;
+    }
+
+    /**
+     * <p>
+     * Set the thread priority of worker threads in the pool - has no effect
+     * after <code>initialize()</code> has been called.
+     * </p>
+     */
+    public void setThreadPriority(int prio) {
+        this.prio = prio;
+    }
+
+    public int getThreadPriority() {
+        return prio;
+    }
+
+    public void setThreadNamePrefix(String prfx) {
+        this.threadNamePrefix = prfx;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+        return inheritLoader;
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(
+            boolean inheritLoader) {
+        this.inheritLoader = inheritLoader;
+    }
+
+    public boolean isThreadsInheritGroupOfInitializingThread() {
+        return inheritGroup;
+    }
+
+    public void setThreadsInheritGroupOfInitializingThread(
+            boolean inheritGroup) {
+        this.inheritGroup = inheritGroup;
+    }
+
+    public boolean isMakeThreadsDaemons() {
+        return makeThreadsDaemons;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public void setInstanceId(String schedInstId) {
+    }
+
+    public void setInstanceName(String schedName) {
+        schedulerInstanceName = schedName;
+    }
+
+    /**
+     * <p>
+     * Get the number of worker threads that are idle.
+     * </p>
+     */
+    public int getAvailableThreadCount() {
+        return isShutdown ? 0 : availableWorkers.availablePermits();
+    }
+
+    public synchronized void initialize() throws SchedulerConfigException {
+
+        if (initialized) // already initialized...
+            return;
+
+        if (count <= 0) {
+            throw new SchedulerConfigException(
+                    "Thread count must be > 0");
+        }
+        validate();
+        if (prio <= 0 || prio > 9) {
+            throw new SchedulerConfigException(
+                    "Thread priority must be > 0 and <= 9");
+        }
+
+        if (isThreadsInheritGroupOfInitializingThread()) {
+            threadGroup = Thread.currentThread().getThreadGroup();
+        } else {
+            // follow the threadGroup tree to the root thread group.
+            threadGroup = Thread.currentThread().getThreadGroup();
+            ThreadGroup parent = threadGroup;
+            while (!parent.getName().equals("main")) {
+                threadGroup = parent;
+                parent = threadGroup.getParent();
+            }
+            threadGroup = new ThreadGroup(parent, schedulerInstanceName + "-" + getClass().getSimpleName());
+            if (isMakeThreadsDaemons()) {
+                threadGroup.setDaemon(true);
+            }
+        }
+
+        if (isThreadsInheritContextClassLoaderOfInitializingThread()) {
+            getLog().info(
+                    "Job execution threads will use class loader of thread: "
+                            + Thread.currentThread().getName());
+            initializingLoader = Thread.currentThread().getContextClassLoader();
+        }
+
+        threadPrefix = getThreadNamePrefix();
+        if (threadPrefix == null) {
+            threadPrefix = schedulerInstanceName + "_Worker";
+        }
+
+        initialized = true;
+        startWorkers();
+    }
+
+    /**
+     * <p>
+     * Terminate the worker threads. Jobs currently in progress will complete.
+     * </p>
+     */
+    public synchronized void shutdown(boolean waitForJobsToComplete) {
+        getLog().debug("Shutting down threadpool...");
+
+        boolean wasShutdown = isShutdown;
+        isShutdown = true;
+
+        if (!initialized) // case where the pool wasn't even initialize()ed
+            return;
+
+        if (!wasShutdown) {
+            for (WorkerThread wt : workers) {
+                wt.shutdown();
+            }
+            // let callers blocked waiting for a worker see the shutdown
+            availableWorkers.release(SHUTDOWN_PERMITS);
+        }
+
+        if (waitForJobsToComplete) {
+            boolean interrupted = false;
+            try {
+                List<Thread> threads = new ArrayList<Thread>(workers);
+                threads.addAll(lastJobThreads);
+                for (Thread t : threads) {
+                    while (true) {
+                        try {
+                            t.join();
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            getLog().debug("No executing jobs remaining, all threads stopped.");
+        }
+        getLog().debug("Shutdown of threadpool complete.");
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code> object in the next available
+     * <code>Thread</code>. If while waiting the thread pool is asked to
+     * shut down, the Runnable is executed immediately within a new additional
+     * thread.
+     * </p>
+     *
+     * @param runnable
+     *          the <code>Runnable</code> to be added.
+     */
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+
+        acquireWorker();
+
+        if (!isShutdown) {
+            // a permit is only released once its worker is on the stack
+            WorkerThread wt = idleWorkers.pop();
+            if (wt.handOff(runnable)) {
+                return true;
+            }
+        }
+
+        // If the thread pool is going down, execute the Runnable
+        // within a new additional worker thread (no thread from the pool).
+        Thread lastJob = new Thread(threadGroup, runnable, "WorkerThread-LastJob");
+        lastJob.setPriority(prio);
+        lastJob.setDaemon(isMakeThreadsDaemons());
+        lastJobThreads.add(lastJob);
+        lastJob.start();
+        return true;
+    }
+
+    public int blockForAvailableThreads() {
+        if (isShutdown) {
+            return 0;
+        }
+        availableWorkers.acquireUninterruptibly();
+        availableWorkers.release();
+        return getAvailableThreadCount();
+    }
+
+    /**
+     * <p>
+     * Check the configuration of the subclass, between the checks of the
+     * thread count and of the thread priority.
+     * </p>
+     */
+    void validate() throws SchedulerConfigException {
+    }
+
+    /**
+     * <p>
+     * Start the workers the pool holds once initialized.
+     * </p>
+     */
+    abstract void startWorkers();
+
+    /**
+     * <p>
+     * Take a permit for an idle worker, blocking until one is on the stack.
+     * </p>
+     */
+    void acquireWorker() {
+        availableWorkers.acquireUninterruptibly();
+    }
+
+    /**
+     * <p>
+     * Park the given idle worker until it is handed work or shut down.
+     * </p>
+     *
+     * @return true if the worker has been taken off the idle stack for good
+     *         and should stop.
+     */
+    boolean awaitWork(WorkerThread wt) {
+        LockSupport.park(wt);
+        return false;
+    }
+
+    /**
+     * <p>
+     * Start a new worker and place it on the idle stack.
+     * </p>
+     */
+    void startWorker() {
+        WorkerThread wt = new WorkerThread(threadPrefix + "-" + threadNumber.incrementAndGet());
+        if (initializingLoader != null) {
+            wt.setContextClassLoader(initializingLoader);
+        }
+        workers.add(wt);
+        wt.start();
+        makeAvailable(wt);
+    }
+
+    void makeAvailable(WorkerThread wt) {
+        if (!isShutdown) {
+            idleWorkers.push(wt);
+            availableWorkers.release();
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * WorkerThread Class.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * A Worker parks until a <code>Runnable</code> is placed in its slot,
+     * runs it, and returns itself to the pool's idle stack.
+     * </p>
+     */
+    class WorkerThread extends Thread {
+
+        private final AtomicReference<Runnable> slot = new AtomicReference<Runnable>();
+
+        private volatile boolean run = true;
+
+        // System.nanoTime() at which the worker last became idle
+        long idleSince = System.nanoTime();
+
+        WorkerThread(String name) {
+            super(threadGroup, name);
+            setPriority(prio);
+            setDaemon(isMakeThreadsDaemons());
+        }
+
+        /**
+         * <p>
+         * Signal the thread that it should terminate once its slot is empty.
+         * </p>
+         */
+        void shutdown() {
+            run = false;
+            LockSupport.unpark(this);
+        }
+
+        /**
+         * <p>
+         * Place the given <code>Runnable</code> in this worker's slot and wake
+         * it.
+         * </p>
+         *
+         * @return false if the worker has already stopped.
+         */
+        boolean handOff(Runnable newRunnable) {
+            if (!slot.compareAndSet(null, newRunnable)) {
+                if (slot.get() == STOPPED) {
+                    return false;
+                }
+                throw new IllegalStateException("Already running a Runnable!");
+            }
+            LockSupport.unpark(this);
+            return true;
+        }
+
+        /**
+         * <p>
+         * Loop, executing targets as they are received.
+         * </p>
+         */
+        @Override
+        public void run() {
+            while (true) {
+                Runnable runnable = slot.get();
+                if (runnable == null) {
+                    if (!run && slot.compareAndSet(null, STOPPED)) {
+                        break;
+                    }
+                    // a job may leave the interrupt flag set, which would
+                    // stop park() from blocking
+                    if (Thread.interrupted()) {
+                        getLog().error("Worker thread was interrupt()'ed.");
+                    }
+                    if (awaitWork(this) && slot.compareAndSet(null, STOPPED)) {
+                        break;
+                    }
+                    continue;
+                }
+
+                busyCount.incrementAndGet();
+                try {
+                    runnable.run();
+                } catch (Throwable exceptionInRunnable) {
+                    try {
+                        getLog().error("Error while executing the Runnable: ",
+                            exceptionInRunnable);
+                    } catch (Exception e) {
+                        // ignore to help with a tomcat glitch
+                    }
+                } finally {
+                    busyCount.decrementAndGet();
+                    // repair the thread in case the runnable mucked it up...
+                    if (getPriority() != prio) {
+                        setPriority(prio);
+                    }
+                    slot.set(null);
+                    idleSince = System.nanoTime();
+                    makeAvailable(this);
+                }
+            }
+
+            try {
+                getLog().debug("WorkerThread is shut down.");
+            } catch (Exception e) {
+                // ignore to help with a tomcat glitch
+            }
+        }
+    }
+}
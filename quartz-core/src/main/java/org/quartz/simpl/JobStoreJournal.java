@@ -0,0 +1,355 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The files behind a <code>{@link JournaledRAMJobStore}</code>: a snapshot
+ * of the whole store, and the append-only journals of the changes made
+ * since.
+ * </p>
+ *
+ * <p>
+ * Each snapshot starts a new generation.  The snapshot of generation
+ * <i>n</i> holds the state of the store as of the start of journal
+ * <i>n</i>, so the store is rebuilt by loading the snapshot and replaying
+ * journal <i>n</i> and any later ones.  Records and snapshots are framed
+ * with their length and a CRC32, so that a record torn by a crash ends the
+ * replay instead of corrupting the store.
+ * </p>
+ *
+ * <p>
+ * Appending only writes to the journal's <code>FileChannel</code>;
+ * <code>{@link #sync()}</code> forces it to disk, and callers that sync
+ * concurrently share a single <code>force</code> (group commit).
+ * </p>
+ */
+class JobStoreJournal {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    static final String SNAPSHOT_FILE = "snapshot.dat";
+
+    private static final String JOURNAL_PREFIX = "journal-";
+
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    private static final int FRAME_HEADER_LENGTH = 8;
+
+    private final File directory;
+
+    private final Object writeLock = new Object();
+
+    private final Object syncLock = new Object();
+
+    // guarded by writeLock
+    private FileChannel channel;
+    private long generation;
+    private long appended;
+
+    // guarded by syncLock
+    private long synced;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    JobStoreJournal(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create journal directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    File getDirectory() {
+        return directory;
+    }
+
+    long getGeneration() {
+        synchronized (writeLock) {
+            return generation;
+        }
+    }
+
+    /**
+     * Read back the latest snapshot and the records journaled after it, in
+     * the order they were written.  The generation after the last one found
+     * is the one the next <code>{@link #rotate(long)}</code> should start.
+     *
+     * @return the snapshot, or <code>null</code> if there is none yet.
+     */
+    byte[] recover(List<byte[]> records) throws IOException {
+        byte[] snapshot = null;
+        long snapshotGeneration = 0;
+
+        File snapshotFile = new File(directory, SNAPSHOT_FILE);
+        if (snapshotFile.exists()) {
+            FileChannel in = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(8);
+                readFully(in, header);
+                snapshotGeneration = header.getLong(0);
+                snapshot = readFrame(in);
+                if (snapshot == null) {
+                    throw new IOException("Snapshot " + snapshotFile + " is corrupt.");
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        long lastGeneration = snapshotGeneration;
+        for (long journalGeneration : listJournals()) {
+            if (journalGeneration < snapshotGeneration) {
+                continue;
+            }
+            FileChannel in = FileChannel.open(journalFile(journalGeneration).toPath(), StandardOpenOption.READ);
+            try {
+                byte[] record;
+                while ((record = readFrame(in)) != null) {
+                    records.add(record);
+                }
+            } finally {
+                in.close();
+            }
+            lastGeneration = journalGeneration;
+        }
+
+        synchronized (writeLock) {
+            generation = lastGeneration;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Append a record to the current journal.  The record is not durable
+     * until a later <code>{@link #sync()}</code>.
+     */
+    void append(byte[] record) throws IOException {
+        synchronized (writeLock) {
+            if (channel == null) {
+                throw new IOException("Journal is closed.");
+            }
+            writeFrame(channel, record);
+            appended++;
+        }
+    }
+
+    /**
+     * Force everything appended so far to disk.  If another thread is
+     * already forcing the journal, wait for it and only force again if it
+     * did not cover the records appended before this call.
+     */
+    void sync() throws IOException {
+        long target;
+        synchronized (writeLock) {
+            target = appended;
+        }
+
+        synchronized (syncLock) {
+            if (synced >= target) {
+                return;
+            }
+            FileChannel ch;
+            synchronized (writeLock) {
+                target = appended;
+                ch = channel;
+            }
+            if (ch != null) {
+                ch.force(false);
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Close the current journal, if any, and start appending to the journal
+     * of the given generation.
+     */
+    void rotate(long newGeneration) throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                    channel = null;
+                }
+                channel = FileChannel.open(journalFile(newGeneration).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                generation = newGeneration;
+                synced = appended;
+            }
+        }
+    }
+
+    /**
+     * Durably replace the snapshot with the given one, which holds the state
+     * of the store as of the start of the journal of the given generation,
+     * and delete the journals that it makes obsolete.
+     */
+    void writeSnapshot(long snapshotGeneration, byte[] snapshot) throws IOException {
+        File tmp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        FileChannel out = FileChannel.open(tmp.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putLong(0, snapshotGeneration);
+            writeFully(out, header);
+            writeFrame(out, snapshot);
+            out.force(true);
+        } finally {
+            out.close();
+        }
+
+        Files.move(tmp.toPath(), new File(directory, SNAPSHOT_FILE).toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long journalGeneration : listJournals()) {
+            if (journalGeneration < snapshotGeneration) {
+                Files.deleteIfExists(journalFile(journalGeneration).toPath());
+            }
+        }
+    }
+
+    void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                    channel = null;
+                }
+                synced = appended;
+            }
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Helpers.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private File journalFile(long journalGeneration) {
+        return new File(directory, JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+
+    private List<Long> listJournals() {
+        List<Long> generations = new ArrayList<Long>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX)) {
+                    try {
+                        generations.add(Long.valueOf(name.substring(JOURNAL_PREFIX.length(),
+                            name.length() - JOURNAL_SUFFIX.length())));
+                    } catch (NumberFormatException ignore) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static void writeFrame(FileChannel out, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_LENGTH + data.length);
+        frame.putInt(data.length);
+        frame.putInt((int) crc.getValue());
+        frame.put(data);
+        frame.flip();
+        writeFully(out, frame);
+    }
+
+    /**
+     * @return the next frame, or <code>null</code> at the end of the file or
+     *         at a torn or corrupt frame.
+     */
+    private static byte[] readFrame(FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_LENGTH);
+        try {
+            readFully(in, header);
+        } catch (EOFException e) {
+            return null;
+        }
+
+        int length = header.getInt(0);
+        if (length < 0 || length > in.size() - in.position()) {
+            return null;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(length);
+        readFully(in, data);
+
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, length);
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+        return data.array();
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,1012 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.quartz.Calendar;
+import org.quartz.DelayedTask;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+
+/**
+ * <p>
+ * A RAM job store like <code>{@link RAMJobStore}</code> that survives
+ * restarts: every change to its jobs, triggers, calendars and paused groups
+ * is appended to a journal on local disk, and the store is rebuilt from
+ * that journal when it is initialized.
+ * </p>
+ *
+ * <p>
+ * Trigger acquisition works on the in-memory structures of
+ * <code>RAMJobStore</code>, exactly as it does there.  A change is journaled
+ * as the resulting state of the job, trigger or calendar it touched, except
+ * for the firing of a trigger, which is journaled as just its key and is
+ * replayed by calling <code>triggered()</code> on the trigger again.
+ * Acquisitions themselves are not journaled: after a restart, acquired,
+ * executing and blocked triggers are back in their normal state, and jobs
+ * that were executing are not recovered.  What acquiring does to a trigger
+ * is, though: the new fire time it gets from a misfire, along with the
+ * misfires it coalesces, and the fire time its rate limits defer it to, or
+ * its completion if that is past its end.  Releasing an acquired trigger
+ * only undoes the acquisition, so it is not journaled either.  The permits
+ * taken from rate limits are not journaled, and start out full again.
+ * </p>
+ *
+ * <p>
+ * By default each operation forces the journal to disk before it returns,
+ * with operations running concurrently sharing a single
+ * <code>force</code>.  Setting <code>journalSyncInterval</code> instead
+ * forces it periodically, trading the last few changes before a crash for
+ * throughput.  Once <code>snapshotThreshold</code> changes have been
+ * journaled, a background thread writes a snapshot of the whole store and
+ * deletes the journals it replaces.
+ * </p>
+ *
+ * @see RAMJobStore
+ */
+public class JournaledRAMJobStore extends RAMJobStoreSupport {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final byte PUT_JOB = 1;
+    private static final byte REMOVE_JOB = 2;
+    private static final byte PUT_TRIGGER = 3;
+    private static final byte REMOVE_TRIGGER = 4;
+    private static final byte TRIGGER_STATE = 5;
+    private static final byte TRIGGER_FIRED = 6;
+    private static final byte PUT_CALENDAR = 7;
+    private static final byte REMOVE_CALENDAR = 8;
+    private static final byte PAUSED_GROUPS = 9;
+
+    private String journalDirectory;
+
+    private long journalSyncInterval = 0L;
+
+    private int snapshotThreshold = 10000;
+
+    private String instanceId = "";
+
+    private String instanceName = "";
+
+    private JobStoreJournal journal;
+
+    private JournalManager journalManager;
+
+    // guarded by lock
+    private boolean replaying = false;
+
+    // guarded by lock
+    private int recordsSinceSnapshot = 0;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * The directory that holds the journal and snapshot of this store.  It
+     * must not be shared with any other scheduler.
+     */
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public long getJournalSyncInterval() {
+        return journalSyncInterval;
+    }
+
+    /**
+     * How often, in milliseconds, the journal is forced to disk.  With the
+     * default of 0 it is forced before each operation that changes the
+     * store returns.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setJournalSyncInterval(long journalSyncInterval) {
+        if (journalSyncInterval < 0) {
+            throw new IllegalArgumentException("journalSyncInterval must not be negative.");
+        }
+        this.journalSyncInterval = journalSyncInterval;
+    }
+
+    public int getSnapshotThreshold() {
+        return snapshotThreshold;
+    }
+
+    /**
+     * The number of journaled changes after which a new snapshot of the
+     * store is written and the journal is truncated.
+     */
+    @SuppressWarnings("UnusedDeclaration") /* called reflectively */
+    public void setSnapshotThreshold(int snapshotThreshold) {
+        if (snapshotThreshold < 1) {
+            throw new IllegalArgumentException("snapshotThreshold must be positive.");
+        }
+        this.snapshotThreshold = snapshotThreshold;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+        this.instanceId = schedInstId;
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+
+    @Override
+    public boolean supportsPersistence() {
+        return true;
+    }
+
+    /**
+     * <p>
+     * Rebuild the store from the snapshot and journal in the journal
+     * directory, write a fresh snapshot, and start the thread that takes
+     * the later ones.
+     * </p>
+     */
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler schedSignaler)
+        throws SchedulerConfigException {
+
+        if (journalDirectory == null) {
+            throw new SchedulerConfigException("The journalDirectory of the JournaledRAMJobStore is not set.");
+        }
+
+        initializeStore(schedSignaler);
+
+        try {
+            journal = new JobStoreJournal(new File(journalDirectory));
+
+            List<byte[]> records = new ArrayList<byte[]>();
+            byte[] snapshot = journal.recover(records);
+
+            synchronized (lock) {
+                SchedulerSignaler realSignaler = signaler;
+                signaler = new NullSignaler();
+                replaying = true;
+                try {
+                    if (snapshot != null) {
+                        loadSnapshot(snapshot);
+                    }
+                    for (byte[] record : records) {
+                        replay(record);
+                    }
+                    resetTransientTriggerStates();
+                } finally {
+                    replaying = false;
+                    signaler = realSignaler;
+                }
+            }
+
+            snapshot();
+        } catch (IOException e) {
+            throw new SchedulerConfigException("Couldn't recover the job store from " + journalDirectory, e);
+        } catch (ClassNotFoundException e) {
+            throw new SchedulerConfigException("Couldn't recover the job store from " + journalDirectory, e);
+        } catch (JobPersistenceException e) {
+            throw new SchedulerConfigException("Couldn't recover the job store from " + journalDirectory, e);
+        }
+
+        journalManager = new JournalManager();
+        journalManager.start();
+
+        getLog().info("JournaledRAMJobStore recovered " + getNumberOfJobs() + " jobs and "
+            + getNumberOfTriggers() + " triggers from " + journal.getDirectory());
+    }
+
+    @Override
+    public void shutdown() {
+        if (journalManager != null) {
+            journalManager.shutdown();
+            try {
+                journalManager.join();
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                getLog().error("Couldn't close the job store journal.", e);
+            }
+        }
+        super.shutdown();
+    }
+
+    @Override
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        synchronized (lock) {
+            super.clearAllSchedulingData();
+        }
+        commit();
+    }
+
+    @Override
+    public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger) throws JobPersistenceException {
+        synchronized (lock) {
+            super.storeJobAndTrigger(newJob, newTrigger);
+        }
+        commit();
+    }
+
+    @Override
+    public void storeJob(JobDetail newJob, boolean replaceExisting) throws ObjectAlreadyExistsException {
+        synchronized (lock) {
+            super.storeJob(newJob, replaceExisting);
+            journalJob(newJob.getKey());
+        }
+        commit();
+    }
+
+    @Override
+    public boolean removeJob(JobKey jobKey) {
+        boolean found;
+        synchronized (lock) {
+            found = super.removeJob(jobKey);
+            if (found) {
+                journalKey(REMOVE_JOB, jobKey.getName(), jobKey.getGroup());
+            }
+        }
+        commit();
+        return found;
+    }
+
+    @Override
+    public boolean removeJobs(List<JobKey> jobKeys) throws JobPersistenceException {
+        boolean allFound;
+        synchronized (lock) {
+            allFound = super.removeJobs(jobKeys);
+        }
+        commit();
+        return allFound;
+    }
+
+    @Override
+    public boolean removeTriggers(List<TriggerKey> triggerKeys) throws JobPersistenceException {
+        boolean allFound;
+        synchronized (lock) {
+            allFound = super.removeTriggers(triggerKeys);
+        }
+        commit();
+        return allFound;
+    }
+
+    @Override
+    public void storeJobsAndTriggers(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace)
+        throws JobPersistenceException {
+        synchronized (lock) {
+            super.storeJobsAndTriggers(triggersAndJobs, replace);
+        }
+        commit();
+    }
+
+    @Override
+    public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
+        synchronized (lock) {
+            super.storeTrigger(newTrigger, replaceExisting);
+            journalTrigger(newTrigger.getKey());
+        }
+        commit();
+    }
+
+    /**
+     * <p>
+     * Delayed tasks are not journaled, so this store refuses them rather
+     * than lose them on restart.
+     * </p>
+     */
+    @Override
+    public void storeDelayedTask(DelayedTask task) throws JobPersistenceException {
+        throw new JobPersistenceException("Delayed tasks are not supported by the JournaledRAMJobStore.");
+    }
+
+    @Override
+    public boolean removeTrigger(TriggerKey triggerKey) {
+        boolean found;
+        synchronized (lock) {
+            found = super.removeTrigger(triggerKey);
+            if (found) {
+                journalKey(REMOVE_TRIGGER, triggerKey.getName(), triggerKey.getGroup());
+            }
+        }
+        commit();
+        return found;
+    }
+
+    @Override
+    public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+        boolean found;
+        synchronized (lock) {
+            // the new trigger is journaled by storeTrigger()
+            found = super.replaceTrigger(triggerKey, newTrigger);
+            if (found && !triggerKey.equals(newTrigger.getKey())) {
+                journalKey(REMOVE_TRIGGER, triggerKey.getName(), triggerKey.getGroup());
+            }
+        }
+        commit();
+        return found;
+    }
+
+    @Override
+    public void resetTriggerFromErrorState(TriggerKey triggerKey) throws JobPersistenceException {
+        synchronized (lock) {
+            super.resetTriggerFromErrorState(triggerKey);
+            journalTriggerState(triggerKey);
+        }
+        commit();
+    }
+
+    @Override
+    public void storeCalendar(String name, Calendar calendar, boolean replaceExisting, boolean updateTriggers)
+        throws ObjectAlreadyExistsException {
+        synchronized (lock) {
+            super.storeCalendar(name, calendar, replaceExisting, updateTriggers);
+            if (!replaying) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try {
+                    ObjectOutputStream out = startRecord(baos, PUT_CALENDAR);
+                    out.writeUTF(name);
+                    out.writeObject(calendarsByName.get(name));
+                    out.close();
+                } catch (IOException e) {
+                    throw journalFailure(e);
+                }
+                append(baos.toByteArray());
+                if (updateTriggers) {
+                    for (TriggerWrapper tw : getTriggerWrappersForCalendar(name)) {
+                        journalTrigger(tw.key);
+                    }
+                }
+            }
+        }
+        commit();
+    }
+
+    @Override
+    public boolean removeCalendar(String calName) throws JobPersistenceException {
+        boolean found;
+        synchronized (lock) {
+            found = super.removeCalendar(calName);
+            if (found) {
+                journalKey(REMOVE_CALENDAR, calName, null);
+            }
+        }
+        commit();
+        return found;
+    }
+
+    @Override
+    public void restoreTriggerStates(Map<TriggerKey, TriggerState> triggerStates) {
+        synchronized (lock) {
+            super.restoreTriggerStates(triggerStates);
+            for (TriggerKey triggerKey : triggerStates.keySet()) {
+                journalTriggerState(triggerKey);
+            }
+        }
+        commit();
+    }
+
+    @Override
+    public void pauseTrigger(TriggerKey triggerKey) {
+        synchronized (lock) {
+            super.pauseTrigger(triggerKey);
+            journalTriggerState(triggerKey);
+        }
+        commit();
+    }
+
+    @Override
+    public List<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+        List<String> pausedGroups;
+        synchronized (lock) {
+            pausedGroups = super.pauseTriggers(matcher);
+            journalPausedGroups();
+        }
+        commit();
+        return pausedGroups;
+    }
+
+    @Override
+    public void pauseJob(JobKey jobKey) {
+        synchronized (lock) {
+            super.pauseJob(jobKey);
+        }
+        commit();
+    }
+
+    @Override
+    public List<String> pauseJobs(GroupMatcher<JobKey> matcher) {
+        List<String> pausedGroups;
+        synchronized (lock) {
+            pausedGroups = super.pauseJobs(matcher);
+            journalPausedGroups();
+        }
+        commit();
+        return pausedGroups;
+    }
+
+    @Override
+    public void resumeTrigger(TriggerKey triggerKey) {
+        synchronized (lock) {
+            super.resumeTrigger(triggerKey);
+            journalTriggerState(triggerKey);
+        }
+        commit();
+    }
+
+    @Override
+    public List<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+        List<String> groups;
+        synchronized (lock) {
+            groups = super.resumeTriggers(matcher);
+            journalPausedGroups();
+        }
+        commit();
+        return groups;
+    }
+
+    @Override
+    public void resumeJob(JobKey jobKey) {
+        synchronized (lock) {
+            super.resumeJob(jobKey);
+        }
+        commit();
+    }
+
+    @Override
+    public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) {
+        Collection<String> resumedGroups;
+        synchronized (lock) {
+            resumedGroups = super.resumeJobs(matcher);
+            journalPausedGroups();
+        }
+        commit();
+        return resumedGroups;
+    }
+
+    @Override
+    public void pauseAll() {
+        synchronized (lock) {
+            super.pauseAll();
+        }
+        commit();
+    }
+
+    @Override
+    public void resumeAll() {
+        synchronized (lock) {
+            super.resumeAll();
+            journalPausedGroups();
+        }
+        commit();
+    }
+
+    /**
+     * Journals the new fire times of triggers that misfired.  They are not
+     * forced to disk before acquisition returns: if they are lost, the
+     * misfires are simply handled again after the restart.
+     */
+    @Override
+    protected boolean applyMisfire(TriggerWrapper tw) {
+        int state = tw.state;
+        boolean misfired = super.applyMisfire(tw);
+        if (misfired || state != tw.state) {
+            journalTrigger(tw.key);
+        }
+        return misfired;
+    }
+
+    /**
+     * Journals the fire times that rate limits defer triggers to, which the
+     * fire of a trigger is replayed from.  Like misfires, they are forced to
+     * disk by the next operation that forces the journal, at the latest
+     * along with that fire.
+     */
+    @Override
+    protected boolean applyRateLimits(TriggerWrapper tw) {
+        boolean deferred = super.applyRateLimits(tw);
+        if (deferred) {
+            journalTrigger(tw.key);
+        }
+        return deferred;
+    }
+
+    @Override
+    public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+        List<TriggerFiredResult> results;
+        synchronized (lock) {
+            results = super.triggersFired(firedTriggers);
+            for (TriggerFiredResult result : results) {
+                if (result.getTriggerFiredBundle() != null) {
+                    TriggerKey key = result.getTriggerFiredBundle().getTrigger().getKey();
+                    journalKey(TRIGGER_FIRED, key.getName(), key.getGroup());
+                }
+            }
+        }
+        commit();
+        return results;
+    }
+
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+        CompletedExecutionInstruction triggerInstCode) {
+        synchronized (lock) {
+            journalTriggeredJobComplete(trigger, jobDetail, triggerInstCode);
+        }
+        commit();
+    }
+
+    @Override
+    public void triggeredJobsComplete(List<OperableTrigger> triggers, JobDetail jobDetail,
+        List<CompletedExecutionInstruction> triggerInstCodes) {
+        // one sync of the journal for the whole batch
+        synchronized (lock) {
+            for (int i = 0; i < triggers.size(); i++) {
+                journalTriggeredJobComplete(triggers.get(i), jobDetail, triggerInstCodes.get(i));
+            }
+        }
+        commit();
+    }
+
+    private void journalTriggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+        CompletedExecutionInstruction triggerInstCode) {
+        super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+
+        JobWrapper jw = jobsByKey.get(jobDetail.getKey());
+        if (jw != null && jw.jobDetail.isPersistJobDataAfterExecution()) {
+            journalJob(jw.key);
+        }
+        // deleted triggers are journaled by removeTrigger()
+        if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE
+                || triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+            journalTriggerState(trigger.getKey());
+        } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE
+                || triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+            for (TriggerWrapper tw : getTriggerWrappersForJob(trigger.getJobKey())) {
+                journalTriggerState(tw.key);
+            }
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Journaling.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private ObjectOutputStream startRecord(ByteArrayOutputStream baos, byte type) throws IOException {
+        baos.write(type);
+        return new ObjectOutputStream(baos);
+    }
+
+    private void journalJob(JobKey jobKey) {
+        JobWrapper jw = jobsByKey.get(jobKey);
+        if (jw == null || replaying) {
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = startRecord(baos, PUT_JOB);
+            out.writeObject(jw.jobDetail);
+            out.close();
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        append(baos.toByteArray());
+    }
+
+    private void journalTrigger(TriggerKey triggerKey) {
+        TriggerWrapper tw = triggersByKey.get(triggerKey);
+        if (tw == null || replaying) {
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = startRecord(baos, PUT_TRIGGER);
+            out.writeObject(tw.trigger);
+            out.writeInt(tw.state);
+            out.close();
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        append(baos.toByteArray());
+    }
+
+    private void journalTriggerState(TriggerKey triggerKey) {
+        TriggerWrapper tw = triggersByKey.get(triggerKey);
+        if (tw == null || replaying) {
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeByte(TRIGGER_STATE);
+            out.writeUTF(triggerKey.getName());
+            out.writeUTF(triggerKey.getGroup());
+            out.writeInt(tw.state);
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        append(baos.toByteArray());
+    }
+
+    private void journalKey(byte type, String name, String group) {
+        if (replaying) {
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeByte(type);
+            out.writeUTF(name);
+            if (group != null) {
+                out.writeUTF(group);
+            }
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        append(baos.toByteArray());
+    }
+
+    private void journalPausedGroups() {
+        if (replaying) {
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = startRecord(baos, PAUSED_GROUPS);
+            out.writeObject(new HashSet<String>(pausedTriggerGroups));
+            out.writeObject(new HashSet<String>(pausedJobGroups));
+            out.close();
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        append(baos.toByteArray());
+    }
+
+    private void append(byte[] record) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+        if (++recordsSinceSnapshot == snapshotThreshold && journalManager != null) {
+            journalManager.requestSnapshot();
+        }
+    }
+
+    /**
+     * Make the changes journaled so far durable, unless the journal is
+     * forced periodically, or this is a nested call and the outermost one
+     * will do it once it has released the lock.
+     */
+    private void commit() {
+        if (journal == null || journalSyncInterval > 0 || Thread.holdsLock(lock)) {
+            return;
+        }
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            throw journalFailure(e);
+        }
+    }
+
+    private IllegalStateException journalFailure(IOException e) {
+        getLog().error("Couldn't write to the job store journal in " + journalDirectory, e);
+        return new IllegalStateException("Couldn't write to the job store journal in " + journalDirectory, e);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Snapshots and recovery.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Start a new journal, and write a snapshot of the store as of its start.
+     * Only the switch and the serialization of the store hold the lock; the
+     * snapshot is written to disk without it.
+     */
+    void snapshot() throws IOException {
+        long generation;
+        byte[] image;
+        synchronized (lock) {
+            generation = journal.getGeneration() + 1;
+            journal.rotate(generation);
+            image = writeSnapshot();
+            recordsSinceSnapshot = 0;
+        }
+        journal.writeSnapshot(generation, image);
+    }
+
+    private byte[] writeSnapshot() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+
+        out.writeObject(new HashSet<String>(pausedTriggerGroups));
+        out.writeObject(new HashSet<String>(pausedJobGroups));
+
+        out.writeInt(calendarsByName.size());
+        for (Map.Entry<String, Calendar> entry : calendarsByName.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+
+        out.writeInt(jobsByKey.size());
+        for (JobWrapper jw : jobsByKey.values()) {
+            out.writeObject(jw.jobDetail);
+        }
+
+        out.writeInt(triggersByKey.size());
+        for (TriggerWrapper tw : triggersByKey.values()) {
+            out.writeObject(tw.trigger);
+            out.writeInt(tw.state);
+        }
+
+        out.close();
+        return baos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadSnapshot(byte[] snapshot) throws IOException, ClassNotFoundException, JobPersistenceException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(snapshot));
+
+        pausedTriggerGroups.addAll((Set<String>) in.readObject());
+        pausedJobGroups.addAll((Set<String>) in.readObject());
+
+        for (int i = in.readInt(); i > 0; i--) {
+            super.storeCalendar(in.readUTF(), (Calendar) in.readObject(), true, false);
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            super.storeJob((JobDetail) in.readObject(), true);
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            OperableTrigger trigger = (OperableTrigger) in.readObject();
+            super.storeTrigger(trigger, true);
+            restoreTriggerState(trigger.getKey(), in.readInt());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(byte[] record) throws IOException, ClassNotFoundException, JobPersistenceException {
+        byte type = record[0];
+        ByteArrayInputStream bais = new ByteArrayInputStream(record, 1, record.length - 1);
+
+        switch (type) {
+            case PUT_JOB: {
+                ObjectInputStream in = new ObjectInputStream(bais);
+                super.storeJob((JobDetail) in.readObject(), true);
+                break;
+            }
+            case REMOVE_JOB: {
+                DataInputStream in = new DataInputStream(bais);
+                super.removeJob(new JobKey(in.readUTF(), in.readUTF()));
+                break;
+            }
+            case PUT_TRIGGER: {
+                ObjectInputStream in = new ObjectInputStream(bais);
+                OperableTrigger trigger = (OperableTrigger) in.readObject();
+                super.storeTrigger(trigger, true);
+                restoreTriggerState(trigger.getKey(), in.readInt());
+                break;
+            }
+            case REMOVE_TRIGGER: {
+                DataInputStream in = new DataInputStream(bais);
+                super.removeTrigger(new TriggerKey(in.readUTF(), in.readUTF()));
+                break;
+            }
+            case TRIGGER_STATE: {
+                DataInputStream in = new DataInputStream(bais);
+                TriggerWrapper tw = triggersByKey.get(new TriggerKey(in.readUTF(), in.readUTF()));
+                int state = in.readInt();
+                if (tw != null) {
+                    restoreTriggerState(tw.key, state);
+                }
+                break;
+            }
+            case TRIGGER_FIRED: {
+                DataInputStream in = new DataInputStream(bais);
+                TriggerWrapper tw = triggersByKey.get(new TriggerKey(in.readUTF(), in.readUTF()));
+                if (tw != null) {
+                    Calendar cal = null;
+                    if (tw.trigger.getCalendarName() != null) {
+                        cal = calendarsByName.get(tw.trigger.getCalendarName());
+                    }
+                    timeTriggers.remove(tw);
+                    tw.trigger.triggered(cal);
+                    restoreTriggerState(tw.key, TriggerWrapper.STATE_WAITING);
+                }
+                break;
+            }
+            case PUT_CALENDAR: {
+                ObjectInputStream in = new ObjectInputStream(bais);
+                super.storeCalendar(in.readUTF(), (Calendar) in.readObject(), true, false);
+                break;
+            }
+            case REMOVE_CALENDAR: {
+                DataInputStream in = new DataInputStream(bais);
+                super.removeCalendar(in.readUTF());
+                break;
+            }
+            case PAUSED_GROUPS: {
+                ObjectInputStream in = new ObjectInputStream(bais);
+                pausedTriggerGroups.clear();
+                pausedTriggerGroups.addAll((Set<String>) in.readObject());
+                pausedJobGroups.clear();
+                pausedJobGroups.addAll((Set<String>) in.readObject());
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * Nothing is acquired, executing or blocked once the store has been
+     * rebuilt, as no job is running yet.
+     */
+    private void resetTransientTriggerStates() {
+        blockedJobs.clear();
+        for (TriggerWrapper tw : triggersByKey.values()) {
+            switch (tw.state) {
+                case TriggerWrapper.STATE_ACQUIRED:
+                case TriggerWrapper.STATE_EXECUTING:
+                case TriggerWrapper.STATE_BLOCKED:
+                    restoreTriggerState(tw.key, TriggerWrapper.STATE_WAITING);
+                    break;
+                case TriggerWrapper.STATE_PAUSED_BLOCKED:
+                    restoreTriggerState(tw.key, TriggerWrapper.STATE_PAUSED);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Helper Classes.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Forces the journal every <code>journalSyncInterval</code> milliseconds,
+     * if set, and writes the snapshots requested once enough changes have
+     * been journaled.
+     */
+    class JournalManager extends Thread {
+
+        private boolean shutdown = false;
+
+        private boolean snapshotRequested = false;
+
+        JournalManager() {
+            this.setName("QuartzScheduler_" + instanceName + "-" + instanceId + "_JournalManager");
+            this.setDaemon(true);
+        }
+
+        synchronized void requestSnapshot() {
+            snapshotRequested = true;
+            notifyAll();
+        }
+
+        // not interrupted: that would close the journal's FileChannel
+        synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                boolean takeSnapshot;
+                synchronized (this) {
+                    if (!shutdown && !snapshotRequested) {
+                        try {
+                            wait(journalSyncInterval);
+                        } catch (InterruptedException ignore) {
+                        }
+                    }
+                    if (shutdown) {
+                        break;
+                    }
+                    takeSnapshot = snapshotRequested;
+                    snapshotRequested = false;
+                }
+
+                try {
+                    if (journalSyncInterval > 0) {
+                        journal.sync();
+                    }
+                    if (takeSnapshot) {
+                        snapshot();
+                    }
+                } catch (IOException e) {
+                    getLog().error("JournalManager: Couldn't maintain the job store journal: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static class NullSignaler implements SchedulerSignaler {
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.simpl;
+
+/**
+ * <p>
+ * A fixed-size implementation of the <code>{@link org.quartz.spi.ThreadPool}</code>
+ * interface that hands work to its threads without a shared lock.
+ * </p>
+ *
+ * <p>
+ * It is configured like <code>{@link SimpleThreadPool}</code>, and behaves the
+ * same, but where <code>SimpleThreadPool</code> guards its worker lists with
+ * one monitor and polls with timed waits, this pool keeps its idle workers on
+ * a concurrent stack and counts them with a semaphore. A
+ * <code>Runnable</code> is handed to a worker through the worker's own slot,
+ * and the worker is unparked; a worker that finishes returns to the stack and
+ * releases a permit, which wakes any caller blocked in
+ * <code>{@link #runInThread(Runnable)}</code> or
+ * <code>{@link #blockForAvailableThreads()}</code>. The most recently idle
+ * worker is reused first.
+ * </p>
+ *
+ * @see SimpleThreadPool
+ */
+public class LockFreeThreadPool extends HandOffThreadPoolSupport {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new (unconfigured) <code>LockFreeThreadPool</code>.
+     * </p>
+     *
+     * @see #setThreadCount(int)
+     * @see #setThreadPriority(int)
+     */
+    public LockFreeThreadPool() {
+    }
+
+    /**
+     * <p>
+     * Create a new <code>LockFreeThreadPool</code> with the specified number
+     * of <code>Thread</code> s that have the given priority.
+     * </p>
+     *
+     * @param threadCount
+     *          the number of worker <code>Threads</code> in the pool, must
+     *          be > 0.
+     * @param threadPriority
+     *          the thread priority for the worker threads.
+     */
+    public LockFreeThreadPool(int threadCount, int threadPriority) {
+        setThreadCount(threadCount);
+        setThreadPriority(threadPriority);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    @Override
+    void startWorkers() {
+        for (int i = 0; i < getThreadCount(); ++i) {
+            startWorker();
+        }
+    }
+}
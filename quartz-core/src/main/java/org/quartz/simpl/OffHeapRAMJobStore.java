@@ -0,0 +1,864 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerAcquisitionFilter;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+import org.quartz.utils.ConcurrencyLimits;
+
+/**
+ * <p>
+ * A <code>{@link RAMJobStore}</code> that keeps its triggers outside of the
+ * Java heap, for schedules with millions of triggers.
+ * </p>
+ *
+ * <p>
+ * Jobs and calendars are held exactly as <code>RAMJobStore</code> holds
+ * them.  Each trigger is instead a fixed-size header in direct memory,
+ * holding its next fire time, priority and state, plus its serialized form,
+ * also in direct memory; the indexes by key, job, group and fire time are
+ * kept there too (see <code>{@link OffHeapTriggerTable}</code>).  A trigger
+ * is only deserialized when it is retrieved, acquired, fired or misfired,
+ * so a trigger that is waiting to fire costs no heap, and adds nothing for
+ * the garbage collector to trace.
+ * </p>
+ *
+ * <p>
+ * Triggers, including the contents of their <code>JobDataMap</code>s, must
+ * be <code>Serializable</code>, as they must be for the JDBC job stores.
+ * The direct memory used is limited by the JVM's
+ * <code>-XX:MaxDirectMemorySize</code> option.
+ * </p>
+ *
+ * @see RAMJobStore
+ */
+public class OffHeapRAMJobStore extends RAMJobStore {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final int NONE = OffHeapTriggerTable.NONE;
+
+    private static final long NO_FIRE_TIME = OffHeapTriggerTable.NO_FIRE_TIME;
+
+    // guarded by lock
+    private final OffHeapTriggerTable triggers = new OffHeapTriggerTable();
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * The number of bytes of direct memory currently allocated to hold the
+     * triggers of this store.
+     */
+    public long getOffHeapSize() {
+        synchronized (lock) {
+            return triggers.getAllocatedBytes();
+        }
+    }
+
+    @Override
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        synchronized (lock) {
+            super.clearAllSchedulingData();
+            // release the direct memory the triggers were held in
+            triggers.clear();
+        }
+    }
+
+    @Override
+    public void storeTrigger(OperableTrigger newTrigger,
+            boolean replaceExisting) throws JobPersistenceException {
+
+        synchronized (lock) {
+            int existing = triggers.find(newTrigger.getKey());
+            if (existing != NONE) {
+                if (!replaceExisting) {
+                    throw new ObjectAlreadyExistsException(newTrigger);
+                }
+
+                removeTrigger(existing, false);
+            }
+
+            if (jobsByKey.get(newTrigger.getJobKey()) == null) {
+                throw new JobPersistenceException("The job ("
+                        + newTrigger.getJobKey()
+                        + ") referenced by the trigger does not exist.");
+            }
+
+            int state = TriggerWrapper.STATE_WAITING;
+            if (pausedTriggerGroups.contains(newTrigger.getKey().getGroup())
+                    || pausedJobGroups.contains(newTrigger.getJobKey().getGroup())) {
+                state = TriggerWrapper.STATE_PAUSED;
+                if (blockedJobs.contains(newTrigger.getJobKey())) {
+                    state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+                }
+            } else if (blockedJobs.contains(newTrigger.getJobKey())) {
+                state = TriggerWrapper.STATE_BLOCKED;
+            }
+
+            int id = triggers.add(newTrigger, state);
+            if (state == TriggerWrapper.STATE_WAITING) {
+                triggers.enqueue(id);
+            }
+        }
+    }
+
+    @Override
+    public boolean removeTrigger(TriggerKey triggerKey) {
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id == NONE) {
+                return false;
+            }
+            removeTrigger(id, true);
+            return true;
+        }
+    }
+
+    private void removeTrigger(int id, boolean removeOrphanedJob) {
+        JobKey jobKey = triggers.getJobKey(id);
+        triggers.remove(id);
+
+        if (removeOrphanedJob) {
+            JobWrapper jw = jobsByKey.get(jobKey);
+            if (jw != null && triggers.firstOfJob(jobKey) == NONE && !jw.jobDetail.isDurable()) {
+                if (removeJob(jw.key)) {
+                    signaler.notifySchedulerListenersJobDeleted(jw.key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id == NONE) {
+                return false;
+            }
+
+            if (!triggers.getJobKey(id).equals(newTrigger.getJobKey())) {
+                throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+            }
+
+            OperableTrigger oldTrigger = triggers.get(id);
+            triggers.remove(id);
+
+            try {
+                storeTrigger(newTrigger, false);
+            } catch(JobPersistenceException jpe) {
+                storeTrigger(oldTrigger, false); // put previous trigger back...
+                throw jpe;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public OperableTrigger retrieveTrigger(TriggerKey triggerKey) {
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            return (id != NONE) ? triggers.get(id) : null;
+        }
+    }
+
+    @Override
+    public boolean checkExists(TriggerKey triggerKey) throws JobPersistenceException {
+        synchronized (lock) {
+            return triggers.find(triggerKey) != NONE;
+        }
+    }
+
+    @Override
+    public TriggerState getTriggerState(TriggerKey triggerKey) throws JobPersistenceException {
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id == NONE) {
+                return TriggerState.NONE;
+            }
+
+            switch (triggers.getState(id)) {
+                case TriggerWrapper.STATE_COMPLETE:
+                    return TriggerState.COMPLETE;
+                case TriggerWrapper.STATE_PAUSED:
+                case TriggerWrapper.STATE_PAUSED_BLOCKED:
+                    return TriggerState.PAUSED;
+                case TriggerWrapper.STATE_BLOCKED:
+                    return TriggerState.BLOCKED;
+                case TriggerWrapper.STATE_ERROR:
+                    return TriggerState.ERROR;
+                default:
+                    return TriggerState.NORMAL;
+            }
+        }
+    }
+
+    @Override
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws JobPersistenceException {
+        Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>(triggerKeys.size() * 2);
+        synchronized (lock) {
+            for (TriggerKey triggerKey : triggerKeys) {
+                int id = triggers.find(triggerKey);
+                if (id != NONE) {
+                    long nextFireTime = triggers.getNextFireTime(id);
+                    summaries.put(triggerKey, new TriggerSummary(triggerKey, triggers.getJobKey(id),
+                        getTriggerState(triggerKey), nextFireTime == NO_FIRE_TIME ? null : new Date(nextFireTime)));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
+
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id == NONE || triggers.getState(id) != TriggerWrapper.STATE_ERROR) {
+                return;
+            }
+
+            if (pausedTriggerGroups.contains(triggerKey.getGroup())) {
+                triggers.setState(id, TriggerWrapper.STATE_PAUSED);
+            } else {
+                triggers.setState(id, TriggerWrapper.STATE_WAITING);
+                triggers.enqueue(id);
+            }
+        }
+    }
+
+    @Override
+    protected void restoreTriggerState(TriggerKey triggerKey, int state) {
+        int id = triggers.find(triggerKey);
+        if (id == NONE) {
+            return;
+        }
+        triggers.dequeue(id);
+        triggers.setState(id, state);
+        if (state == TriggerWrapper.STATE_WAITING && triggers.getNextFireTime(id) != NO_FIRE_TIME) {
+            triggers.enqueue(id);
+        }
+    }
+
+    @Override
+    public void storeCalendar(String name,
+            Calendar calendar, boolean replaceExisting, boolean updateTriggers)
+        throws ObjectAlreadyExistsException {
+
+        synchronized (lock) {
+            boolean existed = calendarsByName.containsKey(name);
+            super.storeCalendar(name, calendar, replaceExisting, false);
+
+            if (existed && updateTriggers) {
+                Calendar stored = calendarsByName.get(name);
+                for (int id : triggers.findByCalendar(name)) {
+                    OperableTrigger trig = triggers.get(id);
+                    trig.updateWithNewCalendar(stored, getMisfireThreshold());
+                    triggers.update(id, trig);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean removeCalendar(String calName)
+        throws JobPersistenceException {
+
+        synchronized (lock) {
+            if (triggers.isCalendarReferenced(calName)) {
+                throw new JobPersistenceException(
+                        "Calender cannot be removed if it referenced by a Trigger!");
+            }
+
+            return (calendarsByName.remove(calName) != null);
+        }
+    }
+
+    @Override
+    public int getNumberOfTriggers() {
+        synchronized (lock) {
+            return triggers.size();
+        }
+    }
+
+    @Override
+    public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) {
+        Set<TriggerKey> outList = new HashSet<TriggerKey>();
+
+        synchronized (lock) {
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            String compareToValue = matcher.getCompareToValue();
+
+            for (String group : triggers.getGroupNames(operator, compareToValue)) {
+                for (int id = triggers.firstOfGroup(group); id != NONE; id = triggers.nextOfGroup(id)) {
+                    outList.add(triggers.getKey(id));
+                }
+            }
+        }
+
+        return outList;
+    }
+
+    @Override
+    List<String> getTriggerGroupNames(GroupMatcher<TriggerKey> matcher) {
+        return triggers.getGroupNames(matcher.getCompareWithOperator(), matcher.getCompareToValue());
+    }
+
+    @Override
+    public List<String> getTriggerGroupNames() {
+        synchronized (lock) {
+            return triggers.getGroupNames();
+        }
+    }
+
+    @Override
+    public List<OperableTrigger> getTriggersForJob(JobKey jobKey) {
+        List<OperableTrigger> trigList = new ArrayList<OperableTrigger>();
+
+        synchronized (lock) {
+            for (int id = triggers.firstOfJob(jobKey); id != NONE; id = triggers.nextOfJob(id)) {
+                trigList.add(triggers.get(id));
+            }
+        }
+
+        return trigList;
+    }
+
+    @Override
+    public void pauseTrigger(TriggerKey triggerKey) {
+
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id != NONE) {
+                pauseTrigger(id);
+            }
+        }
+    }
+
+    private void pauseTrigger(int id) {
+        int state = triggers.getState(id);
+
+        // if the trigger is "complete" pausing it does not make sense...
+        if (state == TriggerWrapper.STATE_COMPLETE) {
+            return;
+        }
+
+        if (state == TriggerWrapper.STATE_BLOCKED) {
+            triggers.setState(id, TriggerWrapper.STATE_PAUSED_BLOCKED);
+        } else {
+            triggers.setState(id, TriggerWrapper.STATE_PAUSED);
+        }
+
+        triggers.dequeue(id);
+    }
+
+    @Override
+    public List<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+
+        List<String> pausedGroups = new LinkedList<String>();
+        synchronized (lock) {
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            switch (operator) {
+                case EQUALS:
+                    if (pausedTriggerGroups.add(matcher.getCompareToValue())) {
+                        pausedGroups.add(matcher.getCompareToValue());
+                    }
+                    break;
+                default :
+                    for (String group : triggers.getGroupNames(operator, matcher.getCompareToValue())) {
+                        if (pausedTriggerGroups.add(group)) {
+                            pausedGroups.add(group);
+                        }
+                    }
+            }
+
+            for (String pausedGroup : pausedGroups) {
+                for (int id = triggers.firstOfGroup(pausedGroup); id != NONE; id = triggers.nextOfGroup(id)) {
+                    pauseTrigger(id);
+                }
+            }
+        }
+
+        return pausedGroups;
+    }
+
+    @Override
+    public void resumeTrigger(TriggerKey triggerKey) {
+
+        synchronized (lock) {
+            int id = triggers.find(triggerKey);
+            if (id != NONE) {
+                resumeTrigger(id);
+            }
+        }
+    }
+
+    private void resumeTrigger(int id) {
+        int state = triggers.getState(id);
+
+        // if the trigger is not paused resuming it does not make sense...
+        if (state != TriggerWrapper.STATE_PAUSED &&
+                state != TriggerWrapper.STATE_PAUSED_BLOCKED) {
+            return;
+        }
+
+        if (blockedJobs.contains(triggers.getJobKey(id))) {
+            triggers.setState(id, TriggerWrapper.STATE_BLOCKED);
+        } else {
+            triggers.setState(id, TriggerWrapper.STATE_WAITING);
+        }
+
+        applyMisfire(id);
+
+        if (triggers.getState(id) == TriggerWrapper.STATE_WAITING) {
+            triggers.enqueue(id);
+        }
+    }
+
+    @Override
+    public List<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+        Set<String> groups = new HashSet<String>();
+
+        synchronized (lock) {
+            for (TriggerKey triggerKey : getTriggerKeys(matcher)) {
+                groups.add(triggerKey.getGroup());
+                int id = triggers.find(triggerKey);
+                if (pausedJobGroups.contains(triggers.getJobKey(id).getGroup())) {
+                    continue;
+                }
+                resumeTrigger(id);
+            }
+
+            // Find all matching paused trigger groups, and then remove them.
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            LinkedList<String> pausedGroups = new LinkedList<String>();
+            String matcherGroup = matcher.getCompareToValue();
+            switch (operator) {
+                case EQUALS:
+                    if (pausedTriggerGroups.contains(matcherGroup)) {
+                        pausedGroups.add(matcher.getCompareToValue());
+                    }
+                    break;
+                default :
+                    for (String group : pausedTriggerGroups) {
+                        if (operator.evaluate(group, matcherGroup)) {
+                            pausedGroups.add(group);
+                        }
+                    }
+            }
+            for (String pausedGroup : pausedGroups) {
+                pausedTriggerGroups.remove(pausedGroup);
+            }
+        }
+
+        return new ArrayList<String>(groups);
+    }
+
+    /**
+     * The equivalent of <code>{@link RAMJobStore#applyMisfire(TriggerWrapper)}</code>,
+     * which only deserializes the trigger if its next fire time is past the
+     * misfire threshold.
+     */
+    private boolean applyMisfire(int id) {
+
+        long misfireTime = System.currentTimeMillis();
+        if (getMisfireThreshold() > 0) {
+            misfireTime -= getMisfireThreshold();
+        }
+
+        long tnft = triggers.getNextFireTime(id);
+        if (tnft == NO_FIRE_TIME || tnft > misfireTime) {
+            return false;
+        }
+
+        OperableTrigger trigger = triggers.get(id);
+        if (trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+            return false;
+        }
+
+        Calendar cal = null;
+        if (trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(trigger.getCalendarName());
+        }
+
+        signaler.notifyTriggerListenersMisfired((OperableTrigger) trigger.clone());
+
+        trigger.updateAfterMisfire(cal);
+        triggers.update(id, trigger);
+
+        if (trigger.getNextFireTime() == null) {
+            triggers.setState(id, TriggerWrapper.STATE_COMPLETE);
+            signaler.notifySchedulerListenersFinalized(trigger);
+            triggers.dequeue(id);
+        } else if (tnft == trigger.getNextFireTime().getTime()) {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+            TriggerAcquisitionFilter filter) {
+        synchronized (lock) {
+            List<OperableTrigger> result = new ArrayList<OperableTrigger>();
+            Set<JobKey> acquiredJobKeysForNoConcurrentExec = new HashSet<JobKey>();
+            List<Integer> excludedTriggers = new ArrayList<Integer>();
+            ConcurrencyLimits.Counts acquiredLimitedJobs = new ConcurrencyLimits.Counts();
+            long batchEnd = noLaterThan;
+
+            // when acquiring fairly, the due triggers are taken in their groups' turns
+            Iterator<Integer> fairOrder = null;
+            if (fairShares.isEnabled()) {
+                fairOrder = fairShares.interleave(getDueTriggerIdsByGroup(noLaterThan + timeWindow, maxCount)).iterator();
+            }
+
+            while (true) {
+                int id;
+                if (fairOrder != null) {
+                    if (!fairOrder.hasNext()) {
+                        break;
+                    }
+                    id = fairOrder.next();
+                    triggers.dequeue(id);
+                } else {
+                    id = triggers.poll();
+                    if (id == NONE) {
+                        break;
+                    }
+                }
+
+                if (triggers.getNextFireTime(id) == NO_FIRE_TIME) {
+                    continue;
+                }
+
+                if (applyMisfire(id)) {
+                    if (triggers.getNextFireTime(id) != NO_FIRE_TIME) {
+                        triggers.enqueue(id);
+                    }
+                    continue;
+                }
+
+                long nextFireTime = triggers.getNextFireTime(id);
+                if (nextFireTime > batchEnd) {
+                    triggers.enqueue(id);
+                    if (fairOrder != null) {
+                        continue; // later triggers of other groups may be in the batch
+                    }
+                    break;
+                }
+
+                // If trigger's job is set as @DisallowConcurrentExecution, and it has already been added to result, then
+                // put it back into the time index and continue to search for next trigger.
+                JobKey jobKey = triggers.getJobKey(id);
+                JobDetail job = jobsByKey.get(jobKey).jobDetail;
+                if (job.isConcurrentExectionDisallowed() && acquiredJobKeysForNoConcurrentExec.contains(jobKey)) {
+                    excludedTriggers.add(id);
+                    continue; // go to next trigger in store.
+                }
+                if (!admitsExecution(job, acquiredLimitedJobs)) {
+                    excludedTriggers.add(id);
+                    continue;
+                }
+
+                OperableTrigger trig = triggers.get(id);
+                // a trigger deferred by its rate limits goes back at its new fire time
+                if (deferForRateLimits(trig)) {
+                    triggers.update(id, trig);
+                    if (trig.getNextFireTime() == null) {
+                        triggers.setState(id, TriggerWrapper.STATE_COMPLETE);
+                        signaler.notifySchedulerListenersFinalized(trig);
+                    } else {
+                        excludedTriggers.add(id);
+                    }
+                    continue;
+                }
+                // a trigger the filter rejects stays waiting, like the ones above
+                if (filter != null && !filter.accept(trig, job)) {
+                    excludedTriggers.add(id);
+                    continue;
+                }
+                if (job.isConcurrentExectionDisallowed()) {
+                    acquiredJobKeysForNoConcurrentExec.add(jobKey);
+                }
+                if (concurrencyLimits.isLimited(job)) {
+                    acquiredLimitedJobs.increment(jobKey);
+                }
+                takeRateLimitPermits(trig);
+                if (fairOrder != null) {
+                    fairShares.acquired(trig.getKey().getGroup());
+                }
+
+                triggers.setState(id, TriggerWrapper.STATE_ACQUIRED);
+                trig.setFireInstanceId(getFiredTriggerRecordId());
+                if (result.isEmpty()) {
+                    batchEnd = Math.max(nextFireTime, System.currentTimeMillis()) + timeWindow;
+                }
+                result.add(trig);
+                if (result.size() == maxCount) {
+                    break;
+                }
+            }
+
+            // If we did excluded triggers to prevent ACQUIRE state due to DisallowConcurrentExecution, we need to add them back to store.
+            for (int id : excludedTriggers) {
+                triggers.enqueue(id);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The ids of the waiting triggers due no later than the given time, by
+     * group in the order of their earliest trigger, with at most the given
+     * number of each group's earliest.
+     */
+    private Map<String, List<Integer>> getDueTriggerIdsByGroup(long noLaterThan, int maxCountPerGroup) {
+        Map<String, List<Integer>> dueByGroup = new LinkedHashMap<String, List<Integer>>();
+        for (int id : triggers.queuedNoLaterThan(noLaterThan)) {
+            String group = triggers.getKey(id).getGroup();
+            List<Integer> due = dueByGroup.get(group);
+            if (due == null) {
+                due = new ArrayList<Integer>();
+                dueByGroup.put(group, due);
+            }
+            if (due.size() < maxCountPerGroup) {
+                due.add(id);
+            }
+        }
+        return dueByGroup;
+    }
+
+    @Override
+    public void releaseAcquiredTrigger(OperableTrigger trigger) {
+        synchronized (lock) {
+            int id = triggers.find(trigger.getKey());
+            if (id != NONE && triggers.getState(id) == TriggerWrapper.STATE_ACQUIRED) {
+                triggers.setState(id, TriggerWrapper.STATE_WAITING);
+                triggers.enqueue(id);
+            }
+        }
+    }
+
+    @Override
+    public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+
+        synchronized (lock) {
+            List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+
+            for (OperableTrigger trigger : firedTriggers) {
+                int id = triggers.find(trigger.getKey());
+                // was the trigger deleted since being acquired?
+                if (id == NONE) {
+                    continue;
+                }
+                // was the trigger completed, paused, blocked, etc. since being acquired?
+                if (triggers.getState(id) != TriggerWrapper.STATE_ACQUIRED) {
+                    continue;
+                }
+
+                OperableTrigger stored = triggers.get(id);
+                Calendar cal = null;
+                if (stored.getCalendarName() != null) {
+                    cal = retrieveCalendar(stored.getCalendarName());
+                    if (cal == null)
+                        continue;
+                }
+                Date prevFireTime = trigger.getPreviousFireTime();
+                // in case trigger was replaced between acquiring and firing
+                triggers.dequeue(id);
+                // call triggered on our copy, and the scheduler's copy
+                stored.triggered(cal);
+                trigger.triggered(cal);
+                triggers.update(id, stored);
+                triggers.setState(id, TriggerWrapper.STATE_WAITING);
+
+                TriggerFiredBundle bndle = new TriggerFiredBundle(retrieveJob(
+                        stored.getJobKey()), trigger, cal,
+                        false, new Date(), trigger.getPreviousFireTime(), prevFireTime,
+                        trigger.getNextFireTime());
+
+                JobDetail job = bndle.getJobDetail();
+
+                if (job.isConcurrentExectionDisallowed()) {
+                    for (int ttw = triggers.firstOfJob(job.getKey()); ttw != NONE; ttw = triggers.nextOfJob(ttw)) {
+                        int state = triggers.getState(ttw);
+                        if (state == TriggerWrapper.STATE_WAITING) {
+                            triggers.setState(ttw, TriggerWrapper.STATE_BLOCKED);
+                        }
+                        if (state == TriggerWrapper.STATE_PAUSED) {
+                            triggers.setState(ttw, TriggerWrapper.STATE_PAUSED_BLOCKED);
+                        }
+                        triggers.dequeue(ttw);
+                    }
+                    blockedJobs.add(job.getKey());
+                } else if (stored.getNextFireTime() != null) {
+                    triggers.enqueue(id);
+                }
+                limitedJobFired(job, trigger);
+
+                results.add(new TriggerFiredResult(bndle));
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger,
+            JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+        synchronized (lock) {
+
+            if (limitedJobComplete(trigger)) {
+                signaler.signalSchedulingChange(0L);
+            }
+
+            JobWrapper jw = jobsByKey.get(jobDetail.getKey());
+            int id = triggers.find(trigger.getKey());
+
+            // It's possible that the job is null if:
+            //   1- it was deleted during execution
+            //   2- RAMJobStore is being used only for volatile jobs / triggers
+            //      from the JDBC job store
+            if (jw != null) {
+                JobDetail jd = jw.jobDetail;
+
+                if (jd.isPersistJobDataAfterExecution()) {
+                    JobDataMap newData = jobDetail.getJobDataMap();
+                    if (newData != null) {
+                        newData = (JobDataMap)newData.clone();
+                        newData.clearDirtyFlag();
+                    }
+                    jd = jd.getJobBuilder().setJobData(newData).build();
+                    jw.jobDetail = jd;
+                }
+                if (jd.isConcurrentExectionDisallowed()) {
+                    blockedJobs.remove(jd.getKey());
+                    for (int ttw = triggers.firstOfJob(jd.getKey()); ttw != NONE; ttw = triggers.nextOfJob(ttw)) {
+                        int state = triggers.getState(ttw);
+                        if (state == TriggerWrapper.STATE_BLOCKED) {
+                            triggers.setState(ttw, TriggerWrapper.STATE_WAITING);
+                            triggers.enqueue(ttw);
+                        }
+                        if (state == TriggerWrapper.STATE_PAUSED_BLOCKED) {
+                            triggers.setState(ttw, TriggerWrapper.STATE_PAUSED);
+                        }
+                    }
+                    signaler.signalSchedulingChange(0L);
+                }
+            } else { // even if it was deleted, there may be cleanup to do
+                blockedJobs.remove(jobDetail.getKey());
+            }
+
+            // check for trigger deleted during execution...
+            if (id != NONE) {
+                if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+
+                    if (trigger.getNextFireTime() == null) {
+                        // double check for possible reschedule within job
+                        // execution, which would cancel the need to delete...
+                        if (triggers.getNextFireTime(id) == NO_FIRE_TIME) {
+                            removeTrigger(trigger.getKey());
+                        }
+                    } else {
+                        removeTrigger(trigger.getKey());
+                        signaler.signalSchedulingChange(0L);
+                    }
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
+                    triggers.setState(id, TriggerWrapper.STATE_COMPLETE);
+                    triggers.dequeue(id);
+                    signaler.signalSchedulingChange(0L);
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+                    getLog().info("Trigger " + trigger.getKey() + " set to ERROR state.");
+                    triggers.setState(id, TriggerWrapper.STATE_ERROR);
+                    signaler.signalSchedulingChange(0L);
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+                    getLog().info("All triggers of Job "
+                            + trigger.getJobKey() + " set to ERROR state.");
+                    setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_ERROR);
+                    signaler.signalSchedulingChange(0L);
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
+                    setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_COMPLETE);
+                    signaler.signalSchedulingChange(0L);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void setAllTriggersOfJobToState(JobKey jobKey, int state) {
+        for (int id = triggers.firstOfJob(jobKey); id != NONE; id = triggers.nextOfJob(id)) {
+            triggers.setState(id, state);
+            if (state != TriggerWrapper.STATE_WAITING) {
+                triggers.dequeue(id);
+            }
+        }
+    }
+
+    @Override
+    protected String peekTriggers() {
+        StringBuilder str = new StringBuilder();
+        synchronized (lock) {
+            for (String group : triggers.getGroupNames()) {
+                for (int id = triggers.firstOfGroup(group); id != NONE; id = triggers.nextOfGroup(id)) {
+                    str.append(triggers.getKey(id).getName());
+                    str.append("/");
+                }
+            }
+        }
+        return str.toString();
+    }
+}
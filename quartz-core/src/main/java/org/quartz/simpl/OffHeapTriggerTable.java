@@ -0,0 +1,1009 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.StringMatcher.StringOperatorName;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.utils.Key;
+
+/**
+ * <p>
+ * The trigger storage behind <code>{@link OffHeapRAMJobStore}</code>.
+ * </p>
+ *
+ * <p>
+ * Each trigger is identified by an <code>int</code> id, which indexes a
+ * fixed-size header held in direct <code>ByteBuffer</code> pages: the next
+ * fire time and priority (what the time index orders by), the state, the
+ * ids its job, group and calendar names are interned to, and the links that
+ * thread it onto the hash chain of its key and the lists of its job and
+ * group.  The trigger itself is serialized into a slot of a size-classed
+ * slab, also off-heap, and is only deserialized when it is retrieved,
+ * acquired or changed.  The time index is a binary heap of ids in a direct
+ * <code>IntBuffer</code>, so that a trigger costs no heap at all while it
+ * waits.
+ * </p>
+ *
+ * <p>
+ * Triggers are serialized with a table of class descriptors shared by the
+ * whole store, so that each slot holds just the trigger's field values.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; <code>OffHeapRAMJobStore</code> only uses
+ * it while holding its lock.
+ * </p>
+ */
+class OffHeapTriggerTable {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    static final int NONE = -1;
+
+    /**
+     * The next fire time of a trigger that will not fire again, which sorts
+     * it after all others in the time index.
+     */
+    static final long NO_FIRE_TIME = Long.MAX_VALUE;
+
+    private static final int STATE_FREE = -1;
+
+    // header layout
+    private static final int NEXT_FIRE_TIME = 0;
+    private static final int SLOT = 8;
+    private static final int SLOT_LENGTH = 16;
+    private static final int PRIORITY = 20;
+    private static final int HASH = 24;
+    private static final int HASH_NEXT = 28;
+    private static final int QUEUE_POSITION = 32;
+    private static final int JOB = 36;
+    private static final int JOB_PREV = 40;
+    private static final int JOB_NEXT = 44;
+    private static final int GROUP = 48;
+    private static final int GROUP_PREV = 52;
+    private static final int GROUP_NEXT = 56;
+    private static final int CALENDAR = 60;
+    private static final int STATE = 64;
+    static final int HEADER_SIZE = 72;
+
+    private static final int HEADER_PAGE_SHIFT = 14;
+    private static final int HEADER_PAGE_MASK = (1 << HEADER_PAGE_SHIFT) - 1;
+
+    private static final int SLAB_PAGE_SIZE = 1 << 20;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final int[] SLOT_SIZES;
+
+    static {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (int size = 32; size < (1 << 24); size = (size + (size >> 2) + 7) & ~7) {
+            sizes.add(size);
+        }
+        sizes.add(1 << 24);
+        SLOT_SIZES = new int[sizes.size()];
+        for (int i = 0; i < SLOT_SIZES.length; i++) {
+            SLOT_SIZES[i] = sizes.get(i);
+        }
+    }
+
+    private ByteBuffer[] headerPages;
+    private int highWater;
+    private int freeIds;
+    private int size;
+
+    private IntBuffer buckets;
+    private int bucketMask;
+
+    private IntBuffer queue;
+    private int queueSize;
+
+    private Slab[] slabs;
+
+    private final Names<JobKey> jobs = new Names<JobKey>();
+    private final Names<String> groups = new Names<String>();
+    private final GroupIndex groupIndex = new GroupIndex();
+    private final Names<String> calendars = new Names<String>();
+
+    private final List<ObjectStreamClass> descriptors = new ArrayList<ObjectStreamClass>();
+    private final Map<Class<?>, Integer> descriptorIds = new HashMap<Class<?>, Integer>();
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    OffHeapTriggerTable() {
+        clear();
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Drop all triggers, and the memory that held them.
+     */
+    void clear() {
+        headerPages = new ByteBuffer[8];
+        highWater = 0;
+        freeIds = NONE;
+        size = 0;
+        buckets = newIntBuffer(MIN_CAPACITY, NONE);
+        bucketMask = MIN_CAPACITY - 1;
+        queue = newIntBuffer(MIN_CAPACITY, NONE);
+        queueSize = 0;
+        slabs = new Slab[SLOT_SIZES.length];
+        jobs.clear();
+        groups.clear();
+        groupIndex.clear();
+        calendars.clear();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The number of bytes of direct memory allocated to hold the triggers
+     * and their indexes.
+     */
+    long getAllocatedBytes() {
+        long bytes = (long) buckets.capacity() * 4 + (long) queue.capacity() * 4;
+        for (ByteBuffer page : headerPages) {
+            if (page != null) {
+                bytes += page.capacity();
+            }
+        }
+        for (Slab slab : slabs) {
+            if (slab != null) {
+                bytes += slab.getAllocatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the id of the trigger with the given key, or <code>NONE</code>.
+     */
+    int find(TriggerKey key) {
+        int group = groups.find(key.getGroup());
+        if (group == NONE) {
+            return NONE;
+        }
+        int hash = hash(key);
+        for (int id = buckets.get(hash & bucketMask); id != NONE; id = getInt(id, HASH_NEXT)) {
+            if (getInt(id, HASH) == hash && getInt(id, GROUP) == group && nameEquals(id, key.getName())) {
+                return id;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Store the given trigger, which must not already be in the table.  It
+     * is not added to the time index.
+     *
+     * @return the new trigger's id.
+     */
+    int add(OperableTrigger trigger, int state) throws JobPersistenceException {
+        byte[] data;
+        try {
+            data = encode(trigger);
+        } catch (IOException e) {
+            throw new JobPersistenceException("Couldn't serialize trigger " + trigger.getKey()
+                + " for off-heap storage: " + e, e);
+        }
+        int slabIndex = slabIndex(data.length);
+        if (slabIndex == NONE) {
+            throw new JobPersistenceException("Trigger " + trigger.getKey()
+                + " is too large for off-heap storage: " + data.length + " bytes.");
+        }
+
+        int id = allocateId();
+        long slot = slab(slabIndex).allocate();
+        writeSlot(slot, data);
+        putLong(id, SLOT, slot);
+        putInt(id, SLOT_LENGTH, data.length);
+        putLong(id, NEXT_FIRE_TIME, toMillis(trigger.getNextFireTime()));
+        putInt(id, PRIORITY, trigger.getPriority());
+        putInt(id, QUEUE_POSITION, NONE);
+        putInt(id, CALENDAR, trigger.getCalendarName() == null ? NONE : calendars.acquire(trigger.getCalendarName()));
+        setState(id, state);
+
+        TriggerKey key = trigger.getKey();
+        int hash = hash(key);
+        putInt(id, HASH, hash);
+        putInt(id, HASH_NEXT, buckets.get(hash & bucketMask));
+        buckets.put(hash & bucketMask, id);
+
+        int job = jobs.acquire(trigger.getJobKey());
+        putInt(id, JOB, job);
+        link(id, jobs, job, JOB_PREV, JOB_NEXT);
+
+        if (groups.find(key.getGroup()) == NONE) {
+            groupIndex.add(key.getGroup());
+        }
+        int group = groups.acquire(key.getGroup());
+        putInt(id, GROUP, group);
+        link(id, groups, group, GROUP_PREV, GROUP_NEXT);
+
+        if (++size > buckets.capacity() - (buckets.capacity() >> 2)) {
+            rehash(buckets.capacity() * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Store the given trigger in place of the one with the given id, which
+     * has the same key, job and calendar.  Its place in the time index is
+     * updated if it is in it.
+     */
+    void update(int id, OperableTrigger trigger) {
+        byte[] data;
+        try {
+            data = encode(trigger);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't serialize trigger " + trigger.getKey()
+                + " for off-heap storage: " + e, e);
+        }
+
+        long slot = getLong(id, SLOT);
+        int slabIndex = slabIndex(data.length);
+        if (slabIndex != slabIndex(slot)) {
+            if (slabIndex == NONE) {
+                throw new IllegalStateException("Trigger " + trigger.getKey()
+                    + " is too large for off-heap storage: " + data.length + " bytes.");
+            }
+            slabs[slabIndex(slot)].free(slot);
+            slot = slab(slabIndex).allocate();
+            putLong(id, SLOT, slot);
+        }
+        writeSlot(slot, data);
+        putInt(id, SLOT_LENGTH, data.length);
+        putInt(id, PRIORITY, trigger.getPriority());
+        putLong(id, NEXT_FIRE_TIME, toMillis(trigger.getNextFireTime()));
+
+        int position = getInt(id, QUEUE_POSITION);
+        if (position != NONE) {
+            siftDown(position);
+            siftUp(getInt(id, QUEUE_POSITION));
+        }
+    }
+
+    /**
+     * Remove the trigger with the given id from the table and all its
+     * indexes.  The id may then be reused.
+     */
+    void remove(int id) {
+        dequeue(id);
+
+        int hash = getInt(id, HASH);
+        int prev = NONE;
+        for (int next = buckets.get(hash & bucketMask); next != id; next = getInt(next, HASH_NEXT)) {
+            prev = next;
+        }
+        if (prev == NONE) {
+            buckets.put(hash & bucketMask, getInt(id, HASH_NEXT));
+        } else {
+            putInt(prev, HASH_NEXT, getInt(id, HASH_NEXT));
+        }
+
+        unlink(id, jobs, getInt(id, JOB), JOB_PREV, JOB_NEXT);
+        jobs.release(getInt(id, JOB));
+        int group = getInt(id, GROUP);
+        String groupName = groups.get(group);
+        unlink(id, groups, group, GROUP_PREV, GROUP_NEXT);
+        groups.release(group);
+        if (groups.find(groupName) == NONE) {
+            groupIndex.remove(groupName);
+        }
+        int calendar = getInt(id, CALENDAR);
+        if (calendar != NONE) {
+            calendars.release(calendar);
+        }
+
+        long slot = getLong(id, SLOT);
+        slabs[slabIndex(slot)].free(slot);
+
+        setState(id, STATE_FREE);
+        putInt(id, HASH_NEXT, freeIds);
+        freeIds = id;
+        size--;
+    }
+
+    /**
+     * @return a new copy of the trigger with the given id.
+     */
+    OperableTrigger get(int id) {
+        long slot = getLong(id, SLOT);
+        Slab slab = slabs[slabIndex(slot)];
+        ByteBuffer page = slab.page(slot);
+        int offset = slab.offset(slot);
+        int length = getInt(id, SLOT_LENGTH);
+        int dataOffset = 4 + 2 * page.getInt(offset);
+
+        byte[] data = new byte[length - dataOffset];
+        ByteBuffer src = page.duplicate();
+        src.position(offset + dataOffset);
+        src.get(data);
+        try {
+            return (OperableTrigger) new DescriptorTableInputStream(new ByteArrayInputStream(data)).readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't deserialize off-heap trigger: " + e, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Couldn't deserialize off-heap trigger: " + e, e);
+        }
+    }
+
+    TriggerKey getKey(int id) {
+        long slot = getLong(id, SLOT);
+        Slab slab = slabs[slabIndex(slot)];
+        ByteBuffer page = slab.page(slot);
+        int offset = slab.offset(slot);
+        int length = page.getInt(offset);
+        char[] name = new char[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = page.getChar(offset + 4 + 2 * i);
+        }
+        return new TriggerKey(new String(name), groups.get(getInt(id, GROUP)));
+    }
+
+    JobKey getJobKey(int id) {
+        return jobs.get(getInt(id, JOB));
+    }
+
+    String getCalendarName(int id) {
+        int calendar = getInt(id, CALENDAR);
+        return calendar == NONE ? null : calendars.get(calendar);
+    }
+
+    /**
+     * @return the trigger's next fire time, or <code>NO_FIRE_TIME</code>.
+     */
+    long getNextFireTime(int id) {
+        return getLong(id, NEXT_FIRE_TIME);
+    }
+
+    int getState(int id) {
+        return headerPage(id).get(headerOffset(id) + STATE);
+    }
+
+    void setState(int id, int state) {
+        headerPage(id).put(headerOffset(id) + STATE, (byte) state);
+    }
+
+    /**
+     * @return the first of the triggers of the given job, or <code>NONE</code>;
+     *         the others follow by <code>{@link #nextOfJob(int)}</code>.
+     */
+    int firstOfJob(JobKey jobKey) {
+        int job = jobs.find(jobKey);
+        return job == NONE ? NONE : jobs.head(job);
+    }
+
+    int nextOfJob(int id) {
+        return getInt(id, JOB_NEXT);
+    }
+
+    /**
+     * @return the first of the triggers in the given group, or
+     *         <code>NONE</code>; the others follow by
+     *         <code>{@link #nextOfGroup(int)}</code>.
+     */
+    int firstOfGroup(String group) {
+        int id = groups.find(group);
+        return id == NONE ? NONE : groups.head(id);
+    }
+
+    int nextOfGroup(int id) {
+        return getInt(id, GROUP_NEXT);
+    }
+
+    /**
+     * @return the groups that hold at least one trigger.
+     */
+    List<String> getGroupNames() {
+        return new LinkedList<String>(groups.names.keySet());
+    }
+
+    /**
+     * @return the groups that hold at least one trigger and match the given
+     *         operator and value.
+     */
+    List<String> getGroupNames(StringOperatorName operator, String compareTo) {
+        return groupIndex.matching(operator, compareTo);
+    }
+
+    boolean isCalendarReferenced(String calendarName) {
+        return calendars.find(calendarName) != NONE;
+    }
+
+    /**
+     * @return the ids of the triggers that use the given calendar.
+     */
+    List<Integer> findByCalendar(String calendarName) {
+        List<Integer> ids = new ArrayList<Integer>();
+        int calendar = calendars.find(calendarName);
+        if (calendar != NONE) {
+            for (int id = 0; id < highWater; id++) {
+                if (getState(id) != STATE_FREE && getInt(id, CALENDAR) == calendar) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /*
+     * Time index.
+     */
+
+    boolean isQueued(int id) {
+        return getInt(id, QUEUE_POSITION) != NONE;
+    }
+
+    void enqueue(int id) {
+        if (isQueued(id)) {
+            return;
+        }
+        if (queueSize == queue.capacity()) {
+            queue = copyOf(queue, queue.capacity() * 2, NONE);
+        }
+        queue.put(queueSize, id);
+        putInt(id, QUEUE_POSITION, queueSize);
+        siftUp(queueSize++);
+    }
+
+    void dequeue(int id) {
+        int position = getInt(id, QUEUE_POSITION);
+        if (position == NONE) {
+            return;
+        }
+        putInt(id, QUEUE_POSITION, NONE);
+        int last = queue.get(--queueSize);
+        if (position != queueSize) {
+            queue.put(position, last);
+            putInt(last, QUEUE_POSITION, position);
+            siftDown(position);
+            siftUp(getInt(last, QUEUE_POSITION));
+        }
+    }
+
+    /**
+     * Remove and return the first trigger in the time index.
+     *
+     * @return its id, or <code>NONE</code> if the index is empty.
+     */
+    int poll() {
+        if (queueSize == 0) {
+            return NONE;
+        }
+        int id = queue.get(0);
+        dequeue(id);
+        return id;
+    }
+
+    int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * The ids of the triggers in the time index whose next fire time is no
+     * later than the given time, in the order they would be polled.
+     */
+    List<Integer> queuedNoLaterThan(long time) {
+        List<Integer> ids = new ArrayList<Integer>();
+        if (queueSize == 0) {
+            return ids;
+        }
+        // the due entries of the heap form a subtree at its root
+        LinkedList<Integer> positions = new LinkedList<Integer>();
+        positions.add(0);
+        while (!positions.isEmpty()) {
+            int position = positions.removeLast();
+            int id = queue.get(position);
+            if (getLong(id, NEXT_FIRE_TIME) > time) {
+                continue;
+            }
+            ids.add(id);
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < queueSize; child++) {
+                positions.add(child);
+            }
+        }
+        Collections.sort(ids, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return OffHeapTriggerTable.this.compare(a, b);
+            }
+        });
+        return ids;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Helpers.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private void siftUp(int position) {
+        int id = queue.get(position);
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = queue.get(parentPosition);
+            if (compare(id, parent) >= 0) {
+                break;
+            }
+            queue.put(position, parent);
+            putInt(parent, QUEUE_POSITION, position);
+            position = parentPosition;
+        }
+        queue.put(position, id);
+        putInt(id, QUEUE_POSITION, position);
+    }
+
+    private void siftDown(int position) {
+        int id = queue.get(position);
+        int half = queueSize >>> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = queue.get(childPosition);
+            if (childPosition + 1 < queueSize && compare(queue.get(childPosition + 1), child) < 0) {
+                child = queue.get(++childPosition);
+            }
+            if (compare(id, child) <= 0) {
+                break;
+            }
+            queue.put(position, child);
+            putInt(child, QUEUE_POSITION, position);
+            position = childPosition;
+        }
+        queue.put(position, id);
+        putInt(id, QUEUE_POSITION, position);
+    }
+
+    /**
+     * The order of <code>{@link org.quartz.Trigger.TriggerTimeComparator}</code>:
+     * by next fire time, then highest priority, then key.
+     */
+    private int compare(int a, int b) {
+        long timeA = getLong(a, NEXT_FIRE_TIME);
+        long timeB = getLong(b, NEXT_FIRE_TIME);
+        if (timeA != timeB) {
+            return timeA < timeB ? -1 : 1;
+        }
+
+        int priorityA = getInt(a, PRIORITY);
+        int priorityB = getInt(b, PRIORITY);
+        if (priorityA != priorityB) {
+            return priorityA > priorityB ? -1 : 1;
+        }
+
+        int groupA = getInt(a, GROUP);
+        int groupB = getInt(b, GROUP);
+        if (groupA != groupB) {
+            String nameA = groups.get(groupA);
+            String nameB = groups.get(groupB);
+            boolean defaultA = nameA.equals(Key.DEFAULT_GROUP);
+            boolean defaultB = nameB.equals(Key.DEFAULT_GROUP);
+            if (defaultA != defaultB) {
+                return defaultA ? -1 : 1;
+            }
+            return nameA.compareTo(nameB);
+        }
+
+        long slotA = getLong(a, SLOT);
+        long slotB = getLong(b, SLOT);
+        Slab slabA = slabs[slabIndex(slotA)];
+        Slab slabB = slabs[slabIndex(slotB)];
+        ByteBuffer pageA = slabA.page(slotA);
+        ByteBuffer pageB = slabB.page(slotB);
+        int offsetA = slabA.offset(slotA);
+        int offsetB = slabB.offset(slotB);
+        int lengthA = pageA.getInt(offsetA);
+        int lengthB = pageB.getInt(offsetB);
+        for (int i = 0, n = Math.min(lengthA, lengthB); i < n; i++) {
+            char charA = pageA.getChar(offsetA + 4 + 2 * i);
+            char charB = pageB.getChar(offsetB + 4 + 2 * i);
+            if (charA != charB) {
+                return charA - charB;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    private boolean nameEquals(int id, String name) {
+        long slot = getLong(id, SLOT);
+        Slab slab = slabs[slabIndex(slot)];
+        ByteBuffer page = slab.page(slot);
+        int offset = slab.offset(slot);
+        if (page.getInt(offset) != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (page.getChar(offset + 4 + 2 * i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void link(int id, Names<?> names, int list, int prevField, int nextField) {
+        int head = names.head(list);
+        putInt(id, prevField, NONE);
+        putInt(id, nextField, head);
+        if (head != NONE) {
+            putInt(head, prevField, id);
+        }
+        names.setHead(list, id);
+    }
+
+    private void unlink(int id, Names<?> names, int list, int prevField, int nextField) {
+        int prev = getInt(id, prevField);
+        int next = getInt(id, nextField);
+        if (prev == NONE) {
+            names.setHead(list, next);
+        } else {
+            putInt(prev, nextField, next);
+        }
+        if (next != NONE) {
+            putInt(next, prevField, prev);
+        }
+    }
+
+    private void rehash(int capacity) {
+        buckets = newIntBuffer(capacity, NONE);
+        bucketMask = capacity - 1;
+        for (int id = 0; id < highWater; id++) {
+            if (getState(id) != STATE_FREE) {
+                int bucket = getInt(id, HASH) & bucketMask;
+                putInt(id, HASH_NEXT, buckets.get(bucket));
+                buckets.put(bucket, id);
+            }
+        }
+    }
+
+    private int allocateId() {
+        if (freeIds != NONE) {
+            int id = freeIds;
+            freeIds = getInt(id, HASH_NEXT);
+            return id;
+        }
+
+        int id = highWater++;
+        int page = id >>> HEADER_PAGE_SHIFT;
+        if (page == headerPages.length) {
+            headerPages = Arrays.copyOf(headerPages, page * 2);
+        }
+        if (headerPages[page] == null) {
+            headerPages[page] = ByteBuffer.allocateDirect(HEADER_SIZE << HEADER_PAGE_SHIFT);
+        }
+        return id;
+    }
+
+    private ByteBuffer headerPage(int id) {
+        return headerPages[id >>> HEADER_PAGE_SHIFT];
+    }
+
+    private static int headerOffset(int id) {
+        return (id & HEADER_PAGE_MASK) * HEADER_SIZE;
+    }
+
+    private int getInt(int id, int field) {
+        return headerPage(id).getInt(headerOffset(id) + field);
+    }
+
+    private void putInt(int id, int field, int value) {
+        headerPage(id).putInt(headerOffset(id) + field, value);
+    }
+
+    private long getLong(int id, int field) {
+        return headerPage(id).getLong(headerOffset(id) + field);
+    }
+
+    private void putLong(int id, int field, long value) {
+        headerPage(id).putLong(headerOffset(id) + field, value);
+    }
+
+    private Slab slab(int index) {
+        if (slabs[index] == null) {
+            slabs[index] = new Slab(SLOT_SIZES[index], index);
+        }
+        return slabs[index];
+    }
+
+    private static int slabIndex(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int slabIndex(int length) {
+        int index = Arrays.binarySearch(SLOT_SIZES, length);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < SLOT_SIZES.length ? index : NONE;
+    }
+
+    private void writeSlot(long slot, byte[] data) {
+        Slab slab = slabs[slabIndex(slot)];
+        ByteBuffer dest = slab.page(slot).duplicate();
+        dest.position(slab.offset(slot));
+        dest.put(data);
+    }
+
+    private static int hash(TriggerKey key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static long toMillis(Date date) {
+        return date == null ? NO_FIRE_TIME : date.getTime();
+    }
+
+    private static IntBuffer newIntBuffer(int capacity, int fill) {
+        IntBuffer buffer = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+        for (int i = 0; i < capacity; i++) {
+            buffer.put(i, fill);
+        }
+        return buffer;
+    }
+
+    private static IntBuffer copyOf(IntBuffer buffer, int capacity, int fill) {
+        IntBuffer copy = newIntBuffer(capacity, fill);
+        IntBuffer src = buffer.duplicate();
+        src.clear();
+        copy.put(src);
+        copy.clear();
+        return copy;
+    }
+
+    /**
+     * The trigger's name as a length and its chars, so that keys can be
+     * compared without deserializing, followed by the serialized trigger.
+     */
+    private byte[] encode(OperableTrigger trigger) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        String name = trigger.getKey().getName();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(name.length());
+        header.writeChars(name);
+        header.flush();
+
+        ObjectOutputStream out = new DescriptorTableOutputStream(bytes);
+        out.writeObject(trigger);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the id of each class descriptor in the table instead of the
+     * descriptor itself.
+     */
+    private class DescriptorTableOutputStream extends ObjectOutputStream {
+
+        DescriptorTableOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeStreamHeader() {
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            Class<?> cl = desc.forClass();
+            Integer id = descriptorIds.get(cl);
+            if (id == null) {
+                id = descriptors.size();
+                descriptors.add(desc);
+                descriptorIds.put(cl, id);
+            }
+            writeInt(id);
+        }
+    }
+
+    private class DescriptorTableInputStream extends ObjectInputStream {
+
+        DescriptorTableInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void readStreamHeader() {
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException {
+            return descriptors.get(readInt());
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) {
+            return desc.forClass();
+        }
+    }
+
+    /**
+     * Slots of one size, in direct pages, that serialized triggers are
+     * stored in.  Free slots are chained through their first four bytes.
+     */
+    private static class Slab {
+
+        final int slotSize;
+        private final long slabBits;
+        private final int slotsPerPage;
+        private ByteBuffer[] pages = new ByteBuffer[4];
+        private int highWater;
+        private int free = NONE;
+
+        Slab(int slotSize, int index) {
+            this.slotSize = slotSize;
+            this.slabBits = (long) index << 32;
+            this.slotsPerPage = Math.max(1, SLAB_PAGE_SIZE / slotSize);
+        }
+
+        long allocate() {
+            int slot;
+            if (free != NONE) {
+                slot = free;
+                free = pages[slot / slotsPerPage].getInt((slot % slotsPerPage) * slotSize);
+            } else {
+                slot = highWater++;
+                int page = slot / slotsPerPage;
+                if (page == pages.length) {
+                    pages = Arrays.copyOf(pages, page * 2);
+                }
+                if (pages[page] == null) {
+                    pages[page] = ByteBuffer.allocateDirect(slotsPerPage * slotSize);
+                }
+            }
+            return slabBits | slot;
+        }
+
+        void free(long address) {
+            int slot = (int) address;
+            page(address).putInt(offset(address), free);
+            free = slot;
+        }
+
+        ByteBuffer page(long address) {
+            return pages[(int) address / slotsPerPage];
+        }
+
+        int offset(long address) {
+            return ((int) address % slotsPerPage) * slotSize;
+        }
+
+        long getAllocatedBytes() {
+            long bytes = 0;
+            for (ByteBuffer page : pages) {
+                if (page != null) {
+                    bytes += page.capacity();
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Interns the job keys, groups and calendar names of the triggers to
+     * ids, and holds the head of the list of triggers for each, for as long
+     * as any trigger refers to it.
+     */
+    private static class Names<K> {
+
+        private final Map<K, Integer> names = new HashMap<K, Integer>();
+        private final List<K> values = new ArrayList<K>();
+        private int[] heads = new int[16];
+        private int[] counts = new int[16];
+        private int[] free = new int[16];
+        private int freeCount;
+
+        void clear() {
+            names.clear();
+            values.clear();
+            freeCount = 0;
+        }
+
+        int find(K name) {
+            Integer id = names.get(name);
+            return id == null ? NONE : id;
+        }
+
+        int acquire(K name) {
+            int id = find(name);
+            if (id == NONE) {
+                if (freeCount > 0) {
+                    id = free[--freeCount];
+                    values.set(id, name);
+                } else {
+                    id = values.size();
+                    values.add(name);
+                    if (id == heads.length) {
+                        heads = Arrays.copyOf(heads, id * 2);
+                        counts = Arrays.copyOf(counts, id * 2);
+                    }
+                }
+                heads[id] = NONE;
+                counts[id] = 0;
+                names.put(name, id);
+            }
+            counts[id]++;
+            return id;
+        }
+
+        void release(int id) {
+            if (--counts[id] == 0) {
+                names.remove(values.get(id));
+                values.set(id, null);
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, freeCount * 2);
+                }
+                free[freeCount++] = id;
+            }
+        }
+
+        K get(int id) {
+            return values.get(id);
+        }
+
+        int head(int id) {
+            return heads[id];
+        }
+
+        void setHead(int id, int head) {
+            heads[id] = head;
+        }
+    }
+}
@@ -0,0 +1,2464 @@
+/* 
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.Calendar;
+import org.quartz.DelayedTask;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.Trigger.TriggerTimeComparator;
+import org.quartz.impl.JobDetailImpl;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
+import org.quartz.spi.BatchCompletionJobStore;
+import org.quartz.spi.DelayedTaskStore;
+import org.quartz.spi.FairShareJobStore;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.RateLimitedJobStore;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.SnapshotJobStore;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerAcquisitionFilter;
+import org.quartz.spi.TriggerFiredResult;
+import org.quartz.utils.ConcurrencyLimits;
+import org.quartz.utils.FairShares;
+import org.quartz.utils.RateLimits;
+import org.quartz.utils.Key;
+import org.quartz.utils.KeyInterner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.quartz.impl.matchers.EverythingMatcher.allTriggers;
+
+/**
+ * <p>
+ * Contains base functionality for <code>{@link org.quartz.spi.JobStore}</code>s
+ * that keep their jobs and triggers in RAM, such as
+ * <code>{@link RAMJobStore}</code> and <code>{@link JournaledRAMJobStore}</code>.
+ * </p>
+ * 
+ * <p>
+ * The <code>initialize</code> method is left to subclasses, so that only
+ * those that can fail to initialize declare
+ * <code>{@link SchedulerConfigException}</code>.
+ * </p>
+ * 
+ * @see RAMJobStore
+ * @author James House
+ * @author Sharada Jambula
+ * @author Eric Mueller
+ */
+public abstract class RAMJobStoreSupport implements JobStore, DelayedTaskStore, RateLimitedJobStore, FairShareJobStore,
+        BatchCompletionJobStore, SnapshotJobStore {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Data members.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    protected HashMap<JobKey, JobWrapper> jobsByKey = new HashMap<JobKey, JobWrapper>(1000);
+
+    protected HashMap<TriggerKey, TriggerWrapper> triggersByKey = new HashMap<TriggerKey, TriggerWrapper>(1000);
+
+    protected HashMap<String, HashMap<JobKey, JobWrapper>> jobsByGroup = new HashMap<String, HashMap<JobKey, JobWrapper>>(25);
+
+    protected HashMap<String, HashMap<TriggerKey, TriggerWrapper>> triggersByGroup = new HashMap<String, HashMap<TriggerKey, TriggerWrapper>>(25);
+
+    private final GroupIndex jobGroupIndex = new GroupIndex();
+
+    private final GroupIndex triggerGroupIndex = new GroupIndex();
+
+    protected TriggerTimeIndex timeTriggers = new TriggerTimeIndex();
+
+    protected HashMap<String, Calendar> calendarsByName = new HashMap<String, Calendar>(25);
+
+    protected Map<JobKey, List<TriggerWrapper>> triggersByJob = new HashMap<JobKey, List<TriggerWrapper>>(1000);
+
+    protected final Object lock = new Object();
+
+    protected HashSet<String> pausedTriggerGroups = new HashSet<String>();
+
+    protected HashSet<String> pausedJobGroups = new HashSet<String>();
+
+    protected HashSet<JobKey> blockedJobs = new HashSet<JobKey>();
+
+    protected ConcurrencyLimits concurrencyLimits = new ConcurrencyLimits();
+
+    // executions of concurrency limited jobs, by fire instance id
+    private final HashMap<String, JobKey> limitedExecutions = new HashMap<String, JobKey>();
+
+    private final ConcurrencyLimits.Counts limitedExecutionCounts = new ConcurrencyLimits.Counts();
+
+    protected RateLimits rateLimits = new RateLimits();
+
+    // buckets of the rate limits, as next permit times
+    private final HashMap<RateLimits.RateLimit, Long> nextPermitTimes = new HashMap<RateLimits.RateLimit, Long>();
+
+    protected FairShares fairShares = new FairShares();
+
+    protected boolean internKeys = false;
+
+    private final KeyInterner<JobKey> jobKeyInterner = new KeyInterner<JobKey>();
+
+    private final DelayedTaskQueue delayedTasks = new DelayedTaskQueue();
+    
+    protected long misfireThreshold = 5000l;
+
+    protected SchedulerSignaler signaler;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Constructors.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new <code>RAMJobStoreSupport</code>.
+     * </p>
+     */
+    public RAMJobStoreSupport() {
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Interface.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    /**
+     * <p>
+     * Set up what every RAM job store needs before it is used.  Called by
+     * the <code>initialize</code> method of subclasses.
+     * </p>
+     */
+    protected void initializeStore(SchedulerSignaler schedSignaler) {
+        this.signaler = schedSignaler;
+    }
+
+    public void schedulerStarted() {
+        // nothing to do
+    }
+
+    public void schedulerPaused() {
+        // nothing to do
+    }
+    
+    public void schedulerResumed() {
+        // nothing to do
+    }
+    
+    public long getMisfireThreshold() {
+        return misfireThreshold;
+    }
+
+    /**
+     * <p>
+     * Set the limits on concurrent executions per job group, as a
+     * comma-separated list of <code>group=limit</code> pairs. Triggers of a
+     * group that is executing as many jobs as allowed are not acquired until
+     * one of them completes.
+     * </p>
+     *
+     * @see ConcurrencyLimits
+     * @see org.quartz.ConcurrentExecutionLimit
+     */
+    public void setJobGroupConcurrencyLimits(String jobGroupConcurrencyLimits) {
+        concurrencyLimits.setJobGroupLimits(jobGroupConcurrencyLimits);
+    }
+
+    /**
+     * <p>
+     * Set the rate limits per trigger group, as a comma-separated list of
+     * <code>group=rate</code> or <code>group=rate:burst</code> pairs, the rate
+     * being in fires per second. A trigger that would fire its group faster
+     * is deferred until the limit allows it to fire.
+     * </p>
+     *
+     * @see RateLimits
+     */
+    public void setTriggerGroupRateLimits(String triggerGroupRateLimits) {
+        rateLimits.setTriggerGroupLimits(triggerGroupRateLimits);
+    }
+
+    /**
+     * <p>
+     * Set the rate limits per job group, as a comma-separated list of
+     * <code>group=rate</code> or <code>group=rate:burst</code> pairs, the rate
+     * being in fires per second. A trigger that would fire its job's group
+     * faster is deferred until the limit allows it to fire.
+     * </p>
+     *
+     * @see RateLimits
+     */
+    public void setJobGroupRateLimits(String jobGroupRateLimits) {
+        rateLimits.setJobGroupLimits(jobGroupRateLimits);
+    }
+
+    public long getThrottledFireCount() {
+        return rateLimits.getThrottledFireCount();
+    }
+
+    public Map<String, Long> getThrottledFireCounts() {
+        return rateLimits.getThrottledFireCounts();
+    }
+
+    /**
+     * <p>
+     * Set whether triggers are acquired fairly between trigger groups, in
+     * proportion to their weights, rather than strictly in fire time order,
+     * so that a group with many triggers due does not hold back the others.
+     * </p>
+     *
+     * @see FairShares
+     */
+    public void setFairTriggerAcquisition(boolean fairTriggerAcquisition) {
+        fairShares.setEnabled(fairTriggerAcquisition);
+    }
+
+    /**
+     * <p>
+     * Set the weights of trigger groups for fair acquisition, as a
+     * comma-separated list of <code>group=weight</code> pairs. Groups not
+     * listed have a weight of 1.
+     * </p>
+     *
+     * @see #setFairTriggerAcquisition(boolean)
+     */
+    public void setTriggerGroupWeights(String triggerGroupWeights) {
+        fairShares.setWeights(triggerGroupWeights);
+    }
+
+    public void setTriggerGroupWeight(String groupName, int weight) {
+        fairShares.setWeight(groupName, weight);
+    }
+
+    public Map<String, Integer> getTriggerGroupWeights() {
+        return fairShares.getWeights();
+    }
+
+    /**
+     * The number of milliseconds by which a trigger must have missed its
+     * next-fire-time, in order for it to be considered "misfired" and thus
+     * have its misfire instruction applied.
+     * 
+     * @param misfireThreshold the new misfire threshold
+     */
+    @SuppressWarnings("UnusedDeclaration")
+    public void setMisfireThreshold(long misfireThreshold) {
+        if (misfireThreshold < 1) {
+            throw new IllegalArgumentException("Misfire threshold must be larger than 0");
+        }
+        this.misfireThreshold = misfireThreshold;
+    }
+
+    public boolean isInternKeys() {
+        return internKeys;
+    }
+
+    /**
+     * Whether each stored trigger should share the job store's instance of
+     * its job's key, rather than keeping its own copy. Saves a key per
+     * trigger when many triggers fire the same jobs, and lets the lookups
+     * made while acquiring and firing triggers compare keys by identity.
+     * 
+     * @param internKeys whether job keys are interned
+     */
+    public void setInternKeys(boolean internKeys) {
+        this.internKeys = internKeys;
+    }
+
+    /**
+     * <p>
+     * Called by the QuartzScheduler to inform the <code>JobStore</code> that
+     * it should free up all of it's resources because the scheduler is
+     * shutting down.
+     * </p>
+     */
+    public void shutdown() {
+    }
+
+    public boolean supportsPersistence() {
+        return false;
+    }
+
+    /**
+     * Clear (delete!) all scheduling data - all {@link Job}s, {@link Trigger}s
+     * {@link Calendar}s.
+     * 
+     * @throws JobPersistenceException
+     */
+    public void clearAllSchedulingData() throws JobPersistenceException {
+
+        synchronized (lock) {
+            // unschedule jobs (delete triggers)
+            List<String> lst = getTriggerGroupNames();
+            for (String group: lst) {
+                Set<TriggerKey> keys = getTriggerKeys(GroupMatcher.triggerGroupEquals(group));
+                for (TriggerKey key: keys) {
+                    removeTrigger(key);
+                }
+            }
+            // delete jobs
+            lst = getJobGroupNames();
+            for (String group: lst) {
+                Set<JobKey> keys = getJobKeys(GroupMatcher.jobGroupEquals(group));
+                for (JobKey key: keys) {
+                    removeJob(key);
+                }
+            }
+            // delete calendars
+            lst = getCalendarNames();
+            for(String name: lst) {
+                removeCalendar(name);
+            }
+            delayedTasks.clear();
+        }
+    }
+    
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.JobDetail}</code> and <code>{@link org.quartz.Trigger}</code>.
+     * </p>
+     * 
+     * @param newJob
+     *          The <code>JobDetail</code> to be stored.
+     * @param newTrigger
+     *          The <code>Trigger</code> to be stored.
+     * @throws ObjectAlreadyExistsException
+     *           if a <code>Job</code> with the same name/group already
+     *           exists.
+     */
+    public void storeJobAndTrigger(JobDetail newJob,
+            OperableTrigger newTrigger) throws JobPersistenceException {
+        storeJob(newJob, false);
+        storeTrigger(newTrigger, false);
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Job}</code>.
+     * </p>
+     * 
+     * @param newJob
+     *          The <code>Job</code> to be stored.
+     * @param replaceExisting
+     *          If <code>true</code>, any <code>Job</code> existing in the
+     *          <code>JobStore</code> with the same name & group should be
+     *          over-written.
+     * @throws ObjectAlreadyExistsException
+     *           if a <code>Job</code> with the same name/group already
+     *           exists, and replaceExisting is set to false.
+     */
+    public void storeJob(JobDetail newJob,
+            boolean replaceExisting) throws ObjectAlreadyExistsException {
+        JobWrapper jw = new JobWrapper((JobDetail)newJob.clone());
+
+        boolean repl = false;
+
+        synchronized (lock) {
+            if (jobsByKey.get(jw.key) != null) {
+                if (!replaceExisting) {
+                    throw new ObjectAlreadyExistsException(newJob);
+                }
+                repl = true;
+            }
+
+            if (internKeys) {
+                jw.key = jobKeyInterner.intern(jw.key);
+                if (jw.jobDetail instanceof JobDetailImpl) {
+                    ((JobDetailImpl) jw.jobDetail).setKey(jw.key);
+                }
+            }
+
+            if (!repl) {
+                // get job group
+                HashMap<JobKey, JobWrapper> grpMap = jobsByGroup.get(newJob.getKey().getGroup());
+                if (grpMap == null) {
+                    grpMap = new HashMap<JobKey, JobWrapper>(100);
+                    jobsByGroup.put(newJob.getKey().getGroup(), grpMap);
+                    jobGroupIndex.add(newJob.getKey().getGroup());
+                }
+                // add to jobs by group
+                grpMap.put(jw.key, jw);
+                // add to jobs by FQN map
+                jobsByKey.put(jw.key, jw);
+            } else {
+                // update job detail
+                JobWrapper orig = jobsByKey.get(jw.key);
+                orig.jobDetail = jw.jobDetail; // already cloned
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Job}</code> with the given
+     * name, and any <code>{@link org.quartz.Trigger}</code> s that reference
+     * it.
+     * </p>
+     *
+     * @return <code>true</code> if a <code>Job</code> with the given name &
+     *         group was found and removed from the store.
+     */
+    public boolean removeJob(JobKey jobKey) {
+
+        boolean found = false;
+
+        synchronized (lock) {
+            List<OperableTrigger> triggersOfJob = getTriggersForJob(jobKey);
+            for (OperableTrigger trig: triggersOfJob) {
+                this.removeTrigger(trig.getKey());
+                found = true;
+            }
+            
+            found = (jobsByKey.remove(jobKey) != null) | found;
+            if (found) {
+
+                HashMap<JobKey, JobWrapper> grpMap = jobsByGroup.get(jobKey.getGroup());
+                if (grpMap != null) {
+                    grpMap.remove(jobKey);
+                    if (grpMap.size() == 0) {
+                        jobsByGroup.remove(jobKey.getGroup());
+                        jobGroupIndex.remove(jobKey.getGroup());
+                    }
+                }
+                jobKeyInterner.release(jobKey);
+            }
+        }
+
+        return found;
+    }
+
+    public boolean removeJobs(List<JobKey> jobKeys)
+            throws JobPersistenceException {
+        boolean allFound = true;
+
+        synchronized (lock) {
+            for(JobKey key: jobKeys)
+                allFound = removeJob(key) && allFound;
+        }
+
+        return allFound;
+    }
+
+    public boolean removeTriggers(List<TriggerKey> triggerKeys)
+            throws JobPersistenceException {
+        boolean allFound = true;
+
+        synchronized (lock) {
+            for(TriggerKey key: triggerKeys)
+                allFound = removeTrigger(key) && allFound;
+        }
+
+        return allFound;
+    }
+
+    public void storeJobsAndTriggers(
+            Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace)
+            throws JobPersistenceException {
+
+        synchronized (lock) {
+            // make sure there are no collisions...
+            if(!replace) {
+                for(Entry<JobDetail, Set<? extends Trigger>> e: triggersAndJobs.entrySet()) {
+                    if(checkExists(e.getKey().getKey()))
+                        throw new ObjectAlreadyExistsException(e.getKey());
+                    for(Trigger trigger: e.getValue()) {
+                        if(checkExists(trigger.getKey()))
+                            throw new ObjectAlreadyExistsException(trigger);
+                    }
+                }
+            }
+            // do bulk add...
+            for(Entry<JobDetail, Set<? extends Trigger>> e: triggersAndJobs.entrySet()) {
+                storeJob(e.getKey(), true);
+                for(Trigger trigger: e.getValue()) {
+                    storeTrigger((OperableTrigger) trigger, true);
+                }
+            }
+        }
+        
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Trigger}</code>.
+     * </p>
+     *
+     * @param newTrigger
+     *          The <code>Trigger</code> to be stored.
+     * @param replaceExisting
+     *          If <code>true</code>, any <code>Trigger</code> existing in
+     *          the <code>JobStore</code> with the same name & group should
+     *          be over-written.
+     * @throws ObjectAlreadyExistsException
+     *           if a <code>Trigger</code> with the same name/group already
+     *           exists, and replaceExisting is set to false.
+     *
+     * @see #pauseTriggers(org.quartz.impl.matchers.GroupMatcher)
+     */
+    public void storeTrigger(OperableTrigger newTrigger,
+            boolean replaceExisting) throws JobPersistenceException {
+        OperableTrigger trigger = (OperableTrigger)newTrigger.clone();
+
+        synchronized (lock) {
+            if (triggersByKey.get(trigger.getKey()) != null) {
+                if (!replaceExisting) {
+                    throw new ObjectAlreadyExistsException(newTrigger);
+                }
+    
+                removeTrigger(newTrigger.getKey(), false);
+            }
+    
+            if (jobsByKey.get(newTrigger.getJobKey()) == null) {
+                throw new JobPersistenceException("The job ("
+                        + newTrigger.getJobKey()
+                        + ") referenced by the trigger does not exist.");
+            }
+
+            if (internKeys) {
+                trigger.setJobKey(jobKeyInterner.intern(trigger.getJobKey()));
+            }
+            TriggerWrapper tw = new TriggerWrapper(trigger);
+
+            // add to triggers by job
+            List<TriggerWrapper> jobList = triggersByJob.get(tw.jobKey);
+            if(jobList == null) {
+                jobList = new ArrayList<TriggerWrapper>(1);
+                triggersByJob.put(tw.jobKey, jobList);
+            }
+            jobList.add(tw);
+            
+            // add to triggers by group
+            HashMap<TriggerKey, TriggerWrapper> grpMap = triggersByGroup.get(newTrigger.getKey().getGroup());
+            if (grpMap == null) {
+                grpMap = new HashMap<TriggerKey, TriggerWrapper>(100);
+                triggersByGroup.put(newTrigger.getKey().getGroup(), grpMap);
+                triggerGroupIndex.add(newTrigger.getKey().getGroup());
+            }
+            grpMap.put(newTrigger.getKey(), tw);
+            // add to triggers by FQN map
+            triggersByKey.put(tw.key, tw);
+
+            if (pausedTriggerGroups.contains(newTrigger.getKey().getGroup())
+                    || pausedJobGroups.contains(newTrigger.getJobKey().getGroup())) {
+                tw.state = TriggerWrapper.STATE_PAUSED;
+                if (blockedJobs.contains(tw.jobKey)) {
+                    tw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+                }
+            } else if (blockedJobs.contains(tw.jobKey)) {
+                tw.state = TriggerWrapper.STATE_BLOCKED;
+            } else {
+                timeTriggers.add(tw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Trigger}</code> with the
+     * given name.
+     * </p>
+     *
+     * @return <code>true</code> if a <code>Trigger</code> with the given
+     *         name & group was found and removed from the store.
+     */
+    public boolean removeTrigger(TriggerKey triggerKey) {
+        return removeTrigger(triggerKey, true);
+    }
+    
+    private boolean removeTrigger(TriggerKey key, boolean removeOrphanedJob) {
+
+        boolean found;
+
+        synchronized (lock) {
+            // remove from triggers by FQN map
+            TriggerWrapper tw = triggersByKey.remove(key);
+            found = tw != null;
+            if (found) {
+                // remove from triggers by group
+                HashMap<TriggerKey, TriggerWrapper> grpMap = triggersByGroup.get(key.getGroup());
+                if (grpMap != null) {
+                    grpMap.remove(key);
+                    if (grpMap.size() == 0) {
+                        triggersByGroup.remove(key.getGroup());
+                        triggerGroupIndex.remove(key.getGroup());
+                    }
+                }
+                //remove from triggers by job
+                List<TriggerWrapper> jobList = triggersByJob.get(tw.jobKey);
+                if(jobList != null) {
+                    jobList.remove(tw);
+                    if(jobList.isEmpty()) {
+                        triggersByJob.remove(tw.jobKey);
+                    }
+                }
+               
+                timeTriggers.remove(tw);
+
+                if (removeOrphanedJob) {
+                    JobWrapper jw = jobsByKey.get(tw.jobKey);
+                    List<OperableTrigger> trigs = getTriggersForJob(tw.jobKey);
+                    if ((trigs == null || trigs.size() == 0) && !jw.jobDetail.isDurable()) {
+                        if (removeJob(jw.key)) {
+                            signaler.notifySchedulerListenersJobDeleted(jw.key);
+                        }
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+
+    /**
+     * @see org.quartz.spi.JobStore#replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger)
+     */
+    public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+
+        boolean found;
+
+        synchronized (lock) {
+            // remove from triggers by FQN map
+            TriggerWrapper tw = triggersByKey.remove(triggerKey);
+            found = (tw != null);
+
+            if (found) {
+
+                if (!tw.getTrigger().getJobKey().equals(newTrigger.getJobKey())) {
+                    throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+                }
+
+                // remove from triggers by group
+                HashMap<TriggerKey, TriggerWrapper> grpMap = triggersByGroup.get(triggerKey.getGroup());
+                if (grpMap != null) {
+                    grpMap.remove(triggerKey);
+                    if (grpMap.size() == 0) {
+                        triggersByGroup.remove(triggerKey.getGroup());
+                        triggerGroupIndex.remove(triggerKey.getGroup());
+                    }
+                }
+                
+                //remove from triggers by job
+                List<TriggerWrapper> jobList = triggersByJob.get(tw.jobKey);
+                if(jobList != null) {
+                    jobList.remove(tw);
+                    if(jobList.isEmpty()) {
+                        triggersByJob.remove(tw.jobKey);
+                    }
+                }
+                
+                timeTriggers.remove(tw);
+
+                try {
+                    storeTrigger(newTrigger, false);
+                } catch(JobPersistenceException jpe) {
+                    storeTrigger(tw.getTrigger(), false); // put previous trigger back...
+                    throw jpe;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * <p>
+     * Retrieve the <code>{@link org.quartz.JobDetail}</code> for the given
+     * <code>{@link org.quartz.Job}</code>.
+     * </p>
+     *
+     * @return The desired <code>Job</code>, or null if there is no match.
+     */
+    public JobDetail retrieveJob(JobKey jobKey) {
+        synchronized(lock) {
+            JobWrapper jw = jobsByKey.get(jobKey);
+            return (jw != null) ? (JobDetail)jw.jobDetail.clone() : null;
+        }
+    }
+
+    /**
+     * <p>
+     * Retrieve the given <code>{@link org.quartz.Trigger}</code>.
+     * </p>
+     *
+     * @return The desired <code>Trigger</code>, or null if there is no
+     *         match.
+     */
+    public OperableTrigger retrieveTrigger(TriggerKey triggerKey) {
+        synchronized(lock) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+    
+            return (tw != null) ? (OperableTrigger)tw.getTrigger().clone() : null;
+        }
+    }
+    
+    /**
+     * Determine whether a {@link Job} with the given identifier already 
+     * exists within the scheduler.
+     * 
+     * @param jobKey the identifier to check for
+     * @return true if a Job exists with the given identifier
+     * @throws JobPersistenceException
+     */
+    public boolean checkExists(JobKey jobKey) throws JobPersistenceException {
+        synchronized(lock) {
+            JobWrapper jw = jobsByKey.get(jobKey);
+            return (jw != null);
+        }
+    }
+    
+    /**
+     * Determine whether a {@link Trigger} with the given identifier already 
+     * exists within the scheduler.
+     * 
+     * @param triggerKey the identifier to check for
+     * @return true if a Trigger exists with the given identifier
+     * @throws JobPersistenceException
+     */
+    public boolean checkExists(TriggerKey triggerKey) throws JobPersistenceException {
+        synchronized(lock) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+    
+            return (tw != null);
+        }
+    }
+ 
+    /**
+     * <p>
+     * Get the current state of the identified <code>{@link Trigger}</code>.
+     * </p>
+     *
+     * @see TriggerState#NORMAL
+     * @see TriggerState#PAUSED
+     * @see TriggerState#COMPLETE
+     * @see TriggerState#ERROR
+     * @see TriggerState#BLOCKED
+     * @see TriggerState#NONE
+     */
+    public TriggerState getTriggerState(TriggerKey triggerKey) throws JobPersistenceException {
+        synchronized(lock) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+            
+            if (tw == null) {
+                return TriggerState.NONE;
+            }
+    
+            if (tw.state == TriggerWrapper.STATE_COMPLETE) {
+                return TriggerState.COMPLETE;
+            }
+    
+            if (tw.state == TriggerWrapper.STATE_PAUSED) {
+                return TriggerState.PAUSED;
+            }
+    
+            if (tw.state == TriggerWrapper.STATE_PAUSED_BLOCKED) {
+                return TriggerState.PAUSED;
+            }
+    
+            if (tw.state == TriggerWrapper.STATE_BLOCKED) {
+                return TriggerState.BLOCKED;
+            }
+    
+            if (tw.state == TriggerWrapper.STATE_ERROR) {
+                return TriggerState.ERROR;
+            }
+    
+            return TriggerState.NORMAL;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the state, next fire time and job of each of the identified
+     * <code>{@link Trigger}s</code>, under a single hold of the lock.
+     * </p>
+     */
+    public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws JobPersistenceException {
+        Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>(triggerKeys.size() * 2);
+        synchronized(lock) {
+            for (TriggerKey triggerKey : triggerKeys) {
+                TriggerWrapper tw = triggersByKey.get(triggerKey);
+                if (tw != null) {
+                    summaries.put(tw.key, new TriggerSummary(tw.key, tw.jobKey,
+                        getTriggerState(triggerKey), tw.trigger.getNextFireTime()));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Reset the current state of the identified <code>{@link Trigger}</code>
+     * from {@link TriggerState#ERROR} to {@link TriggerState#NORMAL} or
+     * {@link TriggerState#PAUSED} as appropriate.
+     *
+     * <p>Only affects triggers that are in ERROR state - if identified trigger is not
+     * in that state then the result is a no-op.</p>
+     *
+     * <p>The result will be the trigger returning to the normal, waiting to
+     * be fired state, unless the trigger's group has been paused, in which
+     * case it will go into the PAUSED state.</p>
+     */
+    public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
+
+        synchronized (lock) {
+
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+            // does the trigger exist?
+            if (tw == null || tw.trigger == null) {
+                return;
+            }
+            // is the trigger in error state?
+            if (tw.state != TriggerWrapper.STATE_ERROR) {
+                return;
+            }
+
+            if(pausedTriggerGroups.contains(triggerKey.getGroup())) {
+                tw.state = TriggerWrapper.STATE_PAUSED;
+            }
+            else {
+                tw.state = TriggerWrapper.STATE_WAITING;
+                timeTriggers.add(tw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Get each of the identified jobs with its triggers, under a single hold
+     * of the lock.
+     * </p>
+     */
+    public Map<JobDetail, List<OperableTrigger>> retrieveJobsAndTriggers(Collection<JobKey> jobKeys)
+        throws JobPersistenceException {
+        Map<JobDetail, List<OperableTrigger>> jobs = new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+        synchronized (lock) {
+            for (JobKey jobKey : jobKeys) {
+                JobDetail job = retrieveJob(jobKey);
+                if (job != null) {
+                    jobs.put(job, getTriggersForJob(jobKey));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    public Set<String> getPausedJobGroups() {
+        synchronized (lock) {
+            return new HashSet<String>(pausedJobGroups);
+        }
+    }
+
+    /**
+     * <p>
+     * Put each of the identified triggers in the given state, under a single
+     * hold of the lock.
+     * </p>
+     *
+     * @see SnapshotJobStore#restoreTriggerStates(Map)
+     */
+    public void restoreTriggerStates(Map<TriggerKey, TriggerState> triggerStates) {
+        synchronized (lock) {
+            for (Map.Entry<TriggerKey, TriggerState> entry : triggerStates.entrySet()) {
+                switch (entry.getValue()) {
+                    case PAUSED:
+                        restoreTriggerState(entry.getKey(), TriggerWrapper.STATE_PAUSED);
+                        break;
+                    case ERROR:
+                        restoreTriggerState(entry.getKey(), TriggerWrapper.STATE_ERROR);
+                        break;
+                    case COMPLETE:
+                        restoreTriggerState(entry.getKey(), TriggerWrapper.STATE_COMPLETE);
+                        break;
+                    case NORMAL:
+                    case BLOCKED:
+                        restoreTriggerState(entry.getKey(), TriggerWrapper.STATE_WAITING);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Put the identified trigger, if it is stored, in the given state, and
+     * in or out of the time index to match.  Must be called while holding
+     * the lock.
+     * </p>
+     */
+    protected void restoreTriggerState(TriggerKey triggerKey, int state) {
+        TriggerWrapper tw = triggersByKey.get(triggerKey);
+        if (tw == null) {
+            return;
+        }
+        timeTriggers.remove(tw);
+        tw.state = state;
+        if (state == TriggerWrapper.STATE_WAITING && tw.trigger.getNextFireTime() != null) {
+            timeTriggers.add(tw);
+        }
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Calendar}</code>.
+     * </p>
+     *
+     * @param calendar
+     *          The <code>Calendar</code> to be stored.
+     * @param replaceExisting
+     *          If <code>true</code>, any <code>Calendar</code> existing
+     *          in the <code>JobStore</code> with the same name & group
+     *          should be over-written.
+     * @param updateTriggers
+     *          If <code>true</code>, any <code>Trigger</code>s existing
+     *          in the <code>JobStore</code> that reference an existing
+     *          Calendar with the same name with have their next fire time
+     *          re-computed with the new <code>Calendar</code>.
+     * @throws ObjectAlreadyExistsException
+     *           if a <code>Calendar</code> with the same name already
+     *           exists, and replaceExisting is set to false.
+     */
+    public void storeCalendar(String name,
+            Calendar calendar, boolean replaceExisting, boolean updateTriggers)
+        throws ObjectAlreadyExistsException {
+
+        calendar = (Calendar) calendar.clone();
+        
+        synchronized (lock) {
+    
+            Object obj = calendarsByName.get(name);
+    
+            if (obj != null && !replaceExisting) {
+                throw new ObjectAlreadyExistsException(
+                    "Calendar with name '" + name + "' already exists.");
+            } else if (obj != null) {
+                calendarsByName.remove(name);
+            }
+    
+            calendarsByName.put(name, calendar);
+    
+            if(obj != null && updateTriggers) {
+                for (TriggerWrapper tw : getTriggerWrappersForCalendar(name)) {
+                    OperableTrigger trig = tw.getTrigger();
+                    boolean removed = timeTriggers.remove(tw);
+
+                    trig.updateWithNewCalendar(calendar, getMisfireThreshold());
+
+                    if (removed) {
+                        timeTriggers.add(tw);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Calendar}</code> with the
+     * given name.
+     * </p>
+     *
+     * <p>
+     * If removal of the <code>Calendar</code> would result in
+     * <code>Trigger</code>s pointing to non-existent calendars, then a
+     * <code>JobPersistenceException</code> will be thrown.</p>
+     *       *
+     * @param calName The name of the <code>Calendar</code> to be removed.
+     * @return <code>true</code> if a <code>Calendar</code> with the given name
+     * was found and removed from the store.
+     */
+    public boolean removeCalendar(String calName)
+        throws JobPersistenceException {
+        int numRefs = 0;
+
+        synchronized (lock) {
+            for (TriggerWrapper trigger : triggersByKey.values()) {
+                OperableTrigger trigg = trigger.trigger;
+                if (trigg.getCalendarName() != null
+                        && trigg.getCalendarName().equals(calName)) {
+                    numRefs++;
+                }
+            }
+        }
+
+        if (numRefs > 0) {
+            throw new JobPersistenceException(
+                    "Calender cannot be removed if it referenced by a Trigger!");
+        }
+
+        return (calendarsByName.remove(calName) != null);
+    }
+
+    /**
+     * <p>
+     * Retrieve the given <code>{@link org.quartz.Trigger}</code>.
+     * </p>
+     *
+     * @param calName
+     *          The name of the <code>Calendar</code> to be retrieved.
+     * @return The desired <code>Calendar</code>, or null if there is no
+     *         match.
+     */
+    public Calendar retrieveCalendar(String calName) {
+        synchronized (lock) {
+            Calendar cal = calendarsByName.get(calName);
+            if(cal != null)
+                return (Calendar) cal.clone();
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>{@link org.quartz.JobDetail}</code> s that are
+     * stored in the <code>JobsStore</code>.
+     * </p>
+     */
+    public int getNumberOfJobs() {
+        synchronized (lock) {
+            return jobsByKey.size();
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>{@link org.quartz.Trigger}</code> s that are
+     * stored in the <code>JobsStore</code>.
+     * </p>
+     */
+    public int getNumberOfTriggers() {
+        synchronized (lock) {
+            return triggersByKey.size();
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>{@link org.quartz.Calendar}</code> s that are
+     * stored in the <code>JobsStore</code>.
+     * </p>
+     */
+    public int getNumberOfCalendars() {
+        synchronized (lock) {
+            return calendarsByName.size();
+        }
+    }
+
+    /**
+     * <p>
+     * Get the names of all of the <code>{@link org.quartz.Job}</code> s that
+     * match the given groupMatcher.
+     * </p>
+     */
+    public Set<JobKey> getJobKeys(GroupMatcher<JobKey> matcher) {
+        Set<JobKey> outList = null;
+        synchronized (lock) {
+
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            String compareToValue = matcher.getCompareToValue();
+
+            switch(operator) {
+                case EQUALS:
+                    HashMap<JobKey, JobWrapper> grpMap = jobsByGroup.get(compareToValue);
+                    if (grpMap != null) {
+                        outList = new HashSet<JobKey>();
+
+                        for (JobWrapper jw : grpMap.values()) {
+
+                            if (jw != null) {
+                                outList.add(jw.jobDetail.getKey());
+                            }
+                        }
+                    }
+                    break;
+
+                default:
+                    for (String group : jobGroupIndex.matching(operator, compareToValue)) {
+                        HashMap<JobKey, JobWrapper> groupJobs = jobsByGroup.get(group);
+                        if(groupJobs != null) {
+                            if(outList == null) {
+                                outList = new HashSet<JobKey>();
+                            }
+                            for (JobWrapper jobWrapper : groupJobs.values()) {
+                                if(jobWrapper != null) {
+                                    outList.add(jobWrapper.jobDetail.getKey());
+                                }
+                            }
+                        }
+                    }
+            }
+        }
+
+        return outList == null ? java.util.Collections.<JobKey>emptySet() : outList;
+    }
+
+    /**
+     * <p>
+     * Get the names of all of the <code>{@link org.quartz.Calendar}</code> s
+     * in the <code>JobStore</code>.
+     * </p>
+     *
+     * <p>
+     * If there are no Calendars in the given group name, the result should be
+     * a zero-length array (not <code>null</code>).
+     * </p>
+     */
+    public List<String> getCalendarNames() {
+        synchronized(lock) {
+            return new LinkedList<String>(calendarsByName.keySet());
+        }
+    }
+
+    /**
+     * <p>
+     * Get the names of all of the <code>{@link org.quartz.Trigger}</code> s
+     * that match the given groupMatcher.
+     * </p>
+     */
+    public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) {
+        Set<TriggerKey> outList = null;
+        synchronized (lock) {
+
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            String compareToValue = matcher.getCompareToValue();
+
+            switch(operator) {
+                case EQUALS:
+                    HashMap<TriggerKey, TriggerWrapper> grpMap = triggersByGroup.get(compareToValue);
+                    if (grpMap != null) {
+                        outList = new HashSet<TriggerKey>();
+
+                        for (TriggerWrapper tw : grpMap.values()) {
+
+                            if (tw != null) {
+                                outList.add(tw.trigger.getKey());
+                            }
+                        }
+                    }
+                    break;
+
+                default:
+                    for (String group : triggerGroupIndex.matching(operator, compareToValue)) {
+                        HashMap<TriggerKey, TriggerWrapper> groupTriggers = triggersByGroup.get(group);
+                        if(groupTriggers != null) {
+                            if(outList == null) {
+                                outList = new HashSet<TriggerKey>();
+                            }
+                            for (TriggerWrapper triggerWrapper : groupTriggers.values()) {
+                                if(triggerWrapper != null) {
+                                    outList.add(triggerWrapper.trigger.getKey());
+                                }
+                            }
+                        }
+                    }
+            }
+        }
+
+        return outList == null ? Collections.<TriggerKey>emptySet() : outList;
+    }
+
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Job}</code> s
+     * in the matching groups, ordered by group and then by name.
+     * </p>
+     */
+    public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit) {
+        List<JobKey> page = new ArrayList<JobKey>();
+        synchronized (lock) {
+            List<String> groups = jobGroupIndex.matching(matcher.getCompareWithOperator(), matcher.getCompareToValue());
+            for (String group : groupsFrom(groups, afterKey)) {
+                HashMap<JobKey, JobWrapper> grpMap = jobsByGroup.get(group);
+                if (grpMap != null) {
+                    addPage(page, grpMap.keySet(), afterKey, limit);
+                }
+                if (page.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * <p>
+     * Get one page of the keys of the <code>{@link org.quartz.Trigger}</code> s
+     * in the matching groups, ordered by group and then by name.
+     * </p>
+     */
+    public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit) {
+        List<TriggerKey> page = new ArrayList<TriggerKey>();
+        synchronized (lock) {
+            for (String group : groupsFrom(getTriggerGroupNames(matcher), afterKey)) {
+                addPage(page, getTriggerKeys(GroupMatcher.triggerGroupEquals(group)), afterKey, limit);
+                if (page.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * @return the trigger groups that hold at least one trigger and match
+     *         the given matcher.
+     */
+    List<String> getTriggerGroupNames(GroupMatcher<TriggerKey> matcher) {
+        return triggerGroupIndex.matching(matcher.getCompareWithOperator(), matcher.getCompareToValue());
+    }
+
+    /**
+     * @return the given groups, sorted, from the group of
+     *         <code>afterKey</code> on.
+     */
+    private static List<String> groupsFrom(List<String> groups, Key<?> afterKey) {
+        List<String> sorted = new ArrayList<String>(groups.size());
+        for (String group : groups) {
+            if (afterKey == null || group.compareTo(afterKey.getGroup()) >= 0) {
+                sorted.add(group);
+            }
+        }
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Append to <code>page</code>, in order of name, the first of the given
+     * keys of a single group that sort after <code>afterKey</code>, until the
+     * page holds <code>limit</code> keys.  Only that many keys are kept while
+     * the group is scanned, so large groups are never sorted as a whole.
+     */
+    private static <K extends Key<K>> void addPage(List<K> page, Collection<K> groupKeys, K afterKey, int limit) {
+        int remaining = limit - page.size();
+        if (remaining <= 0) {
+            return;
+        }
+        PriorityQueue<K> smallest = new PriorityQueue<K>(Math.min(remaining, 64), NAME_DESCENDING);
+        for (K key : groupKeys) {
+            if (afterKey != null && key.getGroup().equals(afterKey.getGroup())
+                    && key.getName().compareTo(afterKey.getName()) <= 0) {
+                continue;
+            }
+            if (smallest.size() < remaining) {
+                smallest.add(key);
+            } else if (key.getName().compareTo(smallest.peek().getName()) < 0) {
+                smallest.poll();
+                smallest.add(key);
+            }
+        }
+        int start = page.size();
+        while (!smallest.isEmpty()) {
+            page.add(start, smallest.poll());
+        }
+    }
+
+    private static final Comparator<Key<?>> NAME_DESCENDING = new Comparator<Key<?>>() {
+        public int compare(Key<?> a, Key<?> b) {
+            return b.getName().compareTo(a.getName());
+        }
+    };
+
+    /**
+     * <p>
+     * Get the names of all of the <code>{@link org.quartz.Job}</code>
+     * groups.
+     * </p>
+     */
+    public List<String> getJobGroupNames() {
+        List<String> outList;
+
+        synchronized (lock) {
+            outList = new LinkedList<String>(jobsByGroup.keySet());
+        }
+
+        return outList;
+    }
+
+    /**
+     * <p>
+     * Get the names of all of the <code>{@link org.quartz.Trigger}</code>
+     * groups.
+     * </p>
+     */
+    public List<String> getTriggerGroupNames() {
+        LinkedList<String> outList;
+
+        synchronized (lock) {
+            outList = new LinkedList<String>(triggersByGroup.keySet());
+        }
+
+        return outList;
+    }
+
+    /**
+     * <p>
+     * Get all of the Triggers that are associated to the given Job.
+     * </p>
+     *
+     * <p>
+     * If there are no matches, a zero-length array should be returned.
+     * </p>
+     */
+    public List<OperableTrigger> getTriggersForJob(JobKey jobKey) {
+        ArrayList<OperableTrigger> trigList = new ArrayList<OperableTrigger>();
+
+        synchronized (lock) {
+            List<TriggerWrapper> jobList = triggersByJob.get(jobKey);
+            if(jobList != null) {
+                for(TriggerWrapper tw : jobList) {
+                    trigList.add((OperableTrigger) tw.trigger.clone());
+                }
+            }
+        }
+
+        return trigList;
+    }
+
+    protected ArrayList<TriggerWrapper> getTriggerWrappersForJob(JobKey jobKey) {
+        ArrayList<TriggerWrapper> trigList = new ArrayList<TriggerWrapper>();
+
+        synchronized (lock) {
+            List<TriggerWrapper> jobList = triggersByJob.get(jobKey);
+            if(jobList != null) {
+                for(TriggerWrapper trigger : jobList) {
+                    trigList.add(trigger);
+                }
+            }
+        }
+
+        return trigList;
+    }
+
+    protected ArrayList<TriggerWrapper> getTriggerWrappersForCalendar(String calName) {
+        ArrayList<TriggerWrapper> trigList = new ArrayList<TriggerWrapper>();
+
+        synchronized (lock) {
+            for (TriggerWrapper tw : triggersByKey.values()) {
+                String tcalName = tw.getTrigger().getCalendarName();
+                if (tcalName != null && tcalName.equals(calName)) {
+                    trigList.add(tw);
+                }
+            }
+        }
+
+        return trigList;
+    }
+
+    /**
+     * <p>
+     * Pause the <code>{@link Trigger}</code> with the given name.
+     * </p>
+     *
+     */
+    public void pauseTrigger(TriggerKey triggerKey) {
+
+        synchronized (lock) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+    
+            // does the trigger exist?
+            if (tw == null || tw.trigger == null) {
+                return;
+            }
+    
+            // if the trigger is "complete" pausing it does not make sense...
+            if (tw.state == TriggerWrapper.STATE_COMPLETE) {
+                return;
+            }
+
+            if(tw.state == TriggerWrapper.STATE_BLOCKED) {
+                tw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+            } else {
+                tw.state = TriggerWrapper.STATE_PAUSED;
+            }
+
+            timeTriggers.remove(tw);
+        }
+    }
+
+    /**
+     * <p>
+     * Pause all of the known <code>{@link Trigger}s</code> matching.
+     * </p>
+     *
+     * <p>
+     * The JobStore should "remember" the groups paused, and impose the
+     * pause on any new triggers that are added to one of these groups while the group is
+     * paused.
+     * </p>
+     *
+     */
+    public List<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+
+        List<String> pausedGroups;
+        synchronized (lock) {
+            pausedGroups = new LinkedList<String>();
+
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            switch (operator) {
+                case EQUALS:
+                    if(pausedTriggerGroups.add(matcher.getCompareToValue())) {
+                        pausedGroups.add(matcher.getCompareToValue());
+                    }
+                    break;
+                default :
+                    for (String group : triggerGroupIndex.matching(operator, matcher.getCompareToValue())) {
+                        if(pausedTriggerGroups.add(group)) {
+                            pausedGroups.add(group);
+                        }
+                    }
+            }
+
+            for (String pausedGroup : pausedGroups) {
+                Set<TriggerKey> keys = getTriggerKeys(GroupMatcher.triggerGroupEquals(pausedGroup));
+
+                for (TriggerKey key: keys) {
+                    pauseTrigger(key);
+                }
+            }
+        }
+
+        return pausedGroups;
+    }
+
+    /**
+     * <p>
+     * Pause the <code>{@link org.quartz.JobDetail}</code> with the given
+     * name - by pausing all of its current <code>Trigger</code>s.
+     * </p>
+     *
+     */
+    public void pauseJob(JobKey jobKey) {
+        synchronized (lock) {
+            List<OperableTrigger> triggersOfJob = getTriggersForJob(jobKey);
+            for (OperableTrigger trigger: triggersOfJob) {
+                pauseTrigger(trigger.getKey());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Pause all of the <code>{@link org.quartz.JobDetail}s</code> in the
+     * given group - by pausing all of their <code>Trigger</code>s.
+     * </p>
+     *
+     *
+     * <p>
+     * The JobStore should "remember" that the group is paused, and impose the
+     * pause on any new jobs that are added to the group while the group is
+     * paused.
+     * </p>
+     */
+    public List<String> pauseJobs(GroupMatcher<JobKey> matcher) {
+        List<String> pausedGroups = new LinkedList<String>();
+        synchronized (lock) {
+
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            switch (operator) {
+                case EQUALS:
+                    if (pausedJobGroups.add(matcher.getCompareToValue())) {
+                        pausedGroups.add(matcher.getCompareToValue());
+                    }
+                    break;
+                default :
+                    for (String group : jobGroupIndex.matching(operator, matcher.getCompareToValue())) {
+                        if (pausedJobGroups.add(group)) {
+                            pausedGroups.add(group);
+                        }
+                    }
+            }
+
+            for (String groupName : pausedGroups) {
+                for (JobKey jobKey: getJobKeys(GroupMatcher.jobGroupEquals(groupName))) {
+                    List<OperableTrigger> triggersOfJob = getTriggersForJob(jobKey);
+                    for (OperableTrigger trigger: triggersOfJob) {
+                        pauseTrigger(trigger.getKey());
+                    }
+                }
+            }
+        }
+
+        return pausedGroups;
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) the <code>{@link Trigger}</code> with the given
+     * key.
+     * </p>
+     *
+     * <p>
+     * If the <code>Trigger</code> missed one or more fire-times, then the
+     * <code>Trigger</code>'s misfire instruction will be applied.
+     * </p>
+     *
+     */
+    public void resumeTrigger(TriggerKey triggerKey) {
+
+        synchronized (lock) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+    
+            // does the trigger exist?
+            if (tw == null || tw.trigger == null) {
+                return;
+            }
+    
+            OperableTrigger trig = tw.getTrigger();
+    
+            // if the trigger is not paused resuming it does not make sense...
+            if (tw.state != TriggerWrapper.STATE_PAUSED &&
+                    tw.state != TriggerWrapper.STATE_PAUSED_BLOCKED) {
+                return;
+            }
+
+            if(blockedJobs.contains( trig.getJobKey() )) {
+                tw.state = TriggerWrapper.STATE_BLOCKED;
+            } else {
+                tw.state = TriggerWrapper.STATE_WAITING;
+            }
+
+            applyMisfire(tw);
+
+            if (tw.state == TriggerWrapper.STATE_WAITING) {
+                timeTriggers.add(tw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) all of the <code>{@link Trigger}s</code> in the
+     * given group.
+     * </p>
+     *
+     * <p>
+     * If any <code>Trigger</code> missed one or more fire-times, then the
+     * <code>Trigger</code>'s misfire instruction will be applied.
+     * </p>
+     *
+     */
+    public List<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+        Set<String> groups = new HashSet<String>();
+
+        synchronized (lock) {
+            Set<TriggerKey> keys = getTriggerKeys(matcher);
+
+            for (TriggerKey triggerKey: keys) {
+                groups.add(triggerKey.getGroup());
+                if(triggersByKey.get(triggerKey) != null) {
+                    String jobGroup = triggersByKey.get(triggerKey).jobKey.getGroup();
+                    if(pausedJobGroups.contains(jobGroup)) {
+                        continue;
+                    }
+                }
+                resumeTrigger(triggerKey);
+            }
+
+            // Find all matching paused trigger groups, and then remove them.
+            StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+            LinkedList<String> pausedGroups = new LinkedList<String>();
+            String matcherGroup = matcher.getCompareToValue();
+            switch (operator) {
+                case EQUALS:
+                    if(pausedTriggerGroups.contains(matcherGroup)) {
+                        pausedGroups.add(matcher.getCompareToValue());
+                    }
+                    break;
+                default :
+                    for (String group : pausedTriggerGroups) {
+                        if(operator.evaluate(group, matcherGroup)) {
+                            pausedGroups.add(group);
+                        }
+                    }
+            }
+            for (String pausedGroup : pausedGroups) {
+                pausedTriggerGroups.remove(pausedGroup);
+            }
+        }
+
+        return new ArrayList<String>(groups);
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) the <code>{@link org.quartz.JobDetail}</code> with
+     * the given name.
+     * </p>
+     *
+     * <p>
+     * If any of the <code>Job</code>'s<code>Trigger</code> s missed one
+     * or more fire-times, then the <code>Trigger</code>'s misfire
+     * instruction will be applied.
+     * </p>
+     *
+     */
+    public void resumeJob(JobKey jobKey) {
+
+        synchronized (lock) {
+            List<OperableTrigger> triggersOfJob = getTriggersForJob(jobKey);
+            for (OperableTrigger trigger: triggersOfJob) {
+                resumeTrigger(trigger.getKey());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) all of the <code>{@link org.quartz.JobDetail}s</code>
+     * in the given group.
+     * </p>
+     *
+     * <p>
+     * If any of the <code>Job</code> s had <code>Trigger</code> s that
+     * missed one or more fire-times, then the <code>Trigger</code>'s
+     * misfire instruction will be applied.
+     * </p>
+     *
+     */
+    public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) {
+        Set<String> resumedGroups = new HashSet<String>();
+        synchronized (lock) {
+            Set<JobKey> keys = getJobKeys(matcher);
+
+            for (String pausedJobGroup : pausedJobGroups) {
+                if(matcher.getCompareWithOperator().evaluate(pausedJobGroup, matcher.getCompareToValue())) {
+                    resumedGroups.add(pausedJobGroup);
+                }
+            }
+
+            for (String resumedGroup : resumedGroups) {
+                pausedJobGroups.remove(resumedGroup);
+            }
+
+            for (JobKey key: keys) {
+                List<OperableTrigger> triggersOfJob = getTriggersForJob(key);
+                for (OperableTrigger trigger: triggersOfJob) {
+                    resumeTrigger(trigger.getKey());
+                }
+            }
+        }
+        return resumedGroups;
+    }
+
+    /**
+     * <p>
+     * Pause all triggers - equivalent of calling <code>pauseTriggerGroup(group)</code>
+     * on every group.
+     * </p>
+     *
+     * <p>
+     * When <code>resumeAll()</code> is called (to un-pause), trigger misfire
+     * instructions WILL be applied.
+     * </p>
+     *
+     * @see #resumeAll()
+     * @see #pauseTrigger(org.quartz.TriggerKey)
+     * @see #pauseTriggers(org.quartz.impl.matchers.GroupMatcher)
+     */
+    public void pauseAll() {
+
+        synchronized (lock) {
+            List<String> names = getTriggerGroupNames();
+
+            for (String name: names) {
+                pauseTriggers(GroupMatcher.triggerGroupEquals(name));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) all triggers - equivalent of calling <code>resumeTriggerGroup(group)</code>
+     * on every group.
+     * </p>
+     *
+     * <p>
+     * If any <code>Trigger</code> missed one or more fire-times, then the
+     * <code>Trigger</code>'s misfire instruction will be applied.
+     * </p>
+     *
+     * @see #pauseAll()
+     */
+    public void resumeAll() {
+
+        synchronized (lock) {
+            pausedJobGroups.clear();
+            resumeTriggers(GroupMatcher.anyTriggerGroup());
+        }
+    }
+
+    protected boolean applyMisfire(TriggerWrapper tw) {
+
+        long misfireTime = System.currentTimeMillis();
+        if (getMisfireThreshold() > 0) {
+            misfireTime -= getMisfireThreshold();
+        }
+
+        Date tnft = tw.trigger.getNextFireTime();
+        if (tnft == null || tnft.getTime() > misfireTime 
+                || tw.trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) { 
+            return false; 
+        }
+
+        Calendar cal = null;
+        if (tw.trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(tw.trigger.getCalendarName());
+        }
+
+        signaler.notifyTriggerListenersMisfired((OperableTrigger)tw.trigger.clone());
+
+        tw.trigger.updateAfterMisfire(cal);
+
+        if (tw.trigger.getNextFireTime() == null) {
+            tw.state = TriggerWrapper.STATE_COMPLETE;
+            signaler.notifySchedulerListenersFinalized(tw.trigger);
+            synchronized (lock) {
+                timeTriggers.remove(tw);
+            }
+        } else if (tnft.equals(tw.trigger.getNextFireTime())) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static final AtomicLong ftrCtr = new AtomicLong(System.currentTimeMillis());
+
+    protected String getFiredTriggerRecordId() {
+        return String.valueOf(ftrCtr.incrementAndGet());
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next trigger to be fired, and mark it as 'reserved'
+     * by the calling scheduler.
+     * </p>
+     *
+     * @see #releaseAcquiredTrigger(OperableTrigger)
+     */
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow) {
+        return acquireNextTriggers(noLaterThan, maxCount, timeWindow, null);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired that the given filter
+     * accepts, and mark them as 'reserved' by the calling scheduler.
+     * </p>
+     *
+     * @see #releaseAcquiredTrigger(OperableTrigger)
+     */
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+            TriggerAcquisitionFilter filter) {
+        synchronized (lock) {
+            List<OperableTrigger> result = new ArrayList<OperableTrigger>();
+            Set<JobKey> acquiredJobKeysForNoConcurrentExec = new HashSet<JobKey>();
+            Set<TriggerWrapper> excludedTriggers = new HashSet<TriggerWrapper>();
+            ConcurrencyLimits.Counts acquiredLimitedJobs = new ConcurrencyLimits.Counts();
+            long batchEnd = noLaterThan;
+            
+            // return empty list if store has no triggers.
+            if (timeTriggers.size() == 0)
+                return result;
+
+            // when acquiring fairly, the due triggers are taken in their groups' turns
+            Iterator<TriggerWrapper> fairOrder = null;
+            if (fairShares.isEnabled()) {
+                fairOrder = fairShares.interleave(getDueTriggersByGroup(noLaterThan + timeWindow, maxCount)).iterator();
+            }
+            
+            while (true) {
+                TriggerWrapper tw;
+
+                if (fairOrder != null) {
+                    if (!fairOrder.hasNext())
+                        break;
+                    tw = fairOrder.next();
+                    timeTriggers.remove(tw);
+                } else {
+                    try {
+                        tw = timeTriggers.first();
+                        if (tw == null)
+                            break;
+                        timeTriggers.remove(tw);
+                    } catch (java.util.NoSuchElementException nsee) {
+                        break;
+                    }
+                }
+
+                if (tw.trigger.getNextFireTime() == null) {
+                    continue;
+                }
+
+                if (applyMisfire(tw)) {
+                    if (tw.trigger.getNextFireTime() != null) {
+                        timeTriggers.add(tw);
+                    }
+                    continue;
+                }
+
+                if (tw.getTrigger().getNextFireTime().getTime() > batchEnd) {
+                    timeTriggers.add(tw);
+                    if (fairOrder != null)
+                        continue; // later triggers of other groups may be in the batch
+                    break;
+                }
+                
+                // If trigger's job is set as @DisallowConcurrentExecution, and it has already been added to result, then
+                // put it back into the timeTriggers set and continue to search for next trigger.
+                JobKey jobKey = tw.trigger.getJobKey();
+                JobDetail job = jobsByKey.get(tw.trigger.getJobKey()).jobDetail;
+                if (job.isConcurrentExectionDisallowed() && acquiredJobKeysForNoConcurrentExec.contains(jobKey)) {
+                    excludedTriggers.add(tw);
+                    continue; // go to next trigger in store.
+                }
+                if (!admitsExecution(job, acquiredLimitedJobs)) {
+                    excludedTriggers.add(tw);
+                    continue;
+                }
+                // a trigger deferred by its rate limits goes back at its new fire time
+                if (applyRateLimits(tw)) {
+                    if (tw.trigger.getNextFireTime() != null) {
+                        excludedTriggers.add(tw);
+                    }
+                    continue;
+                }
+
+                // a trigger the filter rejects stays waiting, like the ones above
+                if (filter != null && !filter.accept(tw.trigger, job)) {
+                    excludedTriggers.add(tw);
+                    continue;
+                }
+                if (job.isConcurrentExectionDisallowed()) {
+                    acquiredJobKeysForNoConcurrentExec.add(jobKey);
+                }
+                if (concurrencyLimits.isLimited(job)) {
+                    acquiredLimitedJobs.increment(jobKey);
+                }
+                takeRateLimitPermits(tw.trigger);
+                if (fairOrder != null) {
+                    fairShares.acquired(tw.trigger.getKey().getGroup());
+                }
+
+                tw.state = TriggerWrapper.STATE_ACQUIRED;
+                tw.trigger.setFireInstanceId(getFiredTriggerRecordId());
+                OperableTrigger trig = (OperableTrigger) tw.trigger.clone();
+                if (result.isEmpty()) {
+                    batchEnd = Math.max(tw.trigger.getNextFireTime().getTime(), System.currentTimeMillis()) + timeWindow;
+                }
+                result.add(trig);
+                if (result.size() == maxCount)
+                    break;
+            }
+
+            // If we did excluded triggers to prevent ACQUIRE state due to DisallowConcurrentExecution, we need to add them back to store.
+            if (excludedTriggers.size() > 0)
+                timeTriggers.addAll(excludedTriggers);
+            return result;
+        }
+    }
+
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler no longer plans to
+     * fire the given <code>Trigger</code>, that it had previously acquired
+     * (reserved).
+     * </p>
+     */
+    public void releaseAcquiredTrigger(OperableTrigger trigger) {
+        synchronized (lock) {
+            TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+            if (tw != null && tw.state == TriggerWrapper.STATE_ACQUIRED) {
+                tw.state = TriggerWrapper.STATE_WAITING;
+                timeTriggers.add(tw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler is now firing the
+     * given <code>Trigger</code> (executing its associated <code>Job</code>),
+     * that it had previously acquired (reserved).
+     * </p>
+     */
+    public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+
+        synchronized (lock) {
+            List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+
+            for (OperableTrigger trigger : firedTriggers) {
+                TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+                // was the trigger deleted since being acquired?
+                if (tw == null || tw.trigger == null) {
+                    continue;
+                }
+                // was the trigger completed, paused, blocked, etc. since being acquired?
+                if (tw.state != TriggerWrapper.STATE_ACQUIRED) {
+                    continue;
+                }
+
+                Calendar cal = null;
+                if (tw.trigger.getCalendarName() != null) {
+                    cal = retrieveCalendar(tw.trigger.getCalendarName());
+                    if(cal == null)
+                        continue;
+                }
+                Date prevFireTime = trigger.getPreviousFireTime();
+                // in case trigger was replaced between acquiring and firing
+                timeTriggers.remove(tw);
+                // call triggered on our copy, and the scheduler's copy
+                tw.trigger.triggered(cal);
+                trigger.triggered(cal);
+                //tw.state = TriggerWrapper.STATE_EXECUTING;
+                tw.state = TriggerWrapper.STATE_WAITING;
+
+                TriggerFiredBundle bndle = new TriggerFiredBundle(retrieveJob(
+                        tw.jobKey), trigger, cal,
+                        false, new Date(), trigger.getPreviousFireTime(), prevFireTime,
+                        trigger.getNextFireTime());
+
+                JobDetail job = bndle.getJobDetail();
+
+                if (job.isConcurrentExectionDisallowed()) {
+                    ArrayList<TriggerWrapper> trigs = getTriggerWrappersForJob(job.getKey());
+                    for (TriggerWrapper ttw : trigs) {
+                        if (ttw.state == TriggerWrapper.STATE_WAITING) {
+                            ttw.state = TriggerWrapper.STATE_BLOCKED;
+                        }
+                        if (ttw.state == TriggerWrapper.STATE_PAUSED) {
+                            ttw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+                        }
+                        timeTriggers.remove(ttw);
+                    }
+                    blockedJobs.add(job.getKey());
+                } else if (tw.trigger.getNextFireTime() != null) {
+                    synchronized (lock) {
+                        timeTriggers.add(tw);
+                    }
+                }
+                limitedJobFired(job, trigger);
+
+                results.add(new TriggerFiredResult(bndle));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler has completed the
+     * firing of the given <code>Trigger</code> (and the execution its
+     * associated <code>Job</code>), and that the <code>{@link org.quartz.JobDataMap}</code>
+     * in the given <code>JobDetail</code> should be updated if the <code>Job</code>
+     * is stateful.
+     * </p>
+     */
+    public void triggeredJobComplete(OperableTrigger trigger,
+            JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+        synchronized (lock) {
+
+            if (limitedJobComplete(trigger)) {
+                signaler.signalSchedulingChange(0L);
+            }
+
+            JobWrapper jw = jobsByKey.get(jobDetail.getKey());
+            TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+
+            // It's possible that the job is null if:
+            //   1- it was deleted during execution
+            //   2- RAMJobStore is being used only for volatile jobs / triggers
+            //      from the JDBC job store
+            if (jw != null) {
+                JobDetail jd = jw.jobDetail;
+
+                if (jd.isPersistJobDataAfterExecution()) {
+                    JobDataMap newData = jobDetail.getJobDataMap();
+                    if (newData != null) {
+                        newData = (JobDataMap)newData.clone();
+                        newData.clearDirtyFlag();
+                    }
+                    jd = jd.getJobBuilder().setJobData(newData).build();
+                    jw.jobDetail = jd;
+                }
+                if (jd.isConcurrentExectionDisallowed()) {
+                    blockedJobs.remove(jd.getKey());
+                    ArrayList<TriggerWrapper> trigs = getTriggerWrappersForJob(jd.getKey());
+                    for(TriggerWrapper ttw : trigs) {
+                        if (ttw.state == TriggerWrapper.STATE_BLOCKED) {
+                            ttw.state = TriggerWrapper.STATE_WAITING;
+                            timeTriggers.add(ttw);
+                        }
+                        if (ttw.state == TriggerWrapper.STATE_PAUSED_BLOCKED) {
+                            ttw.state = TriggerWrapper.STATE_PAUSED;
+                        }
+                    }
+                    signaler.signalSchedulingChange(0L);
+                }
+            } else { // even if it was deleted, there may be cleanup to do
+                blockedJobs.remove(jobDetail.getKey());
+            }
+    
+            // check for trigger deleted during execution...
+            if (tw != null) {
+                if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+                    
+                    if(trigger.getNextFireTime() == null) {
+                        // double check for possible reschedule within job 
+                        // execution, which would cancel the need to delete...
+                        if(tw.getTrigger().getNextFireTime() == null) {
+                            removeTrigger(trigger.getKey());
+                        }
+                    } else {
+                        removeTrigger(trigger.getKey());
+                        signaler.signalSchedulingChange(0L);
+                    }
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
+                    tw.state = TriggerWrapper.STATE_COMPLETE;
+                    timeTriggers.remove(tw);
+                    signaler.signalSchedulingChange(0L);
+                } else if(triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+                    getLog().info("Trigger " + trigger.getKey() + " set to ERROR state.");
+                    tw.state = TriggerWrapper.STATE_ERROR;
+                    signaler.signalSchedulingChange(0L);
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+                    getLog().info("All triggers of Job " 
+                            + trigger.getJobKey() + " set to ERROR state.");
+                    setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_ERROR);
+                    signaler.signalSchedulingChange(0L);
+                } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
+                    setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_COMPLETE);
+                    signaler.signalSchedulingChange(0L);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler has completed the
+     * firing of each of the given <code>Trigger</code>s, all of the given
+     * job, as <code>triggeredJobComplete</code> would for each in turn.
+     * </p>
+     */
+    public void triggeredJobsComplete(List<OperableTrigger> triggers,
+            JobDetail jobDetail, List<CompletedExecutionInstruction> triggerInstCodes) {
+
+        synchronized (lock) {
+            for (int i = 0; i < triggers.size(); i++) {
+                triggeredJobComplete(triggers.get(i), jobDetail, triggerInstCodes.get(i));
+            }
+        }
+    }
+
+    @Override
+    public long getAcquireRetryDelay(int failureCount) {
+        return 20;
+    }
+
+    /**
+     * <p>
+     * Whether the concurrency limits allow one more execution of the given
+     * job, counting those executing and those acquired by the current
+     * acquisition. Every execution counted was acquired by the one scheduler
+     * using this store, so those of previous acquisitions are executing by
+     * now, or have been released.
+     * </p>
+     */
+    protected boolean admitsExecution(JobDetail job, ConcurrencyLimits.Counts acquired) {
+        return !concurrencyLimits.isLimited(job)
+                || concurrencyLimits.admits(job, limitedExecutionCounts, acquired);
+    }
+
+    /**
+     * <p>
+     * Count the execution the given fired trigger starts, if its job is
+     * concurrency limited.
+     * </p>
+     */
+    protected void limitedJobFired(JobDetail job, OperableTrigger trigger) {
+        if (concurrencyLimits.isLimited(job)) {
+            limitedExecutions.put(trigger.getFireInstanceId(), job.getKey());
+            limitedExecutionCounts.increment(job.getKey());
+        }
+    }
+
+    /**
+     * <p>
+     * Stop counting the execution of the given trigger.
+     * </p>
+     *
+     * @return whether the execution was that of a concurrency limited job, in
+     *         which case triggers left waiting on the limit may now be
+     *         acquired.
+     */
+    protected boolean limitedJobComplete(OperableTrigger trigger) {
+        JobKey jobKey = limitedExecutions.remove(trigger.getFireInstanceId());
+        if (jobKey == null) {
+            return false;
+        }
+        limitedExecutionCounts.decrement(jobKey);
+        return true;
+    }
+
+    /**
+     * <p>
+     * Get the waiting triggers due no later than the given time, by group in
+     * the order of their earliest trigger, with at most the given number of
+     * each group's earliest.
+     * </p>
+     */
+    protected Map<String, List<TriggerWrapper>> getDueTriggersByGroup(long noLaterThan, int maxCountPerGroup) {
+        return timeTriggers.dueByGroup(noLaterThan, maxCountPerGroup);
+    }
+
+    /**
+     * <p>
+     * Defer the given trigger as <code>{@link #deferForRateLimits(OperableTrigger)}</code>
+     * does, and complete it if it was deferred past its end.
+     * </p>
+     *
+     * @return whether the trigger was deferred, in which case it must be put
+     *         back in the time index if it still has a next fire time.
+     */
+    protected boolean applyRateLimits(TriggerWrapper tw) {
+        if (!deferForRateLimits(tw.trigger)) {
+            return false;
+        }
+        if (tw.trigger.getNextFireTime() == null) {
+            tw.state = TriggerWrapper.STATE_COMPLETE;
+            signaler.notifySchedulerListenersFinalized(tw.trigger);
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Defer the given trigger, if its rate limits do not allow it to fire at
+     * its next fire time, to the time they do, or the first time after it
+     * that its calendar includes. The fires it skips by being deferred are
+     * not misfired, since it is not late for the new time.
+     * </p>
+     *
+     * @return whether the trigger was deferred, in which case it must be put
+     *         back in the time index, unless it was deferred past its end
+     *         and has no next fire time.
+     */
+    protected boolean deferForRateLimits(OperableTrigger trigger) {
+        if (!rateLimits.isInUse()) {
+            return false;
+        }
+        long permitTime = rateLimits.getPermitTime(trigger, nextPermitTimes);
+        if (permitTime <= trigger.getNextFireTime().getTime()) {
+            return false;
+        }
+        Calendar cal = null;
+        if (trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(trigger.getCalendarName());
+        }
+        rateLimits.throttled(trigger, nextPermitTimes);
+        trigger.setNextFireTime(RateLimits.getDeferredFireTime(trigger, cal, permitTime));
+        return true;
+    }
+
+    /**
+     * <p>
+     * Take the permits the given acquired trigger fires with from the buckets
+     * of its rate limits.
+     * </p>
+     */
+    protected void takeRateLimitPermits(OperableTrigger trigger) {
+        if (rateLimits.isInUse()) {
+            rateLimits.takePermits(trigger, nextPermitTimes);
+        }
+    }
+
+    protected void setAllTriggersOfJobToState(JobKey jobKey, int state) {
+        ArrayList<TriggerWrapper> tws = getTriggerWrappersForJob(jobKey);
+        for (TriggerWrapper tw : tws) {
+            tw.state = state;
+            if (state != TriggerWrapper.STATE_WAITING) {
+                timeTriggers.remove(tw);
+            }
+        }
+    }
+    
+    @SuppressWarnings("UnusedDeclaration")
+    protected String peekTriggers() {
+
+        StringBuilder str = new StringBuilder();
+        synchronized (lock) {
+            for (TriggerWrapper triggerWrapper : triggersByKey.values()) {
+                str.append(triggerWrapper.trigger.getKey().getName());
+                str.append("/");
+            }
+        }
+        str.append(" | ");
+
+        synchronized (lock) {
+            for (TriggerWrapper timeTrigger : timeTriggers) {
+                str.append(timeTrigger.trigger.getKey().getName());
+                str.append("->");
+            }
+        }
+
+        return str.toString();
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link DelayedTask}</code>, sharing the store's
+     * instance of its job's key.
+     * </p>
+     */
+    public void storeDelayedTask(DelayedTask task) throws JobPersistenceException {
+        synchronized (lock) {
+            if (delayedTasks.contains(task.getId())) {
+                throw new ObjectAlreadyExistsException("Unable to store delayed task: '" + task.getId()
+                    + "', because one already exists with this identification.");
+            }
+            JobWrapper jw = jobsByKey.get(task.getJobKey());
+            if (jw == null) {
+                throw new JobPersistenceException("The job (" + task.getJobKey()
+                    + ") referenced by the delayed task does not exist.");
+            }
+            if (task.getJobKey() != jw.key) {
+                task = new DelayedTask(task.getId(), jw.key, task.getFireTimeMillis(), task.getPayload());
+            }
+            delayedTasks.add(task);
+        }
+    }
+
+    public boolean removeDelayedTask(String taskId) {
+        synchronized (lock) {
+            return delayedTasks.remove(taskId);
+        }
+    }
+
+    public List<DelayedTask> acquireDelayedTasks(long noLaterThan, int maxCount) {
+        synchronized (lock) {
+            return delayedTasks.removeDue(noLaterThan, maxCount);
+        }
+    }
+
+    public long getNextDelayedTaskFireTime() {
+        synchronized (lock) {
+            return delayedTasks.nextFireTime();
+        }
+    }
+
+    public int getNumberOfDelayedTasks() {
+        synchronized (lock) {
+            return delayedTasks.size();
+        }
+    }
+
+    /** 
+     * @see org.quartz.spi.JobStore#getPausedTriggerGroups()
+     */
+    public Set<String> getPausedTriggerGroups() throws JobPersistenceException {
+        HashSet<String> set = new HashSet<String>();
+        
+        set.addAll(pausedTriggerGroups);
+        
+        return set;
+    }
+
+    public void setInstanceId(String schedInstId) {
+        //
+    }
+
+    public void setInstanceName(String schedName) {
+        //
+    }
+
+    public void setThreadPoolSize(final int poolSize) {
+        //
+    }
+
+    public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+        return 5;
+    }
+
+    public boolean isClustered() {
+        return false;
+    }
+
+}
+
+/*******************************************************************************
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * 
+ * Helper Classes. * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ */
+
+class TriggerWrapperComparator implements Comparator<TriggerWrapper>, java.io.Serializable {
+  
+    private static final long serialVersionUID = 8809557142191514261L;
+
+    TriggerTimeComparator ttc = new TriggerTimeComparator();
+    
+    public int compare(TriggerWrapper trig1, TriggerWrapper trig2) {
+        return ttc.compare(trig1.trigger, trig2.trigger);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof TriggerWrapperComparator);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
+
+class JobWrapper {
+
+    public JobKey key;
+
+    public JobDetail jobDetail;
+
+    JobWrapper(JobDetail jobDetail) {
+        this.jobDetail = jobDetail;
+        key = jobDetail.getKey();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof JobWrapper) {
+            JobWrapper jw = (JobWrapper) obj;
+            if (jw.key.equals(this.key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+    
+    @Override
+    public int hashCode() {
+        return key.hashCode(); 
+    }
+}
+
+class TriggerWrapper {
+
+    public final TriggerKey key;
+
+    public final JobKey jobKey;
+
+    public final OperableTrigger trigger;
+
+    public int state = STATE_WAITING;
+
+    public static final int STATE_WAITING = 0;
+
+    public static final int STATE_ACQUIRED = 1;
+
+    @SuppressWarnings("UnusedDeclaration")
+    public static final int STATE_EXECUTING = 2;
+
+    public static final int STATE_COMPLETE = 3;
+
+    public static final int STATE_PAUSED = 4;
+
+    public static final int STATE_BLOCKED = 5;
+
+    public static final int STATE_PAUSED_BLOCKED = 6;
+
+    public static final int STATE_ERROR = 7;
+    
+    TriggerWrapper(OperableTrigger trigger) {
+        if(trigger == null)
+            throw new IllegalArgumentException("Trigger cannot be null!");
+        this.trigger = trigger;
+        key = trigger.getKey();
+        this.jobKey = trigger.getJobKey();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TriggerWrapper) {
+            TriggerWrapper tw = (TriggerWrapper) obj;
+            if (tw.key.equals(this.key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode(); 
+    }
+
+    
+    public OperableTrigger getTrigger() {
+        return this.trigger;
+    }
+}
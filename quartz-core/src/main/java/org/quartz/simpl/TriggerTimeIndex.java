@@ -0,0 +1,136 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * The time index of the waiting triggers of a <code>{@link RAMJobStore}</code>,
+ * in the order they are to be acquired, along with one such index per
+ * trigger group, so that acquiring fairly can take the earliest triggers of
+ * each group without walking past those of the others.
+ * </p>
+ *
+ * <p>
+ * A trigger's fire time must not change while it is in the index.  The
+ * index is not thread-safe; callers hold their store's lock.
+ * </p>
+ */
+class TriggerTimeIndex implements Iterable<TriggerWrapper> {
+
+    private final Comparator<TriggerWrapper> comparator = new TriggerWrapperComparator();
+
+    private final TreeSet<TriggerWrapper> triggers = new TreeSet<TriggerWrapper>(comparator);
+
+    private final Map<String, TreeSet<TriggerWrapper>> triggersByGroup = new HashMap<String, TreeSet<TriggerWrapper>>();
+
+    boolean add(TriggerWrapper tw) {
+        if (!triggers.add(tw)) {
+            return false;
+        }
+        TreeSet<TriggerWrapper> group = triggersByGroup.get(tw.key.getGroup());
+        if (group == null) {
+            group = new TreeSet<TriggerWrapper>(comparator);
+            triggersByGroup.put(tw.key.getGroup(), group);
+        }
+        group.add(tw);
+        return true;
+    }
+
+    void addAll(Collection<TriggerWrapper> tws) {
+        for (TriggerWrapper tw : tws) {
+            add(tw);
+        }
+    }
+
+    boolean remove(TriggerWrapper tw) {
+        if (!triggers.remove(tw)) {
+            return false;
+        }
+        TreeSet<TriggerWrapper> group = triggersByGroup.get(tw.key.getGroup());
+        group.remove(tw);
+        if (group.isEmpty()) {
+            triggersByGroup.remove(tw.key.getGroup());
+        }
+        return true;
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the index is empty.
+     */
+    TriggerWrapper first() {
+        return triggers.first();
+    }
+
+    int size() {
+        return triggers.size();
+    }
+
+    public Iterator<TriggerWrapper> iterator() {
+        return Collections.unmodifiableSet(triggers).iterator();
+    }
+
+    /**
+     * <p>
+     * Get the triggers due no later than the given time, at most the given
+     * number of each group's earliest, by group in the order of their
+     * earliest trigger.  Only the groups and the triggers returned are
+     * visited.
+     * </p>
+     */
+    Map<String, List<TriggerWrapper>> dueByGroup(long noLaterThan, int maxCountPerGroup) {
+        List<TreeSet<TriggerWrapper>> dueGroups = new ArrayList<TreeSet<TriggerWrapper>>();
+        for (TreeSet<TriggerWrapper> group : triggersByGroup.values()) {
+            if (isDue(group.first(), noLaterThan)) {
+                dueGroups.add(group);
+            }
+        }
+        Collections.sort(dueGroups, new Comparator<TreeSet<TriggerWrapper>>() {
+            public int compare(TreeSet<TriggerWrapper> a, TreeSet<TriggerWrapper> b) {
+                return comparator.compare(a.first(), b.first());
+            }
+        });
+
+        Map<String, List<TriggerWrapper>> dueByGroup = new LinkedHashMap<String, List<TriggerWrapper>>();
+        for (TreeSet<TriggerWrapper> group : dueGroups) {
+            List<TriggerWrapper> due = new ArrayList<TriggerWrapper>(Math.min(maxCountPerGroup, group.size()));
+            for (TriggerWrapper tw : group) {
+                if (due.size() == maxCountPerGroup || !isDue(tw, noLaterThan)) {
+                    break;
+                }
+                due.add(tw);
+            }
+            dueByGroup.put(group.first().key.getGroup(), due);
+        }
+        return dueByGroup;
+    }
+
+    private static boolean isDue(TriggerWrapper tw, long noLaterThan) {
+        Date nextFireTime = tw.trigger.getNextFireTime();
+        return nextFireTime != null && nextFireTime.getTime() <= noLaterThan;
+    }
+}
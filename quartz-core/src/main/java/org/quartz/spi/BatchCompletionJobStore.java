@@ -0,0 +1,47 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import java.util.List;
+
+import org.quartz.JobDetail;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+
+/**
+ * <p>
+ * Implemented by <code>{@link JobStore}s</code> that can complete the fires
+ * of several triggers of one job at once, such as those of a
+ * <code>{@link org.quartz.BatchJob}</code> executed together, more cheaply
+ * than one at a time.
+ * </p>
+ *
+ * @see JobStore#triggeredJobComplete(OperableTrigger, JobDetail, CompletedExecutionInstruction)
+ */
+public interface BatchCompletionJobStore {
+
+    /**
+     * <p>
+     * Inform the store that the scheduler has completed the firing of each of
+     * the given triggers, with the instruction at the same position, as
+     * <code>{@link JobStore#triggeredJobComplete(OperableTrigger, JobDetail, CompletedExecutionInstruction)}</code>
+     * would for each in turn.
+     * </p>
+     */
+    void triggeredJobsComplete(List<OperableTrigger> triggers, JobDetail jobDetail,
+            List<CompletedExecutionInstruction> triggerInstCodes);
+}
@@ -0,0 +1,84 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import java.util.List;
+
+import org.quartz.DelayedTask;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+
+/**
+ * <p>
+ * Implemented by <code>{@link JobStore}s</code> that can store
+ * <code>{@link DelayedTask}s</code>.
+ * </p>
+ *
+ * <p>
+ * Delayed tasks are kept apart from the store's jobs and triggers: storing
+ * one checks that its job exists, but removing a job leaves its tasks in
+ * place, to be discarded when they come due.
+ * </p>
+ *
+ * @see org.quartz.Scheduler#scheduleDelayedTask(DelayedTask)
+ */
+public interface DelayedTaskStore {
+
+    /**
+     * <p>
+     * Store the given task.
+     * </p>
+     *
+     * @throws ObjectAlreadyExistsException
+     *           if a task with the same id already exists.
+     * @throws JobPersistenceException
+     *           if the task's job does not exist.
+     */
+    void storeDelayedTask(DelayedTask task) throws ObjectAlreadyExistsException, JobPersistenceException;
+
+    /**
+     * <p>
+     * Remove the task with the given id.
+     * </p>
+     *
+     * @return <code>true</code> if a task with the given id was found and
+     *         removed.
+     */
+    boolean removeDelayedTask(String taskId) throws JobPersistenceException;
+
+    /**
+     * <p>
+     * Remove and return the tasks due no later than the given time, earliest
+     * first. Once acquired, a task belongs to the caller alone.
+     * </p>
+     *
+     * @param noLaterThan the latest fire time, in milliseconds, of the tasks returned
+     * @param maxCount the most tasks to return
+     */
+    List<DelayedTask> acquireDelayedTasks(long noLaterThan, int maxCount) throws JobPersistenceException;
+
+    /**
+     * <p>
+     * Get the fire time, in milliseconds, of the earliest stored task, or
+     * <code>-1</code> if there are none.
+     * </p>
+     */
+    long getNextDelayedTaskFireTime() throws JobPersistenceException;
+
+    int getNumberOfDelayedTasks() throws JobPersistenceException;
+}
@@ -0,0 +1,50 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Implemented by <code>{@link JobStore}s</code> that can share trigger
+ * acquisition fairly between trigger groups, in proportion to weights that
+ * may be changed while the scheduler runs.
+ * </p>
+ *
+ * @see org.quartz.utils.FairShares
+ */
+public interface FairShareJobStore {
+
+    /**
+     * <p>
+     * Set the weight of the given trigger group, which takes effect from the
+     * next acquisition.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the weight is not positive.
+     */
+    void setTriggerGroupWeight(String groupName, int weight);
+
+    /**
+     * <p>
+     * Get the weights that have been set, by trigger group; other groups
+     * have a weight of 1.
+     * </p>
+     */
+    Map<String, Integer> getTriggerGroupWeights();
+}
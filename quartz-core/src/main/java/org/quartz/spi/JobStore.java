@@ -17,10 +17,13 @@
 
 package org.quartz.spi;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.quartz.Calendar;
 import org.quartz.Job;
@@ -32,6 +35,7 @@ import org.quartz.SchedulerConfigException;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.Trigger.CompletedExecutionInstruction;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.impl.matchers.GroupMatcher;
@@ -373,6 +377,59 @@ public interface JobStore {
     Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher)
         throws JobPersistenceException;
 
+    /**
+     * Get one page of the keys of the <code>{@link org.quartz.Job}</code> s
+     * in the matching groups, ordered by group and then by name.
+     *
+     * <p>
+     * The page holds at most <code>limit</code> keys, all of which sort after
+     * <code>afterKey</code>, or start from the first key if it is
+     * <code>null</code>.  Passing the last key of one page as the
+     * <code>afterKey</code> of the next visits every matching job once, even
+     * if jobs are added or removed in between, without the store building
+     * the full set of keys.  Names are compared as the store compares them,
+     * which for a database is the collation of the group and name columns.
+     * The scheduler only calls this with a <code>limit</code> of at least 1.
+     * </p>
+     *
+     * <p>
+     * By default the page is cut from
+     * <code>{@link #getJobKeys(GroupMatcher)}</code>, in <code>String</code>
+     * order; stores override it to page without building the full set.
+     * </p>
+     */
+    default List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+        throws JobPersistenceException {
+        TreeSet<JobKey> keys = new TreeSet<JobKey>(getJobKeys(matcher));
+        List<JobKey> page = new ArrayList<JobKey>();
+        for (JobKey key : afterKey == null ? keys : keys.tailSet(afterKey, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
+    /**
+     * Get one page of the keys of the <code>{@link org.quartz.Trigger}</code> s
+     * in the matching groups, ordered by group and then by name.
+     *
+     * @see #getJobKeys(GroupMatcher, JobKey, int)
+     */
+    default List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+        throws JobPersistenceException {
+        TreeSet<TriggerKey> keys = new TreeSet<TriggerKey>(getTriggerKeys(matcher));
+        List<TriggerKey> page = new ArrayList<TriggerKey>();
+        for (TriggerKey key : afterKey == null ? keys : keys.tailSet(afterKey, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
     /**
      * Get the names of all of the <code>{@link org.quartz.Job}</code>
      * groups.
@@ -425,6 +482,32 @@ public interface JobStore {
      */
     TriggerState getTriggerState(TriggerKey triggerKey) throws JobPersistenceException;
 
+    /**
+     * Get the state, next fire time and job of each of the identified
+     * <code>{@link Trigger}s</code>, in as few operations on the underlying
+     * storage as the store allows.
+     *
+     * <p>
+     * By default each trigger and its state are looked up one at a time;
+     * stores override it to read them together.
+     * </p>
+     *
+     * @return a summary for each of the given keys that identifies a stored
+     *         trigger, keyed by trigger key; other keys are left out.
+     */
+    default Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+        throws JobPersistenceException {
+        Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>(triggerKeys.size() * 2);
+        for (TriggerKey triggerKey : triggerKeys) {
+            OperableTrigger trigger = retrieveTrigger(triggerKey);
+            if (trigger != null) {
+                summaries.put(trigger.getKey(), new TriggerSummary(trigger.getKey(), trigger.getJobKey(),
+                    getTriggerState(triggerKey), trigger.getNextFireTime()));
+            }
+        }
+        return summaries;
+    }
+
     /**
      * Reset the current state of the identified <code>{@link Trigger}</code>
      * from {@link TriggerState#ERROR} to {@link TriggerState#NORMAL} or
@@ -596,6 +679,42 @@ public interface JobStore {
     List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
         throws JobPersistenceException;
 
+    /**
+     * Get a handle to the next triggers to be fired that the given filter
+     * accepts, and mark them as 'reserved' by the calling scheduler. Triggers
+     * the filter rejects are left waiting, and do not count towards
+     * <code>maxCount</code>.
+     *
+     * <p>
+     * By default the triggers are acquired by
+     * <code>{@link #acquireNextTriggers(long, int, long)}</code> and the ones
+     * the filter rejects are then released, so they do count towards
+     * <code>maxCount</code>; stores override it to offer each trigger to the
+     * filter as they acquire it.
+     * </p>
+     *
+     * @param filter if <code>null</code>, behaves as
+     * <code>{@link #acquireNextTriggers(long, int, long)}</code>.
+     * @see #releaseAcquiredTrigger(OperableTrigger)
+     */
+    default List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+        TriggerAcquisitionFilter filter) throws JobPersistenceException {
+        List<OperableTrigger> triggers = acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+        if (filter == null) {
+            return triggers;
+        }
+        List<OperableTrigger> accepted = new ArrayList<OperableTrigger>(triggers.size());
+        for (OperableTrigger trigger : triggers) {
+            JobDetail job = retrieveJob(trigger.getJobKey());
+            if (job == null || filter.accept(trigger, job)) {
+                accepted.add(trigger);
+            } else {
+                releaseAcquiredTrigger(trigger);
+            }
+        }
+        return accepted;
+    }
+
     /**
      * Inform the <code>JobStore</code> that the scheduler no longer plans to
      * fire the given <code>Trigger</code>, that it had previously acquired
@@ -0,0 +1,48 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Implemented by <code>{@link JobStore}s</code> that can defer the triggers
+ * of trigger and job groups to keep them within configured rates, and count
+ * the fires they defer.
+ * </p>
+ *
+ * @see org.quartz.utils.RateLimits
+ */
+public interface RateLimitedJobStore {
+
+    /**
+     * <p>
+     * Get the number of fires this store deferred to keep within its rate
+     * limits.
+     * </p>
+     */
+    long getThrottledFireCount();
+
+    /**
+     * <p>
+     * Get the number of fires deferred by each rate limit, keyed by the kind
+     * of group and its name, such as <code>"JOB_GROUP:partnerApi"</code>.
+     * </p>
+     */
+    Map<String, Long> getThrottledFireCounts();
+}
@@ -0,0 +1,51 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+/**
+ * <p>
+ * Implemented by <code>{@link ThreadPool}s</code> whose number of threads
+ * changes while the scheduler runs.
+ * </p>
+ *
+ * <p>
+ * For such pools <code>{@link ThreadPool#getPoolSize()}</code> returns the
+ * most threads the pool will ever hold, which is what a
+ * <code>{@link JobStore}</code> sizes itself for; the methods here report
+ * what the pool holds right now.
+ * </p>
+ *
+ * @see org.quartz.simpl.ElasticThreadPool
+ */
+public interface ResizableThreadPool extends ThreadPool {
+
+    /**
+     * <p>
+     * Get the number of threads the pool holds now, whether busy or idle.
+     * </p>
+     */
+    int getCurrentPoolSize();
+
+    /**
+     * <p>
+     * Get the number of the pool's threads that are running a
+     * <code>Runnable</code>.
+     * </p>
+     */
+    int getBusyThreadCount();
+}
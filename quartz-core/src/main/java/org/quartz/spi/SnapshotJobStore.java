@@ -0,0 +1,75 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+
+/**
+ * <p>
+ * Implemented by <code>{@link JobStore}s</code> that can give up and take
+ * back everything a scheduler snapshot holds: the job groups paused as
+ * groups, the jobs and triggers read in bulk, and the exact state of each
+ * trigger.
+ * </p>
+ *
+ * @see org.quartz.Scheduler#exportSnapshot(java.io.OutputStream)
+ * @see org.quartz.Scheduler#importSnapshot(java.io.InputStream, boolean)
+ */
+public interface SnapshotJobStore {
+
+    /**
+     * <p>
+     * Get the names of the job groups paused as a whole, to which triggers
+     * stored later are added paused.  Stores that only pause the triggers
+     * that exist at the time return an empty set.
+     * </p>
+     */
+    Set<String> getPausedJobGroups() throws JobPersistenceException;
+
+    /**
+     * <p>
+     * Get each of the identified jobs with its triggers, in as few
+     * operations on the underlying storage as the store allows.
+     * </p>
+     *
+     * @return the triggers of each of the given keys that identifies a stored
+     *         job, keyed by job in the order of the keys; other keys are left
+     *         out.
+     */
+    Map<JobDetail, List<OperableTrigger>> retrieveJobsAndTriggers(Collection<JobKey> jobKeys)
+        throws JobPersistenceException;
+
+    /**
+     * <p>
+     * Put each of the identified stored triggers in the given state, as a
+     * snapshot recorded it.  A trigger recorded {@link TriggerState#BLOCKED}
+     * is restored {@link TriggerState#NORMAL}, as the job it was blocked
+     * on is not running in this store.
+     * </p>
+     */
+    void restoreTriggerStates(Map<TriggerKey, TriggerState> triggerStates) throws JobPersistenceException;
+}
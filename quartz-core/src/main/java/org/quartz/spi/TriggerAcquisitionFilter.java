@@ -0,0 +1,47 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.quartz.spi;
+
+import org.quartz.JobDetail;
+
+/**
+ * <p>
+ * Decides, while a <code>{@link JobStore}</code> acquires triggers, which of
+ * the due triggers the scheduler can take right now.
+ * </p>
+ *
+ * <p>
+ * The store offers each candidate trigger to the filter in the order it would
+ * otherwise acquire them, after its own checks, once no other scheduler can
+ * take the trigger. A trigger the filter rejects is left waiting, to be
+ * offered again on a later acquisition. A filter may count what it accepts,
+ * since each accepted trigger is acquired. Filters are called with the store's locks
+ * held, so they must be quick and must not call back into the store.
+ * </p>
+ *
+ * @see JobStore#acquireNextTriggers(long, int, long, TriggerAcquisitionFilter)
+ */
+public interface TriggerAcquisitionFilter {
+
+    /**
+     * <p>
+     * Whether the given trigger, about to fire the given job, may be acquired.
+     * </p>
+     */
+    boolean accept(OperableTrigger trigger, JobDetail jobDetail);
+}
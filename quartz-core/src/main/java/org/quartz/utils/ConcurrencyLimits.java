@@ -0,0 +1,209 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.quartz.ConcurrentExecutionLimit;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+
+/**
+ * <p>
+ * The concurrency limits a <code>{@link org.quartz.spi.JobStore}</code>
+ * enforces when it acquires triggers: per job, from the
+ * <code>{@link ConcurrentExecutionLimit}</code> annotation on the job's class,
+ * and per job group, as configured on the store.
+ * </p>
+ *
+ * <p>
+ * Group limits are given as a comma-separated list of
+ * <code>group=limit</code> pairs, for example
+ * <code>"api=3, reports=1"</code>.
+ * </p>
+ */
+public class ConcurrencyLimits {
+
+    // cached for job classes without the annotation
+    private static final Integer NO_LIMIT = 0;
+
+    private volatile Map<String, Integer> jobGroupLimits = Collections.emptyMap();
+
+    private final Map<Class<?>, Integer> jobClassLimits = new ConcurrentHashMap<Class<?>, Integer>();
+
+    private volatile boolean limitedJobClassSeen;
+
+    /**
+     * <p>
+     * Set the job group limits from a list of <code>group=limit</code> pairs.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the list is malformed, or a limit
+     *         is not a positive number.
+     */
+    public void setJobGroupLimits(String limits) {
+        Map<String, Integer> parsed = new HashMap<String, Integer>();
+        if (limits != null) {
+            for (String pair : limits.split(",")) {
+                if (pair.trim().length() == 0) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String group = eq < 0 ? "" : pair.substring(0, eq).trim();
+                int limit;
+                try {
+                    limit = Integer.parseInt(pair.substring(eq + 1).trim());
+                } catch (NumberFormatException e) {
+                    limit = 0;
+                }
+                if (group.length() == 0 || limit < 1) {
+                    throw new IllegalArgumentException("Invalid job group concurrency limit '"
+                            + pair.trim() + "', expected 'group=limit' with a positive limit.");
+                }
+                parsed.put(group, limit);
+            }
+        }
+        jobGroupLimits = parsed;
+    }
+
+    /**
+     * <p>
+     * Get the limit on concurrent executions of the given job, or 0 if there
+     * is none.
+     * </p>
+     */
+    public int getJobLimit(JobDetail job) {
+        Class<?> jobClass = job.getJobClass();
+        if (jobClass == null) {
+            return 0;
+        }
+        Integer limit = jobClassLimits.get(jobClass);
+        if (limit == null) {
+            ConcurrentExecutionLimit annotation = ClassUtils.getAnnotation(jobClass, ConcurrentExecutionLimit.class);
+            limit = annotation == null ? NO_LIMIT : Math.max(annotation.value(), 1);
+            if (limit > 0) {
+                limitedJobClassSeen = true;
+            }
+            jobClassLimits.put(jobClass, limit);
+        }
+        return limit;
+    }
+
+    /**
+     * <p>
+     * Get the limit on concurrent executions of the jobs of the given group,
+     * or 0 if there is none.
+     * </p>
+     */
+    public int getJobGroupLimit(String group) {
+        Integer limit = jobGroupLimits.get(group);
+        return limit == null ? 0 : limit;
+    }
+
+    /**
+     * <p>
+     * Whether the given job has a job or a job group limit.
+     * </p>
+     */
+    public boolean isLimited(JobDetail job) {
+        return getJobLimit(job) > 0 || getJobGroupLimit(job.getKey().getGroup()) > 0;
+    }
+
+    /**
+     * <p>
+     * Whether any limit is known to be in force: either job group limits are
+     * configured, or a job with a limited class has been seen.
+     * </p>
+     */
+    public boolean isInUse() {
+        return limitedJobClassSeen || !jobGroupLimits.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Whether one more execution of the given job is allowed, given how many
+     * executions of it and of its group are already running or acquired.
+     * </p>
+     */
+    public boolean admits(JobDetail job, int jobExecutions, int jobGroupExecutions) {
+        int jobLimit = getJobLimit(job);
+        int groupLimit = getJobGroupLimit(job.getKey().getGroup());
+        return (jobLimit == 0 || jobExecutions < jobLimit)
+                && (groupLimit == 0 || jobGroupExecutions < groupLimit);
+    }
+
+    /**
+     * <p>
+     * Whether one more execution of the given job is allowed, given the
+     * executions in the given counts.
+     * </p>
+     */
+    public boolean admits(JobDetail job, Counts... counts) {
+        JobKey jobKey = job.getKey();
+        int jobExecutions = 0;
+        int jobGroupExecutions = 0;
+        for (Counts c : counts) {
+            jobExecutions += c.getJobCount(jobKey);
+            jobGroupExecutions += c.getJobGroupCount(jobKey.getGroup());
+        }
+        return admits(job, jobExecutions, jobGroupExecutions);
+    }
+
+    /**
+     * <p>
+     * Numbers of executions, by job and by job group. Not thread-safe.
+     * </p>
+     */
+    public static class Counts {
+
+        private final Map<JobKey, Integer> byJob = new HashMap<JobKey, Integer>();
+
+        private final Map<String, Integer> byJobGroup = new HashMap<String, Integer>();
+
+        public void increment(JobKey jobKey) {
+            add(byJob, jobKey, 1);
+            add(byJobGroup, jobKey.getGroup(), 1);
+        }
+
+        public void decrement(JobKey jobKey) {
+            add(byJob, jobKey, -1);
+            add(byJobGroup, jobKey.getGroup(), -1);
+        }
+
+        public int getJobCount(JobKey jobKey) {
+            Integer count = byJob.get(jobKey);
+            return count == null ? 0 : count;
+        }
+
+        public int getJobGroupCount(String group) {
+            Integer count = byJobGroup.get(group);
+            return count == null ? 0 : count;
+        }
+
+        private static <K> void add(Map<K, Integer> counts, K key, int delta) {
+            Integer count = counts.get(key);
+            int newCount = (count == null ? 0 : count) + delta;
+            if (newCount > 0) {
+                counts.put(key, newCount);
+            } else {
+                counts.remove(key);
+            }
+        }
+    }
+}
@@ -17,7 +17,11 @@
 
 package org.quartz.utils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
+import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,6 +34,14 @@ import java.util.Set;
  * and flags itself 'dirty' when it is modified.
  * </p>
  *
+ * <p>
+ * Clones share the wrapped <code>Map</code> with the instance they were
+ * cloned from, and whichever of them is modified first takes its own copy
+ * of it (copy-on-write), so cloning a map that is only read afterwards costs
+ * no copy at all.  Maps read back from a stream never share their wrapped
+ * <code>Map</code>, and are modified in place.
+ * </p>
+ *
  * @author James House
  */
 public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializable {
@@ -46,6 +58,9 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
     private boolean dirty = false;
     private Map<K,V> map;
 
+    // referenced by this map and each clone sharing 'map' with it
+    private transient Share share = new Share();
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      *
@@ -119,14 +134,25 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
      * <p>
      * Get a direct handle to the underlying Map.
      * </p>
+     *
+     * <p>
+     * If the underlying Map is still shared with a clone, this map first
+     * takes its own copy of it, so that changes made through the returned
+     * handle are not seen by the clone.
+     * </p>
      */
     public Map<K,V> getWrappedMap() {
-        return map;
+        return writableMap();
     }
 
     public void clear() {
         if (!map.isEmpty()) {
             dirty = true;
+            if (share.shared) {
+                map = new HashMap<K,V>();
+                share = new Share();
+                return;
+            }
         }
         map.clear();
     }
@@ -140,7 +166,7 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
     }
 
     public Set<Entry<K,V>> entrySet() {
-        return new DirtyFlagMapEntrySet(map.entrySet());
+        return new DirtyFlagMapEntrySet();
     }
 
     @Override
@@ -149,7 +175,7 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
             return false;
         }
 
-        return map.equals(((DirtyFlagMap<?,?>) obj).getWrappedMap());
+        return map.equals(((DirtyFlagMap<?,?>) obj).map);
     }
 
     @Override
@@ -167,25 +193,28 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
     }
 
     public Set<K> keySet() {
-        return new DirtyFlagSet<K>(map.keySet());
+        return new DirtyFlagKeySet();
     }
 
     public V put(final K key, final V val) {
         dirty = true;
 
-        return map.put(key, val);
+        return writableMap().put(key, val);
     }
 
     public void putAll(final Map<? extends K, ? extends V> t) {
         if (!t.isEmpty()) {
             dirty = true;
+            writableMap().putAll(t);
         }
-
-        map.putAll(t);
     }
 
     public V remove(final Object key) {
-        V obj = map.remove(key);
+        if (share.shared && !map.containsKey(key)) {
+            return null;
+        }
+
+        V obj = writableMap().remove(key);
 
         if (obj != null) {
             dirty = true;
@@ -199,17 +228,20 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
     }
 
     public Collection<V> values() {
-        return new DirtyFlagCollection<V>(map.values());
+        return new DirtyFlagValues();
     }
 
     @Override
-    @SuppressWarnings("unchecked") // suppress warnings on generic cast of super.clone() and map.clone() lines.
+    @SuppressWarnings("unchecked") // suppress warnings on generic cast of super.clone() line.
     public Object clone() {
         DirtyFlagMap<K,V> copy;
         try {
             copy = (DirtyFlagMap<K,V>) super.clone();
             if (map instanceof HashMap) {
-                copy.map = (Map<K,V>)((HashMap<K,V>)map).clone();
+                // the copy is taken lazily, by whichever side writes first;
+                // only the state this map and the copy have in common is
+                // written, and it is never reset
+                share.shared = true;
             }
         } catch (CloneNotSupportedException ex) {
             throw new IncompatibleClassChangeError("Not Cloneable.");
@@ -219,26 +251,64 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
     }
 
     /**
-     * Wrap a Collection so we can mark the DirtyFlagMap as dirty if
-     * the underlying Collection is modified.
+     * Get the underlying Map for modification, copying it first if it is
+     * still shared with a clone.
      */
-    private class DirtyFlagCollection<T> implements Collection<T> {
-        private Collection<T> collection;
-
-        public DirtyFlagCollection(final Collection<T> c) {
-            collection = c;
+    @SuppressWarnings("unchecked") // suppress warnings on generic cast of map.clone() line.
+    private Map<K,V> writableMap() {
+        if (share.shared) {
+            map = (Map<K,V>)((HashMap<K,V>)map).clone();
+            share = new Share();
         }
+        return map;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("dirty", dirty);
+        // a Map still shared with a clone is written as a copy of its own, so
+        // that maps read back from the same stream don't share it
+        fields.put("map", share.shared ? ((HashMap<K,V>)map).clone() : map);
+        out.writeFields();
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        share = new Share();
+    }
+
+    /**
+     * Whether a wrapped Map is shared, common to the DirtyFlagMaps sharing
+     * it.  Once shared, it stays so; a map that copies it takes a new Share.
+     */
+    private static final class Share {
+        volatile boolean shared = false;
+    }
+
+    /**
+     * Wrap a view of the underlying Map so we can mark the DirtyFlagMap as
+     * dirty if the view is modified.  The view is looked up again on each
+     * call, as the underlying Map is replaced when a shared Map is copied.
+     */
+    private abstract class DirtyFlagCollection<T> implements Collection<T> {
+
+        protected abstract Collection<T> getWrappedCollection(Map<K,V> m);
+
+        protected abstract T element(Map.Entry<K,V> entry, Map<K,V> source);
 
         protected Collection<T> getWrappedCollection() {
-            return collection;
+            return getWrappedCollection(map);
         }
 
         public Iterator<T> iterator() {
-            return new DirtyFlagIterator<T>(collection.iterator());
+            return new DirtyFlagIterator<T>(this, map);
         }
 
         public boolean remove(final Object o) {
-            boolean removed = collection.remove(o);
+            if (share.shared && !getWrappedCollection().contains(o)) {
+                return false;
+            }
+            boolean removed = getWrappedCollection(writableMap()).remove(o);
             if (removed) {
                 dirty = true;
             }
@@ -246,7 +316,7 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
         }
 
         public boolean removeAll(final Collection<?> c) {
-            boolean changed = collection.removeAll(c);
+            boolean changed = getWrappedCollection(writableMap()).removeAll(c);
             if (changed) {
                 dirty = true;
             }
@@ -254,7 +324,7 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
         }
 
         public boolean retainAll(final Collection<?> c) {
-            boolean changed = collection.retainAll(c);
+            boolean changed = getWrappedCollection(writableMap()).retainAll(c);
             if (changed) {
                 dirty = true;
             }
@@ -262,56 +332,98 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
         }
 
         public void clear() {
-            if (collection.isEmpty() == false) {
-                dirty = true;
-            }
-            collection.clear();
+            DirtyFlagMap.this.clear();
         }
 
         // Pure wrapper methods
-        public int size() { return collection.size(); }
-        public boolean isEmpty() { return collection.isEmpty(); }
-        public boolean contains(final Object o) { return collection.contains(o); }
-        public boolean add(final T o) { return collection.add(o); } // Not supported
-        public boolean addAll(final Collection<? extends T> c) { return collection.addAll(c); } // Not supported
-        public boolean containsAll(final Collection<?> c) { return collection.containsAll(c); }
-        public Object[] toArray() { return collection.toArray(); }
-        public <U> U[] toArray(final U[] array) { return collection.toArray(array); }
+        public int size() { return map.size(); }
+        public boolean isEmpty() { return map.isEmpty(); }
+        public boolean contains(final Object o) { return getWrappedCollection().contains(o); }
+        public boolean add(final T o) { return getWrappedCollection().add(o); } // Not supported
+        public boolean addAll(final Collection<? extends T> c) { return getWrappedCollection().addAll(c); } // Not supported
+        public boolean containsAll(final Collection<?> c) { return getWrappedCollection().containsAll(c); }
+        public Object[] toArray() { return getWrappedCollection().toArray(); }
+        public <U> U[] toArray(final U[] array) { return getWrappedCollection().toArray(array); }
     }
 
     /**
      * Wrap a Set so we can mark the DirtyFlagMap as dirty if
      * the underlying Collection is modified.
      */
-    private class DirtyFlagSet<T> extends DirtyFlagCollection<T> implements Set<T> {
-        public DirtyFlagSet(final Set<T> set) {
-            super(set);
-        }
-
+    private abstract class DirtyFlagSet<T> extends DirtyFlagCollection<T> implements Set<T> {
         protected Set<T> getWrappedSet() {
             return (Set<T>)getWrappedCollection();
         }
     }
 
+    /**
+     * The key Set of the DirtyFlagMap.
+     */
+    private class DirtyFlagKeySet extends DirtyFlagSet<K> {
+        @Override
+        protected Collection<K> getWrappedCollection(final Map<K,V> m) {
+            return m.keySet();
+        }
+
+        @Override
+        protected K element(final Map.Entry<K,V> entry, final Map<K,V> source) {
+            return entry.getKey();
+        }
+    }
+
+    /**
+     * The values Collection of the DirtyFlagMap.
+     */
+    private class DirtyFlagValues extends DirtyFlagCollection<V> {
+        @Override
+        protected Collection<V> getWrappedCollection(final Map<K,V> m) {
+            return m.values();
+        }
+
+        @Override
+        protected V element(final Map.Entry<K,V> entry, final Map<K,V> source) {
+            return entry.getValue();
+        }
+    }
+
     /**
      * Wrap an Iterator so that we can mark the DirtyFlagMap as dirty if an
-     * element is removed.
+     * element is removed.  The iterator walks the entries of the Map that
+     * was current when it was created; once that Map is shared or has been
+     * replaced by a copy, removals are applied to the current Map by key.
      */
     private class DirtyFlagIterator<T> implements Iterator<T> {
-        private Iterator<T> iterator;
-
-        public DirtyFlagIterator(final Iterator<T> iterator) {
-            this.iterator = iterator;
+        private DirtyFlagCollection<T> collection;
+        private Map<K,V> source;
+        private Iterator<Map.Entry<K,V>> iterator;
+        private Map.Entry<K,V> last;
+
+        public DirtyFlagIterator(final DirtyFlagCollection<T> collection, final Map<K,V> source) {
+            this.collection = collection;
+            this.source = source;
+            this.iterator = source.entrySet().iterator();
         }
 
         public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
             dirty = true;
-            iterator.remove();
+            if (share.shared || map != source) {
+                writableMap().remove(last.getKey());
+            } else {
+                iterator.remove();
+            }
+            last = null;
+        }
+
+        public T next() {
+            last = iterator.next();
+            return collection.element(last, source);
         }
 
         // Pure wrapper methods
         public boolean hasNext() { return iterator.hasNext(); }
-        public T next() { return iterator.next(); }
     }
 
     /**
@@ -321,13 +433,14 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
      */
     private class DirtyFlagMapEntrySet extends DirtyFlagSet<Map.Entry<K,V>> {
 
-        public DirtyFlagMapEntrySet(final Set<Map.Entry<K,V>> set) {
-            super(set);
+        @Override
+        protected Collection<Map.Entry<K,V>> getWrappedCollection(final Map<K,V> m) {
+            return m.entrySet();
         }
 
         @Override
-        public Iterator<Map.Entry<K,V>> iterator() {
-            return new DirtyFlagMapEntryIterator(getWrappedSet().iterator());
+        protected Map.Entry<K,V> element(final Map.Entry<K,V> entry, final Map<K,V> source) {
+            return new DirtyFlagMapEntry(entry, source);
         }
 
         @Override
@@ -361,34 +474,30 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
         }
     }
 
-    /**
-     * Wrap an Iterator over Map.Entry objects so that we can
-     * mark the Map as dirty if an element is removed or modified.
-     */
-    private class DirtyFlagMapEntryIterator extends DirtyFlagIterator<Map.Entry<K,V>> {
-        public DirtyFlagMapEntryIterator(final Iterator<Map.Entry<K,V>> iterator) {
-            super(iterator);
-        }
-
-        @Override
-        public DirtyFlagMapEntry next() {
-            return new DirtyFlagMapEntry(super.next());
-        }
-    }
-
     /**
      * Wrap a Map.Entry so we can mark the Map as dirty if
-     * a value is set.
+     * a value is set.  If the entry belongs to a Map that is shared or has
+     * been replaced by a copy, the value is put into the current Map instead.
      */
     private class DirtyFlagMapEntry implements Map.Entry<K,V> {
         private Map.Entry<K,V> entry;
+        private Map<K,V> source;
+        private boolean detached = false;
 
-        public DirtyFlagMapEntry(final Map.Entry<K,V> entry) {
+        public DirtyFlagMapEntry(final Map.Entry<K,V> entry, final Map<K,V> source) {
             this.entry = entry;
+            this.source = source;
         }
 
         public V setValue(final V o) {
             dirty = true;
+            if (detached || share.shared || map != source) {
+                if (!detached) {
+                    entry = new AbstractMap.SimpleEntry<K,V>(entry);
+                    detached = true;
+                }
+                writableMap().put(entry.getKey(), o);
+            }
             return entry.setValue(o);
         }
 
@@ -396,6 +505,7 @@ public class DirtyFlagMap<K,V> implements Map<K,V>, Cloneable, java.io.Serializa
         public K getKey() { return entry.getKey(); }
         public V getValue() { return entry.getValue(); }
         public boolean equals(Object o) { return entry.equals(o); }
+        public int hashCode() { return entry.hashCode(); }
     }
 }
 
@@ -0,0 +1,221 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * The shares of trigger acquisition a <code>{@link org.quartz.spi.JobStore}</code>
+ * gives each trigger group, when it acquires fairly rather than strictly in
+ * fire time order.
+ * </p>
+ *
+ * <p>
+ * Each group has a weight, 1 unless configured otherwise, and the due
+ * triggers of the groups are interleaved so that, while several groups have
+ * triggers due, each is acquired in proportion to its weight, whatever the
+ * number of triggers it has due. A group's triggers keep their fire time
+ * order among themselves. The shares a group has had are remembered between
+ * acquisitions, so fairness holds even when triggers are acquired one at a
+ * time, and forgotten when the group has no more triggers due, so that an
+ * idle group cannot save up a share to catch up with later.
+ * </p>
+ *
+ * <p>
+ * Weights are given as a comma-separated list of <code>group=weight</code>
+ * pairs, such as <code>"tenantA=3, tenantB=1"</code>, and may be changed
+ * while the scheduler runs.
+ * </p>
+ */
+public class FairShares {
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private volatile boolean enabled = false;
+
+    private volatile Map<String, Integer> weights = Collections.emptyMap();
+
+    // acquisitions of each group with triggers due, each counted as the
+    // inverse of the group's weight
+    private final Map<String, Double> virtualTimes = new HashMap<String, Double>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * <p>
+     * Set the weights of the trigger groups from a list of
+     * <code>group=weight</code> pairs, replacing all weights set before.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the list is malformed.
+     */
+    public void setWeights(String weights) {
+        Map<String, Integer> parsed = new HashMap<String, Integer>();
+        if (weights != null) {
+            for (String pair : weights.split(",")) {
+                if (pair.trim().length() == 0) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String group = eq < 0 ? "" : pair.substring(0, eq).trim();
+                int weight;
+                try {
+                    weight = Integer.parseInt(pair.substring(eq + 1).trim());
+                } catch (NumberFormatException e) {
+                    weight = 0;
+                }
+                if (group.length() == 0 || weight < 1) {
+                    throw new IllegalArgumentException("Invalid trigger group weight '" + pair.trim()
+                            + "', expected 'group=weight' with a positive weight.");
+                }
+                parsed.put(group, weight);
+            }
+        }
+        this.weights = parsed;
+    }
+
+    /**
+     * <p>
+     * Set the weight of one trigger group.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the weight is not positive.
+     */
+    public synchronized void setWeight(String group, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Trigger group weight must be positive: " + weight);
+        }
+        Map<String, Integer> updated = new HashMap<String, Integer>(weights);
+        updated.put(group, weight);
+        weights = updated;
+    }
+
+    public int getWeight(String group) {
+        Integer weight = weights.get(group);
+        return weight == null ? DEFAULT_WEIGHT : weight;
+    }
+
+    /**
+     * <p>
+     * Get the weights that have been set, by trigger group; other groups
+     * have a weight of 1.
+     * </p>
+     */
+    public Map<String, Integer> getWeights() {
+        return Collections.unmodifiableMap(weights);
+    }
+
+    /**
+     * <p>
+     * Interleave the given due triggers, or their keys, of each group into
+     * the order they should be offered for acquisition. Groups with equal
+     * shares are taken in the order of the map, which should be that of
+     * their earliest triggers. Each trigger is placed in time logarithmic in
+     * the number of groups.
+     * </p>
+     *
+     * <p>
+     * Only the triggers passed to <code>{@link #acquired(String)}</code>
+     * count towards their group's share, so those that are offered but not
+     * acquired cost nothing.
+     * </p>
+     */
+    public synchronized <T> List<T> interleave(Map<String, ? extends List<T>> dueByGroup) {
+        virtualTimes.keySet().retainAll(dueByGroup.keySet());
+
+        // a group that has just come due starts level with those already due
+        double start = Double.MAX_VALUE;
+        for (Double virtualTime : virtualTimes.values()) {
+            start = Math.min(start, virtualTime);
+        }
+        if (start == Double.MAX_VALUE) {
+            start = 0d;
+        }
+
+        // the groups with triggers left, by the share they will have had
+        // once given their next one, and then by their order in the map
+        PriorityQueue<Turn<T>> turns = new PriorityQueue<Turn<T>>(Math.max(1, dueByGroup.size()));
+        int count = 0;
+        int order = 0;
+        for (Map.Entry<String, ? extends List<T>> group : dueByGroup.entrySet()) {
+            Double virtualTime = virtualTimes.get(group.getKey());
+            // keep the numbers small: only their differences matter
+            double level = (virtualTime == null ? start : virtualTime) - start;
+            virtualTimes.put(group.getKey(), level);
+            if (!group.getValue().isEmpty()) {
+                turns.add(new Turn<T>(group.getKey(), order++, level, group.getValue().iterator()));
+            }
+            count += group.getValue().size();
+        }
+
+        List<T> interleaved = new ArrayList<T>(count);
+        while (!turns.isEmpty()) {
+            Turn<T> turn = turns.poll();
+            interleaved.add(turn.remaining.next());
+            if (turn.remaining.hasNext()) {
+                turn.level += 1d / getWeight(turn.group);
+                turns.add(turn);
+            }
+        }
+        return interleaved;
+    }
+
+    /**
+     * <p>
+     * Count a trigger of the given group as acquired, against its share.
+     * </p>
+     */
+    public synchronized void acquired(String group) {
+        Double virtualTime = virtualTimes.get(group);
+        virtualTimes.put(group, (virtualTime == null ? 0d : virtualTime) + 1d / getWeight(group));
+    }
+
+    private static class Turn<T> implements Comparable<Turn<T>> {
+
+        private final String group;
+
+        private final int order;
+
+        private double level;
+
+        private final Iterator<T> remaining;
+
+        Turn(String group, int order, double level, Iterator<T> remaining) {
+            this.group = group;
+            this.order = order;
+            this.level = level;
+            this.remaining = remaining;
+        }
+
+        public int compareTo(Turn<T> other) {
+            int byLevel = Double.compare(level, other.level);
+            return byLevel != 0 ? byLevel : (order < other.order ? -1 : (order == other.order ? 0 : 1));
+        }
+    }
+}
@@ -39,6 +39,9 @@ public class Key<T>  implements Serializable, Comparable<Key<T>> {
 
     private final String name;
     private final String group;
+
+    // cached on first use; keys are immutable and often looked up repeatedly
+    private transient int hash;
     
     
     /*
@@ -112,10 +115,14 @@ public class Key<T>  implements Serializable, Comparable<Key<T>> {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((group == null) ? 0 : group.hashCode());
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
+        int result = hash;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + ((group == null) ? 0 : group.hashCode());
+            result = prime * result + ((name == null) ? 0 : name.hashCode());
+            hash = result;
+        }
         return result;
     }
 
@@ -129,6 +136,8 @@ public class Key<T>  implements Serializable, Comparable<Key<T>> {
             return false;
         @SuppressWarnings("unchecked")
         Key<T> other = (Key<T>) obj;
+        if (hashCode() != other.hashCode())
+            return false;
         if (group == null) {
             if (other.group != null)
                 return false;
@@ -143,7 +152,9 @@ public class Key<T>  implements Serializable, Comparable<Key<T>> {
     }
 
     public int compareTo(Key<T> o) {
-        
+        if(this == o)
+            return 0;
+
         if(group.equals(DEFAULT_GROUP) && !o.group.equals(DEFAULT_GROUP))
             return -1;
         if(!group.equals(DEFAULT_GROUP) && o.group.equals(DEFAULT_GROUP))
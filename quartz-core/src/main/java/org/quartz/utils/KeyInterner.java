@@ -0,0 +1,68 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A table of canonical <code>{@link Key}</code> instances. Interning every
+ * equal key to one instance lets the holders of many references to the same
+ * key (such as the triggers of a job) share it, and turns the
+ * <code>equals</code> comparisons made by hash lookups into identity checks.
+ * </p>
+ *
+ * <p>
+ * Keys stay in the table until they are <code>{@link #release(Key)
+ * released}</code>, so the owner of the table must release a key once it
+ * no longer holds it. The table is thread-safe.
+ * </p>
+ *
+ * @param <K> the type of key interned
+ */
+public class KeyInterner<K extends Key<K>> {
+
+    private final ConcurrentMap<K, K> keys = new ConcurrentHashMap<K, K>();
+
+    /**
+     * <p>
+     * Return the canonical instance equal to the given key, making the given
+     * key canonical if no equal key has been interned yet.
+     * </p>
+     */
+    public K intern(K key) {
+        K canonical = keys.putIfAbsent(key, key);
+        return canonical == null ? key : canonical;
+    }
+
+    /**
+     * <p>
+     * Remove the canonical instance equal to the given key, if any.
+     * </p>
+     */
+    public void release(K key) {
+        keys.remove(key);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public void clear() {
+        keys.clear();
+    }
+}
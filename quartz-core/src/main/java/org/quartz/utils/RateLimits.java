@@ -0,0 +1,331 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.Calendar;
+import org.quartz.Trigger;
+
+/**
+ * <p>
+ * The rate limits a <code>{@link org.quartz.spi.JobStore}</code> enforces
+ * when it acquires triggers, per trigger group and per job group.
+ * </p>
+ *
+ * <p>
+ * Each limit is a token bucket, given as a comma-separated list of
+ * <code>group=rate</code> or <code>group=rate:burst</code> pairs, where the
+ * rate is in fires per second (and may be fractional) and the burst, which
+ * defaults to 1, is how many fires may follow each other without waiting out
+ * the rate. For example <code>"partnerApi=10:5, reports=0.5"</code>.
+ * </p>
+ *
+ * <p>
+ * The bucket of a limit is kept as a single time, the earliest time at which
+ * the next fire conforms when the burst is used up (the "theoretical arrival
+ * time" of the generic cell rate algorithm), so a store can share it between
+ * the nodes of a cluster as one column. A trigger whose fire time is earlier
+ * than its limits allow is deferred to the time they do, or the first time
+ * after it that its calendar includes, rather than acquired; one deferred
+ * past its end is completed.
+ * </p>
+ */
+public class RateLimits {
+
+    public static final String TRIGGER_GROUP = "TRIGGER_GROUP";
+
+    public static final String JOB_GROUP = "JOB_GROUP";
+
+    private volatile Map<String, RateLimit> triggerGroupLimits = Collections.emptyMap();
+
+    private volatile Map<String, RateLimit> jobGroupLimits = Collections.emptyMap();
+
+    private final AtomicLong throttledFireCount = new AtomicLong();
+
+    /**
+     * <p>
+     * Set the trigger group limits from a list of <code>group=rate</code> or
+     * <code>group=rate:burst</code> pairs.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the list is malformed.
+     */
+    public void setTriggerGroupLimits(String limits) {
+        triggerGroupLimits = parse(TRIGGER_GROUP, limits);
+    }
+
+    /**
+     * <p>
+     * Set the job group limits from a list of <code>group=rate</code> or
+     * <code>group=rate:burst</code> pairs.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the list is malformed.
+     */
+    public void setJobGroupLimits(String limits) {
+        jobGroupLimits = parse(JOB_GROUP, limits);
+    }
+
+    /**
+     * <p>
+     * Whether any limit is configured.
+     * </p>
+     */
+    public boolean isInUse() {
+        return !triggerGroupLimits.isEmpty() || !jobGroupLimits.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Get the limits the given trigger's fires are subject to, which are
+     * those of its group and of its job's group.
+     * </p>
+     */
+    public List<RateLimit> getLimits(Trigger trigger) {
+        RateLimit triggerGroupLimit = triggerGroupLimits.get(trigger.getKey().getGroup());
+        RateLimit jobGroupLimit = jobGroupLimits.get(trigger.getJobKey().getGroup());
+        if (triggerGroupLimit == null && jobGroupLimit == null) {
+            return Collections.emptyList();
+        }
+        List<RateLimit> limits = new ArrayList<RateLimit>(2);
+        if (triggerGroupLimit != null) {
+            limits.add(triggerGroupLimit);
+        }
+        if (jobGroupLimit != null) {
+            limits.add(jobGroupLimit);
+        }
+        return limits;
+    }
+
+    /**
+     * <p>
+     * Get the earliest time, no earlier than the given trigger's next fire
+     * time, at which all of its limits allow it to fire.
+     * </p>
+     *
+     * @param nextPermitTimes the buckets of the trigger's limits; a limit
+     *        without an entry has a full bucket.
+     */
+    public long getPermitTime(Trigger trigger, Map<RateLimit, Long> nextPermitTimes) {
+        long permitTime = trigger.getNextFireTime().getTime();
+        for (RateLimit limit : getLimits(trigger)) {
+            permitTime = Math.max(permitTime, limit.getPermitTime(nextPermitTimes.get(limit), permitTime));
+        }
+        return permitTime;
+    }
+
+    /**
+     * <p>
+     * Get the time the given trigger, deferred by its limits, fires instead
+     * of its next fire time: the permit time, or the first time after it that
+     * the trigger's calendar includes.
+     * </p>
+     *
+     * <p>
+     * The deferred fire stands for the one at the trigger's next fire time,
+     * so it may be later than the trigger's final fire time, but never later
+     * than its end time.
+     * </p>
+     *
+     * @param cal the trigger's calendar, or <code>null</code> if it has none.
+     * @return the deferred fire time, or <code>null</code> if that is after
+     *         the trigger's end time, so that it will not fire again.
+     */
+    public static Date getDeferredFireTime(Trigger trigger, Calendar cal, long permitTime) {
+        long fireTime = permitTime;
+        if (cal != null) {
+            while (!cal.isTimeIncluded(fireTime)) {
+                long nextIncludedTime = cal.getNextIncludedTime(fireTime);
+                if (nextIncludedTime <= fireTime) {
+                    return null;
+                }
+                fireTime = nextIncludedTime;
+            }
+        }
+        Date endTime = trigger.getEndTime();
+        if (endTime != null && fireTime > endTime.getTime()) {
+            return null;
+        }
+        return new Date(fireTime);
+    }
+
+    /**
+     * <p>
+     * Take the permits the given trigger needs to fire at its next fire time
+     * from the buckets of its limits.
+     * </p>
+     */
+    public void takePermits(Trigger trigger, Map<RateLimit, Long> nextPermitTimes) {
+        long fireTime = trigger.getNextFireTime().getTime();
+        for (RateLimit limit : getLimits(trigger)) {
+            nextPermitTimes.put(limit, limit.takePermit(nextPermitTimes.get(limit), fireTime));
+        }
+    }
+
+    /**
+     * <p>
+     * Count a fire deferred by the given trigger's limits.
+     * </p>
+     */
+    public void throttled(Trigger trigger, Map<RateLimit, Long> nextPermitTimes) {
+        long fireTime = trigger.getNextFireTime().getTime();
+        for (RateLimit limit : getLimits(trigger)) {
+            if (limit.getPermitTime(nextPermitTimes.get(limit), fireTime) > fireTime) {
+                limit.throttledFireCount.incrementAndGet();
+            }
+        }
+        throttledFireCount.incrementAndGet();
+    }
+
+    /**
+     * <p>
+     * Get the number of fires deferred by the limits.
+     * </p>
+     */
+    public long getThrottledFireCount() {
+        return throttledFireCount.get();
+    }
+
+    /**
+     * <p>
+     * Get the number of fires deferred by each limit, keyed by the limit's
+     * <code>toString()</code>, such as <code>"JOB_GROUP:partnerApi"</code>.
+     * </p>
+     */
+    public Map<String, Long> getThrottledFireCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (RateLimit limit : triggerGroupLimits.values()) {
+            counts.put(limit.toString(), limit.throttledFireCount.get());
+        }
+        for (RateLimit limit : jobGroupLimits.values()) {
+            counts.put(limit.toString(), limit.throttledFireCount.get());
+        }
+        return counts;
+    }
+
+    private static Map<String, RateLimit> parse(String type, String limits) {
+        Map<String, RateLimit> parsed = new HashMap<String, RateLimit>();
+        if (limits == null) {
+            return parsed;
+        }
+        for (String pair : limits.split(",")) {
+            if (pair.trim().length() == 0) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String group = eq < 0 ? "" : pair.substring(0, eq).trim();
+            String value = pair.substring(eq + 1).trim();
+            int colon = value.indexOf(':');
+            double rate;
+            int burst;
+            try {
+                rate = Double.parseDouble(colon < 0 ? value : value.substring(0, colon).trim());
+                burst = colon < 0 ? 1 : Integer.parseInt(value.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                rate = 0;
+                burst = 0;
+            }
+            if (group.length() == 0 || !(rate > 0) || burst < 1) {
+                throw new IllegalArgumentException("Invalid rate limit '" + pair.trim()
+                        + "', expected 'group=rate' or 'group=rate:burst' with a positive rate and burst.");
+            }
+            parsed.put(group, new RateLimit(type, group, rate, burst));
+        }
+        return parsed;
+    }
+
+    /**
+     * <p>
+     * The limit of one trigger or job group.
+     * </p>
+     */
+    public static class RateLimit {
+
+        private final String type;
+
+        private final String group;
+
+        // milliseconds each fire uses up
+        private final long interval;
+
+        // how far ahead of a fire the bucket may already be spent
+        private final long tolerance;
+
+        private final AtomicLong throttledFireCount = new AtomicLong();
+
+        RateLimit(String type, String group, double rate, int burst) {
+            this.type = type;
+            this.group = group;
+            this.interval = Math.max(Math.round(1000.0 / rate), 1L);
+            this.tolerance = interval * (burst - 1);
+        }
+
+        /**
+         * <p>
+         * Either <code>{@link RateLimits#TRIGGER_GROUP}</code> or
+         * <code>{@link RateLimits#JOB_GROUP}</code>.
+         * </p>
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        /**
+         * <p>
+         * Get the earliest time, no earlier than the given fire time, at which
+         * the bucket allows a fire.
+         * </p>
+         *
+         * @param nextPermitTime the bucket, or null if it is full.
+         */
+        public long getPermitTime(Long nextPermitTime, long fireTime) {
+            if (nextPermitTime == null) {
+                return fireTime;
+            }
+            return Math.max(fireTime, nextPermitTime - tolerance);
+        }
+
+        /**
+         * <p>
+         * Take a permit to fire at the given time from the bucket.
+         * </p>
+         *
+         * @param nextPermitTime the bucket, or null if it is full.
+         * @return the bucket after the fire.
+         */
+        public long takePermit(Long nextPermitTime, long fireTime) {
+            long from = nextPermitTime == null ? fireTime : Math.max(nextPermitTime, fireTime);
+            return from + interval;
+        }
+
+        @Override
+        public String toString() {
+            return type + ":" + group;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.quartz.utils;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * <p>
@@ -25,6 +26,13 @@ import java.io.Serializable;
  * </p>
  * 
  * <p>
+ * Numbers stored as Strings are parsed only once by the typed getters: the
+ * parsed value is kept unboxed in a cache that grows with the map, and is
+ * used for as long as the entry still holds the very String instance that
+ * was parsed.
+ * </p>
+ * 
+ * <p>
  * All allowsTransientData flag related methods are deprecated as of version 1.6.
  * </p>
  */
@@ -38,6 +46,24 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
      */
     private boolean allowsTransientData = false;
 
+    private static final int MIN_PARSED_VALUE_SLOTS = 8;
+
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int FLOAT = 2;
+    private static final int DOUBLE = 3;
+
+    /**
+     * Values parsed from String entries, open-addressed by the hash of their
+     * key, with at least twice as many slots as the map has entries.  Shared
+     * with clones, and with maps that copy this one through
+     * <code>putAll</code>, until one of them outgrows it.  A slot is only
+     * ever filled or replaced by a value of the same key, never emptied, and
+     * is checked against the current entry on every read, so a stale or
+     * racing slot is harmless.
+     */
+    private transient ParsedValue[] parsedValues;
+
     public StringKeyDirtyFlagMap() {
         super();
     }
@@ -58,9 +84,18 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
     @Override
     public int hashCode()
     {
-        return getWrappedMap().hashCode();
+        return super.hashCode();
     }
-    
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> t) {
+        super.putAll(t);
+
+        if (parsedValues == null && t instanceof StringKeyDirtyFlagMap) {
+            parsedValues = ((StringKeyDirtyFlagMap) t).parsedValues;
+        }
+    }
+
     /**
      * Get a copy of the Map's String keys in an array of Strings.
      */
@@ -255,7 +290,7 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
         try {
             if(obj instanceof Integer)
                 return ((Integer) obj).intValue();
-            return Integer.parseInt((String)obj);
+            return parseIntValue(key, (String)obj);
         } catch (Exception e) {
             throw new ClassCastException("Identified object is not an Integer.");
         }
@@ -275,7 +310,7 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
         try {
             if(obj instanceof Long)
                 return ((Long) obj).longValue();
-            return Long.parseLong((String)obj);
+            return parseLongValue(key, (String)obj);
         } catch (Exception e) {
             throw new ClassCastException("Identified object is not a Long.");
         }
@@ -295,7 +330,7 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
         try {
             if(obj instanceof Float)
                 return ((Float) obj).floatValue();
-            return Float.parseFloat((String)obj);
+            return parseFloatValue(key, (String)obj);
         } catch (Exception e) {
             throw new ClassCastException("Identified object is not a Float.");
         }
@@ -315,7 +350,7 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
         try {
             if(obj instanceof Double)
                 return ((Double) obj).doubleValue();
-            return Double.parseDouble((String)obj);
+            return parseDoubleValue(key, (String)obj);
         } catch (Exception e) {
             throw new ClassCastException("Identified object is not a Double.");
         }
@@ -378,4 +413,172 @@ public class StringKeyDirtyFlagMap extends DirtyFlagMap<String, Object> {
             throw new ClassCastException("Identified object is not a String.");
         }
     }
+
+    /**
+     * <p>
+     * Parse the given String value of the identified entry as an
+     * <code>int</code>, reusing the result of an earlier parse of the same
+     * String instance.
+     * </p>
+     *
+     * @throws NumberFormatException
+     *           if the value is not a parsable int.
+     */
+    protected int parseIntValue(String key, String value) {
+        ParsedValue parsed = getParsedValue(key, value, INT);
+        if (parsed != null) {
+            return (int) parsed.bits;
+        }
+        int result = Integer.parseInt(value);
+        putParsedValue(new ParsedValue(key, value, INT, result));
+        return result;
+    }
+
+    /**
+     * <p>
+     * Parse the given String value of the identified entry as a
+     * <code>long</code>, reusing the result of an earlier parse of the same
+     * String instance.
+     * </p>
+     *
+     * @throws NumberFormatException
+     *           if the value is not a parsable long.
+     */
+    protected long parseLongValue(String key, String value) {
+        ParsedValue parsed = getParsedValue(key, value, LONG);
+        if (parsed != null) {
+            return parsed.bits;
+        }
+        long result = Long.parseLong(value);
+        putParsedValue(new ParsedValue(key, value, LONG, result));
+        return result;
+    }
+
+    /**
+     * <p>
+     * Parse the given String value of the identified entry as a
+     * <code>float</code>, reusing the result of an earlier parse of the same
+     * String instance.
+     * </p>
+     *
+     * @throws NumberFormatException
+     *           if the value is not a parsable float.
+     */
+    protected float parseFloatValue(String key, String value) {
+        ParsedValue parsed = getParsedValue(key, value, FLOAT);
+        if (parsed != null) {
+            return Float.intBitsToFloat((int) parsed.bits);
+        }
+        float result = Float.parseFloat(value);
+        putParsedValue(new ParsedValue(key, value, FLOAT, Float.floatToRawIntBits(result)));
+        return result;
+    }
+
+    /**
+     * <p>
+     * Parse the given String value of the identified entry as a
+     * <code>double</code>, reusing the result of an earlier parse of the same
+     * String instance.
+     * </p>
+     *
+     * @throws NumberFormatException
+     *           if the value is not a parsable double.
+     */
+    protected double parseDoubleValue(String key, String value) {
+        ParsedValue parsed = getParsedValue(key, value, DOUBLE);
+        if (parsed != null) {
+            return Double.longBitsToDouble(parsed.bits);
+        }
+        double result = Double.parseDouble(value);
+        putParsedValue(new ParsedValue(key, value, DOUBLE, Double.doubleToRawLongBits(result)));
+        return result;
+    }
+
+    private ParsedValue getParsedValue(String key, String value, int kind) {
+        ParsedValue[] slots = parsedValues;
+        if (slots == null || key == null || value == null) {
+            return null;
+        }
+        int mask = slots.length - 1;
+        for (int i = slotIndex(key, mask), probes = 0; probes < slots.length; i = (i + 1) & mask, probes++) {
+            ParsedValue parsed = slots[i];
+            if (parsed == null) {
+                return null;
+            }
+            if (parsed.key.equals(key)) {
+                return parsed.value == value && parsed.kind == kind ? parsed : null;
+            }
+        }
+        return null;
+    }
+
+    private void putParsedValue(ParsedValue parsed) {
+        if (parsed.key == null) {
+            return;
+        }
+        ParsedValue[] slots = parsedValues;
+        if (slots == null || slots.length < 2 * size()) {
+            slots = parsedValues = resizeParsedValues(slots);
+        }
+        if (!insertParsedValue(slots, parsed)) {
+            // every slot holds another key, some no longer current
+            slots = parsedValues = resizeParsedValues(slots);
+            insertParsedValue(slots, parsed);
+        }
+    }
+
+    /**
+     * Copy the values of the given slots that are still current into new
+     * slots sized from the number of entries.
+     */
+    private ParsedValue[] resizeParsedValues(ParsedValue[] slots) {
+        int length = MIN_PARSED_VALUE_SLOTS;
+        while (length < 2 * size()) {
+            length <<= 1;
+        }
+        ParsedValue[] resized = new ParsedValue[length];
+        if (slots != null) {
+            for (ParsedValue parsed : slots) {
+                if (parsed != null && get(parsed.key) == parsed.value) {
+                    insertParsedValue(resized, parsed);
+                }
+            }
+        }
+        return resized;
+    }
+
+    private static boolean insertParsedValue(ParsedValue[] slots, ParsedValue parsed) {
+        int mask = slots.length - 1;
+        for (int i = slotIndex(parsed.key, mask), probes = 0; probes < slots.length; i = (i + 1) & mask, probes++) {
+            ParsedValue slot = slots[i];
+            if (slot == null || slot.key.equals(parsed.key)) {
+                slots[i] = parsed;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int slotIndex(String key, int mask) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * An unboxed value parsed from the String <code>value</code> of the
+     * entry <code>key</code>.
+     */
+    private static final class ParsedValue {
+        private final String key;
+        private final String value;
+        private final int kind;
+        private final long bits;
+
+        ParsedValue(String key, String value, int kind, long bits) {
+            this.key = key;
+            this.value = value;
+            this.kind = kind;
+            this.bits = bits;
+        }
+    }
 }
@@ -700,6 +700,8 @@ public class XMLSchedulingDataProcessor implements ErrorHandler {
                         ((SimpleScheduleBuilder)sched).withMisfireHandlingInstructionNowWithExistingCount();
                     else if(triggerMisfireInstructionConst.equals("MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT"))
                         ((SimpleScheduleBuilder)sched).withMisfireHandlingInstructionNowWithRemainingCount();
+                    else if(triggerMisfireInstructionConst.equals("MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES"))
+                        ((SimpleScheduleBuilder)sched).withMisfireHandlingInstructionCoalesceMissedFires();
                     else if(triggerMisfireInstructionConst.equals("MISFIRE_INSTRUCTION_SMART_POLICY")) {
                         // do nothing.... (smart policy is default)
                     }
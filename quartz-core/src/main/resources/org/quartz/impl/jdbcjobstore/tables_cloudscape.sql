@@ -50,6 +50,10 @@ create table qrtz_simple_triggers(
 	repeat_count longint not null,
 	repeat_interval longint not null,
 	times_triggered longint not null,
+	spread_window longint,
+	pending_missed_fires longint,
+	first_missed_fire_time longint,
+	last_missed_fire_time longint,
 primary key (sched_name,trigger_name,trigger_group),
 foreign key (sched_name,trigger_name,trigger_group) references qrtz_triggers(sched_name,trigger_name,trigger_group)
 );
@@ -60,6 +64,7 @@ create table qrtz_cron_triggers(
 	trigger_group varchar(200) not null,
 	cron_expression varchar(120) not null,
 	time_zone_id varchar(80),
+	spread_window longint,
 primary key (sched_name,trigger_name,trigger_group),
 foreign key (sched_name,trigger_name,trigger_group) references qrtz_triggers(sched_name,trigger_name,trigger_group)
 );
@@ -140,3 +145,25 @@ create table qrtz_locks
     lock_name  varchar(40) not null, 
 primary key (sched_name,lock_name)
 );
+
+create table qrtz_delayed_tasks
+  (
+    sched_name varchar(120) not null,
+    task_id varchar(200) not null,
+    job_name varchar(200) not null,
+    job_group varchar(200) not null,
+    fire_time longint not null,
+    payload varchar(1000),
+primary key (sched_name,task_id)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(sched_name,fire_time);
+
+create table qrtz_rate_limits
+  (
+    sched_name varchar(120) not null,
+    limit_type varchar(20) not null,
+    limit_group varchar(200) not null,
+    next_permit_time longint not null,
+primary key (sched_name,limit_type,limit_group)
+);
@@ -10,6 +10,8 @@ DROP TABLE IF EXISTS QRTZ_FIRED_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE IF EXISTS QRTZ_SCHEDULER_STATE;
 DROP TABLE IF EXISTS QRTZ_LOCKS;
+DROP TABLE IF EXISTS QRTZ_DELAYED_TASKS;
+DROP TABLE IF EXISTS QRTZ_RATE_LIMITS;
 DROP TABLE IF EXISTS QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_SIMPROP_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_CRON_TRIGGERS;
@@ -65,6 +67,10 @@ CREATE TABLE QRTZ_SIMPLE_TRIGGERS
     REPEAT_COUNT BIGINT NOT NULL,
     REPEAT_INTERVAL BIGINT NOT NULL,
     TIMES_TRIGGERED BIGINT NOT NULL,
+    SPREAD_WINDOW BIGINT NULL,
+    PENDING_MISSED_FIRES BIGINT NULL,
+    FIRST_MISSED_FIRE_TIME BIGINT NULL,
+    LAST_MISSED_FIRE_TIME BIGINT NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
         REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -77,6 +83,7 @@ CREATE TABLE QRTZ_CRON_TRIGGERS
     TRIGGER_GROUP VARCHAR(200) NOT NULL,
     CRON_EXPRESSION VARCHAR(200) NOT NULL,
     TIME_ZONE_ID VARCHAR(80),
+    SPREAD_WINDOW BIGINT NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
         REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -163,6 +170,28 @@ CREATE TABLE QRTZ_LOCKS
     PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE QRTZ_DELAYED_TASKS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    TASK_ID VARCHAR(200) NOT NULL,
+    JOB_NAME VARCHAR(200) NOT NULL,
+    JOB_GROUP VARCHAR(200) NOT NULL,
+    FIRE_TIME BIGINT NOT NULL,
+    PAYLOAD VARCHAR(1000) NULL,
+    PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON QRTZ_DELAYED_TASKS(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE QRTZ_RATE_LIMITS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    LIMIT_TYPE VARCHAR(20) NOT NULL,
+    LIMIT_GROUP VARCHAR(200) NOT NULL,
+    NEXT_PERMIT_TIME BIGINT NOT NULL,
+    PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 
 CREATE INDEX IDX_QRTZ_J_REQ_RECOVERY ON QRTZ_JOB_DETAILS(SCHED_NAME,REQUESTS_RECOVERY);
 CREATE INDEX IDX_QRTZ_J_GRP ON QRTZ_JOB_DETAILS(SCHED_NAME,JOB_GROUP);
@@ -8,6 +8,8 @@ DROP TABLE QRTZ_FIRED_TRIGGERS;
 DROP TABLE QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE QRTZ_SCHEDULER_STATE;
 DROP TABLE QRTZ_LOCKS;
+DROP TABLE QRTZ_DELAYED_TASKS;
+DROP TABLE QRTZ_RATE_LIMITS;
 DROP TABLE QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE QRTZ_SIMPROP_TRIGGERS;
 DROP TABLE QRTZ_CRON_TRIGGERS;
@@ -60,6 +62,10 @@ CREATE TABLE QRTZ_SIMPLE_TRIGGERS (
     REPEAT_COUNT BIGINT NOT NULL,
     REPEAT_INTERVAL BIGINT NOT NULL,
     TIMES_TRIGGERED BIGINT NOT NULL,
+    SPREAD_WINDOW BIGINT,
+    PENDING_MISSED_FIRES BIGINT,
+    FIRST_MISSED_FIRE_TIME BIGINT,
+    LAST_MISSED_FIRE_TIME BIGINT,
     CONSTRAINT PK_QRTZ_SIMPLE_TRIGGERS PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     CONSTRAINT FK_QRTZ_SIMPLE_TRIGGERS_1 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) 
     REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -92,6 +98,7 @@ CREATE TABLE QRTZ_CRON_TRIGGERS (
     TRIGGER_GROUP VARCHAR(60) NOT NULL,
     CRON_EXPRESSION VARCHAR(120) NOT NULL,
     TIME_ZONE_ID VARCHAR(60),
+    SPREAD_WINDOW BIGINT,
     CONSTRAINT PK_QRTZ_SIMPLE_TRG PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     CONSTRAINT FK_QRTZ_SIMPLE_TRG_1 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
     REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -151,4 +158,24 @@ CREATE TABLE QRTZ_LOCKS (
     CONSTRAINT PK_QRTZ_LOCKS PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE QRTZ_DELAYED_TASKS (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    TASK_ID VARCHAR(200) NOT NULL,
+    JOB_NAME VARCHAR(60) NOT NULL,
+    JOB_GROUP VARCHAR(60) NOT NULL,
+    FIRE_TIME BIGINT NOT NULL,
+    PAYLOAD VARCHAR(1000),
+    CONSTRAINT PK_QRTZ_DELAYED_TASKS PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON QRTZ_DELAYED_TASKS(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE QRTZ_RATE_LIMITS (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    LIMIT_TYPE VARCHAR(20) NOT NULL,
+    LIMIT_GROUP VARCHAR(200) NOT NULL,
+    NEXT_PERMIT_TIME BIGINT NOT NULL,
+    CONSTRAINT PK_QRTZ_RATE_LIMITS PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 COMMIT;
@@ -19,7 +19,8 @@ CREATE TABLE QRTZ_CRON_TRIGGERS (
   TRIGGER_NAME VARCHAR (200)  NOT NULL ,
   TRIGGER_GROUP VARCHAR (200)  NOT NULL ,
   CRON_EXPRESSION VARCHAR (120)  NOT NULL ,
-  TIME_ZONE_ID VARCHAR (80) 
+  TIME_ZONE_ID VARCHAR (80),
+  SPREAD_WINDOW BIGINT NULL
 );
 
 CREATE TABLE QRTZ_FIRED_TRIGGERS (
@@ -55,6 +56,26 @@ CREATE TABLE QRTZ_LOCKS (
   LOCK_NAME VARCHAR (40)  NOT NULL 
 );
 
+CREATE TABLE QRTZ_DELAYED_TASKS (
+  SCHED_NAME VARCHAR(120) NOT NULL,
+  TASK_ID VARCHAR(200) NOT NULL,
+  JOB_NAME VARCHAR(200) NOT NULL,
+  JOB_GROUP VARCHAR(200) NOT NULL,
+  FIRE_TIME BIGINT NOT NULL,
+  PAYLOAD VARCHAR(1000) NULL,
+  PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON QRTZ_DELAYED_TASKS(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE QRTZ_RATE_LIMITS (
+  SCHED_NAME VARCHAR(120) NOT NULL,
+  LIMIT_TYPE VARCHAR(20) NOT NULL,
+  LIMIT_GROUP VARCHAR(200) NOT NULL,
+  NEXT_PERMIT_TIME BIGINT NOT NULL,
+  PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 CREATE TABLE QRTZ_JOB_DETAILS (
   SCHED_NAME VARCHAR(120) NOT NULL,
   JOB_NAME VARCHAR (200)  NOT NULL ,
@@ -74,7 +95,11 @@ CREATE TABLE QRTZ_SIMPLE_TRIGGERS (
   TRIGGER_GROUP VARCHAR (200)  NOT NULL ,
   REPEAT_COUNT BIGINT NOT NULL ,
   REPEAT_INTERVAL BIGINT NOT NULL ,
-  TIMES_TRIGGERED BIGINT NOT NULL
+  TIMES_TRIGGERED BIGINT NOT NULL,
+  SPREAD_WINDOW BIGINT NULL,
+  PENDING_MISSED_FIRES BIGINT NULL,
+  FIRST_MISSED_FIRE_TIME BIGINT NULL,
+  LAST_MISSED_FIRE_TIME BIGINT NULL
 );
 
 CREATE TABLE QRTZ_SIMPROP_TRIGGERS (
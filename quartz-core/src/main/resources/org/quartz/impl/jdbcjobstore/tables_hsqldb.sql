@@ -4,6 +4,8 @@
 --
 
 DROP TABLE qrtz_locks IF EXISTS;
+DROP TABLE qrtz_delayed_tasks IF EXISTS;
+DROP TABLE qrtz_rate_limits IF EXISTS;
 DROP TABLE qrtz_scheduler_state IF EXISTS;
 DROP TABLE qrtz_fired_triggers IF EXISTS;
 DROP TABLE qrtz_paused_trigger_grps IF EXISTS;
@@ -61,6 +63,10 @@ TRIGGER_GROUP VARCHAR(200) NOT NULL,
 REPEAT_COUNT NUMERIC(7) NOT NULL,
 REPEAT_INTERVAL NUMERIC(12) NOT NULL,
 TIMES_TRIGGERED NUMERIC(10) NOT NULL,
+SPREAD_WINDOW NUMERIC(13) NULL,
+PENDING_MISSED_FIRES NUMERIC(13) NULL,
+FIRST_MISSED_FIRE_TIME NUMERIC(13) NULL,
+LAST_MISSED_FIRE_TIME NUMERIC(13) NULL,
 PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -73,6 +79,7 @@ TRIGGER_NAME VARCHAR(200) NOT NULL,
 TRIGGER_GROUP VARCHAR(200) NOT NULL,
 CRON_EXPRESSION VARCHAR(120) NOT NULL,
 TIME_ZONE_ID VARCHAR(80),
+SPREAD_WINDOW NUMERIC(13) NULL,
 PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -159,3 +166,25 @@ LOCK_NAME VARCHAR(40) NOT NULL,
 PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE qrtz_delayed_tasks
+(
+SCHED_NAME VARCHAR(120) NOT NULL,
+TASK_ID VARCHAR(200) NOT NULL,
+JOB_NAME VARCHAR(200) NOT NULL,
+JOB_GROUP VARCHAR(200) NOT NULL,
+FIRE_TIME NUMERIC(13) NOT NULL,
+PAYLOAD VARCHAR(1000) NULL,
+PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE qrtz_rate_limits
+(
+SCHED_NAME VARCHAR(120) NOT NULL,
+LIMIT_TYPE VARCHAR(20) NOT NULL,
+LIMIT_GROUP VARCHAR(200) NOT NULL,
+NEXT_PERMIT_TIME NUMERIC(13) NOT NULL,
+PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
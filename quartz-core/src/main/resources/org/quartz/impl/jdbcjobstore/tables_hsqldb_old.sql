@@ -55,6 +55,10 @@ TRIGGER_GROUP LONGVARCHAR(80) NOT NULL,
 REPEAT_COUNT NUMERIC(7) NOT NULL,
 REPEAT_INTERVAL NUMERIC(12) NOT NULL,
 TIMES_TRIGGERED NUMERIC(10) NOT NULL,
+SPREAD_WINDOW NUMERIC(13) NULL,
+PENDING_MISSED_FIRES NUMERIC(13) NULL,
+FIRST_MISSED_FIRE_TIME NUMERIC(13) NULL,
+LAST_MISSED_FIRE_TIME NUMERIC(13) NULL,
 PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -67,6 +71,7 @@ TRIGGER_NAME LONGVARCHAR(80) NOT NULL,
 TRIGGER_GROUP LONGVARCHAR(80) NOT NULL,
 CRON_EXPRESSION LONGVARCHAR(120) NOT NULL,
 TIME_ZONE_ID LONGVARCHAR(80),
+SPREAD_WINDOW NUMERIC(13) NULL,
 PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -153,4 +158,26 @@ CREATE TABLE qrtz_locks
     PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE qrtz_delayed_tasks
+  (
+    SCHED_NAME LONGVARCHAR(120) NOT NULL,
+    TASK_ID LONGVARCHAR(200) NOT NULL,
+    JOB_NAME LONGVARCHAR(80) NOT NULL,
+    JOB_GROUP LONGVARCHAR(80) NOT NULL,
+    FIRE_TIME NUMERIC(13) NOT NULL,
+    PAYLOAD LONGVARCHAR(1000) NULL,
+    PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE qrtz_rate_limits
+  (
+    SCHED_NAME LONGVARCHAR(120) NOT NULL,
+    LIMIT_TYPE LONGVARCHAR(20) NOT NULL,
+    LIMIT_GROUP LONGVARCHAR(200) NOT NULL,
+    NEXT_PERMIT_TIME NUMERIC(13) NOT NULL,
+    PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 commit;
@@ -31,7 +31,8 @@ SCHED_NAME VARCHAR(120) NOT NULL,
 TRIGGER_NAME varchar(80) NOT NULL,
 TRIGGER_GROUP varchar(80) NOT NULL,
 CRON_EXPRESSION varchar(120) NOT NULL,
-TIME_ZONE_ID varchar(80)
+TIME_ZONE_ID varchar(80),
+SPREAD_WINDOW numeric(13)
 );
 
 ALTER TABLE qcron_triggers
@@ -83,6 +84,26 @@ SCHED_NAME VARCHAR(120) NOT NULL,
 LOCK_NAME  varchar(40) NOT NULL
 );
 
+CREATE TABLE qdelayed_tasks (
+SCHED_NAME varchar(120) NOT NULL,
+TASK_ID varchar(200) NOT NULL,
+JOB_NAME varchar(80) NOT NULL,
+JOB_GROUP varchar(80) NOT NULL,
+FIRE_TIME numeric(13) NOT NULL,
+PAYLOAD varchar(1000),
+PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON qdelayed_tasks(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE qrate_limits (
+SCHED_NAME varchar(120) NOT NULL,
+LIMIT_TYPE varchar(20) NOT NULL,
+LIMIT_GROUP varchar(200) NOT NULL,
+NEXT_PERMIT_TIME numeric(13) NOT NULL,
+PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 ALTER TABLE qlocks
 ADD CONSTRAINT PRIMARY KEY (SCHED_NAME,LOCK_NAME);
 
@@ -110,7 +131,11 @@ TRIGGER_NAME varchar(80) NOT NULL,
 TRIGGER_GROUP varchar(80) NOT NULL,
 REPEAT_COUNT numeric(7) NOT NULL,
 REPEAT_INTERVAL numeric(12) NOT NULL,
-TIMES_TRIGGERED numeric(10) NOT NULL
+TIMES_TRIGGERED numeric(10) NOT NULL,
+SPREAD_WINDOW numeric(13),
+PENDING_MISSED_FIRES numeric(13),
+FIRST_MISSED_FIRE_TIME numeric(13),
+LAST_MISSED_FIRE_TIME numeric(13)
 );
 
 ALTER TABLE qsimple_triggers
@@ -11,6 +11,8 @@ DROP TABLE IF EXISTS QRTZ_FIRED_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE IF EXISTS QRTZ_SCHEDULER_STATE;
 DROP TABLE IF EXISTS QRTZ_LOCKS;
+DROP TABLE IF EXISTS QRTZ_DELAYED_TASKS;
+DROP TABLE IF EXISTS QRTZ_RATE_LIMITS;
 DROP TABLE IF EXISTS QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_SIMPROP_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_CRON_TRIGGERS;
@@ -66,6 +68,10 @@ CREATE TABLE QRTZ_SIMPLE_TRIGGERS
     REPEAT_COUNT BIGINT(7) NOT NULL,
     REPEAT_INTERVAL BIGINT(12) NOT NULL,
     TIMES_TRIGGERED BIGINT(10) NOT NULL,
+    SPREAD_WINDOW BIGINT(13) NULL,
+    PENDING_MISSED_FIRES BIGINT(13) NULL,
+    FIRST_MISSED_FIRE_TIME BIGINT(13) NULL,
+    LAST_MISSED_FIRE_TIME BIGINT(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
         REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -78,6 +84,7 @@ CREATE TABLE QRTZ_CRON_TRIGGERS
     TRIGGER_GROUP VARCHAR(200) NOT NULL,
     CRON_EXPRESSION VARCHAR(200) NOT NULL,
     TIME_ZONE_ID VARCHAR(80),
+    SPREAD_WINDOW BIGINT(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
         REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -164,5 +171,27 @@ CREATE TABLE QRTZ_LOCKS
     PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE QRTZ_DELAYED_TASKS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    TASK_ID VARCHAR(200) NOT NULL,
+    JOB_NAME VARCHAR(200) NOT NULL,
+    JOB_GROUP VARCHAR(200) NOT NULL,
+    FIRE_TIME BIGINT(13) NOT NULL,
+    PAYLOAD VARCHAR(1000) NULL,
+    PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON QRTZ_DELAYED_TASKS(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE QRTZ_RATE_LIMITS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    LIMIT_TYPE VARCHAR(20) NOT NULL,
+    LIMIT_GROUP VARCHAR(200) NOT NULL,
+    NEXT_PERMIT_TIME BIGINT(13) NOT NULL,
+    PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 
 commit;
@@ -30,6 +30,8 @@ drop table qrtz_triggers;
 drop table qrtz_job_details;
 drop table qrtz_paused_trigger_grps;
 drop table qrtz_locks;
+drop table qrtz_delayed_tasks;
+drop table qrtz_rate_limits;
 drop table qrtz_scheduler_state;
 
 
@@ -77,6 +79,10 @@ CREATE TABLE qrtz_simple_triggers
     REPEAT_COUNT NUMBER(7) NOT NULL,
     REPEAT_INTERVAL NUMBER(12) NOT NULL,
     TIMES_TRIGGERED NUMBER(10) NOT NULL,
+    SPREAD_WINDOW NUMBER(13) NULL,
+    PENDING_MISSED_FIRES NUMBER(13) NULL,
+    FIRST_MISSED_FIRE_TIME NUMBER(13) NULL,
+    LAST_MISSED_FIRE_TIME NUMBER(13) NULL,
     CONSTRAINT QRTZ_SIMPLE_TRIG_PK PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     CONSTRAINT QRTZ_SIMPLE_TRIG_TO_TRIG_FK FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) 
 	REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -88,6 +94,7 @@ CREATE TABLE qrtz_cron_triggers
     TRIGGER_GROUP VARCHAR2(200) NOT NULL,
     CRON_EXPRESSION VARCHAR2(120) NOT NULL,
     TIME_ZONE_ID VARCHAR2(80),
+    SPREAD_WINDOW NUMBER(13) NULL,
     CONSTRAINT QRTZ_CRON_TRIG_PK PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     CONSTRAINT QRTZ_CRON_TRIG_TO_TRIG_FK FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) 
       REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -167,6 +174,28 @@ CREATE TABLE qrtz_locks
     CONSTRAINT QRTZ_LOCKS_PK PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE qrtz_delayed_tasks
+  (
+    SCHED_NAME VARCHAR2(120) NOT NULL,
+    TASK_ID VARCHAR2(200) NOT NULL,
+    JOB_NAME VARCHAR2(200) NOT NULL,
+    JOB_GROUP VARCHAR2(200) NOT NULL,
+    FIRE_TIME NUMBER(13) NOT NULL,
+    PAYLOAD VARCHAR2(1000) NULL,
+    CONSTRAINT QRTZ_DELAYED_TASKS_PK PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE qrtz_rate_limits
+  (
+    SCHED_NAME VARCHAR2(120) NOT NULL,
+    LIMIT_TYPE VARCHAR2(20) NOT NULL,
+    LIMIT_GROUP VARCHAR2(200) NOT NULL,
+    NEXT_PERMIT_TIME NUMBER(13) NOT NULL,
+    CONSTRAINT QRTZ_RATE_LIMITS_PK PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 create index idx_qrtz_j_req_recovery on qrtz_job_details(SCHED_NAME,REQUESTS_RECOVERY);
 create index idx_qrtz_j_grp on qrtz_job_details(SCHED_NAME,JOB_GROUP);
 
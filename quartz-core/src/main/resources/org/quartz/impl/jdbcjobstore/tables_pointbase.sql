@@ -29,6 +29,8 @@ drop table qrtz_triggers;
 drop table qrtz_job_details;
 drop table qrtz_paused_trigger_grps;
 drop table qrtz_locks;
+drop table qrtz_delayed_tasks;
+drop table qrtz_rate_limits;
 drop table qrtz_scheduler_state;
  
 
@@ -78,6 +80,10 @@ CREATE TABLE qrtz_simple_triggers
     REPEAT_COUNT NUMBER(7) NOT NULL,
     REPEAT_INTERVAL NUMBER(12) NOT NULL,
     TIMES_TRIGGERED NUMBER(10) NOT NULL,
+    SPREAD_WINDOW NUMBER(13) NULL,
+    PENDING_MISSED_FIRES NUMBER(13) NULL,
+    FIRST_MISSED_FIRE_TIME NUMBER(13) NULL,
+    LAST_MISSED_FIRE_TIME NUMBER(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) 
 	REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -112,6 +118,7 @@ CREATE TABLE qrtz_cron_triggers
     TRIGGER_GROUP VARCHAR2(80) NOT NULL,
     CRON_EXPRESSION VARCHAR2(120) NOT NULL,
     TIME_ZONE_ID VARCHAR2(80),
+    SPREAD_WINDOW NUMBER(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) 
 	REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
@@ -177,4 +184,26 @@ CREATE TABLE qrtz_locks
     PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE qrtz_delayed_tasks
+  (
+    SCHED_NAME VARCHAR2(120) NOT NULL,
+    TASK_ID VARCHAR2(200) NOT NULL,
+    JOB_NAME VARCHAR2(80) NOT NULL,
+    JOB_GROUP VARCHAR2(80) NOT NULL,
+    FIRE_TIME NUMBER(13) NOT NULL,
+    PAYLOAD VARCHAR2(1000) NULL,
+    PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE qrtz_rate_limits
+  (
+    SCHED_NAME VARCHAR2(120) NOT NULL,
+    LIMIT_TYPE VARCHAR2(20) NOT NULL,
+    LIMIT_GROUP VARCHAR2(200) NOT NULL,
+    NEXT_PERMIT_TIME NUMBER(13) NOT NULL,
+    PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 commit;
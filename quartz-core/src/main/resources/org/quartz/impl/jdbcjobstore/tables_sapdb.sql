@@ -50,6 +50,10 @@ CREATE TABLE QRTZ_SIMPLE_TRIGGERS
     REPEAT_COUNT FIXED(7) NOT NULL,
     REPEAT_INTERVAL FIXED(12) NOT NULL,
     TIMES_TRIGGERED FIXED(10) NOT NULL,
+    SPREAD_WINDOW FIXED(13) NULL,
+    PENDING_MISSED_FIRES FIXED(13) NULL,
+    FIRST_MISSED_FIRE_TIME FIXED(13) NULL,
+    LAST_MISSED_FIRE_TIME FIXED(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 );
@@ -82,6 +86,7 @@ CREATE TABLE QRTZ_CRON_TRIGGERS
     TRIGGER_GROUP VARCHAR(200) NOT NULL,
     CRON_EXPRESSION VARCHAR(120) NOT NULL,
     TIME_ZONE_ID VARCHAR(80),
+    SPREAD_WINDOW FIXED(13) NULL,
     PRIMARY KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP)
 );
@@ -147,5 +152,27 @@ CREATE TABLE QRTZ_LOCKS
     PRIMARY KEY (SCHED_NAME,LOCK_NAME)
 );
 
+CREATE TABLE QRTZ_DELAYED_TASKS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    TASK_ID VARCHAR(200) NOT NULL,
+    JOB_NAME VARCHAR(200) NOT NULL,
+    JOB_GROUP VARCHAR(200) NOT NULL,
+    FIRE_TIME FIXED(13) NOT NULL,
+    PAYLOAD VARCHAR(1000) NULL,
+    PRIMARY KEY (SCHED_NAME,TASK_ID)
+);
+
+CREATE INDEX IDX_QRTZ_DT_FT ON QRTZ_DELAYED_TASKS(SCHED_NAME,FIRE_TIME);
+
+CREATE TABLE QRTZ_RATE_LIMITS
+  (
+    SCHED_NAME VARCHAR(120) NOT NULL,
+    LIMIT_TYPE VARCHAR(20) NOT NULL,
+    LIMIT_GROUP VARCHAR(200) NOT NULL,
+    NEXT_PERMIT_TIME FIXED(13) NOT NULL,
+    PRIMARY KEY (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+);
+
 
 commit;
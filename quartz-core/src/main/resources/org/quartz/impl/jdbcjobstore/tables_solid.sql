@@ -1,5 +1,7 @@
 
 DROP TABLE qrtz_locks;
+DROP TABLE qrtz_delayed_tasks;
+DROP TABLE qrtz_rate_limits;
 DROP TABLE qrtz_scheduler_state;
 DROP TABLE qrtz_fired_triggers;
 DROP TABLE qrtz_paused_trigger_grps;
@@ -53,6 +55,10 @@ create table qrtz_simple_triggers(
 	repeat_count numeric(13) not null,
 	repeat_interval numeric(13) not null,
 	times_triggered numeric(13) not null,
+	spread_window numeric(13),
+	pending_missed_fires numeric(13),
+	first_missed_fire_time numeric(13),
+	last_missed_fire_time numeric(13),
 primary key (sched_name,trigger_name,trigger_group),
 foreign key (sched_name,trigger_name,trigger_group) references qrtz_triggers(sched_name,trigger_name,trigger_group)
 );
@@ -84,6 +90,7 @@ create table qrtz_cron_triggers(
 	trigger_group varchar(80) not null,
 	cron_expression varchar(120) not null,
 	time_zone_id varchar(80),
+	spread_window numeric(13),
 primary key (sched_name,trigger_name,trigger_group),
 foreign key (sched_name,trigger_name,trigger_group) references qrtz_triggers(sched_name,trigger_name,trigger_group)
 );
@@ -144,4 +151,26 @@ create table qrtz_locks
 primary key (sched_name,lock_name)
 );
 
+create table qrtz_delayed_tasks
+  (
+    sched_name varchar(120) not null,
+    task_id varchar(200) not null,
+    job_name varchar(80) not null,
+    job_group varchar(80) not null,
+    fire_time numeric(13) not null,
+    payload varchar(1000),
+primary key (sched_name,task_id)
+);
+
+create index idx_qrtz_dt_ft on qrtz_delayed_tasks(sched_name,fire_time);
+
+create table qrtz_rate_limits
+  (
+    sched_name varchar(120) not null,
+    limit_type varchar(20) not null,
+    limit_group varchar(200) not null,
+    next_permit_time numeric(13) not null,
+primary key (sched_name,limit_type,limit_group)
+);
+
 commit work;
@@ -75,6 +75,14 @@ IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_LOCKS
 DROP TABLE [dbo].[QRTZ_LOCKS]
 GO
 
+IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_DELAYED_TASKS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
+DROP TABLE [dbo].[QRTZ_DELAYED_TASKS]
+GO
+
+IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_RATE_LIMITS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
+DROP TABLE [dbo].[QRTZ_RATE_LIMITS]
+GO
+
 IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_JOB_DETAILS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
 DROP TABLE [dbo].[QRTZ_JOB_DETAILS]
 GO
@@ -103,7 +111,8 @@ CREATE TABLE [dbo].[QRTZ_CRON_TRIGGERS] (
   [TRIGGER_NAME] [VARCHAR] (200)  NOT NULL ,
   [TRIGGER_GROUP] [VARCHAR] (200)  NOT NULL ,
   [CRON_EXPRESSION] [VARCHAR] (120)  NOT NULL ,
-  [TIME_ZONE_ID] [VARCHAR] (80) 
+  [TIME_ZONE_ID] [VARCHAR] (80),
+  [SPREAD_WINDOW] [BIGINT] NULL
 ) ON [PRIMARY]
 GO
 
@@ -144,6 +153,24 @@ CREATE TABLE [dbo].[QRTZ_LOCKS] (
 ) ON [PRIMARY]
 GO
 
+CREATE TABLE [dbo].[QRTZ_DELAYED_TASKS] (
+  [SCHED_NAME] [VARCHAR] (120)  NOT NULL ,
+  [TASK_ID] [VARCHAR] (200)  NOT NULL ,
+  [JOB_NAME] [VARCHAR] (200)  NOT NULL ,
+  [JOB_GROUP] [VARCHAR] (200)  NOT NULL ,
+  [FIRE_TIME] [BIGINT] NOT NULL ,
+  [PAYLOAD] [VARCHAR] (1000)  NULL
+) ON [PRIMARY]
+GO
+
+CREATE TABLE [dbo].[QRTZ_RATE_LIMITS] (
+  [SCHED_NAME] [VARCHAR] (120)  NOT NULL ,
+  [LIMIT_TYPE] [VARCHAR] (20)  NOT NULL ,
+  [LIMIT_GROUP] [VARCHAR] (200)  NOT NULL ,
+  [NEXT_PERMIT_TIME] [BIGINT] NOT NULL
+) ON [PRIMARY]
+GO
+
 CREATE TABLE [dbo].[QRTZ_JOB_DETAILS] (
   [SCHED_NAME] [VARCHAR] (120)  NOT NULL ,
   [JOB_NAME] [VARCHAR] (200)  NOT NULL ,
@@ -164,7 +191,11 @@ CREATE TABLE [dbo].[QRTZ_SIMPLE_TRIGGERS] (
   [TRIGGER_GROUP] [VARCHAR] (200)  NOT NULL ,
   [REPEAT_COUNT] [BIGINT] NOT NULL ,
   [REPEAT_INTERVAL] [BIGINT] NOT NULL ,
-  [TIMES_TRIGGERED] [BIGINT] NOT NULL
+  [TIMES_TRIGGERED] [BIGINT] NOT NULL,
+  [SPREAD_WINDOW] [BIGINT] NULL,
+  [PENDING_MISSED_FIRES] [BIGINT] NULL,
+  [FIRST_MISSED_FIRE_TIME] [BIGINT] NULL,
+  [LAST_MISSED_FIRE_TIME] [BIGINT] NULL
 ) ON [PRIMARY]
 GO
 
@@ -263,6 +294,23 @@ ALTER TABLE [dbo].[QRTZ_LOCKS] WITH NOCHECK ADD
   )  ON [PRIMARY]
 GO
 
+ALTER TABLE [dbo].[QRTZ_DELAYED_TASKS] WITH NOCHECK ADD
+  CONSTRAINT [PK_QRTZ_DELAYED_TASKS] PRIMARY KEY  CLUSTERED
+  (
+    [SCHED_NAME],
+    [TASK_ID]
+  )  ON [PRIMARY]
+GO
+
+ALTER TABLE [dbo].[QRTZ_RATE_LIMITS] WITH NOCHECK ADD
+  CONSTRAINT [PK_QRTZ_RATE_LIMITS] PRIMARY KEY  CLUSTERED
+  (
+    [SCHED_NAME],
+    [LIMIT_TYPE],
+    [LIMIT_GROUP]
+  )  ON [PRIMARY]
+GO
+
 ALTER TABLE [dbo].[QRTZ_JOB_DETAILS] WITH NOCHECK ADD
   CONSTRAINT [PK_QRTZ_JOB_DETAILS] PRIMARY KEY  CLUSTERED
   (
@@ -431,3 +479,19 @@ CREATE NONCLUSTERED INDEX [IX_QRTZ_TRIGGERS_QRTZ_JOB_DETAILS] ON [dbo].[QRTZ_TRI
     ALLOW_PAGE_LOCKS  = ON
   ) ON [PRIMARY]
 GO
+
+CREATE NONCLUSTERED INDEX [IX_QRTZ_DELAYED_TASKS_FIRE_TIME] ON [dbo].[QRTZ_DELAYED_TASKS]
+  (
+    [SCHED_NAME] ASC,
+    [FIRE_TIME] ASC
+  ) WITH (
+    PAD_INDEX  = OFF,
+    STATISTICS_NORECOMPUTE  = OFF,
+    SORT_IN_TEMPDB = OFF,
+    IGNORE_DUP_KEY = OFF,
+    DROP_EXISTING = OFF,
+    ONLINE = OFF,
+    ALLOW_ROW_LOCKS  = ON,
+    ALLOW_PAGE_LOCKS  = ON
+  ) ON [PRIMARY]
+GO
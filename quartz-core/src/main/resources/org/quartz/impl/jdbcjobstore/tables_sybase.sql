@@ -28,6 +28,12 @@ go
 IF OBJECT_ID('QRTZ_LOCKS') IS NOT NULL 
 delete from QRTZ_LOCKS
 go
+IF OBJECT_ID('QRTZ_DELAYED_TASKS') IS NOT NULL 
+delete from QRTZ_DELAYED_TASKS
+go
+IF OBJECT_ID('QRTZ_RATE_LIMITS') IS NOT NULL 
+delete from QRTZ_RATE_LIMITS
+go
 IF OBJECT_ID('QRTZ_SIMPLE_TRIGGERS') IS NOT NULL 
 delete from QRTZ_SIMPLE_TRIGGERS
 go
@@ -86,6 +92,10 @@ drop table QRTZ_SCHEDULER_STATE
 go
 drop table QRTZ_LOCKS
 go
+drop table QRTZ_DELAYED_TASKS
+go
+drop table QRTZ_RATE_LIMITS
+go
 drop table QRTZ_SIMPLE_TRIGGERS
 go
 drop table QRTZ_SIMPROP_TRIGGERS
@@ -118,6 +128,7 @@ TRIGGER_NAME varchar(200) not null,
 TRIGGER_GROUP varchar(200) not null,
 CRON_EXPRESSION varchar(120) not null,
 TIME_ZONE_ID varchar(80) null,
+SPREAD_WINDOW numeric(13,0) null,
 )
 go
 
@@ -158,6 +169,24 @@ LOCK_NAME  varchar(40) not null,
 )
 go
 
+create table QRTZ_DELAYED_TASKS (
+SCHED_NAME varchar(120) not null,
+TASK_ID varchar(200) not null,
+JOB_NAME varchar(200) not null,
+JOB_GROUP varchar(200) not null,
+FIRE_TIME numeric(13,0) not null,
+PAYLOAD varchar(1000) null,
+)
+go
+
+create table QRTZ_RATE_LIMITS (
+SCHED_NAME varchar(120) not null,
+LIMIT_TYPE varchar(20) not null,
+LIMIT_GROUP varchar(200) not null,
+NEXT_PERMIT_TIME numeric(13,0) not null,
+)
+go
+
 
 create table QRTZ_JOB_DETAILS (
 SCHED_NAME varchar(120) not null,
@@ -179,7 +208,11 @@ TRIGGER_NAME varchar(200) not null,
 TRIGGER_GROUP varchar(200) not null,
 REPEAT_COUNT numeric(13,0) not null,
 REPEAT_INTERVAL numeric(13,0) not null,
-TIMES_TRIGGERED numeric(13,0) not null
+TIMES_TRIGGERED numeric(13,0) not null,
+SPREAD_WINDOW numeric(13,0) null,
+PENDING_MISSED_FIRES numeric(13,0) null,
+FIRST_MISSED_FIRE_TIME numeric(13,0) null,
+LAST_MISSED_FIRE_TIME numeric(13,0) null
 )
 go
 
@@ -258,6 +291,17 @@ alter table QRTZ_LOCKS
 add constraint PK_qrtz_locks primary key clustered (SCHED_NAME,LOCK_NAME)
 go
 
+alter table QRTZ_DELAYED_TASKS
+add constraint PK_qrtz_delayed_tasks primary key clustered (SCHED_NAME,TASK_ID)
+go
+
+create index IDX_QRTZ_DT_FT on QRTZ_DELAYED_TASKS (SCHED_NAME,FIRE_TIME)
+go
+
+alter table QRTZ_RATE_LIMITS
+add constraint PK_qrtz_rate_limits primary key clustered (SCHED_NAME,LIMIT_TYPE,LIMIT_GROUP)
+go
+
 alter table QRTZ_JOB_DETAILS
 add constraint PK_qrtz_job_details primary key clustered (SCHED_NAME,JOB_NAME, JOB_GROUP)
 go
@@ -15,8 +15,13 @@
  */
 package org.quartz;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -25,10 +30,13 @@ import junit.framework.TestCase;
 import org.hamcrest.collection.IsIterableContainingInOrder;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.impl.JobDetailImpl;
+import org.quartz.impl.calendar.BaseCalendar;
 import org.quartz.impl.jdbcjobstore.JobStoreSupport;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.simpl.JournaledRAMJobStore;
+import org.quartz.simpl.RAMJobStoreSupport;
 import org.quartz.spi.*;
 
 import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
@@ -277,6 +285,66 @@ public abstract class AbstractJobStoreTest extends TestCase {
         assertEquals( "StoreJob doesn't replace triggers", "QQ", fJobStore.retrieveTrigger(tr.getKey()).getCalendarName());
     }
 
+    public void testSpreadWindowIsStoredOutsideJobDataMap() throws Exception {
+        OperableTrigger cron = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("spreadCron", "spread").forJob(this.fJobDetail)
+            .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?").withSpreadInMinutes(10))
+            .usingJobData("key", "value")
+            .build();
+        OperableTrigger simple = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("spreadSimple", "spread").forJob(this.fJobDetail)
+            .withSchedule(SimpleScheduleBuilder.repeatHourlyForever().withSpreadInSeconds(30))
+            .build();
+
+        for (OperableTrigger trigger : Arrays.asList(cron, simple)) {
+            trigger.computeFirstFireTime(null);
+            this.fJobStore.storeTrigger(trigger, false);
+
+            OperableTrigger stored = this.fJobStore.retrieveTrigger(trigger.getKey());
+            assertEquals(trigger.getJobDataMap().getWrappedMap(), stored.getJobDataMap().getWrappedMap());
+            assertEquals(TriggerUtils.getSpreadWindow(trigger), TriggerUtils.getSpreadWindow(stored));
+
+            this.fJobStore.storeTrigger(stored, true);
+            stored = this.fJobStore.retrieveTrigger(trigger.getKey());
+            assertEquals(trigger.getJobDataMap().getWrappedMap(), stored.getJobDataMap().getWrappedMap());
+            assertEquals(TriggerUtils.getSpreadWindow(trigger), TriggerUtils.getSpreadWindow(stored));
+            assertEquals(trigger.getNextFireTime(), stored.getNextFireTime());
+        }
+        assertEquals(600000L, TriggerUtils.getSpreadWindow(cron));
+        assertEquals(30000L, TriggerUtils.getSpreadWindow(simple));
+    }
+
+    public void testCoalescedMissedFiresAreStoredOutsideJobDataMap() throws Exception {
+        // ten and a half intervals late
+        SimpleTriggerImpl trigger = (SimpleTriggerImpl) TriggerBuilder.newTrigger()
+            .withIdentity("coalescing", "coalescing").forJob(this.fJobDetail)
+            .startAt(new Date(System.currentTimeMillis() - 10500L))
+            .withSchedule(SimpleScheduleBuilder.repeatSecondlyForever()
+                .withMisfireHandlingInstructionCoalesceMissedFires())
+            .build();
+        trigger.computeFirstFireTime(null);
+        trigger.updateAfterMisfire(null);
+        this.fJobStore.storeTrigger(trigger, false);
+
+        SimpleTriggerImpl stored = (SimpleTriggerImpl) this.fJobStore.retrieveTrigger(trigger.getKey());
+        assertEquals(11, stored.getPendingMissedFireCount());
+        assertEquals(trigger.getPendingFirstMissedFireTime(), stored.getPendingFirstMissedFireTime());
+        assertEquals(trigger.getPendingLastMissedFireTime(), stored.getPendingLastMissedFireTime());
+        assertTrue(stored.getJobDataMap().isEmpty());
+
+        List<OperableTrigger> acquired = this.fJobStore.acquireNextTriggers(System.currentTimeMillis() + 10000L, 1, 0L);
+        assertEquals(trigger.getKey(), acquired.get(0).getKey());
+        List<TriggerFiredResult> fired = this.fJobStore.triggersFired(acquired);
+        SimpleTriggerImpl firedTrigger = (SimpleTriggerImpl) fired.get(0).getTriggerFiredBundle().getTrigger();
+        assertEquals(11, firedTrigger.getMissedFireCount());
+        assertTrue(firedTrigger.getJobDataMap().isEmpty());
+
+        stored = (SimpleTriggerImpl) this.fJobStore.retrieveTrigger(trigger.getKey());
+        assertEquals(0, stored.getPendingMissedFireCount());
+        assertNull(stored.getPendingFirstMissedFireTime());
+        assertEquals(11, stored.getTimesTriggered());
+    }
+
     @SuppressWarnings("deprecation")
     public void testPauseJobGroupPausesNewJob() throws Exception
     {
@@ -447,6 +515,397 @@ public abstract class AbstractJobStoreTest extends TestCase {
 
     }
 
+    public void testPrefixAndSuffixMatchersOnManyGroups() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testPrefixAndSuffixMatchersOnManyGroups");
+        store.initialize(loadHelper, schedSignaler);
+
+        String[] groups = {"a", "a_b", "axb", "ab", "abc", "b", "ba", "cab"};
+        for (String group : groups) {
+            JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job", group).build();
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trig", group)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()).forJob(job).build();
+            trigger.computeFirstFireTime(null);
+            store.storeJobAndTrigger(job, trigger);
+        }
+        store.removeTrigger(new TriggerKey("trig", "abc"));
+        store.removeJob(new JobKey("job", "abc"));
+
+        Assert.assertEquals(4, store.getJobKeys(GroupMatcher.jobGroupStartsWith("a")).size());
+        Assert.assertEquals(1, store.getJobKeys(GroupMatcher.jobGroupStartsWith("a_")).size());
+        Assert.assertEquals(0, store.getJobKeys(GroupMatcher.jobGroupStartsWith("abc")).size());
+        Assert.assertEquals(5, store.getJobKeys(GroupMatcher.jobGroupEndsWith("b")).size());
+        Assert.assertEquals(4, store.getTriggerKeys(GroupMatcher.triggerGroupStartsWith("a")).size());
+        Assert.assertEquals(1, store.getTriggerKeys(GroupMatcher.triggerGroupStartsWith("a_")).size());
+        Assert.assertEquals(2, store.getTriggerKeys(GroupMatcher.triggerGroupStartsWith("b")).size());
+        Assert.assertEquals(2, store.getTriggerKeys(GroupMatcher.triggerGroupEndsWith("ab")).size());
+        Assert.assertEquals(1, store.getJobKeys(GroupMatcher.jobGroupEndsWith("_b")).size());
+        Assert.assertEquals(1, store.getTriggerKeys(GroupMatcher.triggerGroupContains("_")).size());
+
+        Collection<String> paused = store.pauseTriggers(GroupMatcher.triggerGroupStartsWith("ax"));
+        Assert.assertEquals(Collections.singletonList("axb"), new ArrayList<String>(paused));
+        Assert.assertTrue(store.getPausedTriggerGroups().contains("axb"));
+        Assert.assertFalse(store.getPausedTriggerGroups().contains("ax"));
+        Assert.assertEquals(TriggerState.PAUSED, store.getTriggerState(new TriggerKey("trig", "axb")));
+        Assert.assertEquals(TriggerState.NORMAL, store.getTriggerState(new TriggerKey("trig", "a_b")));
+
+        store.resumeTriggers(GroupMatcher.triggerGroupEndsWith("xb"));
+        Assert.assertTrue(store.getPausedTriggerGroups().isEmpty());
+        Assert.assertEquals(TriggerState.NORMAL, store.getTriggerState(new TriggerKey("trig", "axb")));
+
+        paused = store.pauseTriggers(GroupMatcher.triggerGroupEndsWith("_b"));
+        Assert.assertEquals(Collections.singletonList("a_b"), new ArrayList<String>(paused));
+        Assert.assertEquals(TriggerState.NORMAL, store.getTriggerState(new TriggerKey("trig", "axb")));
+        store.resumeTriggers(GroupMatcher.triggerGroupContains("_"));
+        Assert.assertTrue(store.getPausedTriggerGroups().isEmpty());
+        Assert.assertEquals(TriggerState.NORMAL, store.getTriggerState(new TriggerKey("trig", "a_b")));
+    }
+
+    public void testPagedKeyListings() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testPagedKeyListings");
+        store.initialize(loadHelper, schedSignaler);
+
+        List<TriggerKey> expected = new ArrayList<TriggerKey>();
+        for (String group : new String[] {"page-b", "page-a", "other", "page-c"}) {
+            for (int i = 9; i >= 0; i--) {
+                JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job" + i, group).build();
+                OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trig" + i, group)
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule()).forJob(job).build();
+                trigger.computeFirstFireTime(null);
+                store.storeJobAndTrigger(job, trigger);
+                if (group.startsWith("page-")) {
+                    expected.add(trigger.getKey());
+                }
+            }
+        }
+        Collections.sort(expected);
+
+        List<TriggerKey> triggerKeys = new ArrayList<TriggerKey>();
+        TriggerKey afterTriggerKey = null;
+        List<TriggerKey> triggerPage;
+        do {
+            triggerPage = store.getTriggerKeys(GroupMatcher.triggerGroupStartsWith("page-"), afterTriggerKey, 7);
+            Assert.assertTrue(triggerPage.size() <= 7);
+            triggerKeys.addAll(triggerPage);
+            if (!triggerPage.isEmpty()) {
+                afterTriggerKey = triggerPage.get(triggerPage.size() - 1);
+            }
+        } while (triggerPage.size() == 7);
+        Assert.assertEquals(expected, triggerKeys);
+
+        List<JobKey> jobKeys = store.getJobKeys(GroupMatcher.jobGroupEquals("page-b"), new JobKey("job4", "page-b"), 3);
+        Assert.assertEquals(3, jobKeys.size());
+        Assert.assertEquals(new JobKey("job5", "page-b"), jobKeys.get(0));
+        Assert.assertEquals(new JobKey("job7", "page-b"), jobKeys.get(2));
+
+        jobKeys = store.getJobKeys(GroupMatcher.anyJobGroup(), new JobKey("job8", "page-c"), 10);
+        Assert.assertEquals(Collections.singletonList(new JobKey("job9", "page-c")), jobKeys);
+
+        Assert.assertTrue(store.getJobKeys(GroupMatcher.jobGroupEquals("none"), null, 10).isEmpty());
+    }
+
+    public void testTriggerSummaries() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testTriggerSummaries");
+        store.initialize(loadHelper, schedSignaler);
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("summaryJob").storeDurably().build();
+        store.storeJob(job, false);
+
+        // enough triggers in one group to need more than one IN list on JDBC stores
+        List<TriggerKey> keys = new ArrayList<TriggerKey>();
+        Date start = new Date(System.currentTimeMillis() + 3600000L);
+        for (int i = 0; i < 510; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("trig" + i, i < 505 ? "summaries" : "summaries-other")
+                .forJob(job).startAt(new Date(start.getTime() + i * 1000L)).build();
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+            keys.add(trigger.getKey());
+        }
+        store.pauseTrigger(new TriggerKey("trig7", "summaries"));
+        keys.add(new TriggerKey("missing", "summaries"));
+
+        Map<TriggerKey, TriggerSummary> summaries = store.getTriggerSummaries(keys);
+        Assert.assertEquals(510, summaries.size());
+        Assert.assertFalse(summaries.containsKey(new TriggerKey("missing", "summaries")));
+
+        TriggerSummary summary = summaries.get(new TriggerKey("trig3", "summaries"));
+        Assert.assertEquals(TriggerState.NORMAL, summary.getState());
+        Assert.assertEquals(job.getKey(), summary.getJobKey());
+        Assert.assertEquals(new Date(start.getTime() + 3000L), summary.getNextFireTime());
+        Assert.assertEquals(TriggerState.PAUSED, summaries.get(new TriggerKey("trig7", "summaries")).getState());
+        Assert.assertEquals(new Date(start.getTime() + 508000L),
+            summaries.get(new TriggerKey("trig508", "summaries-other")).getNextFireTime());
+    }
+
+    public void testAcquireNextTriggersWithFilter() throws Exception {
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+
+        JobDetailImpl slowJob = new JobDetailImpl("slowJob", "slow", MyJob.class);
+        slowJob.setDurability(true);
+        this.fJobStore.storeJob(slowJob, false);
+        for (int i = 1; i <= 4; i++) {
+            OperableTrigger slow = new SimpleTriggerImpl("slow" + i, "filterGroup", slowJob.getName(),
+                slowJob.getGroup(), new Date(baseFireTime + i * 1000L), null, 0, 0);
+            slow.computeFirstFireTime(null);
+            this.fJobStore.storeTrigger(slow, false);
+        }
+        OperableTrigger fast = new SimpleTriggerImpl("fast", "filterGroup", this.fJobDetail.getName(),
+            this.fJobDetail.getGroup(), new Date(baseFireTime + 5000L), null, 0, 0);
+        fast.computeFirstFireTime(null);
+        this.fJobStore.storeTrigger(fast, false);
+
+        TriggerAcquisitionFilter skipSlowJobs = new TriggerAcquisitionFilter() {
+            public boolean accept(OperableTrigger trigger, JobDetail jobDetail) {
+                return !"slow".equals(jobDetail.getKey().getGroup());
+            }
+        };
+
+        // the rejected triggers come first, but do not use up the batch
+        List<OperableTrigger> acquired = this.fJobStore.acquireNextTriggers(
+            baseFireTime + 10000L, 1, 10000L, skipSlowJobs);
+        assertEquals(1, acquired.size());
+        assertEquals(fast.getKey(), acquired.get(0).getKey());
+
+        // and are still waiting to be acquired
+        acquired = this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(4, acquired.size());
+        assertEquals(new TriggerKey("slow1", "filterGroup"), acquired.get(0).getKey());
+        assertEquals(new TriggerKey("slow4", "filterGroup"), acquired.get(3).getKey());
+    }
+
+    public void testAcquireNextTriggersWithinConcurrencyLimit() throws Exception {
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+
+        JobDetailImpl limitedJob = new JobDetailImpl("limitedJob", "limited", LimitedJob.class);
+        limitedJob.setDurability(true);
+        this.fJobStore.storeJob(limitedJob, false);
+        for (int i = 1; i <= 3; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("limited" + i, "limitGroup", limitedJob.getName(),
+                limitedJob.getGroup(), new Date(baseFireTime + i * 1000L), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            this.fJobStore.storeTrigger(trigger, false);
+        }
+
+        List<OperableTrigger> acquired = this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(2, acquired.size());
+        assertEquals(2, this.fJobStore.triggersFired(acquired).size());
+
+        // the third trigger stays waiting while both executions run
+        assertEquals(0, this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L).size());
+
+        this.fJobStore.triggeredJobComplete(acquired.get(0), limitedJob,
+            Trigger.CompletedExecutionInstruction.NOOP);
+        List<OperableTrigger> next = this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, next.size());
+        assertEquals(new TriggerKey("limited3", "limitGroup"), next.get(0).getKey());
+    }
+
+    public void testAcquireNextTriggersWithinRateLimit() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testAcquireNextTriggersWithinRateLimit");
+        if (store instanceof RAMJobStoreSupport) {
+            ((RAMJobStoreSupport) store).setJobGroupRateLimits("rated=1");
+        } else if (store instanceof JobStoreSupport) {
+            ((JobStoreSupport) store).setJobGroupRateLimits("rated=1");
+        } else {
+            return;
+        }
+        store.initialize(loadHelper, schedSignaler);
+
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+        JobDetailImpl ratedJob = new JobDetailImpl("ratedJob", "rated", MyJob.class);
+        ratedJob.setDurability(true);
+        store.storeJob(ratedJob, false);
+        for (int i = 1; i <= 3; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("rated" + i, "rateGroup", ratedJob.getName(),
+                ratedJob.getGroup(), new Date(baseFireTime + 1000L), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+
+        // one fire per second: the other two triggers are deferred, not acquired
+        List<OperableTrigger> acquired = store.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, acquired.size());
+        assertEquals(baseFireTime + 1000L, acquired.get(0).getNextFireTime().getTime());
+        for (int i = 1; i <= 3; i++) {
+            TriggerKey key = new TriggerKey("rated" + i, "rateGroup");
+            if (!key.equals(acquired.get(0).getKey())) {
+                assertEquals(baseFireTime + 2000L, store.retrieveTrigger(key).getNextFireTime().getTime());
+            }
+        }
+        assertEquals(2L, ((RateLimitedJobStore) store).getThrottledFireCount());
+
+        acquired = store.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, acquired.size());
+        assertEquals(baseFireTime + 2000L, acquired.get(0).getNextFireTime().getTime());
+
+        acquired = store.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, acquired.size());
+        assertEquals(baseFireTime + 3000L, acquired.get(0).getNextFireTime().getTime());
+        assertEquals(Long.valueOf(3L), ((RateLimitedJobStore) store).getThrottledFireCounts().get("JOB_GROUP:rated"));
+    }
+
+    public void testRateLimitDeferralHonorsCalendarAndEndTime() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testRateLimitDeferralHonorsCalendarAndEndTime");
+        if (store instanceof RAMJobStoreSupport) {
+            ((RAMJobStoreSupport) store).setJobGroupRateLimits("rated=1");
+        } else if (store instanceof JobStoreSupport) {
+            ((JobStoreSupport) store).setJobGroupRateLimits("rated=1");
+        } else {
+            return;
+        }
+        store.initialize(loadHelper, schedSignaler);
+
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+        store.storeCalendar("excludedRange",
+            new ExcludedRangeCalendar(baseFireTime + 2000L, baseFireTime + 4000L), false, false);
+        JobDetailImpl ratedJob = new JobDetailImpl("ratedJob", "rated", MyJob.class);
+        ratedJob.setDurability(true);
+        store.storeJob(ratedJob, false);
+        OperableTrigger first = new SimpleTriggerImpl("first", "rateGroup", ratedJob.getName(),
+            ratedJob.getGroup(), new Date(baseFireTime + 1000L), null, 0, 0);
+        first.setPriority(10);
+        first.computeFirstFireTime(null);
+        store.storeTrigger(first, false);
+        OperableTrigger calendared = new SimpleTriggerImpl("calendared", "rateGroup", ratedJob.getName(),
+            ratedJob.getGroup(), new Date(baseFireTime + 1000L), null, 0, 0);
+        calendared.setCalendarName("excludedRange");
+        calendared.computeFirstFireTime(null);
+        store.storeTrigger(calendared, false);
+        OperableTrigger ending = new SimpleTriggerImpl("ending", "rateGroup", ratedJob.getName(),
+            ratedJob.getGroup(), new Date(baseFireTime + 1000L), new Date(baseFireTime + 1500L), 0, 0);
+        ending.computeFirstFireTime(null);
+        store.storeTrigger(ending, false);
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, acquired.size());
+        assertEquals(first.getKey(), acquired.get(0).getKey());
+        // the permit time falls in the excluded range, so it goes to the range's end
+        assertEquals(baseFireTime + 4000L, store.retrieveTrigger(calendared.getKey()).getNextFireTime().getTime());
+        // the permit time is after its end time, so it will not fire again
+        assertEquals(TriggerState.COMPLETE, store.getTriggerState(ending.getKey()));
+    }
+
+        public void testAcquireNextTriggersFairly() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore store = createJobStore("testAcquireNextTriggersFairly");
+        if (!(store instanceof FairShareJobStore)) {
+            return;
+        }
+        if (store instanceof RAMJobStoreSupport) {
+            ((RAMJobStoreSupport) store).setFairTriggerAcquisition(true);
+        } else {
+            ((JobStoreSupport) store).setFairTriggerAcquisition(true);
+        }
+        ((FairShareJobStore) store).setTriggerGroupWeight("busy", 2);
+        store.initialize(loadHelper, schedSignaler);
+
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+        JobDetailImpl job = new JobDetailImpl("fairJob", "fairJobGroup", MyJob.class);
+        job.setDurability(true);
+        store.storeJob(job, false);
+        // the busy group's triggers are all due before the quiet group's
+        for (int i = 0; i < 6; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("busy" + i, "busy", job.getName(),
+                job.getGroup(), new Date(baseFireTime + 1000L + i), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+        for (int i = 0; i < 2; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("quiet" + i, "quiet", job.getName(),
+                job.getGroup(), new Date(baseFireTime + 2000L + i), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(baseFireTime + 10000L, 6, 10000L);
+        List<String> groups = new ArrayList<String>();
+        for (OperableTrigger trigger : acquired) {
+            groups.add(trigger.getKey().getGroup());
+        }
+        assertEquals(Arrays.asList("busy", "quiet", "busy", "busy", "quiet", "busy"), groups);
+        assertEquals(new TriggerKey("busy0", "busy"), acquired.get(0).getKey());
+        assertEquals(new TriggerKey("quiet1", "quiet"), acquired.get(4).getKey());
+    }
+
+    public void testDelayedTasks() throws Exception {
+        SchedulerSignaler schedSignaler = new SampleSignaler();
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+
+        JobStore jobStore = createJobStore("testDelayedTasks");
+        if (!(jobStore instanceof DelayedTaskStore) || jobStore instanceof JournaledRAMJobStore) {
+            return;
+        }
+        DelayedTaskStore store = (DelayedTaskStore) jobStore;
+        jobStore.initialize(loadHelper, schedSignaler);
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("delayedJob").storeDurably().build();
+        jobStore.storeJob(job, false);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            store.storeDelayedTask(new DelayedTask("task" + i, job.getKey(), now - (5 - i) * 1000L, "payload" + i));
+        }
+        store.storeDelayedTask(new DelayedTask("later", job.getKey(), now + 3600000L, null));
+
+        try {
+            store.storeDelayedTask(new DelayedTask("task0", job.getKey(), now, null));
+            fail("Expected ObjectAlreadyExistsException");
+        } catch (ObjectAlreadyExistsException expected) {
+        }
+        try {
+            store.storeDelayedTask(new DelayedTask("orphan", new JobKey("missing"), now, null));
+            fail("Expected JobPersistenceException");
+        } catch (JobPersistenceException expected) {
+        }
+
+        Assert.assertEquals(6, store.getNumberOfDelayedTasks());
+        Assert.assertTrue(store.removeDelayedTask("task1"));
+        Assert.assertFalse(store.removeDelayedTask("task1"));
+        Assert.assertEquals(now - 5000L, store.getNextDelayedTaskFireTime());
+
+        List<DelayedTask> due = store.acquireDelayedTasks(now, 3);
+        Assert.assertEquals(3, due.size());
+        Assert.assertEquals("task0", due.get(0).getId());
+        Assert.assertEquals("payload0", due.get(0).getPayload());
+        Assert.assertEquals(job.getKey(), due.get(0).getJobKey());
+        Assert.assertEquals("task2", due.get(1).getId());
+        Assert.assertEquals("task3", due.get(2).getId());
+
+        due = store.acquireDelayedTasks(now, 3);
+        Assert.assertEquals(1, due.size());
+        Assert.assertEquals("task4", due.get(0).getId());
+        Assert.assertTrue(store.acquireDelayedTasks(now, 3).isEmpty());
+
+        Assert.assertEquals(1, store.getNumberOfDelayedTasks());
+        Assert.assertEquals(now + 3600000L, store.getNextDelayedTaskFireTime());
+        Assert.assertNull(store.acquireDelayedTasks(now + 3600000L, 3).get(0).getPayload());
+        Assert.assertEquals(-1L, store.getNextDelayedTaskFireTime());
+    }
+
 	public void testAcquireTriggers() throws Exception {
 		SchedulerSignaler schedSignaler = new SampleSignaler();
 		ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
@@ -559,6 +1018,70 @@ public abstract class AbstractJobStoreTest extends TestCase {
         assertEquals(TriggerState.NORMAL, state);
     }
 
+    public void testTriggeredJobsComplete() throws Exception {
+        if (!(this.fJobStore instanceof BatchCompletionJobStore)) {
+            return;
+        }
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+
+        for (int i = 1; i <= 3; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("batch" + i, "batchGroup", this.fJobDetail.getName(),
+                this.fJobDetail.getGroup(), new Date(baseFireTime + i * 1000L), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            this.fJobStore.storeTrigger(trigger, false);
+        }
+
+        List<OperableTrigger> acquired = this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(3, acquired.size());
+        List<OperableTrigger> fired = new ArrayList<OperableTrigger>();
+        for (TriggerFiredResult result : this.fJobStore.triggersFired(acquired)) {
+            fired.add(result.getTriggerFiredBundle().getTrigger());
+        }
+        assertEquals(3, fired.size());
+
+        ((BatchCompletionJobStore) this.fJobStore).triggeredJobsComplete(fired, this.fJobDetail,
+            Arrays.asList(Trigger.CompletedExecutionInstruction.DELETE_TRIGGER,
+                Trigger.CompletedExecutionInstruction.SET_TRIGGER_ERROR,
+                Trigger.CompletedExecutionInstruction.DELETE_TRIGGER));
+        assertFalse(this.fJobStore.checkExists(new TriggerKey("batch1", "batchGroup")));
+        assertEquals(TriggerState.ERROR, this.fJobStore.getTriggerState(new TriggerKey("batch2", "batchGroup")));
+        assertFalse(this.fJobStore.checkExists(new TriggerKey("batch3", "batchGroup")));
+    }
+
+    public void testRestoreTriggerStates() throws Exception {
+        if (!(this.fJobStore instanceof SnapshotJobStore)) {
+            return;
+        }
+        long baseFireTime = DateBuilder.evenMinuteDateAfterNow().getTime();
+
+        Map<TriggerKey, TriggerState> states = new java.util.HashMap<TriggerKey, TriggerState>();
+        TriggerState[] restored = { TriggerState.ERROR, TriggerState.COMPLETE, TriggerState.PAUSED, TriggerState.BLOCKED };
+        for (int i = 0; i < restored.length; i++) {
+            OperableTrigger trigger = new SimpleTriggerImpl("restored" + i, "restoredGroup", this.fJobDetail.getName(),
+                this.fJobDetail.getGroup(), new Date(baseFireTime + i * 1000L), null, 0, 0);
+            trigger.computeFirstFireTime(null);
+            this.fJobStore.storeTrigger(trigger, false);
+            states.put(trigger.getKey(), restored[i]);
+        }
+
+        ((SnapshotJobStore) this.fJobStore).restoreTriggerStates(states);
+        assertEquals(TriggerState.ERROR, this.fJobStore.getTriggerState(new TriggerKey("restored0", "restoredGroup")));
+        assertEquals(TriggerState.COMPLETE, this.fJobStore.getTriggerState(new TriggerKey("restored1", "restoredGroup")));
+        assertEquals(TriggerState.PAUSED, this.fJobStore.getTriggerState(new TriggerKey("restored2", "restoredGroup")));
+        assertEquals(TriggerState.NORMAL, this.fJobStore.getTriggerState(new TriggerKey("restored3", "restoredGroup")));
+
+        // only the trigger restored waiting may be acquired
+        List<OperableTrigger> acquired = this.fJobStore.acquireNextTriggers(baseFireTime + 10000L, 10, 10000L);
+        assertEquals(1, acquired.size());
+        assertEquals(new TriggerKey("restored3", "restoredGroup"), acquired.get(0).getKey());
+        this.fJobStore.releaseAcquiredTrigger(acquired.get(0));
+
+        Map<JobDetail, List<OperableTrigger>> jobs = ((SnapshotJobStore) this.fJobStore).retrieveJobsAndTriggers(
+            Arrays.asList(this.fJobDetail.getKey(), new JobKey("missing", "missingGroup")));
+        assertEquals(1, jobs.size());
+        assertEquals(4, jobs.values().iterator().next().size());
+    }
+
     public static class SampleSignaler implements SchedulerSignaler {
         volatile int fMisfireCount = 0;
 
@@ -581,10 +1104,39 @@ public abstract class AbstractJobStoreTest extends TestCase {
     }
 
     /** An empty job for testing purpose. */
-    public static class MyJob implements Job {
+    public static class ExcludedRangeCalendar extends BaseCalendar {
+        private static final long serialVersionUID = 1L;
+
+        private final long excludedFrom;
+
+        private final long excludedTo;
+
+        public ExcludedRangeCalendar(long excludedFrom, long excludedTo) {
+            this.excludedFrom = excludedFrom;
+            this.excludedTo = excludedTo;
+        }
+
+        @Override
+        public boolean isTimeIncluded(long timeStamp) {
+            return super.isTimeIncluded(timeStamp) && (timeStamp < excludedFrom || timeStamp >= excludedTo);
+        }
+
+        @Override
+        public long getNextIncludedTime(long timeStamp) {
+            long nextIncludedTime = timeStamp + 1;
+            return nextIncludedTime >= excludedFrom && nextIncludedTime < excludedTo ? excludedTo : nextIncludedTime;
+        }
+    }
+
+        public static class MyJob implements Job {
         public void execute(JobExecutionContext context) throws JobExecutionException {
             //
         }
     }
 
+    /** An empty job limited to two concurrent executions. */
+    @ConcurrentExecutionLimit(2)
+    public static class LimitedJob extends MyJob {
+    }
+
 }
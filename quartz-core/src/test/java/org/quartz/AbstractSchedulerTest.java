@@ -21,8 +21,11 @@ import static org.quartz.SimpleScheduleBuilder.simpleSchedule;
 import static org.quartz.TriggerBuilder.newTrigger;
 import static org.quartz.TriggerKey.triggerKey;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +37,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
 
 import org.quartz.Trigger.TriggerState;
+import org.quartz.impl.calendar.WeeklyCalendar;
 import org.quartz.impl.matchers.GroupMatcher;
 
 import static org.junit.Assert.assertEquals;
@@ -437,6 +441,69 @@ public abstract class AbstractSchedulerTest {
 		assertTrue("Immediate trigger did not fire within a reasonable amount of time.", (fTime - sTime  < 7000L));  // This is dangerously subjective!  but what else to do?
     }
     
+    @Test
+    public void testSnapshotExportAndImport() throws Exception {
+        Scheduler source = createScheduler("testSnapshotExport", 2);
+        Scheduler target = createScheduler("testSnapshotImport", 2);
+        try {
+            source.addCalendar("weekly", new WeeklyCalendar(), false, false);
+            source.addJob(newJob(TestJob.class).withIdentity("durable").storeDurably()
+                .usingJobData("key", "value").build(), false);
+
+            JobDetail job = newJob(TestJob.class).withIdentity("j1").build();
+            Set<Trigger> triggers = new HashSet<Trigger>();
+            triggers.add(newTrigger().withIdentity("t1").startAt(new Date(System.currentTimeMillis() - 3600000L))
+                .modifiedByCalendar("weekly").withSchedule(simpleSchedule().withIntervalInMinutes(1).repeatForever()).build());
+            triggers.add(newTrigger().withIdentity("t2").startAt(new Date(System.currentTimeMillis() + 3600000L))
+                .withSchedule(simpleSchedule().withIntervalInMinutes(1).repeatForever()).build());
+            triggers.add(newTrigger().withIdentity("t3", "pausedGroup").startAt(new Date(System.currentTimeMillis() + 3600000L))
+                .withSchedule(simpleSchedule().withIntervalInMinutes(1).repeatForever()).build());
+            triggers.add(newTrigger().withIdentity("t4", "pausedGroup").startAt(new Date(System.currentTimeMillis() + 3600000L))
+                .withSchedule(simpleSchedule().withIntervalInMinutes(1).repeatForever()).build());
+            source.scheduleJob(job, triggers, false);
+            source.pauseTrigger(triggerKey("t2"));
+            source.pauseTriggers(GroupMatcher.triggerGroupEquals("pausedGroup"));
+            source.resumeTrigger(triggerKey("t4", "pausedGroup"));
+            source.addJob(newJob(TestJob.class).withIdentity("j2", "pausedJobs").storeDurably().build(), false);
+            source.pauseJobs(GroupMatcher.jobGroupEquals("pausedJobs"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            source.exportSnapshot(out);
+            target.importSnapshot(new ByteArrayInputStream(out.toByteArray()), false);
+
+            assertNotNull(target.getCalendar("weekly"));
+            assertEquals("value", target.getJobDetail(jobKey("durable")).getJobDataMap().getString("key"));
+            assertEquals(4, target.getTriggersOfJob(jobKey("j1")).size());
+            assertEquals(source.getTrigger(triggerKey("t1")).getNextFireTime(), target.getTrigger(triggerKey("t1")).getNextFireTime());
+            assertEquals("weekly", target.getTrigger(triggerKey("t1")).getCalendarName());
+            assertEquals(TriggerState.NORMAL, target.getTriggerState(triggerKey("t1")));
+            assertEquals(TriggerState.PAUSED, target.getTriggerState(triggerKey("t2")));
+            assertEquals(TriggerState.PAUSED, target.getTriggerState(triggerKey("t3", "pausedGroup")));
+            assertEquals(TriggerState.NORMAL, target.getTriggerState(triggerKey("t4", "pausedGroup")));
+            assertTrue(target.getPausedTriggerGroups().contains("pausedGroup"));
+
+            // a trigger added to a job group paused as a whole starts paused in both, or in neither
+            source.scheduleJob(newTrigger().withIdentity("t5").forJob(jobKey("j2", "pausedJobs"))
+                .startAt(new Date(System.currentTimeMillis() + 3600000L)).build());
+            target.scheduleJob(newTrigger().withIdentity("t5").forJob(jobKey("j2", "pausedJobs"))
+                .startAt(new Date(System.currentTimeMillis() + 3600000L)).build());
+            assertEquals(source.getTriggerState(triggerKey("t5")), target.getTriggerState(triggerKey("t5")));
+            source.unscheduleJob(triggerKey("t5"));
+            target.unscheduleJob(triggerKey("t5"));
+
+            try {
+                target.importSnapshot(new ByteArrayInputStream(out.toByteArray()), false);
+                fail("Expected ObjectAlreadyExistsException");
+            } catch (ObjectAlreadyExistsException expected) {
+            }
+            target.importSnapshot(new ByteArrayInputStream(out.toByteArray()), true);
+            assertEquals(4, target.getTriggersOfJob(jobKey("j1")).size());
+        } finally {
+            source.shutdown(true);
+            target.shutdown(true);
+        }
+    }
+
     @Test
 	public void testScheduleMultipleTriggersForAJob() throws SchedulerException {
 
@@ -16,6 +16,11 @@
 package org.quartz;
 
 import java.text.ParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
 
 import org.quartz.impl.triggers.CronTriggerImpl;
 
@@ -165,6 +170,49 @@ public class CronTriggerTest extends SerializationTestSupport {
         assertThat(copy.getMisfireInstruction(), is(Trigger.MISFIRE_INSTRUCTION_SMART_POLICY));
     }
 
+    public void testSpreadOffsetIsStableAndWithinWindow() throws ParseException {
+        CronTriggerImpl trigger = (CronTriggerImpl) TriggerBuilder.newTrigger()
+                .withIdentity("hourly", "reports")
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?")
+                        .inTimeZone(TimeZone.getTimeZone("UTC"))
+                        .withSpreadInMinutes(10))
+                .usingJobData("A", "B")
+                .build();
+        assertEquals(600000L, trigger.getSpreadWindow());
+        assertEquals(Collections.singletonMap("A", "B"), trigger.getJobDataMap().getWrappedMap());
+
+        long offset = trigger.getSpreadOffset();
+        assertTrue(offset >= 0 && offset < 600000L);
+        assertEquals(0, offset % 1000L);
+
+        Date fireTime = trigger.computeFirstFireTime(null);
+        assertEquals(offset, fireTime.getTime() % DateBuilder.MILLISECONDS_IN_HOUR);
+        Date nextFireTime = trigger.getFireTimeAfter(fireTime);
+        assertEquals(fireTime.getTime() + DateBuilder.MILLISECONDS_IN_HOUR, nextFireTime.getTime());
+
+        // the same key spreads the same way, however the trigger is rebuilt
+        CronTrigger copy = trigger.getTriggerBuilder().build();
+        assertEquals(offset, copy.getSpreadOffset());
+        CronTriggerImpl unspread = new CronTriggerImpl("hourly", "reports", "0 0 * * * ?");
+        unspread.setSpreadWindow(600000L);
+        assertEquals(offset, unspread.getSpreadOffset());
+
+        unspread.setSpreadWindow(0);
+        assertEquals(0, unspread.getSpreadOffset());
+    }
+
+    public void testSpreadOffsetsVaryBetweenTriggers() throws ParseException {
+        Set<Long> offsets = new HashSet<Long>();
+        for (int i = 0; i < 100; i++) {
+            CronTrigger trigger = TriggerBuilder.newTrigger()
+                    .withIdentity("customer-" + i)
+                    .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?").withSpreadInMinutes(60))
+                    .build();
+            offsets.add(trigger.getSpreadOffset());
+        }
+        assertTrue("Expected spread offsets, got " + offsets, offsets.size() > 90);
+    }
+
     // execute with version number to generate a new version's serialized form
     public static void main(String[] args) throws Exception {
         new CronTriggerTest().writeJobDataFile("2.0");
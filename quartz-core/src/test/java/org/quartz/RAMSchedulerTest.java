@@ -15,9 +15,23 @@
  */
 package org.quartz;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.Test;
 import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class RAMSchedulerTest extends AbstractSchedulerTest {
 
@@ -30,4 +44,389 @@ public class RAMSchedulerTest extends AbstractSchedulerTest {
         config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
         return new StdSchedulerFactory(config).getScheduler();
     }
+
+    @Test
+    public void testNamedThreadPoolsIsolateSlowJobs() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("org.quartz.scheduler.instanceName", "testNamedThreadPoolsScheduler");
+        config.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        config.setProperty("org.quartz.threadPool.threadCount", "2");
+        config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        config.setProperty("org.quartz.namedThreadPool.slow.threadCount", "1");
+        config.setProperty("org.quartz.namedThreadPool.slow.jobGroups", "reports");
+        config.setProperty("org.quartz.namedThreadPool.tagged.class", "org.quartz.simpl.LockFreeThreadPool");
+        config.setProperty("org.quartz.namedThreadPool.tagged.threadCount", "1");
+        Scheduler sched = new StdSchedulerFactory(config).getScheduler();
+
+        Map<String, String> threads = new ConcurrentHashMap<String, String>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowDone = new CountDownLatch(3);
+        CountDownLatch fastDone = new CountDownLatch(3);
+        AtomicInteger slowRunning = new AtomicInteger();
+        AtomicInteger slowMaxRunning = new AtomicInteger();
+        sched.getContext().put("threads", threads);
+        sched.getContext().put("release", release);
+        sched.getContext().put("slowDone", slowDone);
+        sched.getContext().put("fastDone", fastDone);
+        sched.getContext().put("slowRunning", slowRunning);
+        sched.getContext().put("slowMaxRunning", slowMaxRunning);
+        try {
+            sched.start();
+            for (int i = 0; i < 3; i++) {
+                sched.scheduleJob(JobBuilder.newJob(SlowJob.class).withIdentity("report" + i, "reports").build(),
+                    TriggerBuilder.newTrigger().startNow().build());
+            }
+            sched.scheduleJob(JobBuilder.newJob(FastJob.class).withIdentity("plain").build(),
+                TriggerBuilder.newTrigger().startNow().build());
+            sched.scheduleJob(JobBuilder.newJob(FastJob.class).withIdentity("keyed")
+                    .usingJobData(ExecuteInThreadPool.JOB_DATA_KEY, "tagged").build(),
+                TriggerBuilder.newTrigger().startNow().build());
+            sched.scheduleJob(JobBuilder.newJob(AnnotatedFastJob.class).withIdentity("annotated").build(),
+                TriggerBuilder.newTrigger().startNow().build());
+
+            // the other pools keep working while the slow pool is stuck
+            assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+            assertEquals(1, slowRunning.get());
+            assertTrue(threads.get("plain").startsWith("testNamedThreadPoolsScheduler_Worker-"));
+            assertTrue(threads.get("keyed").startsWith("testNamedThreadPoolsScheduler_tagged_Worker-"));
+            assertTrue(threads.get("annotated").startsWith("testNamedThreadPoolsScheduler_tagged_Worker-"));
+
+            release.countDown();
+            assertTrue(slowDone.await(10, TimeUnit.SECONDS));
+            assertEquals(1, slowMaxRunning.get());
+            assertTrue(threads.get("report0").startsWith("testNamedThreadPoolsScheduler_slow_Worker-"));
+        } finally {
+            release.countDown();
+            sched.shutdown(true);
+        }
+    }
+
+    public static class SlowJob implements Job {
+        @SuppressWarnings("unchecked")
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            try {
+                SchedulerContext schedulerContext = context.getScheduler().getContext();
+                ((Map<String, String>) schedulerContext.get("threads")).put(
+                    context.getJobDetail().getKey().getName(), Thread.currentThread().getName());
+                AtomicInteger running = (AtomicInteger) schedulerContext.get("slowRunning");
+                AtomicInteger maxRunning = (AtomicInteger) schedulerContext.get("slowMaxRunning");
+                int now = running.incrementAndGet();
+                if (now > maxRunning.get()) {
+                    maxRunning.set(now);
+                }
+                ((CountDownLatch) schedulerContext.get("release")).await(10, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                ((CountDownLatch) schedulerContext.get("slowDone")).countDown();
+            } catch (Exception e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+
+    public static class FastJob implements Job {
+        @SuppressWarnings("unchecked")
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            try {
+                SchedulerContext schedulerContext = context.getScheduler().getContext();
+                ((Map<String, String>) schedulerContext.get("threads")).put(
+                    context.getJobDetail().getKey().getName(), Thread.currentThread().getName());
+                ((CountDownLatch) schedulerContext.get("fastDone")).countDown();
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+
+    @ExecuteInThreadPool("tagged")
+    public static class AnnotatedFastJob extends FastJob {
+    }
+
+    public static class DelayedTaskJob implements Job {
+        @SuppressWarnings("unchecked")
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            try {
+                List<String> payloads = (List<String>) context.getScheduler().getContext().get("payloads");
+                payloads.add(context.getMergedJobDataMap().getString(DelayedTask.PAYLOAD));
+                ((CountDownLatch) context.getScheduler().getContext().get("latch")).countDown();
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+
+    @Test
+    public void testDelayedTasksRunOnce() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("org.quartz.scheduler.instanceName", "testDelayedTasksRunOnceScheduler");
+        config.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        config.setProperty("org.quartz.scheduler.delayedTasksEnabled", "true");
+        config.setProperty("org.quartz.threadPool.threadCount", "2");
+        config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        Scheduler sched = new StdSchedulerFactory(config).getScheduler();
+
+        List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch latch = new CountDownLatch(2);
+        sched.getContext().put("payloads", payloads);
+        sched.getContext().put("latch", latch);
+        try {
+            JobDetail job = JobBuilder.newJob(DelayedTaskJob.class).withIdentity("delayed").storeDurably().build();
+            sched.addJob(job, false);
+            sched.start();
+
+            long now = System.currentTimeMillis();
+            sched.scheduleDelayedTask(new DelayedTask("first", job.getKey(), now, "a"));
+            sched.scheduleDelayedTask(new DelayedTask("second", job.getKey(), now + 200L, "b"));
+            sched.scheduleDelayedTask(new DelayedTask("cancelled", job.getKey(), now + 100L, "c"));
+            assertTrue(sched.cancelDelayedTask("cancelled"));
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(2, payloads.size());
+            assertTrue(payloads.contains("a"));
+            assertTrue(payloads.contains("b"));
+            assertFalse(sched.cancelDelayedTask("first"));
+        } finally {
+            sched.shutdown(true);
+        }
+    }
+
+    @Test(expected = SchedulerException.class)
+    public void testDelayedTasksMustBeEnabled() throws Exception {
+        Scheduler sched = createScheduler("testDelayedTasksMustBeEnabled", 1);
+        try {
+            sched.scheduleDelayedTask(new DelayedTask("task", JobKey.jobKey("job"), System.currentTimeMillis(), null));
+        } finally {
+            sched.shutdown();
+        }
+    }
+
+    private Scheduler createDeadlineDispatchScheduler(String name, boolean shedJobsPastDeadline) throws SchedulerException {
+        Properties config = new Properties();
+        config.setProperty("org.quartz.scheduler.instanceName", name + "Scheduler");
+        config.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        config.setProperty("org.quartz.scheduler.deadlineDispatchQueueSize", "10");
+        config.setProperty("org.quartz.scheduler.shedJobsPastDeadline", Boolean.toString(shedJobsPastDeadline));
+        config.setProperty("org.quartz.threadPool.threadCount", "1");
+        config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        return new StdSchedulerFactory(config).getScheduler();
+    }
+
+    private void startBlockingJob(Scheduler sched) throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        sched.getContext().put("blocking", blocking);
+        sched.start();
+        sched.scheduleJob(JobBuilder.newJob(BlockingJob.class).withIdentity("blocker").build(),
+            TriggerBuilder.newTrigger().startNow().build());
+        assertTrue(blocking.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDeadlineDispatchRunsEarliestDeadlineFirst() throws Exception {
+        Scheduler sched = createDeadlineDispatchScheduler("testDeadlineDispatchOrder", false);
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        sched.getContext().put("ran", ran);
+        sched.getContext().put("release", release);
+        sched.getContext().put("done", done);
+        try {
+            startBlockingJob(sched);
+            // the only thread is busy, so these wait in the dispatch queue
+            for (int i = 0; i < 3; i++) {
+                sched.scheduleJob(JobBuilder.newJob(RecordingJob.class).withIdentity("batch" + i).build(),
+                    TriggerBuilder.newTrigger().withPriority(9).startNow().build());
+                sched.scheduleJob(JobBuilder.newJob(UrgentRecordingJob.class).withIdentity("urgent" + i).build(),
+                    TriggerBuilder.newTrigger().withPriority(1).startNow().build());
+            }
+            Thread.sleep(500L);
+            release.countDown();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(6, ran.size());
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ran.get(i).startsWith("urgent"));
+                assertTrue(ran.get(i + 3).startsWith("batch"));
+            }
+        } finally {
+            release.countDown();
+            sched.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testDeadlineDispatchShedsJobsPastDeadline() throws Exception {
+        Scheduler sched = createDeadlineDispatchScheduler("testDeadlineDispatchShed", true);
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        sched.getContext().put("ran", ran);
+        sched.getContext().put("release", release);
+        sched.getContext().put("done", done);
+        final List<TriggerKey> misfired = Collections.synchronizedList(new ArrayList<TriggerKey>());
+        sched.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+            public String getName() {
+                return "shedListener";
+            }
+
+            @Override
+            public void triggerMisfired(Trigger trigger) {
+                misfired.add(trigger.getKey());
+            }
+        });
+        try {
+            startBlockingJob(sched);
+            Trigger stale = TriggerBuilder.newTrigger().withIdentity("stale").startNow().build();
+            sched.scheduleJob(JobBuilder.newJob(RecordingJob.class).withIdentity("stale")
+                    .usingJobData(AllowedLatency.JOB_DATA_KEY, 50L).build(), stale);
+            sched.scheduleJob(JobBuilder.newJob(RecordingJob.class).withIdentity("batch").build(),
+                TriggerBuilder.newTrigger().startNow().build());
+            Thread.sleep(500L);
+            release.countDown();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList("batch"), ran);
+            assertEquals(Collections.singletonList(stale.getKey()), misfired);
+            assertFalse(sched.checkExists(stale.getKey()));
+        } finally {
+            release.countDown();
+            sched.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testDelayedTasksTakeDeadlineDispatchThreads() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("org.quartz.scheduler.instanceName", "testDelayedTasksTakeDeadlineDispatchThreadsScheduler");
+        config.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        config.setProperty("org.quartz.scheduler.delayedTasksEnabled", "true");
+        config.setProperty("org.quartz.scheduler.deadlineDispatchQueueSize", "10");
+        config.setProperty("org.quartz.scheduler.shedJobsPastDeadline", "true");
+        config.setProperty("org.quartz.threadPool.threadCount", "1");
+        config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        Scheduler sched = new StdSchedulerFactory(config).getScheduler();
+
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        sched.getContext().put("ran", ran);
+        sched.getContext().put("blocking", blocking);
+        sched.getContext().put("release", release);
+        sched.getContext().put("done", done);
+        try {
+            JobDetail blocker = JobBuilder.newJob(BlockingJob.class).withIdentity("blocker").storeDurably().build();
+            sched.addJob(blocker, false);
+            sched.start();
+            sched.scheduleDelayedTask(new DelayedTask("block", blocker.getKey(), System.currentTimeMillis(), null));
+            assertTrue(blocking.await(10, TimeUnit.SECONDS));
+
+            // the task holds the only thread, so the stale job waits in the
+            // dispatch queue until its deadline has passed
+            sched.scheduleJob(JobBuilder.newJob(RecordingJob.class).withIdentity("stale")
+                    .usingJobData(AllowedLatency.JOB_DATA_KEY, 50L).build(),
+                TriggerBuilder.newTrigger().startNow().build());
+            sched.scheduleJob(JobBuilder.newJob(RecordingJob.class).withIdentity("batch").build(),
+                TriggerBuilder.newTrigger().startNow().build());
+            Thread.sleep(500L);
+            release.countDown();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList("batch"), ran);
+        } finally {
+            release.countDown();
+            sched.shutdown(true);
+        }
+    }
+
+    public static class BlockingJob implements Job {
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            try {
+                SchedulerContext schedulerContext = context.getScheduler().getContext();
+                ((CountDownLatch) schedulerContext.get("blocking")).countDown();
+                ((CountDownLatch) schedulerContext.get("release")).await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+
+    public static class RecordingJob implements Job {
+        @SuppressWarnings("unchecked")
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            try {
+                SchedulerContext schedulerContext = context.getScheduler().getContext();
+                ((List<String>) schedulerContext.get("ran")).add(context.getJobDetail().getKey().getName());
+                ((CountDownLatch) schedulerContext.get("done")).countDown();
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+
+    @AllowedLatency(60000L)
+    public static class UrgentRecordingJob extends RecordingJob {
+    }
+
+    @Test
+    public void testBatchJobRunsFiresTogether() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("org.quartz.scheduler.instanceName", "testBatchJobScheduler");
+        config.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        config.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", "5");
+        config.setProperty("org.quartz.threadPool.threadCount", "5");
+        config.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        Scheduler sched = new StdSchedulerFactory(config).getScheduler();
+
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        List<String> customers = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch done = new CountDownLatch(5);
+        sched.getContext().put("batchSizes", batchSizes);
+        sched.getContext().put("customers", customers);
+        sched.getContext().put("done", done);
+        try {
+            JobDetail job = JobBuilder.newJob(CustomerSyncJob.class).withIdentity("sync").storeDurably().build();
+            sched.addJob(job, false);
+            for (int i = 0; i < 5; i++) {
+                sched.scheduleJob(TriggerBuilder.newTrigger().forJob(job).usingJobData("customer", "c" + i)
+                    .startNow().build());
+            }
+            sched.start();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(5), batchSizes);
+            assertEquals(5, customers.size());
+            for (int i = 0; i < 5; i++) {
+                assertTrue(customers.contains("c" + i));
+            }
+
+            // the one-shot triggers are completed together after the batch
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (!sched.getTriggersOfJob(job.getKey()).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20L);
+            }
+            assertTrue(sched.getTriggersOfJob(job.getKey()).isEmpty());
+        } finally {
+            sched.shutdown(true);
+        }
+    }
+
+    public static class CustomerSyncJob implements BatchJob {
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            executeBatch(Collections.singletonList(context));
+        }
+
+        @SuppressWarnings("unchecked")
+        public void executeBatch(List<JobExecutionContext> contexts) throws JobExecutionException {
+            try {
+                SchedulerContext schedulerContext = contexts.get(0).getScheduler().getContext();
+                ((List<Integer>) schedulerContext.get("batchSizes")).add(contexts.size());
+                for (JobExecutionContext context : contexts) {
+                    ((List<String>) schedulerContext.get("customers")).add(
+                        context.getMergedJobDataMap().getString("customer"));
+                    ((CountDownLatch) schedulerContext.get("done")).countDown();
+                }
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
+        }
+    }
 }
@@ -117,6 +117,104 @@ public class SimpleTriggerTest extends SerializationTestSupport {
         assertNull(simpleTrigger.getNextFireTime());
     }
     
+    public void testUpdateAfterMisfireCoalescesMissedFires() {
+        // ten and a half intervals late
+        Date startTime = new Date(System.currentTimeMillis() - 10500L);
+
+        SimpleTriggerImpl simpleTrigger = new SimpleTriggerImpl();
+        simpleTrigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES);
+        simpleTrigger.setRepeatCount(SimpleTrigger.REPEAT_INDEFINITELY);
+        simpleTrigger.setRepeatInterval(1000L);
+        simpleTrigger.setStartTime(startTime);
+        simpleTrigger.computeFirstFireTime(null);
+
+        simpleTrigger.updateAfterMisfire(null);
+        assertFalse(simpleTrigger.getNextFireTime().before(new Date(startTime.getTime() + 10500L)));
+        assertEquals(11, simpleTrigger.getPendingMissedFireCount());
+        assertEquals(0, simpleTrigger.getJobDataMap().size());
+
+        simpleTrigger.triggered(null);
+        assertEquals(11, simpleTrigger.getMissedFireCount());
+        assertEquals(startTime, simpleTrigger.getFirstMissedFireTime());
+        assertEquals(new Date(startTime.getTime() + 10000L), simpleTrigger.getLastMissedFireTime());
+        assertEquals(11, simpleTrigger.getTimesTriggered());
+        assertEquals(new Date(startTime.getTime() + 11000L), simpleTrigger.getNextFireTime());
+        assertEquals(0, simpleTrigger.getJobDataMap().size());
+
+        simpleTrigger.triggered(null);
+        assertEquals(0, simpleTrigger.getMissedFireCount());
+        assertNull(simpleTrigger.getFirstMissedFireTime());
+        assertEquals(12, simpleTrigger.getTimesTriggered());
+    }
+
+    public void testUpdateAfterMisfireCoalescesNoMoreThanRemainingFires() {
+        Date startTime = new Date(System.currentTimeMillis() - 10500L);
+
+        SimpleTriggerImpl simpleTrigger = new SimpleTriggerImpl();
+        simpleTrigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES);
+        simpleTrigger.setRepeatCount(3);
+        simpleTrigger.setRepeatInterval(1000L);
+        simpleTrigger.setStartTime(startTime);
+        simpleTrigger.computeFirstFireTime(null);
+
+        simpleTrigger.updateAfterMisfire(null);
+        simpleTrigger.triggered(null);
+        assertEquals(4, simpleTrigger.getMissedFireCount());
+        assertEquals(new Date(startTime.getTime() + 3000L), simpleTrigger.getLastMissedFireTime());
+        assertNull(simpleTrigger.getNextFireTime());
+    }
+
+    public void testSpreadOffsetMovesEveryFireTime() {
+        Date startTime = new Date(1000000000000L);
+        SimpleTriggerImpl simpleTrigger = (SimpleTriggerImpl) TriggerBuilder.newTrigger()
+                .withIdentity("poll", "partners")
+                .startAt(startTime)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(5)
+                        .withRepeatCount(2)
+                        .withSpreadInSeconds(30))
+                .build();
+        assertEquals(30000L, simpleTrigger.getSpreadWindow());
+        long offset = simpleTrigger.getSpreadOffset();
+        assertTrue(offset >= 0 && offset < 30000L);
+        assertEquals(offset, ((SimpleTrigger) simpleTrigger.getTriggerBuilder().build()).getSpreadOffset());
+
+        Date firstFireTime = simpleTrigger.computeFirstFireTime(null);
+        assertEquals(startTime.getTime() + offset, firstFireTime.getTime());
+        assertEquals(new Date(firstFireTime.getTime() + 300000L), simpleTrigger.getFireTimeAfter(firstFireTime));
+        assertEquals(new Date(firstFireTime.getTime() + 600000L), simpleTrigger.getFinalFireTime());
+        assertEquals(firstFireTime, simpleTrigger.getFireTimeBefore(new Date(firstFireTime.getTime() + 1000L)));
+    }
+
+    public void testRescheduleNowMisfireAddsSpreadOffset() {
+        SimpleTriggerImpl simpleTrigger = (SimpleTriggerImpl) TriggerBuilder.newTrigger()
+                .withIdentity("poll", "partners")
+                .startAt(new Date(System.currentTimeMillis() - 600000L))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(5)
+                        .withRepeatCount(4)
+                        .withSpreadInSeconds(30)
+                        .withMisfireHandlingInstructionNowWithExistingCount())
+                .build();
+        simpleTrigger.computeFirstFireTime(null);
+        long offset = simpleTrigger.getSpreadOffset();
+        assertTrue(offset > 1000L);
+
+        long before = System.currentTimeMillis();
+        simpleTrigger.updateAfterMisfire(null);
+        long after = System.currentTimeMillis();
+
+        long nextFireTime = simpleTrigger.getNextFireTime().getTime();
+        assertTrue(nextFireTime >= before + offset && nextFireTime <= after + offset);
+        assertEquals(simpleTrigger.getStartTime().getTime() + offset, nextFireTime);
+        assertEquals(new Date(nextFireTime + 300000L), simpleTrigger.getFireTimeAfter(new Date(nextFireTime)));
+
+        // an end time before the spread fire time ends the trigger
+        simpleTrigger.setEndTime(new Date(System.currentTimeMillis() + offset - 1000L));
+        simpleTrigger.updateAfterMisfire(null);
+        assertNull(simpleTrigger.getNextFireTime());
+    }
+
     public void testGetFireTimeAfter() {
         SimpleTriggerImpl simpleTrigger = new SimpleTriggerImpl();
 
@@ -169,13 +267,14 @@ public class SimpleTriggerTest extends SerializationTestSupport {
             trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT);
             trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_EXISTING_REPEAT_COUNT);
             trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT);
+            trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES);
         }
         catch(Exception e) {
             fail("Unexpected exception while setting misfire instruction: " + e.getMessage());
         }
         
         try {
-            trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT + 1);
+            trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_COALESCE_MISSED_FIRES + 1);
             
             fail("Expected exception while setting invalid misfire instruction but did not get it.");
         }
@@ -45,6 +45,7 @@ import org.quartz.impl.calendar.BaseCalendar;
 import org.quartz.impl.matchers.GroupMatcher;
 
 import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -128,6 +129,34 @@ public class RemoteMBeanSchedulerTest {
         assertThat(remoteSchedulerMetaData.getJobStoreClass(), equalTo((Class)metaData.getJobStoreClass()));
     }
 
+    @Test
+    public void testPagedKeyListings() throws Exception {
+        for (int i = 2; i <= 5; i++) {
+            scheduler.scheduleJob(newJob(HelloJob.class).withIdentity("job" + i, GROUP_KEY).build(),
+                newTrigger().withIdentity("trigger" + i, GROUP_KEY).startAt(new Date()).build());
+        }
+
+        List<JobKey> jobKeys = remoteScheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP_KEY), null, 2);
+        assertThat(jobKeys, equalTo(scheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP_KEY), null, 2)));
+        assertThat(jobKeys.get(1), equalTo(new JobKey("job2", GROUP_KEY)));
+
+        List<TriggerKey> triggerKeys = remoteScheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP_KEY),
+            new TriggerKey("trigger3", GROUP_KEY), 10);
+        assertThat(triggerKeys, equalTo(Arrays.asList(new TriggerKey("trigger4", GROUP_KEY),
+            new TriggerKey("trigger5", GROUP_KEY))));
+
+        try {
+            remoteScheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP_KEY), null, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP_KEY), null, -1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
     @Test
     public void testCalendarOperations() throws Exception {
         try {
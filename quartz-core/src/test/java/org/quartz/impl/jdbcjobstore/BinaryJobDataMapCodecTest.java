@@ -0,0 +1,154 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.quartz.JobDataMap;
+import org.quartz.simpl.SimpleClassLoadHelper;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.TestCase;
+
+public class BinaryJobDataMapCodecTest extends TestCase {
+
+    private Map<?, ?> roundTrip(BinaryJobDataMapCodec codec, Map<?, ?> data) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        codec.encode(data, baos);
+        byte[] bytes = baos.toByteArray();
+        assertTrue(codec.canDecode(bytes, Math.min(bytes.length, JobDataMapCodec.MAX_SIGNATURE_LENGTH)));
+        return codec.decode(new ByteArrayInputStream(bytes));
+    }
+
+    public void testRoundTripOfSupportedTypes() throws Exception {
+        Map<String, Object> nested = new LinkedHashMap<String, Object>();
+        nested.put("n", Integer.valueOf(-7));
+        nested.put("list", new ArrayList<Object>(Arrays.asList("a", Long.valueOf(Long.MIN_VALUE), null)));
+
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("string", "héllo");
+        jdm.put("int", Integer.MAX_VALUE);
+        jdm.put("long", -1L);
+        jdm.put("double", 1.5d);
+        jdm.put("float", 2.5f);
+        jdm.put("boolean", true);
+        jdm.put("short", (short) 3);
+        jdm.put("byte", (byte) 4);
+        jdm.put("char", 'c');
+        jdm.put("date", new Date(1234567890L));
+        jdm.put("null", null);
+        jdm.put("nested", nested);
+        jdm.put("linkedList", new LinkedList<String>(Arrays.asList("x", "y")));
+
+        BinaryJobDataMapCodec codec = new BinaryJobDataMapCodec();
+        Map<?, ?> result = roundTrip(codec, jdm.getWrappedMap());
+
+        assertEquals(jdm.getWrappedMap(), result);
+        assertEquals(LinkedHashMap.class, result.get("nested").getClass());
+        assertEquals(LinkedList.class, result.get("linkedList").getClass());
+
+        jdm.put("bytes", new byte[] {1, 2, 3});
+        result = roundTrip(codec, jdm.getWrappedMap());
+        assertTrue(Arrays.equals(new byte[] {1, 2, 3}, (byte[]) result.get("bytes")));
+    }
+
+    public void testSmallerThanJavaSerialization() throws Exception {
+        JobDataMap jdm = new JobDataMap();
+        for (int i = 0; i < 20; i++) {
+            jdm.put("key" + i, i);
+        }
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        new BinaryJobDataMapCodec().encode(jdm.getWrappedMap(), binary);
+
+        StdJDBCDelegate delegate = new StdJDBCDelegate();
+        delegate.initialize(LoggerFactory.getLogger(getClass()), "QRTZ_", "TESTSCHED", "INSTANCE", new SimpleClassLoadHelper(), false, "");
+        ByteArrayOutputStream serialized = delegate.serializeJobData(jdm);
+
+        assertTrue(binary.size() * 3 < serialized.size());
+    }
+
+    public void testCompressionAboveThreshold() throws Exception {
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            values.add("repetitive value");
+        }
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("values", values);
+
+        Properties settings = new Properties();
+        settings.setProperty("compression", "none");
+        BinaryJobDataMapCodec plain = new BinaryJobDataMapCodec();
+        plain.initialize(settings);
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+        plain.encode(data, uncompressed);
+
+        BinaryJobDataMapCodec deflate = new BinaryJobDataMapCodec();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        deflate.encode(data, compressed);
+
+        assertTrue(compressed.size() < uncompressed.size() / 10);
+        assertEquals(data, roundTrip(deflate, data));
+        assertEquals(data, roundTrip(plain, data));
+    }
+
+    public void testDelegateReadsBothFormats() throws Exception {
+        StdJDBCDelegate javaDelegate = new StdJDBCDelegate();
+        javaDelegate.initialize(LoggerFactory.getLogger(getClass()), "QRTZ_", "TESTSCHED", "INSTANCE", new SimpleClassLoadHelper(), false, "");
+
+        StdJDBCDelegate codecDelegate = new StdJDBCDelegate();
+        codecDelegate.initialize(LoggerFactory.getLogger(getClass()), "QRTZ_", "TESTSCHED", "INSTANCE", new SimpleClassLoadHelper(), false,
+            "jobDataMapCodecClass=org.quartz.impl.jdbcjobstore.BinaryJobDataMapCodec|jobDataMapCodec.compressionThreshold=16");
+
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("key", "a value long enough to be compressed");
+
+        byte[] legacy = javaDelegate.serializeJobData(jdm).toByteArray();
+        byte[] encoded = codecDelegate.serializeJobData(jdm).toByteArray();
+        assertFalse(Arrays.equals(legacy, encoded));
+
+        assertEquals(jdm, new JobDataMap((Map<?, ?>) codecDelegate.deserializeObject(new ByteArrayInputStream(legacy))));
+        assertEquals(jdm, new JobDataMap((Map<?, ?>) codecDelegate.deserializeObject(new ByteArrayInputStream(encoded))));
+        assertEquals(jdm, new JobDataMap((Map<?, ?>) javaDelegate.deserializeObject(new ByteArrayInputStream(encoded))));
+    }
+
+    public void testNonSerializableValueIsReported() throws Exception {
+        StdJDBCDelegate delegate = new StdJDBCDelegate();
+        delegate.initialize(LoggerFactory.getLogger(getClass()), "QRTZ_", "TESTSCHED", "INSTANCE", new SimpleClassLoadHelper(), false,
+            "jobDataMapCodecClass=org.quartz.impl.jdbcjobstore.BinaryJobDataMapCodec");
+
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("key1", "value");
+        jdm.put("key2", new Object());
+        try {
+            delegate.serializeJobData(jdm);
+            fail();
+        } catch (NotSerializableException e) {
+            assertTrue(e.getMessage().indexOf("key2") >= 0);
+        }
+    }
+}
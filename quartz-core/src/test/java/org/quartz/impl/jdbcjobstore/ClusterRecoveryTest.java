@@ -0,0 +1,256 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.quartz.AbstractJobStoreTest.SampleSignaler;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobPersistenceException;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+
+public class ClusterRecoveryTest extends TestCase {
+
+    private static final String DB_NAME = "ClusterRecoveryTest";
+
+    private JobStoreTX live;
+
+    private JobStoreTX dead;
+
+    @Override
+    protected void setUp() throws Exception {
+        JdbcQuartzTestUtilities.createDatabase(DB_NAME);
+        live = createJobStore("live");
+        dead = createJobStore("dead");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        live.shutdown();
+        dead.shutdown();
+        JdbcQuartzTestUtilities.destroyDatabase(DB_NAME);
+    }
+
+    private JobStoreTX createJobStore(String instanceId) throws Exception {
+        JobStoreTX jobStore = new JobStoreTX();
+        jobStore.setDataSource(DB_NAME);
+        jobStore.setTablePrefix("QRTZ_");
+        jobStore.setInstanceId(instanceId);
+        jobStore.setInstanceName(DB_NAME);
+        jobStore.setIsClustered(true);
+
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        jobStore.initialize(loadHelper, new SampleSignaler());
+        return jobStore;
+    }
+
+    /**
+     * Fire the given number of triggers of the given job on the "dead"
+     * instance, and then make that instance look like it failed.
+     */
+    private void fireOnDeadInstance(JobDetail job, int count) throws Exception {
+        dead.doCheckin();
+        dead.storeJob(job, false);
+        for (int i = 0; i < count; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("trigger" + i, job.getKey().getName()).forJob(job)
+                .startAt(new Date(System.currentTimeMillis() - 1000L))
+                .build();
+            trigger.computeFirstFireTime(null);
+            dead.storeTrigger(trigger, false);
+        }
+
+        List<OperableTrigger> acquired = dead.acquireNextTriggers(System.currentTimeMillis() + 10000L, count, 0L);
+        assertEquals(count, acquired.size());
+        dead.triggersFired(acquired);
+
+        dead.executeWithoutLock(new JobStoreSupport.TransactionCallback<Void>() {
+            public Void execute(Connection conn) throws JobPersistenceException {
+                try {
+                    dead.getDelegate().updateSchedulerState(conn, "dead", 0L);
+                } catch (SQLException e) {
+                    throw new JobPersistenceException("Couldn't update scheduler state", e);
+                }
+                return null;
+            }
+        });
+    }
+
+    public void testRecoveryIsSplitIntoChunks() throws Exception {
+        JobDetail job = JobBuilder.newJob(RecoverableJob.class).withIdentity("recoverable")
+            .requestRecovery().storeDurably().build();
+        fireOnDeadInstance(job, 10);
+
+        live.setClusterRecoveryChunkSize(3);
+        assertTrue(live.doCheckin());
+
+        assertEquals(1L, live.getClusterRecoveryCount());
+        assertEquals(10, live.getLastClusterRecoverySize());
+
+        Set<TriggerKey> recoveryTriggers = live.getTriggerKeys(
+            GroupMatcher.triggerGroupEquals(Scheduler.DEFAULT_RECOVERY_GROUP));
+        assertEquals(10, recoveryTriggers.size());
+        for (TriggerKey key : recoveryTriggers) {
+            assertEquals("dead", key.getName().split("_")[1]);
+        }
+
+        List<?> states = live.executeWithoutLock(new JobStoreSupport.TransactionCallback<List<?>>() {
+            public List<?> execute(Connection conn) throws JobPersistenceException {
+                try {
+                    assertTrue(live.getDelegate().selectInstancesFiredTriggerRecords(conn, "dead").isEmpty());
+                    return live.getDelegate().selectSchedulerStateRecords(conn, "dead");
+                } catch (SQLException e) {
+                    throw new JobPersistenceException("Couldn't select scheduler state", e);
+                }
+            }
+        });
+        assertTrue(states.isEmpty());
+    }
+
+    public void testPartialChunkLeavesFailedInstanceState() throws Exception {
+        JobDetail job = JobBuilder.newJob(RecoverableJob.class).withIdentity("recoverable")
+            .requestRecovery().storeDurably().build();
+        fireOnDeadInstance(job, 5);
+
+        int recovered = (Integer) live.executeInLock(JobStoreSupport.LOCK_TRIGGER_ACCESS,
+            new JobStoreSupport.TransactionCallback<Integer>() {
+                public Integer execute(Connection conn) throws JobPersistenceException {
+                    return live.clusterRecover(conn, live.findFailedInstances(conn), 2);
+                }
+            });
+        assertEquals(2, recovered);
+
+        List<SchedulerStateRecord> states = selectSchedulerStates("dead");
+        assertEquals(1, states.size());
+        assertEquals(0L, states.get(0).getCheckinTimestamp());
+
+        assertTrue(live.doCheckin());
+        assertTrue(selectSchedulerStates("dead").isEmpty());
+        assertEquals(5, live.getTriggerKeys(GroupMatcher.triggerGroupEquals(Scheduler.DEFAULT_RECOVERY_GROUP)).size());
+    }
+
+    public void testBlockedTriggersAreReleased() throws Exception {
+        JobDetail job = JobBuilder.newJob(NonConcurrentJob.class).withIdentity("nonConcurrent")
+            .storeDurably().build();
+        fireOnDeadInstance(job, 1);
+
+        OperableTrigger other = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("other", "nonConcurrent").forJob(job)
+            .startAt(new Date(System.currentTimeMillis() + 60000L))
+            .build();
+        other.computeFirstFireTime(null);
+        dead.storeTrigger(other, false);
+        assertEquals(Trigger.TriggerState.BLOCKED, live.getTriggerState(other.getKey()));
+
+        assertTrue(live.doCheckin());
+
+        assertEquals(1, live.getLastClusterRecoverySize());
+        assertEquals(Trigger.TriggerState.NORMAL, live.getTriggerState(other.getKey()));
+    }
+
+    private List<SchedulerStateRecord> selectSchedulerStates(final String instanceId) throws JobPersistenceException {
+        return live.executeWithoutLock(new JobStoreSupport.TransactionCallback<List<SchedulerStateRecord>>() {
+            public List<SchedulerStateRecord> execute(Connection conn) throws JobPersistenceException {
+                try {
+                    return live.getDelegate().selectSchedulerStateRecords(conn, instanceId);
+                } catch (SQLException e) {
+                    throw new JobPersistenceException("Couldn't select scheduler state", e);
+                }
+            }
+        });
+    }
+
+    public void testLeaseCheckinOnlyRecoversExpiredInstances() throws Exception {
+        live.setLeaseBasedClusterCheckin(true);
+        dead.setLeaseBasedClusterCheckin(true);
+        assertFalse(live.doCheckin());
+        assertFalse(dead.doCheckin());
+
+        assertFalse(live.doCheckin());
+        assertFalse(dead.doCheckin());
+        assertTrue(selectSchedulerStates("live").get(0).getCheckinInterval()
+            >= (long) Math.ceil(live.getClusterCheckinInterval() * (1.0 + live.getClusterCheckinJitter())));
+
+        JobDetail job = JobBuilder.newJob(RecoverableJob.class).withIdentity("recoverable")
+            .requestRecovery().storeDurably().build();
+        fireOnDeadInstance(job, 1);
+
+        assertTrue(live.doCheckin());
+        assertTrue(selectSchedulerStates("dead").isEmpty());
+        assertEquals(1, live.getTriggerKeys(GroupMatcher.triggerGroupEquals(Scheduler.DEFAULT_RECOVERY_GROUP)).size());
+    }
+
+    public void testLeaseCheckinRestoresRemovedStateRecord() throws Exception {
+        live.setLeaseBasedClusterCheckin(true);
+        assertFalse(live.doCheckin());
+
+        live.executeWithoutLock(new JobStoreSupport.TransactionCallback<Void>() {
+            public Void execute(Connection conn) throws JobPersistenceException {
+                try {
+                    live.getDelegate().deleteSchedulerState(conn, "live");
+                } catch (SQLException e) {
+                    throw new JobPersistenceException("Couldn't delete scheduler state", e);
+                }
+                return null;
+            }
+        });
+
+        assertFalse(live.doCheckin());
+        assertEquals(1, selectSchedulerStates("live").size());
+        assertFalse(live.doCheckin());
+    }
+
+    public void testCheckinDelayIsJittered() throws Exception {
+        live.setClusterCheckinInterval(10000L);
+        assertEquals(10000L, live.getClusterCheckinDelay());
+
+        live.setLeaseBasedClusterCheckin(true);
+        live.setClusterCheckinJitter(0.2);
+        for (int i = 0; i < 100; i++) {
+            long delay = live.getClusterCheckinDelay();
+            assertTrue(delay >= 8000L && delay <= 12000L);
+        }
+    }
+
+    public static class RecoverableJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    @DisallowConcurrentExecution
+    public static class NonConcurrentJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.quartz.AbstractJobStoreTest.MyJob;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.JobDetailImpl;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport.RecoverMisfiredJobsResult;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+public class MisfireRecoveryTest extends TestCase {
+
+    private static final String DB_NAME = "MisfireRecoveryTest";
+
+    private JobStoreTX jobStore;
+
+    private CountingSignaler signaler;
+
+    @Override
+    protected void setUp() throws Exception {
+        JdbcQuartzTestUtilities.createDatabase(DB_NAME);
+        jobStore = new JobStoreTX();
+        jobStore.setDataSource(DB_NAME);
+        jobStore.setTablePrefix("QRTZ_");
+        jobStore.setInstanceId("SINGLE_NODE_TEST");
+        jobStore.setInstanceName(DB_NAME);
+        jobStore.setUseDBLocks(true);
+
+        ClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        signaler = new CountingSignaler();
+        jobStore.initialize(loadHelper, signaler);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        jobStore.shutdown();
+        JdbcQuartzTestUtilities.destroyDatabase(DB_NAME);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void storeMisfiredTriggers(int count) throws Exception {
+        JobDetailImpl job = new JobDetailImpl("job", "group", MyJob.class);
+        job.setDurability(true);
+        jobStore.storeJob(job, false);
+
+        Date start = new Date(System.currentTimeMillis() - 3600000L);
+        for (int i = 0; i < count; i++) {
+            SimpleTriggerImpl trigger = new SimpleTriggerImpl("trigger" + i, "group", "job", "group",
+                start, null, SimpleTrigger.REPEAT_INDEFINITELY, 60000L);
+            trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT);
+            trigger.computeFirstFireTime(null);
+            jobStore.storeTrigger(trigger, false);
+        }
+    }
+
+    public void testParallelRecoveryUpdatesAllMisfiredTriggers() throws Exception {
+        storeMisfiredTriggers(50);
+        jobStore.setMisfireRecoveryThreads(3);
+        jobStore.setMaxMisfiresToHandleAtATime(7);
+
+        long now = System.currentTimeMillis();
+        RecoverMisfiredJobsResult result = jobStore.doRecoverMisfires();
+
+        assertEquals(50, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+        assertTrue(result.getEarliestNewTime() > now);
+        assertEquals(50, signaler.misfires.get());
+        assertEquals(50L, jobStore.getMisfireRecoveryCount());
+        assertTrue(jobStore.getMisfireRecoveryRate() > 0.0);
+
+        for (int i = 0; i < 50; i++) {
+            OperableTrigger trigger = jobStore.retrieveTrigger(TriggerKey.triggerKey("trigger" + i, "group"));
+            assertTrue(trigger.getNextFireTime().getTime() > now);
+            assertEquals(Trigger.TriggerState.NORMAL, jobStore.getTriggerState(trigger.getKey()));
+        }
+
+        assertEquals(0, jobStore.doRecoverMisfires().getProcessedMisfiredTriggerCount());
+    }
+
+    public void testParallelRecoveryHonorsScanSize() throws Exception {
+        storeMisfiredTriggers(30);
+        jobStore.setMisfireRecoveryThreads(2);
+        jobStore.setMisfireRecoveryScanSize(20);
+
+        RecoverMisfiredJobsResult result = jobStore.doRecoverMisfires();
+        assertEquals(20, result.getProcessedMisfiredTriggerCount());
+        assertTrue(result.hasMoreMisfiredTriggers());
+
+        result = jobStore.doRecoverMisfires();
+        assertEquals(10, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+    }
+
+    public void testSkipsTriggerChangedAfterItWasLoaded() throws Exception {
+        storeMisfiredTriggers(1);
+        TriggerKey key = TriggerKey.triggerKey("trigger0", "group");
+        jobStore.setMisfireRecoveryThreads(1);
+
+        OperableTrigger loaded = jobStore.retrieveTrigger(key);
+        OperableTrigger updated = (OperableTrigger) loaded.clone();
+        updated.updateAfterMisfire(null);
+
+        jobStore.pauseTrigger(key);
+
+        final JobStoreSupport.MisfiredTriggerUpdate update = new JobStoreSupport.MisfiredTriggerUpdate(loaded, updated);
+        int stored = jobStore.executeWithoutLock(new JobStoreSupport.TransactionCallback<Integer>() {
+            public Integer execute(Connection conn) throws JobPersistenceException {
+                return jobStore.storeMisfiredTriggerUpdates(conn, Collections.singletonList(update)).size();
+            }
+        });
+
+        assertEquals(0, stored);
+        assertEquals(loaded.getNextFireTime(), jobStore.retrieveTrigger(key).getNextFireTime());
+    }
+
+    public void testBulkUpdatesOfFireNowAndDoNothingTriggers() throws Exception {
+        storeMisfiredTriggers(1);
+        Date start = new Date(System.currentTimeMillis() - 3600000L);
+
+        OperableTrigger fireNow = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("fireNow", "bulk").forJob("job", "group").startAt(start)
+            .usingJobData("key", "value")
+            .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+            .build();
+        OperableTrigger doNothing = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("doNothing", "bulk").forJob("job", "group").startAt(start)
+            .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?").withMisfireHandlingInstructionDoNothing())
+            .build();
+        OperableTrigger ended = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("ended", "bulk").forJob("job", "group").startAt(start)
+            .endAt(new Date(start.getTime() + 60000L))
+            .withSchedule(CronScheduleBuilder.cronSchedule("0 * * * * ?").withMisfireHandlingInstructionDoNothing())
+            .build();
+        for (OperableTrigger trigger : new OperableTrigger[] {fireNow, doNothing, ended}) {
+            trigger.computeFirstFireTime(null);
+            jobStore.storeTrigger(trigger, false);
+        }
+
+        jobStore.setBulkMisfireUpdates(true);
+        long now = System.currentTimeMillis();
+        RecoverMisfiredJobsResult result = jobStore.doRecoverMisfires();
+
+        assertEquals(4, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+        assertEquals(4, signaler.misfires.get());
+        assertEquals(1, signaler.finalized.get());
+
+        OperableTrigger stored = jobStore.retrieveTrigger(fireNow.getKey());
+        assertTrue(stored.getNextFireTime().getTime() >= now);
+        assertEquals("value", stored.getJobDataMap().getString("key"));
+        assertEquals(Trigger.TriggerState.NORMAL, jobStore.getTriggerState(fireNow.getKey()));
+
+        stored = jobStore.retrieveTrigger(doNothing.getKey());
+        assertTrue(stored.getNextFireTime().getTime() > now);
+        assertTrue(stored.getNextFireTime().getTime() <= now + 3600000L);
+
+        assertEquals(Trigger.TriggerState.COMPLETE, jobStore.getTriggerState(ended.getKey()));
+
+        OperableTrigger repeating = jobStore.retrieveTrigger(TriggerKey.triggerKey("trigger0", "group"));
+        assertTrue(repeating.getNextFireTime().getTime() > now);
+    }
+
+    public void testBulkUpdatesHonorScanSize() throws Exception {
+        JobDetailImpl job = new JobDetailImpl("job", "group", MyJob.class);
+        job.setDurability(true);
+        jobStore.storeJob(job, false);
+        Date start = new Date(System.currentTimeMillis() - 3600000L);
+        for (int i = 0; i < 5; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("fireNow" + i, "bulk").forJob("job", "group").startAt(start)
+                .build();
+            trigger.computeFirstFireTime(null);
+            jobStore.storeTrigger(trigger, false);
+        }
+
+        jobStore.setBulkMisfireUpdates(true);
+        jobStore.setMisfireRecoveryScanSize(3);
+        jobStore.setMaxMisfiresToHandleAtATime(1);
+
+        RecoverMisfiredJobsResult result = jobStore.doRecoverMisfires();
+        assertEquals(4, result.getProcessedMisfiredTriggerCount());
+        assertTrue(result.hasMoreMisfiredTriggers());
+
+        result = jobStore.doRecoverMisfires();
+        assertEquals(1, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+    }
+
+    public void testBulkUpdatesKeepSpreadWindow() throws Exception {
+        JobDetailImpl job = new JobDetailImpl("job", "group", MyJob.class);
+        job.setDurability(true);
+        jobStore.storeJob(job, false);
+        OperableTrigger spread = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("spread", "bulk").forJob("job", "group")
+            .startAt(new Date(System.currentTimeMillis() - 3 * 3600000L))
+            .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?")
+                .inTimeZone(TimeZone.getTimeZone("UTC"))
+                .withSpreadInMinutes(60)
+                .withMisfireHandlingInstructionDoNothing())
+            .usingJobData("key", "value")
+            .build();
+        spread.computeFirstFireTime(null);
+        jobStore.storeTrigger(spread, false);
+
+        jobStore.setBulkMisfireUpdates(true);
+        assertEquals(1, jobStore.doRecoverMisfires().getProcessedMisfiredTriggerCount());
+
+        OperableTrigger stored = jobStore.retrieveTrigger(spread.getKey());
+        assertEquals(3600000L, ((CronTrigger) stored).getSpreadWindow());
+        assertEquals(Collections.singletonMap("key", "value"), stored.getJobDataMap().getWrappedMap());
+        assertEquals(((CronTrigger) spread).getSpreadOffset(), stored.getNextFireTime().getTime() % 3600000L);
+    }
+
+    static class CountingSignaler implements SchedulerSignaler {
+        final AtomicInteger misfires = new AtomicInteger();
+        final AtomicInteger finalized = new AtomicInteger();
+
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+            misfires.incrementAndGet();
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+            finalized.incrementAndGet();
+        }
+
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+        }
+    }
+}
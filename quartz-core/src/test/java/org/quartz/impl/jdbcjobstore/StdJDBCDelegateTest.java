@@ -33,6 +33,7 @@ import java.util.List;
 
 import org.quartz.JobPersistenceException;
 import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.spi.OperableTrigger;
 import org.slf4j.LoggerFactory;
 import org.quartz.JobDataMap;
@@ -66,6 +67,17 @@ public class StdJDBCDelegateTest extends TestCase {
         }
     }
 
+    public void testLikeClauseEscapesWildcards() {
+        StdJDBCDelegate delegate = new StdJDBCDelegate();
+
+        assertEquals("abc%", delegate.toSqlLikeClause(GroupMatcher.triggerGroupStartsWith("abc")));
+        assertEquals("a!_b!%c!!%", delegate.toSqlLikeClause(GroupMatcher.triggerGroupStartsWith("a_b%c!")));
+        assertEquals("%!_b", delegate.toSqlLikeClause(GroupMatcher.triggerGroupEndsWith("_b")));
+        assertEquals("%!%%", delegate.toSqlLikeClause(GroupMatcher.triggerGroupContains("%")));
+        assertEquals("a!_b", delegate.toSqlLikeClause(GroupMatcher.triggerGroupEquals("a_b")));
+        assertEquals("%", delegate.toSqlLikeClause(GroupMatcher.anyTriggerGroup()));
+    }
+
     public void testSelectBlobTriggerWithNoBlobContent() throws JobPersistenceException, SQLException, IOException, ClassNotFoundException {
         StdJDBCDelegate jdbcDelegate = new StdJDBCDelegate();
         jdbcDelegate.initialize(LoggerFactory.getLogger(getClass()), "QRTZ_", "TESTSCHED", "INSTANCE", new SimpleClassLoadHelper(), false, "");
@@ -0,0 +1,143 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.quartz.SchedulerConfigException;
+
+/**
+ * Unit test for ElasticThreadPool.
+ */
+public class ElasticThreadPoolTest extends TestCase {
+
+    private ElasticThreadPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        pool = new ElasticThreadPool(1, 4, Thread.NORM_PRIORITY);
+        pool.setKeepAliveTime(100L);
+        pool.setInstanceName("ElasticThreadPoolTest");
+        pool.initialize();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdown(true);
+    }
+
+    public void testStartsCoreThreadsOnly() {
+        assertEquals(4, pool.getPoolSize());
+        assertEquals(1, pool.getCurrentPoolSize());
+        assertEquals(0, pool.getBusyThreadCount());
+        assertEquals(4, pool.getAvailableThreadCount());
+        assertEquals(4, pool.blockForAvailableThreads());
+    }
+
+    public void testGrowsToThreadCountAndBlocksWhenFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pool.runInThread(new Runnable() {
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            }));
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(4, pool.getCurrentPoolSize());
+        assertEquals(4, pool.getBusyThreadCount());
+        assertEquals(0, pool.getAvailableThreadCount());
+
+        final AtomicInteger available = new AtomicInteger(-1);
+        Thread blocked = new Thread() {
+            @Override
+            public void run() {
+                available.set(pool.blockForAvailableThreads());
+            }
+        };
+        blocked.start();
+        blocked.join(200L);
+        assertTrue(blocked.isAlive());
+
+        release.countDown();
+        blocked.join(10000L);
+        assertFalse(blocked.isAlive());
+        assertTrue(available.get() > 0);
+    }
+
+    public void testReapsIdleThreadsDownToCore() throws Exception {
+        final CountDownLatch started = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            pool.runInThread(new Runnable() {
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(3, pool.getCurrentPoolSize());
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (pool.getCurrentPoolSize() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        assertEquals(1, pool.getCurrentPoolSize());
+        assertEquals(0, pool.getBusyThreadCount());
+        assertEquals(4, pool.getAvailableThreadCount());
+    }
+
+    public void testRunsEveryRunnable() throws Exception {
+        final int runs = 10000;
+        final AtomicInteger ran = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(runs);
+        for (int i = 0; i < runs; i++) {
+            assertTrue(pool.blockForAvailableThreads() > 0);
+            assertTrue(pool.runInThread(new Runnable() {
+                public void run() {
+                    ran.incrementAndGet();
+                    done.countDown();
+                }
+            }));
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(runs, ran.get());
+        assertTrue(pool.getCurrentPoolSize() <= 4);
+    }
+
+    public void testRejectsCoreCountAboveThreadCount() {
+        ElasticThreadPool misconfigured = new ElasticThreadPool(5, 4, Thread.NORM_PRIORITY);
+        try {
+            misconfigured.initialize();
+            fail("Expected SchedulerConfigException");
+        } catch (SchedulerConfigException expected) {
+        }
+    }
+}
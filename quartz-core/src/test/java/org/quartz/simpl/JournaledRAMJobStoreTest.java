@@ -0,0 +1,268 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.quartz.AbstractJobStoreTest;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.calendar.WeeklyCalendar;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredResult;
+
+public class JournaledRAMJobStoreTest extends AbstractJobStoreTest {
+
+    private final List<JournaledRAMJobStore> stores = new ArrayList<JournaledRAMJobStore>();
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("quartz-journal", "");
+        directory.delete();
+        super.setUp();
+    }
+
+    @Override
+    protected JobStore createJobStore(String name) {
+        JournaledRAMJobStore store = new JournaledRAMJobStore();
+        store.setJournalDirectory(new File(directory, name + stores.size()).getPath());
+        stores.add(store);
+        return store;
+    }
+
+    @Override
+    protected void destroyJobStore(String name) {
+        for (JournaledRAMJobStore store : stores) {
+            store.shutdown();
+        }
+        delete(directory);
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private JournaledRAMJobStore restart(JournaledRAMJobStore store) throws Exception {
+        store.shutdown();
+        JournaledRAMJobStore restarted = (JournaledRAMJobStore) createJobStore("restarted");
+        restarted.setJournalDirectory(store.getJournalDirectory());
+        restarted.setSnapshotThreshold(store.getSnapshotThreshold());
+        restarted.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+        return restarted;
+    }
+
+    private JournaledRAMJobStore startStore() throws Exception {
+        JournaledRAMJobStore store = (JournaledRAMJobStore) createJobStore("journal");
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+        return store;
+    }
+
+    private OperableTrigger buildTrigger(String name, String group, JobDetail job, Date start) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity(name, group).forJob(job).startAt(start)
+            .withSchedule(SimpleScheduleBuilder.repeatMinutelyForever())
+            .build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    public void testRecoversStoreAfterRestart() throws Exception {
+        JournaledRAMJobStore store = startStore();
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job", "group").storeDurably()
+            .usingJobData("key", "value").build();
+        store.storeJob(job, false);
+        store.storeCalendar("weekly", new WeeklyCalendar(), false, false);
+
+        Date start = new Date(System.currentTimeMillis() - 1000L);
+        OperableTrigger fired = buildTrigger("fired", "group", job, start);
+        store.storeTrigger(fired, false);
+        OperableTrigger paused = buildTrigger("paused", "pausedGroup", job, start);
+        store.storeTrigger(paused, false);
+        store.pauseTriggers(GroupMatcher.triggerGroupEquals("pausedGroup"));
+        OperableTrigger removed = buildTrigger("removed", "group", job, start);
+        store.storeTrigger(removed, false);
+        store.removeTrigger(removed.getKey());
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(System.currentTimeMillis() + 10000L, 1, 0L);
+        assertEquals(1, acquired.size());
+        assertEquals(fired.getKey(), acquired.get(0).getKey());
+        List<TriggerFiredResult> results = store.triggersFired(acquired);
+        Date nextFireTime = results.get(0).getTriggerFiredBundle().getNextFireTime();
+        assertNotNull(nextFireTime);
+
+        store = restart(store);
+
+        assertEquals("value", store.retrieveJob(job.getKey()).getJobDataMap().getString("key"));
+        assertNotNull(store.retrieveCalendar("weekly"));
+        assertEquals(nextFireTime, store.retrieveTrigger(fired.getKey()).getNextFireTime());
+        assertEquals(Trigger.TriggerState.NORMAL, store.getTriggerState(fired.getKey()));
+        assertEquals(Trigger.TriggerState.PAUSED, store.getTriggerState(paused.getKey()));
+        assertTrue(store.getPausedTriggerGroups().contains("pausedGroup"));
+        assertNull(store.retrieveTrigger(removed.getKey()));
+
+        store.resumeTriggers(GroupMatcher.triggerGroupEquals("pausedGroup"));
+        store.removeCalendar("weekly");
+        store = restart(store);
+
+        assertEquals(Trigger.TriggerState.NORMAL, store.getTriggerState(paused.getKey()));
+        assertTrue(store.getPausedTriggerGroups().isEmpty());
+        assertNull(store.retrieveCalendar("weekly"));
+    }
+
+    public void testAcquiredTriggersAreReleasedAfterRestart() throws Exception {
+        JournaledRAMJobStore store = startStore();
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").build();
+        OperableTrigger trigger = buildTrigger("trigger", "group", job, new Date(System.currentTimeMillis() + 5000L));
+        store.storeJobAndTrigger(job, trigger);
+        assertEquals(1, store.acquireNextTriggers(System.currentTimeMillis() + 10000L, 1, 0L).size());
+
+        store = restart(store);
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(System.currentTimeMillis() + 10000L, 1, 0L);
+        assertEquals(1, acquired.size());
+        store.triggersFired(acquired);
+        store.triggeredJobComplete(acquired.get(0), job, CompletedExecutionInstruction.DELETE_TRIGGER);
+
+        store = restart(store);
+
+        assertNull(store.retrieveTrigger(trigger.getKey()));
+        assertNull(store.retrieveJob(job.getKey()));
+    }
+
+    public void testAcquisitionChangesSurviveRestart() throws Exception {
+        JournaledRAMJobStore store = (JournaledRAMJobStore) createJobStore("acquisition");
+        store.setTriggerGroupRateLimits("rated=1");
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+        long now = System.currentTimeMillis();
+        OperableTrigger late = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity("late", "group").forJob(job).startAt(new Date(now - 10500L))
+            .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(1).repeatForever()
+                .withMisfireHandlingInstructionCoalesceMissedFires())
+            .build();
+        late.computeFirstFireTime(null);
+        store.storeTrigger(late, false);
+        for (int i = 1; i <= 3; i++) {
+            OperableTrigger rated = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("rated" + i, "rated").forJob(job).startAt(new Date(now - 500L))
+                .build();
+            rated.computeFirstFireTime(null);
+            store.storeTrigger(rated, false);
+        }
+
+        // the late trigger misfires, and two of the rated ones are deferred
+        assertEquals(2, store.acquireNextTriggers(System.currentTimeMillis() + 10000L, 10, 0L).size());
+        Date[] nextFireTimes = new Date[4];
+        for (int i = 1; i <= 3; i++) {
+            nextFireTimes[i] = store.retrieveTrigger(new TriggerKey("rated" + i, "rated")).getNextFireTime();
+        }
+        nextFireTimes[0] = store.retrieveTrigger(late.getKey()).getNextFireTime();
+
+        store = restart(store);
+
+        SimpleTriggerImpl recovered = (SimpleTriggerImpl) store.retrieveTrigger(late.getKey());
+        assertEquals(nextFireTimes[0], recovered.getNextFireTime());
+        assertEquals(11, recovered.getPendingMissedFireCount());
+        int deferred = 0;
+        for (int i = 1; i <= 3; i++) {
+            Date nextFireTime = store.retrieveTrigger(new TriggerKey("rated" + i, "rated")).getNextFireTime();
+            assertEquals(nextFireTimes[i], nextFireTime);
+            if (nextFireTime.getTime() > now) {
+                deferred++;
+            }
+        }
+        assertEquals(2, deferred);
+    }
+
+    public void testSnapshotReplacesJournal() throws Exception {
+        JournaledRAMJobStore store = (JournaledRAMJobStore) createJobStore("snapshot");
+        File journalDirectory = new File(store.getJournalDirectory());
+        store.setSnapshotThreshold(10);
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+        for (int i = 0; i < 25; i++) {
+            store.storeTrigger(buildTrigger("trigger" + i, "group", job, new Date()), false);
+        }
+
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (journalDirectory.list().length > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        assertEquals(2, journalDirectory.list().length);
+
+        store = restart(store);
+        assertEquals(25, store.getTriggerKeys(GroupMatcher.triggerGroupEquals("group")).size());
+    }
+
+    public void testTornRecordIsIgnored() throws Exception {
+        JournaledRAMJobStore store = startStore();
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+        store.shutdown();
+
+        appendToJournal(new File(store.getJournalDirectory()), new byte[] {0, 0, 0, 100, 1, 2, 3});
+
+        store = restart(store);
+        assertNotNull(store.retrieveJob(job.getKey()));
+        store.storeJob(JobBuilder.newJob(MyJob.class).withIdentity("job2").storeDurably().build(), false);
+
+        store = restart(store);
+        assertNotNull(store.retrieveJob(job.getKey()));
+        assertNotNull(store.retrieveJob(JobKey.jobKey("job2")));
+        assertFalse(store.checkExists(TriggerKey.triggerKey("none")));
+    }
+
+    private void appendToJournal(File journalDirectory, byte[] garbage) throws IOException {
+        for (File file : journalDirectory.listFiles()) {
+            if (file.getName().startsWith("journal-")) {
+                FileOutputStream out = new FileOutputStream(file, true);
+                try {
+                    out.write(garbage);
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quartz.AbstractJobStoreTest.MyJob;
+import org.quartz.AbstractJobStoreTest.SampleSignaler;
+import org.quartz.JobBuilder;
+import org.quartz.JobKey;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.utils.KeyInterner;
+
+/**
+ * Compares <code>RAMJobStore</code> with and without interned job keys: the
+ * memory used per trigger, and the cost of looking up job keys held by
+ * triggers in a map keyed by the store's own instances.
+ *
+ * <pre>
+ * java -Xmx4g -cp ... org.quartz.simpl.KeyInterningBenchmark [triggers] [jobs]
+ * </pre>
+ */
+public class KeyInterningBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        measureStore(false, count, jobs);
+        measureStore(true, count, jobs);
+        measureLookups(false, count, jobs);
+        measureLookups(true, count, jobs);
+    }
+
+    private static void measureStore(boolean internKeys, int count, int jobs) throws Exception {
+        RAMJobStore store = new RAMJobStore();
+        store.setInternKeys(internKeys);
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+        for (int j = 0; j < jobs; j++) {
+            store.storeJob(JobBuilder.newJob(MyJob.class).withIdentity("job" + j, "jobs").storeDurably().build(), false);
+        }
+
+        long heapBefore = usedHeap();
+        long start = System.currentTimeMillis();
+        long fireTime = start + 3600000L;
+        for (int i = 0; i < count; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("trigger" + i, "group" + (i % 10))
+                .forJob(new JobKey("job" + (i % jobs), "jobs"))
+                .startAt(new Date(fireTime + i))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule())
+                .build();
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        long heap = usedHeap() - heapBefore;
+
+        // reads the store after measuring, so it cannot be collected first
+        System.out.println("internKeys=" + internKeys + ": " + store.getNumberOfTriggers() + " triggers stored in " + elapsed + " ms, "
+            + (heap / count) + " bytes/trigger on heap");
+    }
+
+    private static void measureLookups(boolean interned, int count, int jobs) {
+        KeyInterner<JobKey> interner = new KeyInterner<JobKey>();
+        Map<JobKey, Integer> byKey = new HashMap<JobKey, Integer>();
+        for (int j = 0; j < jobs; j++) {
+            JobKey key = interner.intern(new JobKey("job" + j, "jobs"));
+            byKey.put(key, j);
+        }
+        // the job keys held by each trigger, as built by the trigger builder
+        JobKey[] held = new JobKey[count];
+        for (int i = 0; i < count; i++) {
+            JobKey key = new JobKey("job" + (i % jobs), "jobs");
+            held[i] = interned ? interner.intern(key) : key;
+        }
+
+        long sum = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (JobKey key : held) {
+                sum += byKey.get(key);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round == 4) {
+                System.out.println("interned=" + interned + ": " + count + " lookups in " + (elapsed / 1000000L)
+                    + " ms, " + (elapsed / count) + " ns/lookup (checksum " + sum + ")");
+            }
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100L);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for LockFreeThreadPool.
+ */
+public class LockFreeThreadPoolTest extends TestCase {
+
+    private LockFreeThreadPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        pool = new LockFreeThreadPool(4, Thread.NORM_PRIORITY);
+        pool.setInstanceName("LockFreeThreadPoolTest");
+        pool.initialize();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdown(true);
+    }
+
+    public void testRunsEveryRunnable() throws Exception {
+        final int runs = 10000;
+        final AtomicInteger ran = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(runs);
+        for (int i = 0; i < runs; i++) {
+            assertTrue(pool.blockForAvailableThreads() > 0);
+            assertTrue(pool.runInThread(new Runnable() {
+                public void run() {
+                    ran.incrementAndGet();
+                    done.countDown();
+                }
+            }));
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(runs, ran.get());
+    }
+
+    public void testBlockForAvailableThreadsWaitsForAWorker() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            pool.runInThread(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            });
+        }
+        assertEquals(0, pool.getAvailableThreadCount());
+
+        final AtomicInteger available = new AtomicInteger(-1);
+        Thread blocked = new Thread() {
+            @Override
+            public void run() {
+                available.set(pool.blockForAvailableThreads());
+            }
+        };
+        blocked.start();
+        blocked.join(200L);
+        assertTrue(blocked.isAlive());
+
+        release.countDown();
+        blocked.join(10000L);
+        assertFalse(blocked.isAlive());
+        assertTrue(available.get() > 0);
+    }
+
+    public void testShutdownWaitsForRunningJobs() throws Exception {
+        final AtomicInteger finished = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            pool.runInThread(new Runnable() {
+                public void run() {
+                    started.countDown();
+                    try {
+                        Thread.sleep(300L);
+                    } catch (InterruptedException ignore) {
+                    }
+                    finished.incrementAndGet();
+                }
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        pool.shutdown(true);
+        assertEquals(2, finished.get());
+        assertEquals(0, pool.blockForAvailableThreads());
+    }
+}
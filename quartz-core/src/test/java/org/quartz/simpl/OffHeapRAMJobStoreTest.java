@@ -0,0 +1,179 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.quartz.AbstractJobStoreTest;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+
+public class OffHeapRAMJobStoreTest extends AbstractJobStoreTest {
+
+    @Override
+    protected JobStore createJobStore(String name) {
+        return new OffHeapRAMJobStore();
+    }
+
+    @Override
+    protected void destroyJobStore(String name) {
+    }
+
+    private static RAMJobStore startStore(RAMJobStore store) throws Exception {
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+        store.schedulerStarted();
+        return store;
+    }
+
+    private static OperableTrigger buildTrigger(TriggerKey key, JobDetail job, Date start, int priority) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+            .withIdentity(key).forJob(job).startAt(start).withPriority(priority)
+            .usingJobData("key", key.toString())
+            .withSchedule(SimpleScheduleBuilder.repeatMinutelyForever())
+            .build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    public void testTriggersAreAcquiredInTheSameOrderAsRAMJobStore() throws Exception {
+        RAMJobStore expected = startStore(new RAMJobStore());
+        OffHeapRAMJobStore actual = (OffHeapRAMJobStore) startStore(new OffHeapRAMJobStore());
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        expected.storeJob(job, false);
+        actual.storeJob(job, false);
+
+        String[] groups = {"DEFAULT", "a", "b", "bb"};
+        String[] names = {"T", "t", "t1", "t10", "t2", "u"};
+        long base = System.currentTimeMillis() + 3600000L;
+        Random random = new Random(42);
+        for (String group : groups) {
+            for (String name : names) {
+                for (int i = 0; i < 20; i++) {
+                    OperableTrigger trigger = buildTrigger(new TriggerKey(name + "-" + i, group), job,
+                        new Date(base + random.nextInt(4) * 1000L), random.nextInt(3));
+                    expected.storeTrigger(trigger, false);
+                    actual.storeTrigger(trigger, false);
+                }
+            }
+        }
+        for (int i = 0; i < 40; i++) {
+            TriggerKey key = new TriggerKey("t-" + i, groups[i % groups.length]);
+            assertEquals(expected.removeTrigger(key), actual.removeTrigger(key));
+        }
+        assertEquals(expected.getNumberOfTriggers(), actual.getNumberOfTriggers());
+
+        List<TriggerKey> expectedOrder = acquireAll(expected, base);
+        List<TriggerKey> actualOrder = acquireAll(actual, base);
+        assertEquals(expected.getNumberOfTriggers(), expectedOrder.size());
+        assertEquals(expectedOrder, actualOrder);
+    }
+
+    private static List<TriggerKey> acquireAll(RAMJobStore store, long base) {
+        List<TriggerKey> keys = new ArrayList<TriggerKey>();
+        List<OperableTrigger> acquired;
+        while (!(acquired = store.acquireNextTriggers(base + 10000L, 7, 10000L)).isEmpty()) {
+            for (OperableTrigger trigger : acquired) {
+                keys.add(trigger.getKey());
+            }
+        }
+        return keys;
+    }
+
+    public void testFiringUpdatesStoredTrigger() throws Exception {
+        OffHeapRAMJobStore store = (OffHeapRAMJobStore) startStore(new OffHeapRAMJobStore());
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").build();
+        OperableTrigger trigger = buildTrigger(new TriggerKey("trigger"), job, new Date(), 5);
+        store.storeJobAndTrigger(job, trigger);
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(System.currentTimeMillis() + 1000L, 1, 0L);
+        assertEquals(1, acquired.size());
+        assertEquals(trigger.getKey().toString(), acquired.get(0).getJobDataMap().getString("key"));
+        store.triggersFired(acquired);
+
+        OperableTrigger stored = store.retrieveTrigger(trigger.getKey());
+        assertEquals(trigger.getNextFireTime(), stored.getPreviousFireTime());
+        assertEquals(new Date(trigger.getNextFireTime().getTime() + 60000L), stored.getNextFireTime());
+        assertEquals(5, stored.getPriority());
+
+        store.triggeredJobComplete(acquired.get(0), job, CompletedExecutionInstruction.DELETE_TRIGGER);
+        assertNull(store.retrieveTrigger(trigger.getKey()));
+        assertNull(store.retrieveJob(job.getKey()));
+        assertEquals(0, store.getNumberOfTriggers());
+        assertTrue(store.getTriggerGroupNames().isEmpty());
+    }
+
+    public void testRemovedSlotsAreReused() throws Exception {
+        OffHeapRAMJobStore store = (OffHeapRAMJobStore) startStore(new OffHeapRAMJobStore());
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+
+        Date start = new Date(System.currentTimeMillis() + 3600000L);
+        for (int i = 0; i < 5000; i++) {
+            store.storeTrigger(buildTrigger(new TriggerKey("trigger" + i, "group" + (i % 3)), job, start, 5), false);
+        }
+        long size = store.getOffHeapSize();
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5000; i += 2) {
+                assertTrue(store.removeTrigger(new TriggerKey("trigger" + i, "group" + (i % 3))));
+            }
+            for (int i = 0; i < 5000; i += 2) {
+                store.storeTrigger(buildTrigger(new TriggerKey("trigger" + i, "group" + (i % 3)), job, start, 5), false);
+            }
+        }
+
+        assertEquals(size, store.getOffHeapSize());
+        assertEquals(5000, store.getNumberOfTriggers());
+        assertEquals(5000 / 3 + 1, store.getTriggerKeys(GroupMatcher.triggerGroupEquals("group0")).size());
+        for (int i = 0; i < 5000; i++) {
+            TriggerKey key = new TriggerKey("trigger" + i, "group" + (i % 3));
+            assertEquals(key.toString(), store.retrieveTrigger(key).getJobDataMap().getString("key"));
+        }
+        assertEquals(5000, store.getTriggersForJob(job.getKey()).size());
+
+        store.clearAllSchedulingData();
+        assertEquals(0, store.getNumberOfTriggers());
+        assertTrue(store.getOffHeapSize() < size);
+    }
+
+    public void testNonSerializableTriggerIsRejected() throws Exception {
+        OffHeapRAMJobStore store = (OffHeapRAMJobStore) startStore(new OffHeapRAMJobStore());
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+
+        OperableTrigger trigger = buildTrigger(new TriggerKey("trigger"), job, new Date(), 5);
+        trigger.getJobDataMap().put("object", new Object());
+        try {
+            store.storeTrigger(trigger, false);
+            fail("Expected JobPersistenceException");
+        } catch (JobPersistenceException expected) {
+        }
+        assertFalse(store.checkExists(trigger.getKey()));
+        assertEquals(0, store.getNumberOfTriggers());
+    }
+}
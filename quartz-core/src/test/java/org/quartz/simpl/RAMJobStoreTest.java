@@ -15,8 +15,17 @@
  */
 package org.quartz.simpl;
 
+import java.util.Date;
+import java.util.List;
+
 import org.quartz.AbstractJobStoreTest;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
 import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
 
 public class RAMJobStoreTest extends AbstractJobStoreTest {
 
@@ -30,4 +39,36 @@ public class RAMJobStoreTest extends AbstractJobStoreTest {
     protected void destroyJobStore(String name) {
 
     }
+
+    public void testInternedJobKeysAreShared() throws Exception {
+        RAMJobStore store = new RAMJobStore();
+        store.setInternKeys(true);
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job", "group").storeDurably().build();
+        store.storeJob(job, false);
+        Date start = new Date(System.currentTimeMillis() + 3600000L);
+        for (int i = 0; i < 3; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("trigger" + i).forJob(new JobKey("job", "group")).startAt(start)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule())
+                .build();
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+
+        List<OperableTrigger> triggers = store.getTriggersForJob(job.getKey());
+        assertEquals(3, triggers.size());
+        JobKey shared = store.retrieveJob(job.getKey()).getKey();
+        for (OperableTrigger trigger : triggers) {
+            assertSame(shared, trigger.getJobKey());
+        }
+
+        // a removed job's key is released, so a new job with the same key is canonical again
+        store.removeJob(job.getKey());
+        JobDetail replacement = JobBuilder.newJob(MyJob.class).withIdentity("job", "group").storeDurably().build();
+        store.storeJob(replacement, false);
+        assertSame(replacement.getKey(), store.retrieveJob(job.getKey()).getKey());
+        assertNotSame(shared, store.retrieveJob(job.getKey()).getKey());
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.spi.ThreadPool;
+
+/**
+ * Compares <code>SimpleThreadPool</code> and <code>LockFreeThreadPool</code>
+ * the way <code>QuartzSchedulerThread</code> drives them: one thread calls
+ * <code>blockForAvailableThreads()</code> then <code>runInThread()</code> for
+ * short jobs, and the delay from hand-off to the job starting is recorded.
+ *
+ * <pre>
+ * java -cp ... org.quartz.simpl.ThreadPoolHandoffBenchmark [jobs] [threads]
+ * </pre>
+ */
+public class ThreadPoolHandoffBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        for (int round = 0; round < 2; round++) {
+            measure(new SimpleThreadPool(threads, Thread.NORM_PRIORITY), jobs, round == 1);
+            measure(new LockFreeThreadPool(threads, Thread.NORM_PRIORITY), jobs, round == 1);
+        }
+    }
+
+    private static void measure(ThreadPool pool, int jobs, boolean print) throws Exception {
+        pool.setInstanceName("benchmark");
+        pool.initialize();
+
+        final long[] delays = new long[jobs];
+        final CountDownLatch done = new CountDownLatch(jobs);
+        long start = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            pool.blockForAvailableThreads();
+            final int index = i;
+            final long handedOff = System.nanoTime();
+            pool.runInThread(new Runnable() {
+                public void run() {
+                    delays[index] = System.nanoTime() - handedOff;
+                    done.countDown();
+                }
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown(true);
+
+        if (print) {
+            Arrays.sort(delays);
+            System.out.println(pool.getClass().getSimpleName() + ": " + jobs + " jobs in " + (elapsed / 1000000L)
+                + " ms, hand-off delay median " + (delays[jobs / 2] / 1000L) + " us, p99 "
+                + (delays[(int) (jobs * 0.99)] / 1000L) + " us, max " + (delays[jobs - 1] / 1000L) + " us");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.Date;
+
+import org.quartz.AbstractJobStoreTest.MyJob;
+import org.quartz.AbstractJobStoreTest.SampleSignaler;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+
+/**
+ * Measures the memory used per trigger by <code>RAMJobStore</code> and
+ * <code>OffHeapRAMJobStore</code>, for one-shot triggers of a single job.
+ *
+ * <pre>
+ * java -Xmx4g -XX:MaxDirectMemorySize=4g -cp ... org.quartz.simpl.TriggerStoreMemoryBenchmark [triggers]
+ * </pre>
+ */
+public class TriggerStoreMemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        measure(new RAMJobStore(), count);
+        measure(new OffHeapRAMJobStore(), count);
+    }
+
+    private static void measure(RAMJobStore store, int count) throws Exception {
+        store.initialize(new CascadingClassLoadHelper(), new SampleSignaler());
+        JobDetail job = JobBuilder.newJob(MyJob.class).withIdentity("job").storeDurably().build();
+        store.storeJob(job, false);
+
+        long heapBefore = usedHeap();
+        long start = System.currentTimeMillis();
+        long fireTime = start + 3600000L;
+        for (int i = 0; i < count; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity("trigger" + i, "group" + (i % 10)).forJob(job)
+                .startAt(new Date(fireTime + i))
+                .usingJobData("id", i)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule())
+                .build();
+            trigger.computeFirstFireTime(null);
+            store.storeTrigger(trigger, false);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        long heap = usedHeap() - heapBefore;
+        long offHeap = store instanceof OffHeapRAMJobStore ? ((OffHeapRAMJobStore) store).getOffHeapSize() : 0L;
+
+        System.out.println(store.getClass().getSimpleName() + ": " + count + " triggers stored in " + elapsed + " ms, "
+            + (heap / count) + " bytes/trigger on heap, " + (offHeap / count) + " bytes/trigger off heap");
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100L);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.quartz.utils;
+
+import junit.framework.TestCase;
+
+import org.quartz.AbstractJobStoreTest;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+
+import static org.quartz.JobBuilder.newJob;
+
+/**
+ * Unit tests for ConcurrencyLimits.
+ */
+public class ConcurrencyLimitsTest extends TestCase {
+
+    public void testJobGroupLimits() {
+        ConcurrencyLimits limits = new ConcurrencyLimits();
+        assertFalse(limits.isInUse());
+
+        limits.setJobGroupLimits(" api=3, reports = 1 ,");
+        assertTrue(limits.isInUse());
+        assertEquals(3, limits.getJobGroupLimit("api"));
+        assertEquals(1, limits.getJobGroupLimit("reports"));
+        assertEquals(0, limits.getJobGroupLimit("other"));
+
+        JobDetail job = newJob(AbstractJobStoreTest.MyJob.class).withIdentity("job", "api").build();
+        assertTrue(limits.isLimited(job));
+        assertTrue(limits.admits(job, 5, 2));
+        assertFalse(limits.admits(job, 0, 3));
+    }
+
+    public void testJobLimitFromAnnotation() {
+        ConcurrencyLimits limits = new ConcurrencyLimits();
+        JobDetail unlimited = newJob(AbstractJobStoreTest.MyJob.class).withIdentity("unlimited").build();
+        assertFalse(limits.isLimited(unlimited));
+        assertFalse(limits.isInUse());
+
+        JobDetail limited = newJob(AbstractJobStoreTest.LimitedJob.class).withIdentity("limited").build();
+        assertEquals(2, limits.getJobLimit(limited));
+        assertTrue(limits.isInUse());
+
+        ConcurrencyLimits.Counts executing = new ConcurrencyLimits.Counts();
+        executing.increment(limited.getKey());
+        ConcurrencyLimits.Counts acquired = new ConcurrencyLimits.Counts();
+        assertTrue(limits.admits(limited, executing, acquired));
+        acquired.increment(limited.getKey());
+        assertFalse(limits.admits(limited, executing, acquired));
+        executing.decrement(limited.getKey());
+        assertTrue(limits.admits(limited, executing, acquired));
+        assertEquals(0, executing.getJobGroupCount(JobKey.DEFAULT_GROUP));
+    }
+
+    public void testRejectsMalformedJobGroupLimits() {
+        ConcurrencyLimits limits = new ConcurrencyLimits();
+        for (String malformed : new String[] { "api", "api=", "=3", "api=0", "api=x" }) {
+            try {
+                limits.setJobGroupLimits(malformed);
+                fail("Expected IllegalArgumentException for " + malformed);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -15,6 +15,10 @@
  */
 package org.quartz.utils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -188,4 +192,140 @@ public class DirtyFlagMapTest extends TestCase {
         assertTrue(dirtyFlagMap.isDirty());
         assertEquals(0, dirtyFlagMap.size());
     }    
+
+    @SuppressWarnings("unchecked")
+    private DirtyFlagMap<String, String> cloneOf(DirtyFlagMap<String, String> map) {
+        return (DirtyFlagMap<String, String>) map.clone();
+    }
+
+    private DirtyFlagMap<String, String> createMap() {
+        DirtyFlagMap<String, String> dirtyFlagMap = new DirtyFlagMap<String, String>();
+        dirtyFlagMap.put("a", "A");
+        dirtyFlagMap.put("b", "B");
+        dirtyFlagMap.clearDirtyFlag();
+        return dirtyFlagMap;
+    }
+
+    public void testCloneIsolatesPutAndRemove() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+        assertEquals(original, copy);
+
+        copy.put("c", "C");
+        assertTrue(copy.isDirty());
+        assertFalse(original.isDirty());
+        assertFalse(original.containsKey("c"));
+
+        original.remove("a");
+        assertTrue(copy.containsKey("a"));
+        assertEquals(1, original.size());
+        assertEquals(3, copy.size());
+
+        copy.remove("x");
+        assertEquals(3, copy.size());
+    }
+
+    public void testCloneIsolatesClear() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        original.clear();
+        assertTrue(original.isEmpty());
+        assertEquals(2, copy.size());
+
+        copy.keySet().clear();
+        assertTrue(copy.isDirty());
+        assertTrue(copy.isEmpty());
+    }
+
+    public void testCloneIsolatesViews() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        copy.values().remove("A");
+        assertFalse(copy.containsKey("a"));
+        assertTrue(original.containsKey("a"));
+        assertFalse(original.isDirty());
+
+        copy = cloneOf(original);
+        copy.entrySet().retainAll(Collections.EMPTY_LIST);
+        assertTrue(copy.isEmpty());
+        assertEquals(2, original.size());
+    }
+
+    public void testCloneIsolatesIteratorRemove() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        Iterator<String> keyIter = copy.keySet().iterator();
+        while (keyIter.hasNext()) {
+            keyIter.next();
+            keyIter.remove();
+        }
+        assertTrue(copy.isDirty());
+        assertTrue(copy.isEmpty());
+        assertEquals(2, original.size());
+    }
+
+    public void testCloneIsolatesEntrySetValue() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        for (Map.Entry<String, String> entry : copy.entrySet()) {
+            entry.setValue(entry.getValue() + "1");
+            assertEquals(copy.get(entry.getKey()), entry.getValue());
+            entry.setValue(entry.getValue() + "2");
+        }
+        assertEquals("A12", copy.get("a"));
+        assertEquals("B12", copy.get("b"));
+        assertEquals("A", original.get("a"));
+        assertEquals("B", original.get("b"));
+    }
+
+    public void testCloneIsolatesWrappedMap() {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        copy.getWrappedMap().put("c", "C");
+        assertFalse(original.containsKey("c"));
+        assertTrue(copy.containsKey("c"));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testSerializedClonesStayIsolated() throws Exception {
+        DirtyFlagMap<String, String> original = createMap();
+        DirtyFlagMap<String, String> copy = cloneOf(original);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(original);
+        out.writeObject(copy);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        DirtyFlagMap<String, String> readOriginal = (DirtyFlagMap<String, String>) in.readObject();
+        DirtyFlagMap<String, String> readCopy = (DirtyFlagMap<String, String>) in.readObject();
+
+        readCopy.put("c", "C");
+        assertFalse(readOriginal.containsKey("c"));
+        assertEquals(original, readOriginal);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testSerializedMapIsModifiedInPlace() throws Exception {
+        DirtyFlagMap<String, String> original = createMap();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(original);
+        out.writeObject(original.getWrappedMap());
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        DirtyFlagMap<String, String> read = (DirtyFlagMap<String, String>) in.readObject();
+        Map<String, String> readWrapped = (Map<String, String>) in.readObject();
+
+        read.put("c", "C");
+        assertEquals("C", readWrapped.get("c"));
+    }
 }
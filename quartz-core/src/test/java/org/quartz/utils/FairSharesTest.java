@@ -0,0 +1,100 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.quartz.utils;
+
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for FairShares.
+ */
+public class FairSharesTest extends TestCase {
+
+    public void testInterleavesByWeight() {
+        FairShares shares = new FairShares();
+        shares.setWeights("a=3, b = 1,");
+        assertEquals(3, shares.getWeight("a"));
+        assertEquals(1, shares.getWeight("c"));
+
+        Map<String, List<String>> due = new LinkedHashMap<String, List<String>>();
+        due.put("a", Arrays.asList("a1", "a2", "a3", "a4", "a5", "a6"));
+        due.put("b", Arrays.asList("b1", "b2"));
+        due.put("c", Arrays.asList("c1"));
+        assertEquals(Arrays.asList("a1", "b1", "c1", "a2", "a3", "a4", "b2", "a5", "a6"), shares.interleave(due));
+    }
+
+    public void testInterleavesManyGroupsInTurn() {
+        FairShares shares = new FairShares();
+        Map<String, List<String>> due = new LinkedHashMap<String, List<String>>();
+        for (int g = 0; g < 1000; g++) {
+            due.put("g" + g, Arrays.asList("g" + g + "-1", "g" + g + "-2"));
+        }
+        List<String> interleaved = shares.interleave(due);
+        assertEquals(2000, interleaved.size());
+        for (int g = 0; g < 1000; g++) {
+            assertEquals("g" + g + "-1", interleaved.get(g));
+            assertEquals("g" + g + "-2", interleaved.get(1000 + g));
+        }
+    }
+
+    public void testSharesHoldAcrossAcquisitions() {
+        FairShares shares = new FairShares();
+        Map<String, List<String>> due = new LinkedHashMap<String, List<String>>();
+        due.put("busy", Arrays.asList("busy1"));
+        due.put("quiet", Arrays.asList("quiet1"));
+
+        // acquiring one at a time, the groups take turns
+        assertEquals("busy1", shares.interleave(due).get(0));
+        shares.acquired("busy");
+        assertEquals("quiet1", shares.interleave(due).get(0));
+        shares.acquired("quiet");
+        assertEquals("busy1", shares.interleave(due).get(0));
+
+        // a trigger offered but not acquired costs its group nothing
+        assertEquals("busy1", shares.interleave(due).get(0));
+        shares.acquired("busy");
+
+        // a group that was not due starts level with the others
+        due.remove("quiet");
+        shares.interleave(due);
+        shares.acquired("busy");
+        due.put("quiet", Arrays.asList("quiet1"));
+        assertEquals("busy1", shares.interleave(due).get(0));
+    }
+
+    public void testWeightsChangeAtRuntime() {
+        FairShares shares = new FairShares();
+        shares.setWeight("a", 2);
+        assertEquals(Integer.valueOf(2), shares.getWeights().get("a"));
+        try {
+            shares.setWeight("a", 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        for (String malformed : new String[] { "a", "a=", "=2", "a=0", "a=x" }) {
+            try {
+                shares.setWeights(malformed);
+                fail("Expected IllegalArgumentException for " + malformed);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+
+import org.quartz.JobDataMap;
+
+/**
+ * Measures the <code>JobDataMap</code> work of each fire of a job that
+ * updates its data, the way a JDBC store does it: the map is read back from
+ * its blob, one entry is written, and the map is written out again.  It is
+ * run with the map modified in place, as read-back maps now are, and with
+ * the copy on first write that read-back maps used to take, reproduced by
+ * cloning the map before writing to it.  A <code>RAMJobStore</code>-style
+ * fire, writing to a clone of the stored map, is measured alongside.
+ *
+ * <pre>
+ * java -cp ... org.quartz.utils.JobDataMapCopyBenchmark [fires] [entries]
+ * </pre>
+ */
+public class JobDataMapCopyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fires = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        JobDataMap stored = new JobDataMap();
+        for (int i = 0; i < entries; i++) {
+            stored.put("key" + i, "value" + i);
+        }
+        stored.put("count", 0);
+        byte[] blob = serialize(stored);
+
+        for (int round = 0; round < 2; round++) {
+            measureBlob("copy on first write", blob, fires, true, round == 1);
+            measureBlob("in place", blob, fires, false, round == 1);
+            measureClone(stored, fires, round == 1);
+        }
+    }
+
+    private static void measureBlob(String name, byte[] blob, int fires, boolean copy, boolean print) throws Exception {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < fires; i++) {
+            JobDataMap map = (JobDataMap) new ObjectInputStream(new ByteArrayInputStream(blob)).readObject();
+            if (copy) {
+                map = (JobDataMap) map.clone();
+            }
+            map.put("count", map.getInt("count") + 1);
+            blob = serialize(map);
+        }
+        report("blob, " + name, fires, System.nanoTime() - start, allocatedBytes() - allocated, print);
+    }
+
+    private static void measureClone(JobDataMap stored, int fires, boolean print) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < fires; i++) {
+            JobDataMap map = (JobDataMap) stored.clone();
+            map.put("count", map.getInt("count") + 1);
+            count += map.size();
+        }
+        report("clone of stored map (checksum " + count + ")", fires, System.nanoTime() - start,
+            allocatedBytes() - allocated, print);
+    }
+
+    private static void report(String name, int fires, long elapsed, long allocated, boolean print) {
+        if (print) {
+            System.out.println(name + ": " + (fires * 1000000000L / elapsed) + " fires/s, "
+                + (allocated / fires) + " bytes allocated/fire");
+        }
+    }
+
+    private static byte[] serialize(Object o) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(o);
+        out.close();
+        return baos.toByteArray();
+    }
+
+    // needs a HotSpot-based JVM
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
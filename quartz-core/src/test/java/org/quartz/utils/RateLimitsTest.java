@@ -0,0 +1,88 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.quartz.utils;
+
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.spi.OperableTrigger;
+
+/**
+ * Unit tests for RateLimits.
+ */
+public class RateLimitsTest extends TestCase {
+
+    public void testLimitsOfTriggerAndJobGroups() {
+        RateLimits limits = new RateLimits();
+        assertFalse(limits.isInUse());
+
+        limits.setTriggerGroupLimits(" reports = 0.5 ,");
+        limits.setJobGroupLimits("api=10:5");
+        assertTrue(limits.isInUse());
+
+        assertEquals(2, limits.getLimits(newTrigger("reports", "api", 0L)).size());
+        assertEquals(1, limits.getLimits(newTrigger("other", "api", 0L)).size());
+        assertEquals(RateLimits.JOB_GROUP, limits.getLimits(newTrigger("other", "api", 0L)).get(0).getType());
+        assertTrue(limits.getLimits(newTrigger("other", "other", 0L)).isEmpty());
+    }
+
+    public void testBurstThenRate() {
+        RateLimits limits = new RateLimits();
+        limits.setJobGroupLimits("api=10:3");
+        Map<RateLimits.RateLimit, Long> nextPermitTimes = new HashMap<RateLimits.RateLimit, Long>();
+
+        // three fires at once use up the burst, the fourth waits out the rate
+        for (int i = 0; i < 3; i++) {
+            OperableTrigger trigger = newTrigger("t", "api", 1000L);
+            assertEquals(1000L, limits.getPermitTime(trigger, nextPermitTimes));
+            limits.takePermits(trigger, nextPermitTimes);
+        }
+        OperableTrigger fourth = newTrigger("t", "api", 1000L);
+        assertEquals(1100L, limits.getPermitTime(fourth, nextPermitTimes));
+        limits.throttled(fourth, nextPermitTimes);
+        assertEquals(1L, limits.getThrottledFireCount());
+        assertEquals(Long.valueOf(1L), limits.getThrottledFireCounts().get("JOB_GROUP:api"));
+
+        // a fire at the permitted time goes ahead, and an idle second refills the bucket
+        fourth.setNextFireTime(new Date(1100L));
+        limits.takePermits(fourth, nextPermitTimes);
+        assertEquals(1200L, limits.getPermitTime(newTrigger("t", "api", 1000L), nextPermitTimes));
+        assertEquals(2500L, limits.getPermitTime(newTrigger("t", "api", 2500L), nextPermitTimes));
+    }
+
+    public void testRejectsMalformedLimits() {
+        RateLimits limits = new RateLimits();
+        for (String malformed : new String[] { "api", "api=", "=3", "api=0", "api=x", "api=1:0", "api=1:x" }) {
+            try {
+                limits.setJobGroupLimits(malformed);
+                fail("Expected IllegalArgumentException for " + malformed);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    private static OperableTrigger newTrigger(String group, String jobGroup, long fireTime) {
+        SimpleTriggerImpl trigger = new SimpleTriggerImpl("trigger", group, "job", jobGroup,
+            new Date(fireTime), null, 0, 0);
+        trigger.setNextFireTime(new Date(fireTime));
+        return trigger;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * All content copyright Terracotta, Inc., unless otherwise indicated. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+import org.quartz.JobDataMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the typed getters of StringKeyDirtyFlagMap, and the
+ * values they cache when parsing Strings.
+ */
+public class StringKeyDirtyFlagMapTest extends TestCase {
+
+    public void testTypedGettersParseStrings() {
+        JobDataMap map = new JobDataMap();
+        map.putAsString("int", 42);
+        map.putAsString("long", Long.MAX_VALUE);
+        map.putAsString("float", 1.5f);
+        map.putAsString("double", -2.25d);
+        map.putAsString("boolean", true);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(42, map.getInt("int"));
+            assertEquals(42, map.getIntValue("int"));
+            assertEquals(Integer.valueOf(42), map.getIntegerFromString("int"));
+            assertEquals(Long.MAX_VALUE, map.getLong("long"));
+            assertEquals(Long.MAX_VALUE, map.getLongValueFromString("long"));
+            assertEquals(1.5f, map.getFloat("float"), 0.0f);
+            assertEquals(1.5f, map.getFloatValue("float"), 0.0f);
+            assertEquals(-2.25d, map.getDouble("double"), 0.0d);
+            assertEquals(-2.25d, map.getDoubleValueFromString("double"), 0.0d);
+            assertTrue(map.getBooleanValue("boolean"));
+        }
+        assertEquals("42", map.get("int"));
+    }
+
+    public void testChangedValueIsParsedAgain() {
+        JobDataMap map = new JobDataMap();
+        map.put("key", "1");
+        assertEquals(1, map.getIntValue("key"));
+        assertEquals(1L, map.getLongValue("key"));
+
+        map.put("key", "2");
+        assertEquals(2, map.getIntValue("key"));
+        assertEquals(2L, map.getLongValue("key"));
+
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            entry.setValue("3");
+        }
+        assertEquals(3, map.getIntValue("key"));
+
+        map.put("key", 4);
+        assertEquals(4, map.getIntValue("key"));
+    }
+
+    public void testClonesShareParsedValues() {
+        JobDataMap original = new JobDataMap();
+        original.putAsString("key", 7);
+        JobDataMap copy = (JobDataMap) original.clone();
+        assertEquals(7, copy.getIntValue("key"));
+
+        copy.putAsString("key", 8);
+        assertEquals(8, copy.getIntValue("key"));
+        assertEquals(7, original.getIntValue("key"));
+
+        JobDataMap merged = new JobDataMap();
+        merged.putAll(original);
+        merged.putAll(copy);
+        assertEquals(8, merged.getIntValue("key"));
+        assertEquals(7, original.getIntValue("key"));
+    }
+
+    public void testParsedValuesOfManyKeys() {
+        JobDataMap map = new JobDataMap();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                map.putAsString("key" + round + "_" + i, i + round);
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i + round, map.getIntValue("key" + round + "_" + i));
+                assertEquals(i + round, map.getIntValue("key" + round + "_" + i));
+            }
+            // the keys of this round are replaced by the next one's
+            for (int i = 0; i < 100; i++) {
+                map.remove("key" + round + "_" + i);
+            }
+        }
+        map.putAsString("key", 42L);
+        assertEquals(42L, map.getLongValue("key"));
+        assertEquals(42L, map.getLongValue("key"));
+    }
+
+    public void testUnparsableValues() {
+        JobDataMap map = new JobDataMap();
+        map.put("key", "x");
+        try {
+            map.getIntFromString("key");
+            fail();
+        } catch (NumberFormatException expected) {
+        }
+        try {
+            map.getInt("key");
+            fail();
+        } catch (ClassCastException expected) {
+        }
+
+        map.put("key", "5");
+        assertEquals(5, map.getIntFromString("key"));
+    }
+
+    public void testSerializedMapParsesValues() throws Exception {
+        JobDataMap map = new JobDataMap();
+        map.putAsString("key", 9L);
+        assertEquals(9L, map.getLongValue("key"));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(map);
+        out.close();
+
+        JobDataMap read = (JobDataMap) new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+        assertEquals(map, read);
+        assertEquals(9L, read.getLongValue("key"));
+    }
+}
@@ -27,6 +27,7 @@
 
 -- Auto drop and reset tables 
 -- Derby doesn't support if exists condition on table drop, so user must manually do this step if needed to.
+drop table qrtz_delayed_tasks;
 drop table qrtz_fired_triggers;
 drop table qrtz_paused_trigger_grps;
 drop table qrtz_scheduler_state;
@@ -25,12 +25,14 @@ import org.quartz.SchedulerConfigException;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.impl.StdSchedulerFactory;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionFilter;
 import org.quartz.spi.TriggerFiredResult;
 import org.terracotta.toolkit.internal.ToolkitInternal;
 import org.terracotta.toolkit.rejoin.RejoinException;
@@ -130,6 +132,16 @@ public abstract class AbstractTerracottaJobStore implements JobStore {
     }
   }
 
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+                                                   TriggerAcquisitionFilter filter) throws JobPersistenceException {
+    try {
+      return realJobStore.acquireNextTriggers(noLaterThan, maxCount, timeWindow, filter);
+    } catch (RejoinException e) {
+      throw new JobPersistenceException("Trigger acquisition failed due to client rejoin", e);
+    }
+  }
+
   @Override
   public List<String> getCalendarNames() throws JobPersistenceException {
     try {
@@ -157,6 +169,16 @@ public abstract class AbstractTerracottaJobStore implements JobStore {
     }
   }
 
+  @Override
+  public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+      throws JobPersistenceException {
+    try {
+      return realJobStore.getJobKeys(matcher, afterKey, limit);
+    } catch (RejoinException e) {
+      throw new JobPersistenceException("Job key retrieval failed due to client rejoin", e);
+    }
+  }
+
   @Override
   public int getNumberOfCalendars() throws JobPersistenceException {
     try {
@@ -211,6 +233,16 @@ public abstract class AbstractTerracottaJobStore implements JobStore {
     }
   }
 
+  @Override
+  public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+      throws JobPersistenceException {
+    try {
+      return realJobStore.getTriggerKeys(matcher, afterKey, limit);
+    } catch (RejoinException e) {
+      throw new JobPersistenceException("Trigger key retrieval failed due to client rejoin", e);
+    }
+  }
+
   @Override
   public List<OperableTrigger> getTriggersForJob(JobKey jobKey) throws JobPersistenceException {
     try {
@@ -229,6 +261,16 @@ public abstract class AbstractTerracottaJobStore implements JobStore {
     }
   }
 
+  @Override
+  public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+      throws JobPersistenceException {
+    try {
+      return realJobStore.getTriggerSummaries(triggerKeys);
+    } catch (RejoinException e) {
+      throw new JobPersistenceException("Trigger state retrieval failed due to client rejoin", e);
+    }
+  }
+
   @Override
   public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
     try {
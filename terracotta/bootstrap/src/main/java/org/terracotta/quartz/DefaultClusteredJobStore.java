@@ -20,6 +20,7 @@ import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.Trigger.CompletedExecutionInstruction;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.matchers.StringMatcher;
 import org.quartz.impl.matchers.StringMatcher.StringOperatorName;
@@ -27,8 +28,10 @@ import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionFilter;
 import org.quartz.spi.TriggerFiredBundle;
 import org.quartz.spi.TriggerFiredResult;
+import org.quartz.utils.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.quartz.collections.TimeTriggerSet;
@@ -53,7 +56,10 @@ import org.terracotta.toolkit.internal.concurrent.locks.ToolkitLockTypeInternal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -808,6 +814,28 @@ class DefaultClusteredJobStore implements ClusteredJobStore {
       unlock();
     }
 
+    return toTriggerState(tw);
+  }
+
+  @Override
+  public Map<TriggerKey, TriggerSummary> getTriggerSummaries(Collection<TriggerKey> triggerKeys)
+      throws JobPersistenceException {
+    Map<TriggerKey, TriggerSummary> summaries = new HashMap<TriggerKey, TriggerSummary>();
+    lock();
+    try {
+      for (TriggerKey key : triggerKeys) {
+        TriggerWrapper tw = triggerFacade.get(key);
+        if (tw != null) {
+          summaries.put(key, new TriggerSummary(key, tw.getJobKey(), toTriggerState(tw), tw.getNextFireTime()));
+        }
+      }
+    } finally {
+      unlock();
+    }
+    return summaries;
+  }
+
+  private static Trigger.TriggerState toTriggerState(TriggerWrapper tw) {
     if (tw == null) { return Trigger.TriggerState.NONE; }
 
     if (tw.getState() == TriggerState.COMPLETE) { return Trigger.TriggerState.COMPLETE; }
@@ -1033,6 +1061,41 @@ class DefaultClusteredJobStore implements ClusteredJobStore {
     }
   }
 
+  @Override
+  public List<JobKey> getJobKeys(GroupMatcher<JobKey> matcher, JobKey afterKey, int limit)
+      throws JobPersistenceException {
+    return page(getJobKeys(matcher), afterKey, limit);
+  }
+
+  @Override
+  public List<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher, TriggerKey afterKey, int limit)
+      throws JobPersistenceException {
+    return page(getTriggerKeys(matcher), afterKey, limit);
+  }
+
+  /**
+   * The clustered group maps are not sorted, so a page is cut from the full set of matching keys, sorted by group and
+   * then name.
+   */
+  private static <K extends Key<K>> List<K> page(Collection<K> keys, K afterKey, int limit) {
+    List<K> sorted = new ArrayList<K>(keys.size());
+    for (K key : keys) {
+      if (afterKey == null || KEY_ORDER.compare(key, afterKey) > 0) {
+        sorted.add(key);
+      }
+    }
+    Collections.sort(sorted, KEY_ORDER);
+    return new ArrayList<K>(sorted.subList(0, Math.min(limit, sorted.size())));
+  }
+
+  private static final Comparator<Key<?>> KEY_ORDER = new Comparator<Key<?>>() {
+    @Override
+    public int compare(Key<?> a, Key<?> b) {
+      int r = a.getGroup().compareTo(b.getGroup());
+      return r != 0 ? r : a.getName().compareTo(b.getName());
+    }
+  };
+
   /**
    * <p>
    * Get the names of all of the <code>{@link org.quartz.Calendar}</code> s in the <code>JobStore</code>.
@@ -1478,10 +1541,16 @@ class DefaultClusteredJobStore implements ClusteredJobStore {
   @Override
   public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
       throws JobPersistenceException {
+    return acquireNextTriggers(noLaterThan, maxCount, timeWindow, null);
+  }
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+                                                   TriggerAcquisitionFilter filter) throws JobPersistenceException {
     List<OperableTrigger> result = new ArrayList<OperableTrigger>();;
     lock();
     try {
-      for (TriggerWrapper tw : getNextTriggerWrappers(timeTriggers, noLaterThan, maxCount, timeWindow)) {
+      for (TriggerWrapper tw : getNextTriggerWrappers(timeTriggers, noLaterThan, maxCount, timeWindow, filter)) {
         result.add(markAndCloneTrigger(tw));
       }
       return result;
@@ -1550,6 +1619,12 @@ class DefaultClusteredJobStore implements ClusteredJobStore {
 
   List<TriggerWrapper> getNextTriggerWrappers(final TimeTriggerSet source, final long noLaterThan, final int maxCount,
                                               final long timeWindow) throws JobPersistenceException {
+    return getNextTriggerWrappers(source, noLaterThan, maxCount, timeWindow, null);
+  }
+
+  List<TriggerWrapper> getNextTriggerWrappers(final TimeTriggerSet source, final long noLaterThan, final int maxCount,
+                                              final long timeWindow, final TriggerAcquisitionFilter filter)
+      throws JobPersistenceException {
 
     List<TriggerWrapper> wrappers = new ArrayList<TriggerWrapper>();
     Set<JobKey> acquiredJobKeysForNoConcurrentExec = new HashSet<JobKey>();
@@ -1586,11 +1661,19 @@ class DefaultClusteredJobStore implements ClusteredJobStore {
           source.add(tw);
           break;
         }
-        if (tw.jobDisallowsConcurrence()) {
-          if (acquiredJobKeysForNoConcurrentExec.contains(tw.getJobKey())) {
+        if (tw.jobDisallowsConcurrence() && acquiredJobKeysForNoConcurrentExec.contains(tw.getJobKey())) {
+          excludedTriggers.add(tw);
+          continue;
+        }
+        if (filter != null) {
+          // a trigger the filter rejects stays waiting, like the ones above
+          JobWrapper jw = jobFacade.get(tw.getJobKey());
+          if (jw == null || !filter.accept(tw.getTriggerClone(), jw.getJobDetailClone())) {
             excludedTriggers.add(tw);
             continue;
           }
+        }
+        if (tw.jobDisallowsConcurrence()) {
           acquiredJobKeysForNoConcurrentExec.add(tw.getJobKey());
         }
 
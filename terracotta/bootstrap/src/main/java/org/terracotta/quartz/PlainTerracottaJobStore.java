@@ -27,10 +27,12 @@ import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.Trigger.CompletedExecutionInstruction;
 import org.quartz.TriggerKey;
+import org.quartz.TriggerSummary;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionFilter;
 import org.quartz.spi.TriggerFiredResult;
 import org.terracotta.toolkit.internal.ToolkitInternal;
 
@@ -74,6 +76,12 @@ public class PlainTerracottaJobStore<T extends ClusteredJobStore> implements Ter
     return clusteredJobStore.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
   }
 
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow,
+                                                   TriggerAcquisitionFilter filter) throws JobPersistenceException {
+    return clusteredJobStore.acquireNextTriggers(noLaterThan, maxCount, timeWindow, filter);
+  }
+
   @Override
   public List<String> getCalendarNames() throws JobPersistenceException {
     return clusteredJobStore.getCalendarNames();
@@ -89,6 +97,12 @@ public class PlainTerracottaJobStore<T extends ClusteredJobStore> implements Ter
     return clusteredJobStore.getJobKeys(matcher);
   }
 
+  @Override
+  public List<JobKey> getJobKeys(final GroupMatcher<JobKey> matcher, final JobKey afterKey, final int limit)
+      throws JobPersistenceException {
+    return clusteredJobStore.getJobKeys(matcher, afterKey, limit);
+  }
+
   @Override
   public int getNumberOfCalendars() throws JobPersistenceException {
     return clusteredJobStore.getNumberOfCalendars();
@@ -119,6 +133,12 @@ public class PlainTerracottaJobStore<T extends ClusteredJobStore> implements Ter
     return clusteredJobStore.getTriggerKeys(matcher);
   }
 
+  @Override
+  public List<TriggerKey> getTriggerKeys(final GroupMatcher<TriggerKey> matcher, final TriggerKey afterKey,
+                                         final int limit) throws JobPersistenceException {
+    return clusteredJobStore.getTriggerKeys(matcher, afterKey, limit);
+  }
+
   @Override
   public List<OperableTrigger> getTriggersForJob(final JobKey jobKey) throws JobPersistenceException {
     return clusteredJobStore.getTriggersForJob(jobKey);
@@ -129,6 +149,12 @@ public class PlainTerracottaJobStore<T extends ClusteredJobStore> implements Ter
     return clusteredJobStore.getTriggerState(triggerKey);
   }
 
+  @Override
+  public Map<TriggerKey, TriggerSummary> getTriggerSummaries(final Collection<TriggerKey> triggerKeys)
+      throws JobPersistenceException {
+    return clusteredJobStore.getTriggerSummaries(triggerKeys);
+  }
+
   @Override
   public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
     clusteredJobStore.resetTriggerFromErrorState(triggerKey);